@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import com.mongodb.DBObject;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.Assert;
+
+import uk.ac.ebi.eva.commons.models.data.SamplesData;
+
+/**
+ * Converts the samples of a file, as classified by genotype in mongo, back into the genotypes of {@link SamplesData}.
+ * Only the genotypes are restored, which is what the statistics need.
+ * <p>
+ * The samples that are not listed under any genotype have the default one, or no genotype if there is no default.
+ * The positions can be stored either as arrays or in the compact encoding of {@link SamplePositionsCodec}.
+ * <p>
+ * The other way converter is {@link SamplesToDBObjectConverter}
+ */
+public class DBObjectToSamplesConverter implements Converter<DBObject, SamplesData> {
+
+    private static final String STORED_MISSING_ALLELE = "-1";
+
+    private static final String MISSING_ALLELE = ".";
+
+    private final int numSamples;
+
+    /**
+     * @param numSamples number of samples in the file, as the positions of the default genotype are not stored
+     */
+    public DBObjectToSamplesConverter(int numSamples) {
+        Assert.isTrue(numSamples >= 0, "The number of samples must not be negative");
+        this.numSamples = numSamples;
+    }
+
+    @Override
+    public SamplesData convert(DBObject mongoSamples) {
+        SamplesData samples = new SamplesData();
+        samples.ensureCapacity(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            samples.addSample();
+        }
+        int genotypeField = samples.getFieldIndex(SamplesData.GENOTYPE_FIELD);
+
+        Object defaultGenotype = mongoSamples.get(SamplesToDBObjectConverter.DEFAULT_GENOTYPE_FIELD);
+        if (defaultGenotype != null) {
+            String genotype = decodeGenotype(defaultGenotype.toString());
+            for (int i = 0; i < numSamples; i++) {
+                samples.setValue(i, genotypeField, genotype);
+            }
+        }
+
+        for (String key : mongoSamples.keySet()) {
+            if (SamplesToDBObjectConverter.DEFAULT_GENOTYPE_FIELD.equals(key)) {
+                continue;
+            }
+            String genotype = decodeGenotype(key);
+            for (int position : SamplePositionsCodec.decode(mongoSamples.get(key))) {
+                if (position < 0 || position >= numSamples) {
+                    throw new IllegalArgumentException("Sample position " + position + " of genotype " + genotype
+                                                               + " is out of the " + numSamples + " samples");
+                }
+                samples.setValue(position, genotypeField, genotype);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * The missing alleles are stored as "-1", because keys of mongo documents can't contain dots
+     */
+    private static String decodeGenotype(String genotype) {
+        return genotype.replace(STORED_MISSING_ALLELE, MISSING_ALLELE);
+    }
+}
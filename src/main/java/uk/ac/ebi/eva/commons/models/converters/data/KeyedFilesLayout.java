@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import com.mongodb.DBObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyed layout of the files and statistics of a variant document.
+ * <p>
+ * By default, the files and statistics are arrays, and a new file is added with an $addToSet that compares it with
+ * every element already in the array:
+ * <pre>
+ * "files": [{"sid": "s1", "fid": "f1", ...}, ...],
+ * "st": [{"sid": "s1", "fid": "f1", "cid": "ALL", ...}, ...]
+ * </pre>
+ * In the keyed layout, they are documents keyed by study, file and cohort, so a file is added with a $set and a study
+ * is removed with an $unset, regardless of how many studies the variant is in:
+ * <pre>
+ * "files": {"s1": {"f1": {"sid": "s1", "fid": "f1", ...}}, ...},
+ * "st": {"s1": {"f1": {"ALL": {"sid": "s1", "fid": "f1", "cid": "ALL", ...}}}, ...}
+ * </pre>
+ * The elements are the same in both layouts. The dots in the keys are replaced like in the attributes of the files.
+ * <p>
+ * The layouts can't be mixed in a collection, because an update of one layout fails on a document of the other one.
+ * The files can't be indexed by study in the keyed layout, so the queries by study scan the collection.
+ */
+public class KeyedFilesLayout {
+
+    private KeyedFilesLayout() {
+    }
+
+    /**
+     * @param id identifier of a study, file or cohort
+     * @return the key of the identifier in the keyed layout
+     */
+    public static String encodeKey(String id) {
+        if (id == null || id.isEmpty() || id.charAt(0) == '$') {
+            throw new IllegalArgumentException("The identifier \"" + id + "\" can't be used as a key");
+        }
+        return id.replace('.', VariantSourceEntryToDBObjectConverter.CHARACTER_TO_REPLACE_DOTS);
+    }
+
+    /**
+     * @return the path of the files of a study, as used in queries and updates
+     */
+    public static String studyFilesField(String studyId) {
+        return VariantToDBObjectConverter.FILES_FIELD + "." + encodeKey(studyId);
+    }
+
+    public static String fileField(String studyId, String fileId) {
+        return studyFilesField(studyId) + "." + encodeKey(fileId);
+    }
+
+    public static String studyStatsField(String studyId) {
+        return VariantToDBObjectConverter.STATS_FIELD + "." + encodeKey(studyId);
+    }
+
+    public static String fileStatsField(String studyId, String fileId) {
+        return studyStatsField(studyId) + "." + encodeKey(fileId);
+    }
+
+    /**
+     * @return the files of a variant document in either layout, or an empty list if it has no files field
+     */
+    public static List<DBObject> getFiles(DBObject variant) {
+        return getElements(variant.get(VariantToDBObjectConverter.FILES_FIELD), 2);
+    }
+
+    /**
+     * @return the statistics of a variant document in either layout, or an empty list if it has no statistics field
+     */
+    public static List<DBObject> getStats(DBObject variant) {
+        return getElements(variant.get(VariantToDBObjectConverter.STATS_FIELD), 3);
+    }
+
+    private static List<DBObject> getElements(Object field, int keyLevels) {
+        List<DBObject> elements = new ArrayList<>();
+        // a BasicDBList is also a DBObject, so the arrays must be checked first
+        if (field instanceof List) {
+            for (Object element : (List<?>) field) {
+                elements.add((DBObject) element);
+            }
+        } else if (field instanceof DBObject) {
+            addKeyedElements((DBObject) field, keyLevels, elements);
+        }
+        return elements;
+    }
+
+    private static void addKeyedElements(DBObject document, int keyLevels, List<DBObject> elements) {
+        for (String key : document.keySet()) {
+            DBObject value = (DBObject) document.get(key);
+            if (keyLevels == 1) {
+                elements.add(value);
+            } else {
+                addKeyedElements(value, keyLevels - 1, elements);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import org.bson.types.Binary;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact encoding of the positions of the samples that have a genotype, as stored in the "samp" field of the files
+ * of a variant.
+ * <p>
+ * By default the positions are an array of integers, which takes 7 to 12 bytes per sample in BSON. The compact
+ * encoding is a binary value of subtype {@link #BINARY_SUBTYPE}: the number of positions followed by the first
+ * position and the differences between consecutive positions, all of them as unsigned LEB128 varints. The positions
+ * of a genotype are usually close to each other, so most of them take one or two bytes.
+ * <p>
+ * {@link #decode(Object)} reads both encodings, so the readers don't need to know which one a database uses.
+ */
+public class SamplePositionsCodec {
+
+    /**
+     * First of the user-defined BSON binary subtypes
+     */
+    public static final byte BINARY_SUBTYPE = (byte) 0x80;
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+
+    private static final int VARINT_PAYLOAD_MASK = 0x7f;
+
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private SamplePositionsCodec() {
+    }
+
+    /**
+     * @param positions sample positions in increasing order
+     */
+    public static byte[] encode(int[] positions) {
+        byte[] buffer = new byte[(positions.length + 1) * MAX_VARINT_BYTES];
+        int length = writeVarint(buffer, 0, positions.length);
+        int previous = 0;
+        for (int position : positions) {
+            if (position < previous) {
+                throw new IllegalArgumentException("Sample positions must be in increasing order, " + position
+                                                           + " is after " + previous);
+            }
+            length = writeVarint(buffer, length, position - previous);
+            previous = position;
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public static Binary encodeAsBinary(int[] positions) {
+        return new Binary(BINARY_SUBTYPE, encode(positions));
+    }
+
+    public static int[] decode(byte[] encoded) {
+        int[] offset = {0};
+        int numPositions = readVarint(encoded, offset);
+        int[] positions = new int[numPositions];
+        int previous = 0;
+        for (int i = 0; i < numPositions; i++) {
+            previous += readVarint(encoded, offset);
+            positions[i] = previous;
+        }
+        if (offset[0] != encoded.length) {
+            throw new IllegalArgumentException("Unexpected bytes after the last sample position");
+        }
+        return positions;
+    }
+
+    /**
+     * Reads the positions of a genotype in the "samp" field, in either the compact encoding or as an array
+     *
+     * @param value the value of the genotype, a {@link Binary} or a list of numbers
+     */
+    public static int[] decode(Object value) {
+        if (value instanceof Binary) {
+            Binary binary = (Binary) value;
+            if (binary.getType() != BINARY_SUBTYPE) {
+                throw new IllegalArgumentException("Unexpected binary subtype " + binary.getType());
+            }
+            return decode(binary.getData());
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            int[] positions = new int[list.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = ((Number) list.get(i)).intValue();
+            }
+            return positions;
+        }
+        throw new IllegalArgumentException("Sample positions can't be read from " + value);
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, int value) {
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            buffer[offset++] = (byte) ((value & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION_BIT);
+            value >>>= VARINT_PAYLOAD_BITS;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVarint(byte[] buffer, int[] offset) {
+        int value = 0;
+        for (int shift = 0; shift < MAX_VARINT_BYTES * VARINT_PAYLOAD_BITS; shift += VARINT_PAYLOAD_BITS) {
+            if (offset[0] >= buffer.length) {
+                throw new IllegalArgumentException("Truncated sample positions");
+            }
+            byte b = buffer[offset[0]++];
+            value |= (b & VARINT_PAYLOAD_MASK) << shift;
+            if ((b & VARINT_CONTINUATION_BIT) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed sample positions");
+    }
+}
@@ -21,46 +21,44 @@ import com.mongodb.DBObject;
 import org.opencb.biodata.models.feature.Genotype;
 import org.springframework.core.convert.converter.Converter;
 
+import uk.ac.ebi.eva.commons.models.data.SamplesData;
 import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Simple samples converter that does not require the names of the samples, as it will compress them in mongo.
  * <p>
+ * The samples are classified straight from the genotype codes of {@link SamplesData}, without a map per sample.
+ * <p>
+ * The positions of the samples can be stored as arrays (by default) or in the compact binary encoding of
+ * {@link SamplePositionsCodec}.
+ * <p>
  * This class is based on OpenCGA MongoDB converters.
  */
 public class SamplesToDBObjectConverter implements Converter<VariantSourceEntry, DBObject> {
 
-    @Override
-    public DBObject convert(VariantSourceEntry object) {
-        Map<Genotype, List<Integer>> genotypeCodes = new HashMap<>();
+    public static final String DEFAULT_GENOTYPE_FIELD = "def";
 
-        // Classify samples by genotype
-        for (int i = 0; i < object.getSamplesData().size(); i++) {
-            String genotype = object.getSampleData(i).get("GT");
-            if (genotype != null) {
-                Genotype g = new Genotype(genotype);
-                List<Integer> samplesWithGenotype = genotypeCodes.get(g);
-                if (samplesWithGenotype == null) {
-                    samplesWithGenotype = new ArrayList<>();
-                    genotypeCodes.put(g, samplesWithGenotype);
-                }
-                samplesWithGenotype.add(i);
-            }
-        }
+    private final boolean compact;
 
-        // Get the most common genotype
-        Map.Entry<Genotype, List<Integer>> longestList = null;
-        for (Map.Entry<Genotype, List<Integer>> entry : genotypeCodes.entrySet()) {
-            List<Integer> genotypeList = entry.getValue();
-            if (longestList == null || genotypeList.size() > longestList.getValue().size()) {
-                longestList = entry;
-            }
-        }
+    public SamplesToDBObjectConverter() {
+        this(false);
+    }
+
+    /**
+     * @param compact whether to store the positions of the samples with {@link SamplePositionsCodec}
+     */
+    public SamplesToDBObjectConverter(boolean compact) {
+        this.compact = compact;
+    }
+
+    @Override
+    public DBObject convert(VariantSourceEntry object) {
+        SamplesByGenotype samplesByGenotype = classify(object.getSamples());
 
         // In Mongo, samples are stored in a map, classified by their genotype.
         // The most common genotype will be marked as "default" and the specific
@@ -69,15 +67,98 @@ public class SamplesToDBObjectConverter implements Converter<VariantSourceEntry,
         // "0|1" : [ 41, 311, 342, 358, 881, 898, 903 ],
         // "1|0" : [ 262, 290, 300, 331, 343, 369, 374, 391, 879, 918, 930 ]
         BasicDBObject mongoSamples = new BasicDBObject();
-        for (Map.Entry<Genotype, List<Integer>> entry : genotypeCodes.entrySet()) {
-            String genotypeStr = entry.getKey().toString().replace(".", "-1");
-            if (longestList != null && entry.getKey().equals(longestList.getKey())) {
-                mongoSamples.append("def", genotypeStr);
+        for (int group = 0; group < samplesByGenotype.genotypes.size(); group++) {
+            String genotypeStr = samplesByGenotype.genotypes.get(group);
+            int[] samplesWithGenotype = samplesByGenotype.samples.get(group);
+            if (samplesWithGenotype == null) {
+                mongoSamples.append(DEFAULT_GENOTYPE_FIELD, genotypeStr);
+            } else if (compact) {
+                mongoSamples.append(genotypeStr, SamplePositionsCodec.encodeAsBinary(samplesWithGenotype));
             } else {
-                mongoSamples.append(genotypeStr, entry.getValue());
+                List<Integer> positions = new ArrayList<>(samplesWithGenotype.length);
+                for (int position : samplesWithGenotype) {
+                    positions.add(position);
+                }
+                mongoSamples.append(genotypeStr, positions);
             }
         }
 
         return mongoSamples;
     }
+
+    /**
+     * Classifies the samples by genotype, in the order in which the genotypes appear in the samples. The genotypes
+     * without samples are left out.
+     */
+    static SamplesByGenotype classify(SamplesData samples) {
+        // Group the genotype codes by genotype. Different codes are usually different genotypes, but it is the
+        // parsed genotype what decides it, so the Genotype objects are created once per code, not once per sample
+        Map<Genotype, Integer> genotypeGroups = new LinkedHashMap<>();
+        int[] groupOfCode = new int[samples.getNumGenotypes()];
+        for (int code = 0; code < groupOfCode.length; code++) {
+            Genotype genotype = new Genotype(samples.getGenotypeOfCode(code));
+            Integer group = genotypeGroups.get(genotype);
+            if (group == null) {
+                group = genotypeGroups.size();
+                genotypeGroups.put(genotype, group);
+            }
+            groupOfCode[code] = group;
+        }
+
+        // Classify samples by genotype
+        int[] genotypeCounts = samples.countGenotypes();
+        int[] groupCounts = new int[genotypeGroups.size()];
+        for (int code = 0; code < genotypeCounts.length; code++) {
+            groupCounts[groupOfCode[code]] += genotypeCounts[code];
+        }
+
+        // Get the most common genotype
+        int mostCommonGroup = -1;
+        for (int group = 0; group < groupCounts.length; group++) {
+            boolean moreCommon = mostCommonGroup == -1 || groupCounts[group] > groupCounts[mostCommonGroup];
+            if (groupCounts[group] > 0 && moreCommon) {
+                mostCommonGroup = group;
+            }
+        }
+
+        // Only the positions of the samples with the less common genotypes are listed
+        int[][] samplesWithGroup = new int[groupCounts.length][];
+        int[] filled = new int[groupCounts.length];
+        for (int group = 0; group < groupCounts.length; group++) {
+            samplesWithGroup[group] = group == mostCommonGroup ? null : new int[groupCounts[group]];
+        }
+        for (int i = 0; i < samples.getNumSamples(); i++) {
+            int code = samples.getGenotypeCode(i);
+            if (code != SamplesData.NO_GENOTYPE && groupOfCode[code] != mostCommonGroup) {
+                int group = groupOfCode[code];
+                samplesWithGroup[group][filled[group]++] = i;
+            }
+        }
+
+        SamplesByGenotype samplesByGenotype = new SamplesByGenotype(genotypeGroups.size());
+        for (Map.Entry<Genotype, Integer> entry : genotypeGroups.entrySet()) {
+            int group = entry.getValue();
+            if (groupCounts[group] > 0) {
+                samplesByGenotype.genotypes.add(entry.getKey().toString().replace(".", "-1"));
+                samplesByGenotype.samples.add(samplesWithGroup[group]);
+            }
+        }
+        return samplesByGenotype;
+    }
+
+    /**
+     * Genotypes (as stored in Mongo) and the positions of the samples that have each of them, or null for the most
+     * common genotype.
+     */
+    static class SamplesByGenotype {
+
+        final List<String> genotypes;
+
+        final List<int[]> samples;
+
+        SamplesByGenotype(int numGenotypes) {
+            genotypes = new ArrayList<>(numGenotypes);
+            samples = new ArrayList<>(numGenotypes);
+        }
+    }
 }
@@ -84,21 +84,7 @@ public class VariantSourceEntryToDBObjectConverter implements Converter<VariantS
         if (object.getAttributes().size() > 0) {
             BasicDBObject attrs = null;
             for (Map.Entry<String, String> entry : object.getAttributes().entrySet()) {
-                Object value = entry.getValue();
-                if (entry.getKey().equals("src")) {
-                    String[] fields = entry.getValue().split("\t");
-                    StringBuilder sb = new StringBuilder();
-                    sb.append(fields[0]);
-                    for (int i = 1; i < fields.length && i < 8; i++) {
-                        sb.append("\t").append(fields[i]);
-                    }
-                    try {
-                        value = org.opencb.commons.utils.StringUtils.gzip(sb.toString());
-                    } catch (IOException ex) {
-                        Logger.getLogger(VariantSourceEntryToDBObjectConverter.class.getName())
-                              .log(Level.SEVERE, null, ex);
-                    }
-                }
+                Object value = convertAttributeValue(entry.getKey(), entry.getValue());
 
                 if (attrs == null) {
                     attrs = new BasicDBObject(entry.getKey().replace('.', CHARACTER_TO_REPLACE_DOTS), value);
@@ -120,4 +106,27 @@ public class VariantSourceEntryToDBObjectConverter implements Converter<VariantS
         return mongoFile;
     }
 
+    /**
+     * The "src" attribute (the original line of the file) is stored compressed, and only up to the INFO column.
+     *
+     * @return the value as a String, or compressed as a byte array
+     */
+    static Object convertAttributeValue(String key, String value) {
+        if (!key.equals("src")) {
+            return value;
+        }
+        String[] fields = value.split("\t");
+        StringBuilder sb = new StringBuilder();
+        sb.append(fields[0]);
+        for (int i = 1; i < fields.length && i < 8; i++) {
+            sb.append("\t").append(fields[i]);
+        }
+        try {
+            return org.opencb.commons.utils.StringUtils.gzip(sb.toString());
+        } catch (IOException ex) {
+            Logger.getLogger(VariantSourceEntryToDBObjectConverter.class.getName()).log(Level.SEVERE, null, ex);
+            return value;
+        }
+    }
+
 }
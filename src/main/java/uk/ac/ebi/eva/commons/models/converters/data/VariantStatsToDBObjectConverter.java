@@ -18,7 +18,6 @@ package uk.ac.ebi.eva.commons.models.converters.data;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
-import org.opencb.biodata.models.feature.Genotype;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.convert.converter.Converter;
@@ -103,10 +102,7 @@ public class VariantStatsToDBObjectConverter implements Converter<VariantSourceE
 
         // Genotype counts
         BasicDBObject genotypes = new BasicDBObject();
-        for (Map.Entry<Genotype, Integer> g : variantStats.getGenotypesCount().entrySet()) {
-            String genotypeStr = g.getKey().toString().replace(".", "-1");
-            genotypes.append(genotypeStr, g.getValue());
-        }
+        variantStats.forEachStoredGenotypeCount(genotypes::append);
         mongoStats.append(NUMGT_FIELD, genotypes);
         return mongoStats;
     }
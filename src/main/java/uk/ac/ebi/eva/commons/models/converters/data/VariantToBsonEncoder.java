@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
+import uk.ac.ebi.eva.utils.BsonDocumentWriter;
+import uk.ac.ebi.eva.utils.MongoDBHelper;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the parts of a variant document straight into a {@link BsonDocumentWriter}. The BSON is the same that the
+ * encoder of the driver produces for the DBObjects of {@link VariantToDBObjectConverter} (without nested converters),
+ * {@link VariantSourceEntryToDBObjectConverter} and {@link VariantStatsToDBObjectConverter}, but the intermediate maps
+ * and lists are not created.
+ */
+public class VariantToBsonEncoder {
+
+    private static final String AT_FIELD = "_at";
+
+    private static final String CHUNK_IDS_FIELD = "chunkIds";
+
+    private final boolean includeSamples;
+
+    private final boolean compactSamples;
+
+    public VariantToBsonEncoder(boolean includeSamples) {
+        this(includeSamples, false);
+    }
+
+    /**
+     * @param includeSamples whether the source entries include the format and the samples, as they do when
+     *                       {@link VariantSourceEntryToDBObjectConverter} has a {@link SamplesToDBObjectConverter}
+     * @param compactSamples whether the positions of the samples are stored with {@link SamplePositionsCodec}
+     */
+    public VariantToBsonEncoder(boolean includeSamples, boolean compactSamples) {
+        this.includeSamples = includeSamples;
+        this.compactSamples = compactSamples;
+    }
+
+    /**
+     * Writes the fields of {@link VariantToDBObjectConverter#convert}, in the current document.
+     */
+    public void writeVariantFields(BsonDocumentWriter writer, Variant variant) {
+        writer.writeString("_id", MongoDBHelper.buildStorageId(variant.getChromosome(), variant.getStart(),
+                                                               variant.getReference(), variant.getAlternate()));
+        writer.writeString(VariantToDBObjectConverter.TYPE_FIELD, variant.getType().name());
+        writer.writeString(VariantToDBObjectConverter.CHROMOSOME_FIELD, variant.getChromosome());
+        writer.writeInt32(VariantToDBObjectConverter.START_FIELD, variant.getStart());
+        writer.writeInt32(VariantToDBObjectConverter.END_FIELD, variant.getEnd());
+        writer.writeInt32(VariantToDBObjectConverter.LENGTH_FIELD, variant.getLength());
+        writer.writeString(VariantToDBObjectConverter.REFERENCE_FIELD, variant.getReference());
+        writer.writeString(VariantToDBObjectConverter.ALTERNATE_FIELD, variant.getAlternate());
+
+        writer.writeName(AT_FIELD);
+        writer.writeStartDocument();
+        writer.writeName(CHUNK_IDS_FIELD);
+        writer.writeStartArray();
+        writer.writeString(VariantToDBObjectConverter.getSmallChunkId(variant));
+        writer.writeString(VariantToDBObjectConverter.getBigChunkId(variant));
+        writer.writeEndArray();
+        writer.writeEndDocument();
+
+        writer.writeName(VariantToDBObjectConverter.HGVS_FIELD);
+        writer.writeStartArray();
+        for (Map.Entry<String, Set<String>> entry : variant.getHgvs().entrySet()) {
+            for (String value : entry.getValue()) {
+                writer.writeStartDocument();
+                writer.writeString(VariantToDBObjectConverter.TYPE_FIELD, entry.getKey());
+                writer.writeString(VariantToDBObjectConverter.NAME_FIELD, value);
+                writer.writeEndDocument();
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    /**
+     * Writes the document of {@link VariantSourceEntryToDBObjectConverter#convert}, as the next value.
+     */
+    public void writeSourceEntry(BsonDocumentWriter writer, VariantSourceEntry sourceEntry) {
+        writer.writeStartDocument();
+        writer.writeString(VariantSourceEntryToDBObjectConverter.FILEID_FIELD, sourceEntry.getFileId());
+        writer.writeString(VariantSourceEntryToDBObjectConverter.STUDYID_FIELD, sourceEntry.getStudyId());
+
+        if (sourceEntry.getSecondaryAlternates().length > 0) {
+            writer.writeName(VariantSourceEntryToDBObjectConverter.ALTERNATES_FIELD);
+            writer.writeStartArray();
+            for (String alternate : sourceEntry.getSecondaryAlternates()) {
+                writer.writeString(alternate);
+            }
+            writer.writeEndArray();
+        }
+
+        if (!sourceEntry.getAttributes().isEmpty()) {
+            writer.writeName(VariantSourceEntryToDBObjectConverter.ATTRIBUTES_FIELD);
+            writer.writeStartDocument();
+            for (Map.Entry<String, String> entry : sourceEntry.getAttributes().entrySet()) {
+                writer.writeName(entry.getKey().replace(
+                        '.', VariantSourceEntryToDBObjectConverter.CHARACTER_TO_REPLACE_DOTS));
+                Object value = VariantSourceEntryToDBObjectConverter.convertAttributeValue(entry.getKey(),
+                                                                                           entry.getValue());
+                if (value instanceof byte[]) {
+                    writer.writeBinaryData((byte[]) value);
+                } else {
+                    writer.writeString((String) value);
+                }
+            }
+            writer.writeEndDocument();
+        }
+
+        if (includeSamples) {
+            writer.writeString(VariantSourceEntryToDBObjectConverter.FORMAT_FIELD, sourceEntry.getFormat());
+            writer.writeName(VariantSourceEntryToDBObjectConverter.SAMPLES_FIELD);
+            writeSamples(writer, sourceEntry);
+        }
+        writer.writeEndDocument();
+    }
+
+    private void writeSamples(BsonDocumentWriter writer, VariantSourceEntry sourceEntry) {
+        SamplesToDBObjectConverter.SamplesByGenotype samplesByGenotype =
+                SamplesToDBObjectConverter.classify(sourceEntry.getSamples());
+
+        writer.writeStartDocument();
+        for (int group = 0; group < samplesByGenotype.genotypes.size(); group++) {
+            int[] samplesWithGenotype = samplesByGenotype.samples.get(group);
+            if (samplesWithGenotype == null) {
+                writer.writeString(SamplesToDBObjectConverter.DEFAULT_GENOTYPE_FIELD,
+                                   samplesByGenotype.genotypes.get(group));
+            } else if (compactSamples) {
+                writer.writeName(samplesByGenotype.genotypes.get(group));
+                writer.writeBinaryData(SamplePositionsCodec.BINARY_SUBTYPE,
+                                       SamplePositionsCodec.encode(samplesWithGenotype));
+            } else {
+                writer.writeName(samplesByGenotype.genotypes.get(group));
+                writer.writeStartArray();
+                for (int position : samplesWithGenotype) {
+                    writer.writeInt32(position);
+                }
+                writer.writeEndArray();
+            }
+        }
+        writer.writeEndDocument();
+    }
+
+    /**
+     * Writes the documents of {@link VariantStatsToDBObjectConverter#convert}, as the next values of the current
+     * array.
+     */
+    public void writeStats(BsonDocumentWriter writer, VariantSourceEntry sourceEntry) {
+        for (Map.Entry<String, VariantStats> cohortStats : sourceEntry.getCohortStats().entrySet()) {
+            writeCohortStats(writer, sourceEntry, cohortStats.getKey(), cohortStats.getValue());
+        }
+    }
+
+    /**
+     * Writes the same documents as {@link #writeStats}, as fields of the current document named by their cohort, as
+     * in the {@link KeyedFilesLayout}.
+     */
+    public void writeKeyedStats(BsonDocumentWriter writer, VariantSourceEntry sourceEntry) {
+        for (Map.Entry<String, VariantStats> cohortStats : sourceEntry.getCohortStats().entrySet()) {
+            writer.writeName(KeyedFilesLayout.encodeKey(cohortStats.getKey()));
+            writeCohortStats(writer, sourceEntry, cohortStats.getKey(), cohortStats.getValue());
+        }
+    }
+
+    private void writeCohortStats(BsonDocumentWriter writer, VariantSourceEntry sourceEntry, String cohortId,
+                                  VariantStats stats) {
+        writer.writeStartDocument();
+        writer.writeDouble(VariantStatsToDBObjectConverter.MAF_FIELD, stats.getMaf());
+        writer.writeDouble(VariantStatsToDBObjectConverter.MGF_FIELD, stats.getMgf());
+        writer.writeString(VariantStatsToDBObjectConverter.MAFALLELE_FIELD, stats.getMafAllele());
+        writer.writeString(VariantStatsToDBObjectConverter.MGFGENOTYPE_FIELD, stats.getMgfGenotype());
+        writer.writeInt32(VariantStatsToDBObjectConverter.MISSALLELE_FIELD, stats.getMissingAlleles());
+        writer.writeInt32(VariantStatsToDBObjectConverter.MISSGENOTYPE_FIELD, stats.getMissingGenotypes());
+
+        writer.writeName(VariantStatsToDBObjectConverter.NUMGT_FIELD);
+        writer.writeStartDocument();
+        stats.forEachStoredGenotypeCount(writer::writeInt32);
+        writer.writeEndDocument();
+
+        writer.writeString(VariantStatsToDBObjectConverter.COHORT_ID, cohortId);
+        writer.writeString(VariantStatsToDBObjectConverter.STUDY_ID, sourceEntry.getStudyId());
+        writer.writeString(VariantStatsToDBObjectConverter.FILE_ID, sourceEntry.getFileId());
+        writer.writeEndDocument();
+    }
+}
@@ -87,6 +87,8 @@ public class VariantToDBObjectConverter implements Converter<Variant, DBObject>
 
     private VariantStatsToDBObjectConverter statsConverter;
 
+    private boolean keyedFiles;
+
     /**
      * Create a converter between Variant and DBObject entities when the fields of VariantSourceEntry,
      * VariantAnnotation and VariantStats should not be written.
@@ -108,9 +110,20 @@ public class VariantToDBObjectConverter implements Converter<Variant, DBObject>
             VariantSourceEntryToDBObjectConverter variantSourceEntryConverter,
             VariantAnnotationToDBObjectConverter variantAnnotationConverter,
             VariantStatsToDBObjectConverter VariantStatsConverter) {
+        this(variantSourceEntryConverter, variantAnnotationConverter, VariantStatsConverter, false);
+    }
+
+    /**
+     * @param keyedFiles whether to write the files and statistics in the {@link KeyedFilesLayout}
+     */
+    public VariantToDBObjectConverter(
+            VariantSourceEntryToDBObjectConverter variantSourceEntryConverter,
+            VariantAnnotationToDBObjectConverter variantAnnotationConverter,
+            VariantStatsToDBObjectConverter VariantStatsConverter, boolean keyedFiles) {
         this.variantSourceEntryConverter = variantSourceEntryConverter;
         this.variantAnnotationConverter = variantAnnotationConverter;
         this.statsConverter = VariantStatsConverter;
+        this.keyedFiles = keyedFiles;
     }
 
     @Override
@@ -153,17 +166,22 @@ public class VariantToDBObjectConverter implements Converter<Variant, DBObject>
      * This design should be reevaluated if we are using sharded databases.
      */
     private BasicDBList getChunkIds(Variant object) {
-        int smallChunkId = object.getStart() / VariantMongoDBWriter.CHUNK_SIZE_SMALL;
-        int bigChunkId = object.getStart() / VariantMongoDBWriter.CHUNK_SIZE_BIG;
-        String chunkSmall = object.getChromosome() + "_" + smallChunkId + "_" + ONE_THOUSAND_STRING;
-        String chunkBig = object.getChromosome() + "_" + bigChunkId + "_" + TEN_THOUSAND_STRING;
-
         BasicDBList chunkIds = new BasicDBList();
-        chunkIds.add(chunkSmall);
-        chunkIds.add(chunkBig);
+        chunkIds.add(getSmallChunkId(object));
+        chunkIds.add(getBigChunkId(object));
         return chunkIds;
     }
 
+    static String getSmallChunkId(Variant object) {
+        int smallChunkId = object.getStart() / VariantMongoDBWriter.CHUNK_SIZE_SMALL;
+        return object.getChromosome() + "_" + smallChunkId + "_" + ONE_THOUSAND_STRING;
+    }
+
+    static String getBigChunkId(Variant object) {
+        int bigChunkId = object.getStart() / VariantMongoDBWriter.CHUNK_SIZE_BIG;
+        return object.getChromosome() + "_" + bigChunkId + "_" + TEN_THOUSAND_STRING;
+    }
+
     /**
      * Transform HGVS: Map of sets -> List of map entries
      * {k1 -> {v1_1, v1_2}, k2 -> {v2}} changes to [{k1, v1_1}, {k1, v1_2}, {k2, v2}]
@@ -179,7 +197,15 @@ public class VariantToDBObjectConverter implements Converter<Variant, DBObject>
     }
 
     private void appendFiles(Variant object, BasicDBObject mongoVariant) {
-        if (variantSourceEntryConverter != null) {
+        if (variantSourceEntryConverter != null && keyedFiles) {
+            BasicDBObject mongoFiles = new BasicDBObject();
+            for (VariantSourceEntry archiveFile : object.getSourceEntries().values()) {
+                getKeyedDocument(mongoFiles, archiveFile.getStudyId())
+                        .append(KeyedFilesLayout.encodeKey(archiveFile.getFileId()),
+                                variantSourceEntryConverter.convert(archiveFile));
+            }
+            mongoVariant.append(FILES_FIELD, mongoFiles);
+        } else if (variantSourceEntryConverter != null) {
             BasicDBList mongoFiles = new BasicDBList();
             for (VariantSourceEntry archiveFile : object.getSourceEntries().values()) {
                 mongoFiles.add(variantSourceEntryConverter.convert(archiveFile));
@@ -198,7 +224,18 @@ public class VariantToDBObjectConverter implements Converter<Variant, DBObject>
     }
 
     private void appendStatistics(Variant object, BasicDBObject mongoVariant) {
-        if (statsConverter != null) {
+        if (statsConverter != null && keyedFiles) {
+            BasicDBObject mongoStats = new BasicDBObject();
+            for (VariantSourceEntry variantSourceEntry : object.getSourceEntries().values()) {
+                BasicDBObject studyStats = getKeyedDocument(mongoStats, variantSourceEntry.getStudyId());
+                BasicDBObject fileStats = getKeyedDocument(studyStats, variantSourceEntry.getFileId());
+                for (DBObject cohortStats : statsConverter.convert(variantSourceEntry)) {
+                    String cohortId = (String) cohortStats.get(VariantStatsToDBObjectConverter.COHORT_ID);
+                    fileStats.append(KeyedFilesLayout.encodeKey(cohortId), cohortStats);
+                }
+            }
+            mongoVariant.put(STATS_FIELD, mongoStats);
+        } else if (statsConverter != null) {
             List<DBObject> mongoStats = new ArrayList<>();
             for (VariantSourceEntry variantSourceEntry : object.getSourceEntries().values()) {
                 mongoStats.addAll(statsConverter.convert(variantSourceEntry));
@@ -206,4 +243,8 @@ public class VariantToDBObjectConverter implements Converter<Variant, DBObject>
             mongoVariant.put(STATS_FIELD, mongoStats);
         }
     }
+
+    private BasicDBObject getKeyedDocument(BasicDBObject parent, String id) {
+        return (BasicDBObject) parent.computeIfAbsent(KeyedFilesLayout.encodeKey(id), key -> new BasicDBObject());
+    }
 }
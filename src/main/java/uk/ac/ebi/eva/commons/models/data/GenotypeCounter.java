@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.data;
+
+import org.opencb.biodata.models.feature.AllelesCode;
+import org.opencb.biodata.models.feature.Genotype;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Counts of the genotypes of the statistics of a variant.
+ * <p>
+ * The haploid and diploid genotypes whose alleles go from missing to the second alternate, and that refer to the same
+ * alleles as the statistics, are counted in an array indexed by a compact code, without boxing or hashing. The rest of
+ * genotypes are counted in a map, as before.
+ * <p>
+ * As in the map, the genotypes are normalized, so the alleles of a genotype are sorted in ascending order.
+ */
+class GenotypeCounter {
+
+    private static final int MIN_ALLELE = -1;
+
+    private static final int MAX_ALLELE = 2;
+
+    private static final int ALLELE_VALUES = MAX_ALLELE - MIN_ALLELE + 1;
+
+    private static final int HAPLOID_CODES = ALLELE_VALUES * 2;
+
+    static final int DENSE_CODES = HAPLOID_CODES + ALLELE_VALUES * ALLELE_VALUES * 2;
+
+    static final int HOM_REF = code(0, 0, false);
+
+    static final int HET = code(0, 1, false);
+
+    static final int HOM_ALT = code(1, 1, false);
+
+    /**
+     * Genotype of each code, as stored in the database, with the missing alleles as "-1"
+     */
+    private static final String[] STORED_GENOTYPES = new String[DENSE_CODES];
+
+    static {
+        for (int allele = MIN_ALLELE; allele <= MAX_ALLELE; allele++) {
+            STORED_GENOTYPES[code(allele, false)] = String.valueOf(allele);
+            STORED_GENOTYPES[code(allele, true)] = String.valueOf(allele);
+            for (int second = allele; second <= MAX_ALLELE; second++) {
+                STORED_GENOTYPES[code(allele, second, false)] = allele + "/" + second;
+                STORED_GENOTYPES[code(allele, second, true)] = allele + "|" + second;
+            }
+        }
+    }
+
+    private final String reference;
+
+    private final String alternate;
+
+    private int[] denseCounts;
+
+    /**
+     * The first genotype counted with each code, which is the key of the code in {@link #asMap()}
+     */
+    private Genotype[] denseGenotypes;
+
+    private Map<Genotype, Integer> otherCounts;
+
+    private Map<Genotype, Integer> map;
+
+    GenotypeCounter(String reference, String alternate) {
+        this.reference = reference;
+        this.alternate = alternate;
+    }
+
+    private static int code(int allele, boolean phased) {
+        return (allele - MIN_ALLELE) * 2 + (phased ? 1 : 0);
+    }
+
+    private static int code(int first, int second, boolean phased) {
+        return HAPLOID_CODES + ((first - MIN_ALLELE) * ALLELE_VALUES + second - MIN_ALLELE) * 2 + (phased ? 1 : 0);
+    }
+
+    private static boolean isDense(int allele) {
+        return allele >= MIN_ALLELE && allele <= MAX_ALLELE;
+    }
+
+    /**
+     * @return the compact code of the normalized genotype, or -1 if it has to be counted in the map
+     */
+    private int denseCode(Genotype genotype) {
+        boolean sameAlleles = Objects.equals(reference, genotype.getReference())
+                && Objects.equals(alternate, genotype.getAlternate());
+        if (!sameAlleles) {
+            return -1;
+        }
+        int[] alleles = genotype.getAllelesIdx();
+        if (alleles.length == 1 && isDense(alleles[0])) {
+            return code(alleles[0], genotype.isPhased());
+        } else if (alleles.length == 2 && isDense(alleles[0]) && isDense(alleles[1])) {
+            return code(Math.min(alleles[0], alleles[1]), Math.max(alleles[0], alleles[1]), genotype.isPhased());
+        } else {
+            return -1;
+        }
+    }
+
+    void add(Genotype genotype, int count) {
+        map = null;
+        int code = denseCode(genotype);
+        if (code >= 0 && denseGenotypes != null && denseGenotypes[code] != null
+                && denseGenotypes[code].getCode() != genotype.getCode()) {
+            // the same alleles parsed in a different way can't share the code
+            code = -1;
+        }
+
+        if (code >= 0) {
+            if (denseCounts == null) {
+                denseCounts = new int[DENSE_CODES];
+                denseGenotypes = new Genotype[DENSE_CODES];
+            }
+            if (denseGenotypes[code] == null) {
+                denseGenotypes[code] = normalize(genotype);
+            }
+            denseCounts[code] += count;
+        } else {
+            if (otherCounts == null) {
+                otherCounts = new LinkedHashMap<>();
+            }
+            Genotype normalizedGenotype = normalize(genotype);
+            Integer previousCount = otherCounts.get(normalizedGenotype);
+            otherCounts.put(normalizedGenotype, previousCount == null ? count : previousCount + count);
+        }
+    }
+
+    private static Genotype normalize(Genotype genotype) {
+        // Get alleles sorted in ascending order
+        int[] sortedAlleles = genotype.getNormalizedAllelesIdx();
+
+        if (Arrays.equals(sortedAlleles, genotype.getAllelesIdx())) {
+            // If the alleles do not change, no need to do anything
+            return genotype;
+        } else {
+            // If the alleles have changed, a new genotype must be build
+            StringBuilder joinedAlleles = new StringBuilder();
+            joinedAlleles.append(sortedAlleles[0]);
+            char separator = genotype.isPhased() ? '|' : '/';
+            for (int i = 1; i < sortedAlleles.length; i++) {
+                joinedAlleles.append(separator).append(sortedAlleles[i]);
+            }
+            return new Genotype(joinedAlleles.toString(), genotype.getReference(), genotype.getAlternate());
+        }
+    }
+
+    void clear() {
+        map = null;
+        denseCounts = null;
+        denseGenotypes = null;
+        otherCounts = null;
+    }
+
+    /**
+     * @return whether all the genotypes are counted by their compact code
+     */
+    boolean isDense() {
+        return otherCounts == null || otherCounts.isEmpty();
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int size() {
+        int size = otherCounts == null ? 0 : otherCounts.size();
+        if (denseGenotypes != null) {
+            for (Genotype genotype : denseGenotypes) {
+                if (genotype != null) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the count of a compact code, which is 0 if no genotype was counted with it
+     */
+    int getCount(int code) {
+        return denseCounts == null ? 0 : denseCounts[code];
+    }
+
+    /**
+     * @return the genotype of a compact code, or null if no genotype was counted with it
+     */
+    Genotype getGenotype(int code) {
+        return denseGenotypes == null ? null : denseGenotypes[code];
+    }
+
+    /**
+     * @return the genotype of a compact code as stored in the database, which for a genotype without missing alleles
+     * is the same as its string representation
+     */
+    static String getStoredGenotype(int code) {
+        return STORED_GENOTYPES[code];
+    }
+
+    boolean isMissing(int code) {
+        return denseGenotypes[code].getCode() == AllelesCode.ALLELES_MISSING;
+    }
+
+    /**
+     * Passes each genotype, as stored in the database, and its count to the action
+     */
+    void forEachStored(ObjIntConsumer<String> action) {
+        if (denseGenotypes != null) {
+            for (int code = 0; code < DENSE_CODES; code++) {
+                if (denseGenotypes[code] != null) {
+                    action.accept(STORED_GENOTYPES[code], denseCounts[code]);
+                }
+            }
+        }
+        if (otherCounts != null) {
+            for (Map.Entry<Genotype, Integer> count : otherCounts.entrySet()) {
+                action.accept(count.getKey().toString().replace(".", "-1"), count.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return a read-only map of the counts, built the first time it is requested after each change
+     */
+    Map<Genotype, Integer> asMap() {
+        if (map == null) {
+            Map<Genotype, Integer> counts = new LinkedHashMap<>();
+            if (denseGenotypes != null) {
+                for (int code = 0; code < DENSE_CODES; code++) {
+                    if (denseGenotypes[code] != null) {
+                        counts.put(denseGenotypes[code], denseCounts[code]);
+                    }
+                }
+            }
+            if (otherCounts != null) {
+                counts.putAll(otherCounts);
+            }
+            map = Collections.unmodifiableMap(counts);
+        }
+        return map;
+    }
+
+    /**
+     * Estimates the bytes of heap retained by the counts, counting each genotype as a small object
+     */
+    long estimateSize(int genotypeSize) {
+        long size = HeapSize.OBJECT + 6 * HeapSize.REFERENCE;
+        if (denseCounts != null) {
+            size += 2 * HeapSize.ARRAY + DENSE_CODES * (4 + HeapSize.REFERENCE);
+        }
+        int genotypes = size();
+        size += genotypes * genotypeSize;
+        if (otherCounts != null) {
+            size += otherCounts.size() * HeapSize.HASH_ENTRY;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.data;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Rough sizes of objects in the heap of a 64-bit JVM without compressed references, used to estimate the memory
+ * retained by the variants. They tend to overestimate, so that a budget based on them is not exceeded.
+ */
+final class HeapSize {
+
+    static final int OBJECT = 16;
+
+    static final int REFERENCE = 8;
+
+    static final int ARRAY = 16;
+
+    /**
+     * An entry of a hash map or a hash set, with its slot in the table
+     */
+    static final int HASH_ENTRY = 48;
+
+    private HeapSize() {
+    }
+
+    static long of(String value) {
+        return value == null ? 0 : OBJECT + REFERENCE + ARRAY + 2L * value.length();
+    }
+
+    static long of(String[] values) {
+        if (values == null) {
+            return 0;
+        }
+        long size = ARRAY + (long) REFERENCE * values.length;
+        for (String value : values) {
+            size += of(value);
+        }
+        return size;
+    }
+
+    static long of(Collection<String> values) {
+        if (values == null) {
+            return 0;
+        }
+        long size = OBJECT + ARRAY;
+        for (String value : values) {
+            size += HASH_ENTRY + of(value);
+        }
+        return size;
+    }
+
+    static long of(Map<String, String> values) {
+        if (values == null) {
+            return 0;
+        }
+        long size = OBJECT + ARRAY;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            size += HASH_ENTRY + of(entry.getKey()) + of(entry.getValue());
+        }
+        return size;
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Columnar store of the sample fields of a {@link VariantSourceEntry}.
+ * <p>
+ * Genotypes are encoded as one short per sample, which is the index of the genotype in a dictionary with the
+ * different genotypes of the variant (usually just a handful, like "0|0", "0|1" and "1|1"). The rest of FORMAT fields
+ * are stored in one array per field, that is only created when some sample has a value for that field. This way, the
+ * memory used by a variant grows by a few bytes per sample, instead of by a map per sample.
+ * <p>
+ * {@link #asList()} gives the old view of the samples as a list of maps (field name, field value), creating the maps
+ * on access.
+ */
+public class SamplesData {
+
+    public static final String GENOTYPE_FIELD = "GT";
+
+    /**
+     * Genotype code of the samples that don't have a genotype
+     */
+    public static final int NO_GENOTYPE = -1;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Estimated heap size of a value of a FORMAT field other than the genotype, which is usually a short string
+     */
+    private static final long ESTIMATED_VALUE_SIZE = HeapSize.REFERENCE + HeapSize.of("0.00");
+
+    /**
+     * Names of the fields, in order of appearance. The index of a field is the index of its column.
+     */
+    private final List<String> fields;
+
+    /**
+     * Values of the fields other than the genotype, one array per field. The arrays are null until a sample has a
+     * value for the field.
+     */
+    private final List<String[]> columns;
+
+    private int genotypeFieldIndex;
+
+    private final List<String> genotypes;
+
+    private final Map<String, Short> genotypeCodes;
+
+    private short[] sampleGenotypeCodes;
+
+    private int numSamples;
+
+    public SamplesData() {
+        fields = new ArrayList<>();
+        columns = new ArrayList<>();
+        genotypeFieldIndex = -1;
+        genotypes = new ArrayList<>();
+        genotypeCodes = new HashMap<>();
+        sampleGenotypeCodes = new short[0];
+        numSamples = 0;
+    }
+
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    /**
+     * Makes room for the given number of samples, so that the columns don't need to grow while they are added.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > sampleGenotypeCodes.length) {
+            sampleGenotypeCodes = Arrays.copyOf(sampleGenotypeCodes, capacity);
+            for (int i = 0; i < columns.size(); i++) {
+                String[] column = columns.get(i);
+                if (column != null) {
+                    columns.set(i, Arrays.copyOf(column, capacity));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a sample without any value.
+     *
+     * @return The index of the new sample
+     */
+    public int addSample() {
+        if (numSamples == sampleGenotypeCodes.length) {
+            ensureCapacity(Math.max(INITIAL_CAPACITY, numSamples * 2));
+        }
+        sampleGenotypeCodes[numSamples] = NO_GENOTYPE;
+        return numSamples++;
+    }
+
+    /**
+     * Adds a sample with the values of a map (field name, field value), such as (GT, A/C).
+     *
+     * @return The index of the new sample
+     */
+    public int addSample(Map<String, String> sampleData) {
+        int sampleIndex = addSample();
+        for (Map.Entry<String, String> field : sampleData.entrySet()) {
+            setValue(sampleIndex, getFieldIndex(field.getKey()), field.getValue());
+        }
+        return sampleIndex;
+    }
+
+    /**
+     * Returns the index of a field, registering it if no sample had it yet. Resolving the indexes of the FORMAT fields
+     * once per variant avoids looking up the field names for every sample.
+     */
+    public int getFieldIndex(String field) {
+        int fieldIndex = fields.indexOf(field);
+        if (fieldIndex == -1) {
+            fieldIndex = fields.size();
+            fields.add(field);
+            columns.add(null);
+            if (GENOTYPE_FIELD.equals(field)) {
+                genotypeFieldIndex = fieldIndex;
+            }
+        }
+        return fieldIndex;
+    }
+
+    /**
+     * @return The index of a field, or -1 if no sample has it
+     */
+    public int indexOfField(String field) {
+        return fields.indexOf(field);
+    }
+
+    public void setValue(int sampleIndex, int fieldIndex, String value) {
+        checkSampleIndex(sampleIndex);
+        if (fieldIndex == genotypeFieldIndex) {
+            sampleGenotypeCodes[sampleIndex] = value == null ? NO_GENOTYPE : encodeGenotype(value);
+        } else {
+            String[] column = columns.get(fieldIndex);
+            if (column == null) {
+                if (value == null) {
+                    return;
+                }
+                column = new String[sampleGenotypeCodes.length];
+                columns.set(fieldIndex, column);
+            }
+            column[sampleIndex] = value;
+        }
+    }
+
+    private short encodeGenotype(String genotype) {
+        Short code = genotypeCodes.get(genotype);
+        if (code == null) {
+            if (genotypes.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("A variant can't have more than " + (Short.MAX_VALUE + 1)
+                                                        + " different genotypes");
+            }
+            code = (short) genotypes.size();
+            genotypes.add(genotype);
+            genotypeCodes.put(genotype, code);
+        }
+        return code;
+    }
+
+    public String getValue(int sampleIndex, String field) {
+        int fieldIndex = indexOfField(field);
+        return fieldIndex == -1 ? null : getValue(sampleIndex, fieldIndex);
+    }
+
+    public String getValue(int sampleIndex, int fieldIndex) {
+        checkSampleIndex(sampleIndex);
+        if (fieldIndex == genotypeFieldIndex) {
+            return getGenotype(sampleIndex);
+        }
+        String[] column = columns.get(fieldIndex);
+        return column == null ? null : column[sampleIndex];
+    }
+
+    /**
+     * @return The number of different genotypes. Genotype codes go from 0 to this number (exclusive).
+     */
+    public int getNumGenotypes() {
+        return genotypes.size();
+    }
+
+    /**
+     * @return The genotype code of the sample, or {@link #NO_GENOTYPE}
+     */
+    public int getGenotypeCode(int sampleIndex) {
+        checkSampleIndex(sampleIndex);
+        return sampleGenotypeCodes[sampleIndex];
+    }
+
+    public String getGenotypeOfCode(int genotypeCode) {
+        return genotypes.get(genotypeCode);
+    }
+
+    /**
+     * @return The genotype of the sample, or null if it doesn't have one
+     */
+    public String getGenotype(int sampleIndex) {
+        int code = getGenotypeCode(sampleIndex);
+        return code == NO_GENOTYPE ? null : genotypes.get(code);
+    }
+
+    /**
+     * @return How many samples have each genotype code, without counting samples without genotype
+     */
+    public int[] countGenotypes() {
+        int[] counts = new int[genotypes.size()];
+        for (int i = 0; i < numSamples; i++) {
+            int code = sampleGenotypeCodes[i];
+            if (code != NO_GENOTYPE) {
+                counts[code]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Copies the samples, replacing each genotype with the result of a function. The function is applied once per
+     * different genotype, not once per sample, so it can be used to re-index the alleles of the genotypes of every
+     * alternate of a multiallelic variant without parsing the sample columns again.
+     */
+    public SamplesData copyWithGenotypes(Function<String, String> genotypeMapping) {
+        SamplesData copy = new SamplesData();
+        copy.fields.addAll(fields);
+        for (String[] column : columns) {
+            copy.columns.add(column == null ? null : Arrays.copyOf(column, column.length));
+        }
+        copy.genotypeFieldIndex = genotypeFieldIndex;
+        copy.numSamples = numSamples;
+
+        short[] mappedCodes = new short[genotypes.size()];
+        for (int code = 0; code < mappedCodes.length; code++) {
+            mappedCodes[code] = copy.encodeGenotype(genotypeMapping.apply(genotypes.get(code)));
+        }
+        copy.sampleGenotypeCodes = new short[sampleGenotypeCodes.length];
+        for (int i = 0; i < numSamples; i++) {
+            int code = sampleGenotypeCodes[i];
+            copy.sampleGenotypeCodes[i] = code == NO_GENOTYPE ? NO_GENOTYPE : mappedCodes[code];
+        }
+        return copy;
+    }
+
+    /**
+     * Builds a map (field name, field value) with the fields of a sample.
+     */
+    public Map<String, String> getSampleData(int sampleIndex) {
+        checkSampleIndex(sampleIndex);
+        Map<String, String> sampleData = new TreeMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = getValue(sampleIndex, i);
+            if (value != null) {
+                sampleData.put(fields.get(i), value);
+            }
+        }
+        return sampleData;
+    }
+
+    /**
+     * @return An unmodifiable view of the samples as maps (field name, field value), which are built on access
+     */
+    public List<Map<String, String>> asList() {
+        return new AbstractList<Map<String, String>>() {
+            @Override
+            public Map<String, String> get(int index) {
+                return getSampleData(index);
+            }
+
+            @Override
+            public int size() {
+                return numSamples;
+            }
+        };
+    }
+
+    /**
+     * Estimates the bytes of heap retained by the samples. The values of the FORMAT fields are not inspected, so the
+     * estimate takes time proportional to the number of fields, not to the number of samples.
+     */
+    public long estimateSize() {
+        long size = HeapSize.OBJECT + 7 * HeapSize.REFERENCE + HeapSize.of(fields) + HeapSize.of(genotypes) * 2;
+        size += HeapSize.ARRAY + 2L * sampleGenotypeCodes.length;
+        for (String[] column : columns) {
+            if (column != null) {
+                size += HeapSize.ARRAY + ESTIMATED_VALUE_SIZE * column.length;
+            }
+        }
+        return size;
+    }
+
+    private void checkSampleIndex(int sampleIndex) {
+        if (sampleIndex < 0 || sampleIndex >= numSamples) {
+            throw new IndexOutOfBoundsException("Sample index: " + sampleIndex + ", number of samples: " + numSamples);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return asList().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return asList().equals(((SamplesData) obj).asList());
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+}
@@ -295,6 +295,27 @@ public class Variant {
         this.annotation = annotation;
     }
 
+    /**
+     * Estimates the bytes of heap retained by the variant and its source entries, which is cheap enough to be
+     * computed for every variant read. The annotation is counted as empty, as it is when the variant is read from a
+     * VCF.
+     */
+    public long estimateSize() {
+        long size = HeapSize.OBJECT + 10 * HeapSize.REFERENCE + HeapSize.of(chromosome) + HeapSize.of(reference)
+                + HeapSize.of(alternate) + HeapSize.of(ids) + HeapSize.OBJECT + HeapSize.ARRAY;
+        for (Map.Entry<String, Set<String>> hgvsOfType : hgvs.entrySet()) {
+            size += HeapSize.HASH_ENTRY + HeapSize.of(hgvsOfType.getKey()) + HeapSize.of(hgvsOfType.getValue());
+        }
+        size += HeapSize.OBJECT + HeapSize.ARRAY;
+        for (Map.Entry<String, VariantSourceEntry> sourceEntry : sourceEntries.entrySet()) {
+            size += HeapSize.HASH_ENTRY + HeapSize.of(sourceEntry.getKey()) + sourceEntry.getValue().estimateSize();
+        }
+        if (annotation != null) {
+            size += HeapSize.OBJECT + 8 * HeapSize.REFERENCE;
+        }
+        return size;
+    }
+
     /**
      * Copies the current variant and returns the copy in Ensembl format.
      * see http://www.ensembl.org/info/docs/tools/vep/vep_formats.html
@@ -16,7 +16,6 @@
  */
 package uk.ac.ebi.eva.commons.models.data;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -50,11 +49,10 @@ public class VariantSourceEntry {
     private String format;
 
     /**
-     * Genotypes and other sample-related information. The keys are the names
-     * of the samples. The values are pairs (field name, field value), such as
-     * (GT, A/C).
+     * Genotypes and other sample-related information, stored by columns. For
+     * each sample there are pairs (field name, field value), such as (GT, A/C).
      */
-    private List<Map<String, String>> samplesData;
+    private SamplesData samplesData;
 
     /**
      * Statistics of the genomic variation, such as its alleles/genotypes count
@@ -85,7 +83,7 @@ public class VariantSourceEntry {
         this.secondaryAlternates = secondaryAlternates;
         this.format = format;
 
-        this.samplesData = new ArrayList<>();
+        this.samplesData = new SamplesData();
         this.attributes = new LinkedHashMap<>();
         this.cohortStats = new LinkedHashMap<>();
     }
@@ -122,16 +120,28 @@ public class VariantSourceEntry {
         this.format = format;
     }
 
+    /**
+     * @return The samples as a list of maps (field name, field value). The maps are built on access, so code that
+     * goes through all the samples should use {@link #getSamples()} instead.
+     */
     public List<Map<String, String>> getSamplesData() {
+        return samplesData.asList();
+    }
+
+    public SamplesData getSamples() {
         return samplesData;
     }
 
+    public void setSamples(SamplesData samplesData) {
+        this.samplesData = samplesData;
+    }
+
     public String getSampleData(int sampleIndex, String field) {
-        return getSampleData(sampleIndex).get(field.toUpperCase());
+        return samplesData.getValue(sampleIndex, field.toUpperCase());
     }
 
     public Map<String, String> getSampleData(int sampleIndex) {
-        return samplesData.get(sampleIndex);
+        return samplesData.getSampleData(sampleIndex);
     }
 
     /**
@@ -141,8 +151,7 @@ public class VariantSourceEntry {
      * @return The index where the sample was inserted
      */
     public int addSampleData(Map<String, String> sampleData) {
-        this.samplesData.add(sampleData);
-        return this.samplesData.size() - 1;
+        return this.samplesData.addSample(sampleData);
     }
 
     public VariantStats getStats() {
@@ -190,6 +199,24 @@ public class VariantSourceEntry {
         return this.attributes.containsKey(key);
     }
 
+    /**
+     * Estimates the bytes of heap retained by the entry, its samples and its statistics. It is cheap enough to be
+     * computed for every variant read, see {@link SamplesData#estimateSize()}.
+     */
+    public long estimateSize() {
+        long size = HeapSize.OBJECT + 7 * HeapSize.REFERENCE + HeapSize.of(fileId) + HeapSize.of(studyId)
+                + HeapSize.of(secondaryAlternates) + HeapSize.of(format) + HeapSize.of(attributes);
+        if (samplesData != null) {
+            size += samplesData.estimateSize();
+        }
+        if (cohortStats != null) {
+            for (Map.Entry<String, VariantStats> stats : cohortStats.entrySet()) {
+                size += HeapSize.HASH_ENTRY + HeapSize.of(stats.getKey()) + stats.getValue().estimateSize();
+            }
+        }
+        return size;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
@@ -21,20 +21,35 @@ import org.opencb.biodata.models.feature.Genotype;
 import org.opencb.biodata.models.pedigree.Pedigree;
 import org.opencb.biodata.models.variant.stats.VariantHardyWeinbergStats;
 
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Bean to represent statistics related to a set of samples for a given variant
  * <p>
+ * The genotypes are counted with a {@link GenotypeCounter}, and the maps of counts and frequencies are only built
+ * when they are requested.
+ * <p>
  * TODO Mendelian errors must be calculated
  */
 public class VariantStats {
 
+    private static final String MISSING_GENOTYPE = "./.";
+
+    /**
+     * Codes of the genotypes that always have a frequency, even if no sample has them, in the order of the map
+     */
+    private static final int[] DEFAULT_GENOTYPE_CODES = {GenotypeCounter.HOM_REF, GenotypeCounter.HET,
+            GenotypeCounter.HOM_ALT};
+
+    /**
+     * Estimated heap size of a genotype and its boxed count or frequency
+     */
+    private static final int GENOTYPE_SIZE = 96;
+
     private String refAllele;
 
     private String altAllele;
@@ -45,7 +60,7 @@ public class VariantStats {
 
     private int altAlleleCount;
 
-    private Map<Genotype, Integer> genotypesCount;
+    private GenotypeCounter genotypesCount;
 
     private int missingAlleles;
 
@@ -55,8 +70,16 @@ public class VariantStats {
 
     private float altAlleleFreq;
 
+    /**
+     * Frequencies set or calculated as a map, or null if they are to be derived from the counts when requested
+     */
     private Map<Genotype, Float> genotypesFreq;
 
+    /**
+     * Number of genotypes that the frequencies derived from the counts are relative to, or 0 if there are none
+     */
+    private int genotypesFreqTotal;
+
     private float maf;
 
     private float mgf;
@@ -112,8 +135,7 @@ public class VariantStats {
         this.mgf = mgf;
         this.mafAllele = mafAllele;
         this.mgfGenotype = mgfGenotype;
-        this.genotypesCount = new HashMap<>();
-        this.genotypesFreq = new LinkedHashMap<>();
+        this.genotypesCount = new GenotypeCounter(referenceAllele, alternateAlleles);
 
         this.missingAlleles = numMissingAlleles;
         this.missingGenotypes = numMissingGenotypes;
@@ -135,6 +157,7 @@ public class VariantStats {
 
     public void setRefAllele(String refAllele) {
         this.refAllele = refAllele;
+        recountGenotypes();
     }
 
     public String getAltAllele() {
@@ -143,6 +166,18 @@ public class VariantStats {
 
     public void setAltAllele(String altAllele) {
         this.altAllele = altAllele;
+        recountGenotypes();
+    }
+
+    /**
+     * The genotypes are only counted by their compact code if they refer to the alleles of the statistics
+     */
+    private void recountGenotypes() {
+        Map<Genotype, Integer> counts = genotypesCount.asMap();
+        genotypesCount = new GenotypeCounter(refAllele, altAllele);
+        for (Map.Entry<Genotype, Integer> count : counts.entrySet()) {
+            genotypesCount.add(count.getKey(), count.getValue());
+        }
     }
 
     public Variant.VariantType getVariantType() {
@@ -201,8 +236,19 @@ public class VariantStats {
         this.mgfGenotype = mgfGenotype;
     }
 
+    /**
+     * @return a read-only map of the count of each genotype
+     */
     public Map<Genotype, Integer> getGenotypesCount() {
-        return genotypesCount;
+        return genotypesCount.asMap();
+    }
+
+    /**
+     * Passes each genotype and its count to the action, without building the map of {@link #getGenotypesCount()}.
+     * The genotypes are written as they are stored in the database, with the missing alleles as "-1".
+     */
+    public void forEachStoredGenotypeCount(ObjIntConsumer<String> action) {
+        genotypesCount.forEachStored(action);
     }
 
     public void addGenotype(Genotype g) {
@@ -210,40 +256,25 @@ public class VariantStats {
     }
 
     public void addGenotype(Genotype g, int addedCount) {
-        Integer count;
-        Genotype normalizedGenotype = normalizeGenotypeAlleles(g);
-        if (genotypesCount.containsKey(normalizedGenotype)) {
-            count = genotypesCount.get(normalizedGenotype) + addedCount;
-        } else {
-            count = addedCount;
-        }
-        genotypesCount.put(normalizedGenotype, count);
-    }
-
-    private Genotype normalizeGenotypeAlleles(Genotype g) {
-        // Get alleles sorted in ascending order
-        int[] sortedAlleles = g.getNormalizedAllelesIdx();
-
-        if (Arrays.equals(sortedAlleles, g.getAllelesIdx())) {
-            // If the alleles do not change, no need to do anything
-            return g;
-        } else {
-            // If the alleles have changed, a new genotype must be build
-            StringBuilder joinedAlleles = new StringBuilder();
-            joinedAlleles.append(sortedAlleles[0]);
-            char separator = g.isPhased() ? '|' : '/';
-            for (int i = 1; i < sortedAlleles.length; i++) {
-                joinedAlleles.append(separator).append(sortedAlleles[i]);
-            }
-            return new Genotype(joinedAlleles.toString(), g.getReference(), g.getAlternate());
-        }
+        keepGenotypesFreq();
+        genotypesCount.add(g, addedCount);
     }
 
     void setGenotypesCount(Map<Genotype, Integer> genotypesCount) {
-        this.genotypesCount = genotypesCount;
+        keepGenotypesFreq();
+        this.genotypesCount.clear();
+        for (Map.Entry<Genotype, Integer> count : genotypesCount.entrySet()) {
+            this.genotypesCount.add(count.getKey(), count.getValue());
+        }
     }
 
     public Map<Genotype, Float> getGenotypesFreq() {
+        if (genotypesFreq == null) {
+            genotypesFreq = new LinkedHashMap<>();
+            if (genotypesFreqTotal > 0) {
+                putGenotypesFreq(genotypesFreq, genotypesCount.asMap(), genotypesFreqTotal);
+            }
+        }
         return genotypesFreq;
     }
 
@@ -251,6 +282,15 @@ public class VariantStats {
         this.genotypesFreq = genotypesFreq;
     }
 
+    /**
+     * Builds the pending frequencies before the counts they derive from change
+     */
+    private void keepGenotypesFreq() {
+        if (genotypesFreq == null && genotypesFreqTotal > 0) {
+            getGenotypesFreq();
+        }
+    }
+
     public float getMaf() {
         return maf;
     }
@@ -381,6 +421,19 @@ public class VariantStats {
         this.numSamples = numSamples;
     }
 
+    /**
+     * Estimates the bytes of heap retained by the statistics, counting each genotype as a small object
+     */
+    public long estimateSize() {
+        long size = HeapSize.OBJECT + 24 * HeapSize.REFERENCE + HeapSize.of(refAllele) + HeapSize.of(altAllele)
+                + HeapSize.of(mafAllele) + HeapSize.of(mgfGenotype) + 2 * (HeapSize.OBJECT + HeapSize.ARRAY);
+        size += genotypesCount.estimateSize(GENOTYPE_SIZE);
+        int frequencies = genotypesFreq != null ? genotypesFreq.size()
+                : genotypesFreqTotal > 0 ? genotypesCount.size() : 0;
+        size += frequencies * (HeapSize.HASH_ENTRY + GENOTYPE_SIZE);
+        return size;
+    }
+
     @Override
     public String toString() {
         return "VariantStats{"
@@ -402,72 +455,98 @@ public class VariantStats {
 
     public VariantStats calculate(List<Map<String, String>> samplesData, Map<String, String> attributes,
                                   Pedigree pedigree) {
+        SamplesData samples = new SamplesData();
+        for (Map<String, String> sampleData : samplesData) {
+            samples.addSample(sampleData);
+        }
+        return calculate(samples, attributes, pedigree);
+    }
+
+    /**
+     * Calculates the statistics from the genotype codes of the samples. Samples with the same genotype are
+     * accounted for at once, so the cost of parsing genotypes doesn't depend on the number of samples.
+     * Samples without a genotype are counted as missing genotypes.
+     */
+    public VariantStats calculate(SamplesData samples, Map<String, String> attributes, Pedigree pedigree) {
         int[] allelesCount = new int[2];
         int totalAllelesCount = 0, totalGenotypesCount = 0;
 
         float controlsDominant = 0, casesDominant = 0;
         float controlsRecessive = 0, casesRecessive = 0;
 
-        this.setNumSamples(samplesData.size());
+        this.setNumSamples(samples.getNumSamples());
         this.setMissingAlleles(0);
         this.setMissingGenotypes(0);
         if (pedigree != null) {
             this.setMendelianErrors(0);
         }
 
-        for (Map<String, String> sample : samplesData) {
-            Genotype g = new Genotype(sample.get("GT"), this.getRefAllele(), this.getAltAllele());
-            this.addGenotype(g);
+        int[] genotypeCounts = samples.countGenotypes();
+        int samplesWithoutGenotype = samples.getNumSamples();
+        for (int count : genotypeCounts) {
+            samplesWithoutGenotype -= count;
+        }
+
+        for (int code = -1; code < genotypeCounts.length; code++) {
+            int count = code == SamplesData.NO_GENOTYPE ? samplesWithoutGenotype : genotypeCounts[code];
+            if (count == 0) {
+                continue;
+            }
+            String genotype = code == SamplesData.NO_GENOTYPE ? MISSING_GENOTYPE : samples.getGenotypeOfCode(code);
+            Genotype g = new Genotype(genotype, this.getRefAllele(), this.getAltAllele());
+            this.addGenotype(g, count);
 
             // Check missing alleles and genotypes
             switch (g.getCode()) {
                 case ALLELES_OK:
                     // Both alleles set
-                    allelesCount[g.getAllele(0)]++;
-                    allelesCount[g.getAllele(1)]++;
+                    allelesCount[g.getAllele(0)] += count;
+                    allelesCount[g.getAllele(1)] += count;
 
-                    totalAllelesCount += 2;
-                    totalGenotypesCount++;
+                    totalAllelesCount += 2 * count;
+                    totalGenotypesCount += count;
 
                     // Counting genotypes for Hardy-Weinberg (all phenotypes)
-                    if (g.isAlleleRef(0) && g.isAlleleRef(1)) { // 0|0
-                        this.getHw().incN_AA();
-                    } else if ((g.isAlleleRef(0) && g.getAllele(1) == 1)
-                            || (g.getAllele(0) == 1 && g.isAlleleRef(1))) {  // 0|1, 1|0
-                        this.getHw().incN_Aa();
-
-                    } else if (g.getAllele(0) == 1 && g.getAllele(1) == 1) {
-                        this.getHw().incN_aa();
+                    for (int i = 0; i < count; i++) {
+                        if (g.isAlleleRef(0) && g.isAlleleRef(1)) { // 0|0
+                            this.getHw().incN_AA();
+                        } else if ((g.isAlleleRef(0) && g.getAllele(1) == 1)
+                                || (g.getAllele(0) == 1 && g.isAlleleRef(1))) {  // 0|1, 1|0
+                            this.getHw().incN_Aa();
+
+                        } else if (g.getAllele(0) == 1 && g.getAllele(1) == 1) {
+                            this.getHw().incN_aa();
+                        }
                     }
 
                     break;
                 case HAPLOID:
                     // Haploid (chromosome X/Y)
-                    allelesCount[g.getAllele(0)]++;
-                    totalAllelesCount++;
+                    allelesCount[g.getAllele(0)] += count;
+                    totalAllelesCount += count;
                     break;
                 case MULTIPLE_ALTERNATES:
                     // Alternate with different "index" than the one that is being handled
                     break;
                 default:
                     // Missing genotype (one or both alleles missing)
-                    this.setMissingGenotypes(this.getMissingGenotypes() + 1);
+                    this.setMissingGenotypes(this.getMissingGenotypes() + count);
                     if (g.getAllele(0) < 0) {
-                        this.setMissingAlleles(this.getMissingAlleles() + 1);
+                        this.setMissingAlleles(this.getMissingAlleles() + count);
                     } else {
-                        allelesCount[g.getAllele(0)]++;
-                        totalAllelesCount++;
+                        allelesCount[g.getAllele(0)] += count;
+                        totalAllelesCount += count;
                     }
 
                     if (g.getAllele(1) < 0) {
-                        this.setMissingAlleles(this.getMissingAlleles() + 1);
+                        this.setMissingAlleles(this.getMissingAlleles() + count);
                     } else {
-                        allelesCount[g.getAllele(1)]++;
-                        totalAllelesCount++;
+                        allelesCount[g.getAllele(1)] += count;
+                        totalAllelesCount += count;
                     }
                     break;
             }
-        }  // Finish all samples loop
+        }  // Finish all genotypes loop
 
         // Set counts for each allele
         this.setRefAlleleCount(allelesCount[0]);
@@ -520,7 +599,7 @@ public class VariantStats {
         for (Variant variant : variants) {
             for (VariantSourceEntry file : variant.getSourceEntries().values()) {
                 VariantStats stats = new VariantStats(variant)
-                        .calculate(file.getSamplesData(), file.getAttributes(), ped);
+                        .calculate(file.getSamples(), file.getAttributes(), ped);
                 file.setStats(stats); // TODO Correct?
             }
         }
@@ -562,6 +641,37 @@ public class VariantStats {
             return;
         }
 
+        if (genotypesCount.isDense()) {
+            // The frequencies map is only built if requested
+            genotypesFreq = null;
+            genotypesFreqTotal = totalGenotypesCount;
+            calculateDenseMgf(totalGenotypesCount);
+            return;
+        }
+
+        genotypesFreq = new LinkedHashMap<>();
+        putGenotypesFreq(genotypesFreq, genotypesCount.asMap(), totalGenotypesCount);
+
+        // Traverse the genotypes to see which one has the MGF
+        float currMgf = Float.MAX_VALUE;
+        Genotype currMgfGenotype = null;
+
+        for (Map.Entry<Genotype, Float> gtCount : genotypesFreq.entrySet()) {
+            float freq = gtCount.getValue();
+            if (freq < currMgf) {
+                currMgf = freq;
+                currMgfGenotype = gtCount.getKey();
+            }
+        }
+
+        if (currMgfGenotype != null) {
+            this.setMgf(currMgf);
+            this.setMgfGenotype(currMgfGenotype.toString());
+        }
+    }
+
+    private void putGenotypesFreq(Map<Genotype, Float> genotypesFreq, Map<Genotype, Integer> genotypesCount,
+                                  int totalGenotypesCount) {
         // Set all combinations of genotypes to zero
         genotypesFreq.put(new Genotype("0/0", refAllele, altAllele), 0.0f);
         genotypesFreq.put(new Genotype("0/1", refAllele, altAllele), 0.0f);
@@ -577,23 +687,40 @@ public class VariantStats {
             float freq = (totalGenotypesCount > 0) ? gtCount.getValue() / (float) totalGenotypesCount : 0;
             genotypesFreq.put(gtCount.getKey(), freq);
         }
+    }
 
-        // Traverse the genotypes to see which one has the MGF
+    /**
+     * Finds the genotype with the lowest frequency in the same order as the frequencies map would be traversed, but
+     * from the counts of each compact code and without building the map.
+     */
+    private void calculateDenseMgf(int totalGenotypesCount) {
         float currMgf = Float.MAX_VALUE;
-        Genotype currMgfGenotype = null;
-
-        for (Map.Entry<Genotype, Float> gtCount : genotypesFreq.entrySet()) {
-            float freq = gtCount.getValue();
+        int currMgfCode = -1;
+        for (int code : DEFAULT_GENOTYPE_CODES) {
+            float freq = genotypesCount.getCount(code) / (float) totalGenotypesCount;
             if (freq < currMgf) {
                 currMgf = freq;
-                currMgfGenotype = gtCount.getKey();
+                currMgfCode = code;
             }
         }
-
-        if (currMgfGenotype != null) {
-            this.setMgf(currMgf);
-            this.setMgfGenotype(currMgfGenotype.toString());
+        for (int code = 0; code < GenotypeCounter.DENSE_CODES; code++) {
+            if (genotypesCount.getGenotype(code) == null || isDefaultGenotypeCode(code)
+                    || genotypesCount.isMissing(code)) {
+                continue;
+            }
+            float freq = genotypesCount.getCount(code) / (float) totalGenotypesCount;
+            if (freq < currMgf) {
+                currMgf = freq;
+                currMgfCode = code;
+            }
         }
+
+        this.setMgf(currMgf);
+        this.setMgfGenotype(GenotypeCounter.getStoredGenotype(currMgfCode));
+    }
+
+    private static boolean isDefaultGenotypeCode(int code) {
+        return code == GenotypeCounter.HOM_REF || code == GenotypeCounter.HET || code == GenotypeCounter.HOM_ALT;
     }
 
     @Override
@@ -603,12 +730,12 @@ public class VariantStats {
         hash = 79 * hash + Objects.hashCode(this.altAllele);
         hash = 79 * hash + this.refAlleleCount;
         hash = 79 * hash + this.altAlleleCount;
-        hash = 79 * hash + Objects.hashCode(this.genotypesCount);
+        hash = 79 * hash + Objects.hashCode(this.getGenotypesCount());
         hash = 79 * hash + this.missingAlleles;
         hash = 79 * hash + this.missingGenotypes;
         hash = 79 * hash + Float.floatToIntBits(this.refAlleleFreq);
         hash = 79 * hash + Float.floatToIntBits(this.altAlleleFreq);
-        hash = 79 * hash + Objects.hashCode(this.genotypesFreq);
+        hash = 79 * hash + Objects.hashCode(this.getGenotypesFreq());
         hash = 79 * hash + Float.floatToIntBits(this.maf);
         hash = 79 * hash + Float.floatToIntBits(this.mgf);
         hash = 79 * hash + Objects.hashCode(this.mafAllele);
@@ -645,7 +772,7 @@ public class VariantStats {
         if (this.altAlleleCount != other.altAlleleCount) {
             return false;
         }
-        if (!Objects.equals(this.genotypesCount, other.genotypesCount)) {
+        if (!Objects.equals(this.getGenotypesCount(), other.getGenotypesCount())) {
             return false;
         }
         if (this.missingAlleles != other.missingAlleles) {
@@ -660,7 +787,7 @@ public class VariantStats {
         if (Float.floatToIntBits(this.altAlleleFreq) != Float.floatToIntBits(other.altAlleleFreq)) {
             return false;
         }
-        if (!Objects.equals(this.genotypesFreq, other.genotypesFreq)) {
+        if (!Objects.equals(this.getGenotypesFreq(), other.getGenotypesFreq())) {
             return false;
         }
         if (Float.floatToIntBits(this.maf) != Float.floatToIntBits(other.maf)) {
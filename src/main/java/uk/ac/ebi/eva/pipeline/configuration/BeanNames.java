@@ -24,29 +24,49 @@ public class BeanNames {
     public static final String VARIANTS_READER = "variants-reader";
     public static final String VARIANT_ANNOTATION_READER = "variant-annotation-reader";
     public static final String VARIANT_READER = "variant-reader";
+    public static final String STATISTICS_VARIANTS_READER = "statistics-variants-reader";
 
     public static final String GENE_WRITER = "gene-writer";
     public static final String VEP_ANNOTATION_WRITER = "vep-annotation-writer";
     public static final String VARIANT_ANNOTATION_WRITER = "variant-annotation-writer";
     public static final String VARIANT_WRITER = "variant-writer";
+    public static final String VARIANT_LOAD_PROCESSOR = "variant-load-processor";
+    public static final String VARIANT_STATS_WRITER = "variant-stats-writer";
+
+    public static final String VARIANT_STATS_PROCESSOR = "variant-stats-processor";
+
+    public static final String VEP_ANNOTATION_PARTITIONER = "vep-annotation-partitioner";
+    public static final String VCF_PARTITIONER = "vcf-partitioner";
+    public static final String STATISTICS_PARTITIONER = "statistics-partitioner";
 
     public static final String ANNOTATION_SKIP_STEP_DECIDER = "annotation-skip-step-decider";
     public static final String STATISTICS_SKIP_STEP_DECIDER = "statistics-skip-step-decider";
+    public static final String VARIANT_ID_FILTER_DECIDER = "variant-id-filter-decider";
+    public static final String VARIANTS_INDEXES_DECIDER = "variants-indexes-decider";
+    public static final String STATISTICS_CHUNKED_DECIDER = "statistics-chunked-decider";
 
     public static final String VEP_ANNOTATION_FLOW = "vep-annotation-flow";
     public static final String VEP_ANNOTATION_OPTIONAL_FLOW = "vep-annotation-optional.flow";
     public static final String PARALLEL_STATISTICS_AND_ANNOTATION = "parallel-statistics-and-annotation-flow";
     public static final String CALCULATE_STATISTICS_FLOW = "calculate-statistics-flow";
     public static final String CALCULATE_STATISTICS_OPTIONAL_FLOW = "calculate-statistics-optional-flow";
+    public static final String VARIANT_ID_FILTER_OPTIONAL_FLOW = "variant-id-filter-optional-flow";
+    public static final String VARIANTS_INDEXES_OPTIONAL_FLOW = "variants-indexes-optional-flow";
 
     public static final String LOAD_VEP_ANNOTATION_STEP = "load-vep-annotation-step";
     public static final String CALCULATE_STATISTICS_STEP = "calculate-statistics-step";
+    public static final String CALCULATE_AND_LOAD_STATISTICS_STEP = "calculate-and-load-statistics-step";
+    public static final String CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP = "calculate-and-load-statistics-partition";
     public static final String CREATE_DATABASE_INDEXES_STEP = "create-database-indexes-step";
+    public static final String CREATE_VARIANTS_INDEXES_STEP = "create-variants-indexes-step";
     public static final String GENES_LOAD_STEP = "genes-load-step";
     public static final String GENERATE_VEP_ANNOTATION_STEP = "generate-vep-annotation";
+    public static final String GENERATE_VEP_ANNOTATION_PARTITION_STEP = "generate-vep-annotation-partition";
     public static final String LOAD_STATISTICS_STEP = "load-statistics-step";
     public static final String LOAD_VARIANTS_STEP = "load-variants-step";
+    public static final String LOAD_VARIANTS_PARTITION_STEP = "load-variants-partition";
     public static final String LOAD_FILE_STEP = "load-file-step";
+    public static final String VARIANT_ID_FILTER_STEP = "variant-id-filter-step";
     public static final String DROP_SINGLE_STUDY_VARIANTS_STEP = "drop-single-study-variants-step";
     public static final String PULL_FILES_AND_STATISTICS_BY_STUDY_STEP = "pull-files-and-statistics-by-study-step";
     public static final String DROP_FILES_BY_STUDY_STEP = "drop-files-by-study-step";
@@ -16,23 +16,61 @@
 package uk.ac.ebi.eva.pipeline.configuration;
 
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.AdaptiveChunkSizeCompletionPolicy;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.MemoryBudgetCompletionPolicy;
 import uk.ac.ebi.eva.pipeline.parameters.ChunkSizeParameters;
 
 /**
- * Spring configuration to inject a SimplecompletionPolicy that modifies the chunk size with the configured
- * JobParameters chunk size.
+ * Spring configuration to inject a completion policy that starts with the configured JobParameters chunk size, and
+ * adapts it to the configured target duration, if any. The minimum and maximum sizes are widened to include the
+ * initial chunk size.
+ * <p>
+ * The steps that read variants can use instead a policy that also ends the chunks at the configured memory budget.
  */
 @Configuration
 public class ChunkSizeCompletionPolicyConfiguration {
 
     @Bean
     @StepScope
-    public SimpleCompletionPolicy chunkSizecompletionPolicy(ChunkSizeParameters chunkSizeParameters) {
-        return new SimpleCompletionPolicy(chunkSizeParameters.getChunkSize());
+    @Primary
+    public AdaptiveChunkSizeCompletionPolicy chunkSizecompletionPolicy(ChunkSizeParameters chunkSizeParameters) {
+        return new AdaptiveChunkSizeCompletionPolicy(chunkSizeParameters.getChunkSize(),
+                                                     chunkSizeParameters.getTargetMillis(),
+                                                     getMinChunkSize(chunkSizeParameters),
+                                                     getMaxChunkSize(chunkSizeParameters));
+    }
+
+    @Bean
+    @StepScope
+    public MemoryBudgetCompletionPolicy<Variant> variantChunkSizeCompletionPolicy(
+            ChunkSizeParameters chunkSizeParameters) {
+        return new MemoryBudgetCompletionPolicy<>(chunkSizeParameters.getChunkSize(),
+                                                  chunkSizeParameters.getTargetMillis(),
+                                                  getMinChunkSize(chunkSizeParameters),
+                                                  getMaxChunkSize(chunkSizeParameters),
+                                                  chunkSizeParameters.getMemoryBudgetBytes(),
+                                                  Variant::estimateSize);
+    }
+
+    private static int getMinChunkSize(ChunkSizeParameters chunkSizeParameters) {
+        int chunkSize = chunkSizeParameters.getChunkSize();
+        if (chunkSizeParameters.getTargetMillis() == 0) {
+            return chunkSize;
+        }
+        return Math.min(chunkSizeParameters.getMinChunkSize(), chunkSize);
+    }
+
+    private static int getMaxChunkSize(ChunkSizeParameters chunkSizeParameters) {
+        int chunkSize = chunkSizeParameters.getChunkSize();
+        if (chunkSizeParameters.getTargetMillis() == 0) {
+            return chunkSize;
+        }
+        return Math.max(chunkSizeParameters.getMaxChunkSize(), chunkSize);
     }
 
 }
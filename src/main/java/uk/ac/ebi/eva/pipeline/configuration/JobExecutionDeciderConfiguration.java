@@ -24,10 +24,15 @@ import uk.ac.ebi.eva.pipeline.jobs.deciders.SkipStepDecider;
 import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
 
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.ANNOTATION_SKIP_STEP_DECIDER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.STATISTICS_CHUNKED_DECIDER;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.STATISTICS_SKIP_STEP_DECIDER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_INDEXES_DECIDER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ID_FILTER_DECIDER;
 
 /**
- * This class defines the beans for the deciders to skip annotation and statistics step.
+ * This class defines the beans for the deciders to skip annotation and statistics step, to build the filter of
+ * variant identifiers and the deferred indexes of the variants only if requested, and to choose how the statistics
+ * are calculated.
  */
 @Configuration
 @EnableBatchProcessing
@@ -40,7 +45,25 @@ public class JobExecutionDeciderConfiguration {
 
     @Bean(STATISTICS_SKIP_STEP_DECIDER)
     public JobExecutionDecider statisticsSkipStepDecider() {
-        return new SkipStepDecider(JobParametersNames.STATISTICS_SKIP);
+        // the statistics calculated while loading the variants don't need to be calculated again
+        return new SkipStepDecider(JobParametersNames.STATISTICS_SKIP, JobParametersNames.CONFIG_LOAD_STATISTICS);
+    }
+
+    @Bean(VARIANT_ID_FILTER_DECIDER)
+    public JobExecutionDecider variantIdFilterDecider() {
+        return new SkipStepDecider(SkipStepDecider.Mode.SKIP_UNLESS_SET, JobParametersNames.CONFIG_LOAD_ID_FILTER);
+    }
+
+    @Bean(VARIANTS_INDEXES_DECIDER)
+    public JobExecutionDecider variantsIndexesDecider() {
+        return new SkipStepDecider(SkipStepDecider.Mode.SKIP_UNLESS_ENABLED,
+                                   JobParametersNames.CONFIG_LOAD_DEFER_INDEXES);
+    }
+
+    @Bean(STATISTICS_CHUNKED_DECIDER)
+    public JobExecutionDecider statisticsChunkedDecider() {
+        return new SkipStepDecider(SkipStepDecider.Mode.SKIP_UNLESS_ENABLED,
+                                   JobParametersNames.CONFIG_STATISTICS_CHUNKED);
     }
 
 }
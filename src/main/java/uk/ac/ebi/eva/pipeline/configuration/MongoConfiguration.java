@@ -16,10 +16,12 @@
 package uk.ac.ebi.eva.pipeline.configuration;
 
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -38,6 +40,9 @@ import java.util.Collections;
 
 /**
  * Utility class dealing with MongoDB connections using pipeline options
+ * <p>
+ * A single {@link MongoClient}, and thus a single connection pool, is shared by the whole application. Each step only
+ * binds the database it works on.
  */
 @Configuration
 public class MongoConfiguration {
@@ -47,18 +52,34 @@ public class MongoConfiguration {
         return new MongoMappingContext();
     }
 
+    /**
+     * Lazy so that the client is only built, and its servers monitored, when some step uses the database.
+     */
+    @Bean
+    @Lazy
+    public MongoClient mongoClient(MongoConnection mongoConnection) throws UnknownHostException {
+        return getMongoClient(mongoConnection);
+    }
+
     @Bean
     @StepScope
-    public MongoOperations mongoTemplate(DatabaseParameters databaseParameters, MongoMappingContext mongoMappingContext)
-            throws UnknownHostException {
-        return getMongoOperations(databaseParameters.getDatabaseName(),databaseParameters.getMongoConnection(),
-                mongoMappingContext);
+    public MongoOperations mongoTemplate(MongoClient mongoClient, DatabaseParameters databaseParameters,
+                                         MongoMappingContext mongoMappingContext) {
+        return getMongoOperations(databaseParameters.getDatabaseName(), mongoClient, mongoMappingContext);
     }
 
+    /**
+     * Opens a new connection pool. Use {@link #getMongoOperations(String, MongoClient, MongoMappingContext)} to
+     * reuse an existing one.
+     */
     public static MongoOperations getMongoOperations(String databaseName, MongoConnection mongoConnection,
                                                      MongoMappingContext mongoMappingContext)
             throws UnknownHostException {
-        MongoClient mongoClient = getMongoClient(mongoConnection);
+        return getMongoOperations(databaseName, getMongoClient(mongoConnection), mongoMappingContext);
+    }
+
+    public static MongoOperations getMongoOperations(String databaseName, MongoClient mongoClient,
+                                                     MongoMappingContext mongoMappingContext) {
         MongoDbFactory mongoFactory = getMongoDbFactory(mongoClient, databaseName);
         MappingMongoConverter mappingMongoConverter = getMappingMongoConverter(mongoFactory, mongoMappingContext);
         return new MongoTemplate(mongoFactory, mappingMongoConverter);
@@ -86,19 +107,31 @@ public class MongoConfiguration {
             password = mongoConnection.getPassword();
         }
         
+        MongoClientOptions options = getMongoClientOptions(mongoConnection);
         if (user == null || password == null) {
-            mongoClient = new MongoClient(MongoDBHelper.parseServerAddresses(mongoConnection.getHosts()));
+            mongoClient = new MongoClient(MongoDBHelper.parseServerAddresses(mongoConnection.getHosts()), options);
         } else {
             mongoClient = new MongoClient(
                     MongoDBHelper.parseServerAddresses(mongoConnection.getHosts()),
                     Collections.singletonList(MongoCredential.createCredential(mongoConnection.getUser(),
-                            authenticationDatabase, mongoConnection.getPassword().toCharArray())));
+                            authenticationDatabase, mongoConnection.getPassword().toCharArray())),
+                    options);
         }
-        mongoClient.setReadPreference(mongoConnection.getReadPreference());
 
         return mongoClient;
     }
 
+    private static MongoClientOptions getMongoClientOptions(MongoConnection mongoConnection) {
+        return MongoClientOptions.builder()
+                .readPreference(mongoConnection.getReadPreference())
+                .connectionsPerHost(mongoConnection.getConnectionsPerHost())
+                .threadsAllowedToBlockForConnectionMultiplier(mongoConnection.getWaitQueueMultiplier())
+                .maxWaitTime(mongoConnection.getMaxWaitTime())
+                .connectTimeout(mongoConnection.getConnectTimeout())
+                .socketTimeout(mongoConnection.getSocketTimeout())
+                .build();
+    }
+
     private static MappingMongoConverter getMappingMongoConverter(MongoDbFactory mongoFactory,
                                                                   MongoMappingContext mongoMappingContext) {
         DbRefResolver dbRefResolver = new DefaultDbRefResolver(mongoFactory);
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.configuration.partitioners;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.ac.ebi.eva.pipeline.jobs.steps.partitioners.VcfLinesPartitioner;
+import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.pipeline.parameters.LoadParameters;
+
+import java.io.File;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VCF_PARTITIONER;
+
+/**
+ * Configuration to inject a partitioner that splits the lines of the VCF to load, so that the partitions can be
+ * loaded in parallel.
+ */
+@Configuration
+public class VcfPartitionerConfiguration {
+
+    @Bean(VCF_PARTITIONER)
+    @StepScope
+    public Partitioner vcfPartitioner(InputParameters inputParameters, LoadParameters loadParameters) {
+        return new VcfLinesPartitioner(new File(inputParameters.getVcf()), loadParameters.getNumPartitions());
+    }
+
+}
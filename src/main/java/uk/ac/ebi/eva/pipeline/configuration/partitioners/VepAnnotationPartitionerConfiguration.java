@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.configuration.partitioners;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.pipeline.io.readers.VariantsMongoReader;
+import uk.ac.ebi.eva.pipeline.jobs.steps.partitioners.VariantsByChromosomePartitioner;
+import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_PARTITIONER;
+
+/**
+ * Configuration to inject a partitioner that splits the variants to annotate by chromosome, so that each partition
+ * can be annotated by its own VEP process.
+ */
+@Configuration
+public class VepAnnotationPartitionerConfiguration {
+
+    @Bean(VEP_ANNOTATION_PARTITIONER)
+    @StepScope
+    public Partitioner vepAnnotationPartitioner(MongoOperations mongoOperations,
+                                                DatabaseParameters databaseParameters,
+                                                InputParameters inputParameters,
+                                                AnnotationParameters annotationParameters) {
+        boolean excludeAnnotated = !annotationParameters.getOverwriteAnnotation();
+        return new VariantsByChromosomePartitioner(
+                mongoOperations,
+                databaseParameters.getCollectionVariantsName(),
+                VariantsMongoReader.buildQuery(inputParameters.getStudyId(), excludeAnnotated,
+                                               databaseParameters.getKeyedFiles()).get(),
+                annotationParameters.getVepNumProcesses());
+    }
+
+}
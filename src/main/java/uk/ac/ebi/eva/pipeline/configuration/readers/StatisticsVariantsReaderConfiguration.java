@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.configuration.readers;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BasicDBObjectBuilder;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantSourceEntryToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.pipeline.io.readers.MongoDbCursorItemReader;
+import uk.ac.ebi.eva.pipeline.io.readers.VariantsMongoReader;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.STATISTICS_VARIANTS_READER;
+
+/**
+ * Reads the variant documents of a file, with the samples needed to calculate their statistics.
+ * <p>
+ * The variants are sorted by the primary index, so that a restarted step reads them in the same order and can skip
+ * the ones that were already written.
+ */
+@Configuration
+public class StatisticsVariantsReaderConfiguration {
+
+    private static final String FILE_ID_KEY = VariantToDBObjectConverter.FILES_FIELD + "."
+            + VariantSourceEntryToDBObjectConverter.FILEID_FIELD;
+
+    @Bean(STATISTICS_VARIANTS_READER)
+    @StepScope
+    public MongoDbCursorItemReader statisticsVariantsReader(
+            MongoOperations mongoOperations, DatabaseParameters databaseParameters, InputParameters inputParameters,
+            @Value("#{stepExecutionContext['" + ExecutionContextParametersNames.PARTITION_CHROMOSOMES + "']}")
+                    List<String> chromosomes) {
+        String studyId = inputParameters.getStudyId();
+        String fileId = inputParameters.getVcfId();
+        boolean keyedFiles = databaseParameters.getKeyedFiles();
+
+        BasicDBObjectBuilder queryBuilder = VariantsMongoReader.buildQuery(studyId, false, keyedFiles);
+        if (keyedFiles) {
+            queryBuilder.add(KeyedFilesLayout.fileField(studyId, fileId), new BasicDBObject("$exists", true));
+        } else {
+            queryBuilder.add(FILE_ID_KEY, fileId);
+        }
+        if (chromosomes != null) {
+            queryBuilder.add(VariantToDBObjectConverter.CHROMOSOME_FIELD, new BasicDBObject("$in", chromosomes));
+        }
+
+        Map<String, Sort.Direction> sort = new LinkedHashMap<>();
+        sort.put(VariantToDBObjectConverter.CHROMOSOME_FIELD, Sort.Direction.ASC);
+        sort.put(VariantToDBObjectConverter.START_FIELD, Sort.Direction.ASC);
+        sort.put(VariantToDBObjectConverter.END_FIELD, Sort.Direction.ASC);
+
+        MongoDbCursorItemReader reader = new MongoDbCursorItemReader();
+        reader.setTemplate(mongoOperations);
+        reader.setCollection(databaseParameters.getCollectionVariantsName());
+        reader.setQuery(queryBuilder.get());
+        reader.setFields(VariantToDBObjectConverter.CHROMOSOME_FIELD, VariantToDBObjectConverter.START_FIELD,
+                         VariantToDBObjectConverter.END_FIELD, VariantToDBObjectConverter.REFERENCE_FIELD,
+                         VariantToDBObjectConverter.ALTERNATE_FIELD, VariantToDBObjectConverter.FILES_FIELD);
+        reader.setSort(sort);
+        return reader;
+    }
+
+}
@@ -22,12 +22,17 @@ import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.commons.models.data.VariantAnnotation;
 import uk.ac.ebi.eva.pipeline.io.readers.AnnotationFlatFileReader;
+import uk.ac.ebi.eva.pipeline.io.readers.AnnotationFlatFilesReader;
 import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
 
+import java.io.File;
+import java.util.List;
+
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ANNOTATION_READER;
 
 /**
- * Configuration to inject a AnnotationFlatFileReader as a Variant Annotation Reader in the pipeline.
+ * Configuration to inject a AnnotationFlatFileReader as a Variant Annotation Reader in the pipeline. If VEP wrote
+ * several output files (one per VEP process), all of them are read with an AnnotationFlatFilesReader.
  */
 @Configuration
 public class VariantAnnotationReaderConfiguration {
@@ -35,7 +40,14 @@ public class VariantAnnotationReaderConfiguration {
     @Bean(VARIANT_ANNOTATION_READER)
     @StepScope
     public ItemStreamReader<VariantAnnotation> variantAnnotationReader(AnnotationParameters annotationParameters) {
-        return new AnnotationFlatFileReader(annotationParameters.getVepOutput());
+        List<File> vepOutputFiles = annotationParameters.getVepOutputFiles();
+        if (vepOutputFiles.size() > 1) {
+            return new AnnotationFlatFilesReader(vepOutputFiles);
+        } else if (vepOutputFiles.size() == 1) {
+            return new AnnotationFlatFileReader(vepOutputFiles.get(0));
+        } else {
+            return new AnnotationFlatFileReader(annotationParameters.getVepOutput());
+        }
     }
 
 }
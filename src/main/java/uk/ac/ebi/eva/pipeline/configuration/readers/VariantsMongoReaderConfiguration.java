@@ -16,6 +16,7 @@
 package uk.ac.ebi.eva.pipeline.configuration.readers;
 
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.MongoOperations;
@@ -23,12 +24,16 @@ import org.springframework.data.mongodb.core.MongoOperations;
 import uk.ac.ebi.eva.pipeline.io.readers.VariantsMongoReader;
 import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
 import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
 import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
 
+import java.util.List;
+
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_READER;
 
 /**
- * Configuration to inject a VariantsMongoReader bean that reads from a mongo database in the pipeline
+ * Configuration to inject a VariantsMongoReader bean that reads from a mongo database in the pipeline. When used in a
+ * partitioned step, only the chromosomes of the partition are read.
  */
 @Configuration
 public class VariantsMongoReaderConfiguration {
@@ -38,7 +43,10 @@ public class VariantsMongoReaderConfiguration {
     public VariantsMongoReader variantsMongoReader(MongoOperations mongoOperations,
                                                    DatabaseParameters databaseParameters,
                                                    InputParameters inputParameters,
-                                                   AnnotationParameters annotationParameters) {
+                                                   AnnotationParameters annotationParameters,
+                                                   @Value("#{stepExecutionContext['"
+                                                           + ExecutionContextParametersNames.PARTITION_CHROMOSOMES
+                                                           + "']}") List<String> chromosomes) {
         // to overwrite annotation we have to bring all variants (non annotated and annotated)
         boolean excludeAnnotated = !annotationParameters.getOverwriteAnnotation();
 
@@ -46,7 +54,9 @@ public class VariantsMongoReaderConfiguration {
                 mongoOperations,
                 databaseParameters.getCollectionVariantsName(),
                 inputParameters.getStudyId(),
-                excludeAnnotated);
+                excludeAnnotated,
+                chromosomes,
+                databaseParameters.getKeyedFiles());
         variantsMongoReader.setSaveState(false);
         return variantsMongoReader;
     }
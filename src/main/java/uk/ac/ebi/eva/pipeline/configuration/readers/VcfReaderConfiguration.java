@@ -18,17 +18,25 @@ package uk.ac.ebi.eva.pipeline.configuration.readers;
 import org.opencb.biodata.models.variant.VariantSource;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.pipeline.io.OffsetResource;
 import uk.ac.ebi.eva.pipeline.io.readers.AggregatedVcfReader;
+import uk.ac.ebi.eva.pipeline.io.readers.ReadAheadItemStreamReader;
 import uk.ac.ebi.eva.pipeline.io.readers.UnwindingItemStreamReader;
 import uk.ac.ebi.eva.pipeline.io.readers.VcfReader;
+import uk.ac.ebi.eva.pipeline.parameters.ChunkSizeParameters;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
 import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.pipeline.parameters.LoadParameters;
+import uk.ac.ebi.eva.utils.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_READER;
 
@@ -38,33 +46,58 @@ import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_READER;
 @Configuration
 public class VcfReaderConfiguration {
 
+    /**
+     * When the load is pipelined, the VCF is read and parsed in a separate thread, up to a chunk ahead.
+     */
     @Bean(VARIANT_READER)
     @StepScope
-    public ItemStreamReader<Variant> unwindingReader(VcfReader vcfReader) {
-        return new UnwindingItemStreamReader<>(vcfReader);
+    public ItemStreamReader<Variant> unwindingReader(VcfReader vcfReader, LoadParameters loadParameters,
+                                                     ChunkSizeParameters chunkSizeParameters) {
+        if (loadParameters.getPipelined()) {
+            ItemStreamReader<List<Variant>> readAheadReader = new ReadAheadItemStreamReader<>(
+                    vcfReader, chunkSizeParameters.getChunkSize());
+            return new UnwindingItemStreamReader<>(readAheadReader);
+        } else {
+            return new UnwindingItemStreamReader<>(vcfReader);
+        }
     }
 
     /**
      * The aggregation type is passed so that spring won't cache the instance of VcfReader if it is already built
      * with other aggregation type.
+     * <p>
+     * When the step is a partition of the VCF (see
+     * {@link uk.ac.ebi.eva.pipeline.jobs.steps.partitioners.VcfLinesPartitioner}), only the lines of that partition
+     * are read.
      *
      * @return a VcfReader for the given aggregation type.
      * @throws IOException if the file doesn't exist, because it has to be read to see if it's compressed.
      */
     @Bean
     @StepScope
-    public VcfReader vcfReader(InputParameters parameters) throws IOException {
+    public VcfReader vcfReader(InputParameters parameters,
+                               @Value("#{stepExecutionContext['" + ExecutionContextParametersNames.PARTITION_START_BYTE
+                                       + "']}") Long partitionStartByte,
+                               @Value("#{stepExecutionContext['" + ExecutionContextParametersNames.PARTITION_LINES
+                                       + "']}") Integer partitionLines) throws IOException {
         String fileId = parameters.getVcfId();
         String studyId = parameters.getStudyId();
         File vcfFile = new File(parameters.getVcf());
         VariantSource.Aggregation vcfAggregation = parameters.getVcfAggregation();
 
+        VcfReader reader;
         if (VariantSource.Aggregation.NONE.equals(vcfAggregation)) {
-            return new VcfReader(fileId, studyId, vcfFile);
+            reader = new VcfReader(fileId, studyId, vcfFile);
         } else {
-            return new AggregatedVcfReader(fileId, studyId, vcfAggregation, parameters.getAggregatedMappingFile(),
+            reader = new AggregatedVcfReader(fileId, studyId, vcfAggregation, parameters.getAggregatedMappingFile(),
                     vcfFile);
         }
+
+        if (partitionStartByte != null && partitionLines != null) {
+            reader.setResource(new OffsetResource(FileUtils.getResource(vcfFile), partitionStartByte));
+            reader.setMaxItemCount(partitionLines);
+        }
+        return reader;
     }
 
 }
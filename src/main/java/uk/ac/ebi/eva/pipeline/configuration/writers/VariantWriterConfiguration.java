@@ -22,11 +22,18 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.util.StringUtils;
 import uk.ac.ebi.eva.commons.models.data.Variant;
 import uk.ac.ebi.eva.pipeline.Application;
+import uk.ac.ebi.eva.pipeline.io.VariantIdBloomFilter;
 import uk.ac.ebi.eva.pipeline.io.writers.VariantMongoWriter;
+import uk.ac.ebi.eva.pipeline.parameters.ChunkSizeParameters;
 import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
 import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.pipeline.parameters.LoadParameters;
+
+import java.io.File;
+import java.io.IOException;
 
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_WRITER;
 
@@ -37,18 +44,33 @@ public class VariantWriterConfiguration {
     @StepScope
     @Profile(Application.VARIANT_WRITER_MONGO_PROFILE)
     public ItemWriter<Variant> variantMongoWriter(InputParameters inputParameters, MongoOperations mongoOperations,
-                                                  DatabaseParameters databaseParameters) {
+                                                  DatabaseParameters databaseParameters,
+                                                  LoadParameters loadParameters,
+                                                  ChunkSizeParameters chunkSizeParameters) throws IOException {
         boolean includeSamples, includeStats;
         if (VariantSource.Aggregation.NONE.equals(inputParameters.getVcfAggregation())) {
             includeSamples = true;
-            includeStats = false;
+            includeStats = loadParameters.getStatistics();
         } else {
             includeSamples = false;
             includeStats = true;
         }
 
-        return new VariantMongoWriter(databaseParameters.getCollectionVariantsName(), mongoOperations, includeStats,
-                includeSamples);
+        int inFlightBulks = loadParameters.getInFlightBulks();
+        if (!loadParameters.getPipelined() && inFlightBulks == 1) {
+            inFlightBulks = 0;
+        }
+        VariantMongoWriter writer = new VariantMongoWriter(databaseParameters.getCollectionVariantsName(),
+                mongoOperations, includeStats, includeSamples, inFlightBulks, loadParameters.getInsertOnly(),
+                !loadParameters.getDeferIndexes(), databaseParameters.getKeyedFiles());
+        writer.setCompactSamples(databaseParameters.getCompactSamples());
+        if (chunkSizeParameters.getMemoryBudgetBytes() > 0) {
+            writer.setMaxBulkBytes(chunkSizeParameters.getMemoryBudgetBytes());
+        }
+        if (StringUtils.hasText(loadParameters.getIdFilter())) {
+            writer.setIdFilter(VariantIdBloomFilter.open(new File(loadParameters.getIdFilter()), true));
+        }
+        return writer;
     }
 
 }
@@ -16,25 +16,43 @@
 package uk.ac.ebi.eva.pipeline.configuration.writers;
 
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoOperations;
 
+import uk.ac.ebi.eva.pipeline.io.VepOutputLoader;
 import uk.ac.ebi.eva.pipeline.io.writers.VepAnnotationFileWriter;
-import uk.ac.ebi.eva.pipeline.model.VariantWrapper;
+import uk.ac.ebi.eva.pipeline.io.writers.VepAnnotationMongoWriter;
 import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
 import uk.ac.ebi.eva.pipeline.parameters.ChunkSizeParameters;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
 
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_WRITER;
 
+/**
+ * Configuration to inject a VepAnnotationFileWriter. If the annotations have to be loaded directly, the writer also
+ * gets a {@link VepOutputLoader} that sends them to the variants collection.
+ */
 @Configuration
 public class VepAnnotationFileWriterConfiguration {
 
     @Bean(VEP_ANNOTATION_WRITER)
     @StepScope
-    public ItemWriter<VariantWrapper> vepAnnotationFileWriter(AnnotationParameters annotationParameters,
-            ChunkSizeParameters chunkSizeParameters) {
-        return new VepAnnotationFileWriter(annotationParameters, chunkSizeParameters.getChunkSize(),
+    public VepAnnotationFileWriter vepAnnotationFileWriter(AnnotationParameters annotationParameters,
+            ChunkSizeParameters chunkSizeParameters, MongoOperations mongoOperations,
+            DatabaseParameters databaseParameters,
+            @Value("#{stepExecutionContext['" + ExecutionContextParametersNames.PARTITION_INDEX + "']}")
+                    Integer partitionIndex) {
+        VepOutputLoader vepOutputLoader = null;
+        if (annotationParameters.getLoadDirectly()) {
+            vepOutputLoader = new VepOutputLoader(
+                    new VepAnnotationMongoWriter(mongoOperations, databaseParameters.getCollectionVariantsName()),
+                    chunkSizeParameters.getChunkSize());
+        }
+        return new VepAnnotationFileWriter(annotationParameters, annotationParameters.getVepOutput(partitionIndex),
+                vepOutputLoader, annotationParameters.getKeepVepOutput(), chunkSizeParameters.getChunkSize(),
                 annotationParameters.getTimeout());
     }
 
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a BGZF (bgzip) stream inflating several blocks at the same time.
+ * <p>
+ * A BGZF file is a series of gzip members of up to 64KB, each of them storing its compressed size in a header
+ * subfield, so the blocks can be split without inflating them. The compressed blocks are read in this thread and
+ * inflated in a pool, which is kept a few blocks ahead of the reader. The inflated blocks are returned in the same
+ * order as in the file.
+ * <p>
+ * Reference: https://samtools.github.io/hts-specs/SAMv1.pdf (section 4.1)
+ */
+public class BgzfInputStream extends InputStream {
+
+    private static final int GZIP_ID1 = 31;
+
+    private static final int GZIP_ID2 = 139;
+
+    private static final int CM_DEFLATE = 8;
+
+    private static final int FLG_FEXTRA = 4;
+
+    /**
+     * Bytes of the header until the extra subfields (included XLEN)
+     */
+    private static final int HEADER_SIZE = 12;
+
+    private static final int FOOTER_SIZE = 8;
+
+    private static final int MAX_BLOCK_SIZE = 65536;
+
+    private static final int BLOCKS_AHEAD_PER_THREAD = 2;
+
+    private static final long IDLE_THREAD_SECONDS = 10;
+
+    private static final AtomicInteger poolNumber = new AtomicInteger(0);
+
+    private final InputStream compressedStream;
+
+    private final ExecutorService inflaterPool;
+
+    private final int maxBlocksAhead;
+
+    private final Queue<Future<byte[]>> pendingBlocks;
+
+    private final byte[] header;
+
+    private boolean endOfCompressedStream;
+
+    private byte[] block;
+
+    private int blockPosition;
+
+    private boolean closed;
+
+    public BgzfInputStream(InputStream compressedStream, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads (" + threads + ") must be strictly greater than 0");
+        }
+        this.compressedStream = compressedStream;
+        this.maxBlocksAhead = threads * BLOCKS_AHEAD_PER_THREAD;
+        this.pendingBlocks = new ArrayDeque<>(maxBlocksAhead);
+        this.header = new byte[HEADER_SIZE];
+        this.block = new byte[0];
+        this.blockPosition = 0;
+
+        String threadPrefix = "bgzf-inflater-" + poolNumber.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the threads are not kept alive if a reader forgets to close the stream
+        pool.allowCoreThreadTimeOut(true);
+        this.inflaterPool = pool;
+    }
+
+    /**
+     * Checks whether some bytes are the start of a BGZF block: a gzip header with the extra subfield "BC".
+     *
+     * @param bytes the first bytes of a file
+     * @param length how many of them were read
+     */
+    public static boolean isBgzfHeader(byte[] bytes, int length) {
+        if (length < HEADER_SIZE || (bytes[0] & 0xff) != GZIP_ID1 || (bytes[1] & 0xff) != GZIP_ID2
+                || bytes[2] != CM_DEFLATE || (bytes[3] & FLG_FEXTRA) == 0) {
+            return false;
+        }
+        int extraLength = readUnsignedShort(bytes, 10);
+        return findBlockSizeSubfield(bytes, HEADER_SIZE, Math.min(length, HEADER_SIZE + extraLength)) != -1;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBlock()) {
+            return -1;
+        }
+        return block[blockPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureBlock()) {
+            return -1;
+        }
+        int copied = Math.min(length, block.length - blockPosition);
+        System.arraycopy(block, blockPosition, buffer, offset, copied);
+        blockPosition += copied;
+        return copied;
+    }
+
+    /**
+     * Skips bytes without inflating the blocks that are skipped completely, using the inflated size stored at the end
+     * of each block. This makes it cheap to start reading a file from the middle.
+     */
+    @Override
+    public long skip(long bytes) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        long skipped = 0;
+        while (skipped < bytes) {
+            if (blockPosition < block.length) {
+                int skippedInBlock = (int) Math.min(bytes - skipped, block.length - blockPosition);
+                blockPosition += skippedInBlock;
+                skipped += skippedInBlock;
+            } else if (pendingBlocks.isEmpty()) {
+                byte[] compressedBlock = readCompressedBlock();
+                if (compressedBlock == null) {
+                    endOfCompressedStream = true;
+                    break;
+                }
+                long inflatedSize = readUnsignedInt(compressedBlock, compressedBlock.length - 4);
+                if (inflatedSize <= bytes - skipped) {
+                    skipped += inflatedSize;
+                } else {
+                    block = inflate(compressedBlock);
+                    blockPosition = 0;
+                }
+            } else if (!ensureBlock()) {
+                break;
+            }
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed ? 0 : block.length - blockPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            inflaterPool.shutdownNow();
+            pendingBlocks.clear();
+            compressedStream.close();
+        }
+    }
+
+    /**
+     * Makes sure that there are bytes left in the current block, taking the next non-empty block if needed.
+     *
+     * @return false if the end of the stream has been reached
+     */
+    private boolean ensureBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (blockPosition == block.length) {
+            fillPendingBlocks();
+            Future<byte[]> nextBlock = pendingBlocks.poll();
+            if (nextBlock == null) {
+                return false;
+            }
+            block = getInflatedBlock(nextBlock);
+            blockPosition = 0;
+        }
+        return true;
+    }
+
+    private void fillPendingBlocks() throws IOException {
+        while (!endOfCompressedStream && pendingBlocks.size() < maxBlocksAhead) {
+            byte[] compressedBlock = readCompressedBlock();
+            if (compressedBlock == null) {
+                endOfCompressedStream = true;
+            } else {
+                pendingBlocks.add(inflaterPool.submit(() -> inflate(compressedBlock)));
+            }
+        }
+    }
+
+    private byte[] getInflatedBlock(Future<byte[]> inflatedBlock) throws IOException {
+        try {
+            return inflatedBlock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating a BGZF block");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Could not inflate a BGZF block", cause);
+        }
+    }
+
+    /**
+     * @return the whole compressed block, header included, or null if the stream has no more blocks
+     */
+    private byte[] readCompressedBlock() throws IOException {
+        int headerRead = readFully(header, 0, HEADER_SIZE);
+        if (headerRead == 0) {
+            return null;
+        }
+        if (headerRead < HEADER_SIZE) {
+            throw new EOFException("Truncated BGZF block header");
+        }
+        if ((header[0] & 0xff) != GZIP_ID1 || (header[1] & 0xff) != GZIP_ID2 || header[2] != CM_DEFLATE
+                || (header[3] & FLG_FEXTRA) == 0) {
+            throw new ZipException("Not a BGZF block header");
+        }
+        int extraLength = readUnsignedShort(header, 10);
+        byte[] extra = new byte[extraLength];
+        if (readFully(extra, 0, extraLength) < extraLength) {
+            throw new EOFException("Truncated BGZF block header");
+        }
+        int blockSizeOffset = findBlockSizeSubfield(extra, 0, extraLength);
+        if (blockSizeOffset == -1) {
+            throw new ZipException("The gzip block doesn't have the BGZF block size subfield");
+        }
+        int blockSize = readUnsignedShort(extra, blockSizeOffset) + 1;
+        int headerSize = HEADER_SIZE + extraLength;
+        if (blockSize < headerSize + FOOTER_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new ZipException("Invalid BGZF block size: " + blockSize);
+        }
+
+        byte[] compressedBlock = new byte[blockSize];
+        System.arraycopy(header, 0, compressedBlock, 0, HEADER_SIZE);
+        System.arraycopy(extra, 0, compressedBlock, HEADER_SIZE, extraLength);
+        int remaining = blockSize - headerSize;
+        if (readFully(compressedBlock, headerSize, remaining) < remaining) {
+            throw new EOFException("Truncated BGZF block");
+        }
+        return compressedBlock;
+    }
+
+    private static byte[] inflate(byte[] compressedBlock) throws IOException {
+        int headerSize = HEADER_SIZE + readUnsignedShort(compressedBlock, 10);
+        int footerStart = compressedBlock.length - FOOTER_SIZE;
+        long expectedCrc = readUnsignedInt(compressedBlock, footerStart);
+        int inflatedSize = (int) readUnsignedInt(compressedBlock, footerStart + 4);
+        if (inflatedSize > MAX_BLOCK_SIZE) {
+            throw new ZipException("Invalid BGZF inflated block size: " + inflatedSize);
+        }
+
+        byte[] inflated = new byte[inflatedSize];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressedBlock, headerSize, footerStart - headerSize);
+            int inflatedBytes = 0;
+            while (inflatedBytes < inflatedSize && !inflater.finished()) {
+                int bytes = inflater.inflate(inflated, inflatedBytes, inflatedSize - inflatedBytes);
+                if (bytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedBytes += bytes;
+            }
+            if (inflatedBytes != inflatedSize) {
+                throw new ZipException("Corrupt BGZF block: expected " + inflatedSize + " bytes, inflated "
+                                               + inflatedBytes);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt BGZF block: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(inflated, 0, inflatedSize);
+        if (crc.getValue() != expectedCrc) {
+            throw new ZipException("Corrupt BGZF block: CRC mismatch");
+        }
+        return inflated;
+    }
+
+    /**
+     * @return the offset of the value of the "BC" subfield, or -1 if it is not present
+     */
+    private static int findBlockSizeSubfield(byte[] bytes, int start, int end) {
+        int subfield = start;
+        while (subfield + 4 <= end) {
+            int subfieldLength = readUnsignedShort(bytes, subfield + 2);
+            if (bytes[subfield] == 'B' && bytes[subfield + 1] == 'C' && subfieldLength == 2
+                    && subfield + 6 <= end) {
+                return subfield + 4;
+            }
+            subfield += 4 + subfieldLength;
+        }
+        return -1;
+    }
+
+    private int readFully(byte[] buffer, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int bytes = compressedStream.read(buffer, offset + read, length - read);
+            if (bytes == -1) {
+                break;
+            }
+            read += bytes;
+        }
+        return read;
+    }
+
+    private static int readUnsignedShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    private static long readUnsignedInt(byte[] bytes, int offset) {
+        return readUnsignedShort(bytes, offset) | ((long) readUnsignedShort(bytes, offset + 2) << 16);
+    }
+}
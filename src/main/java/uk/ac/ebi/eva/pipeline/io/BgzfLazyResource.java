@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compressed resource that inflates bgzip files in parallel with a {@link BgzfInputStream}. Files compressed with
+ * plain gzip are read with a {@link GZIPInputStream}, as in {@link GzipLazyResource}.
+ * <p>
+ * The compression is detected when the stream is opened, so this resource is lazy too.
+ */
+public class BgzfLazyResource extends GzipLazyResource {
+
+    private static final int MAX_INFLATER_THREADS = 4;
+
+    private static final int DETECTION_BYTES = 64;
+
+    private final int inflaterThreads;
+
+    public BgzfLazyResource(File file) {
+        this(file, defaultInflaterThreads());
+    }
+
+    public BgzfLazyResource(File file, int inflaterThreads) {
+        super(file);
+        this.inflaterThreads = inflaterThreads;
+    }
+
+    public BgzfLazyResource(String path) {
+        this(new File(path));
+    }
+
+    private static int defaultInflaterThreads() {
+        return Math.min(MAX_INFLATER_THREADS, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        // GzipLazyResource.getInputStream would already wrap the file in a GZIPInputStream
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(getFile()));
+        try {
+            if (isBgzf(inputStream)) {
+                return new BgzfInputStream(inputStream, inflaterThreads);
+            } else {
+                return new GZIPInputStream(inputStream);
+            }
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    private boolean isBgzf(InputStream inputStream) throws IOException {
+        byte[] header = new byte[DETECTION_BYTES];
+        inputStream.mark(DETECTION_BYTES);
+        int read = 0;
+        while (read < DETECTION_BYTES) {
+            int bytes = inputStream.read(header, read, DETECTION_BYTES - read);
+            if (bytes == -1) {
+                break;
+            }
+            read += bytes;
+        }
+        inputStream.reset();
+        return BgzfInputStream.isBgzfHeader(header, read);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resource whose content starts at some byte of another resource. For compressed resources, the offset refers to the
+ * uncompressed content.
+ * <p>
+ * It is lazy like the resource it wraps: the stream is only opened and skipped when it is requested.
+ */
+public class OffsetResource extends AbstractResource {
+
+    private final Resource resource;
+
+    private final long offset;
+
+    public OffsetResource(Resource resource, long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset (" + offset + ") must not be negative");
+        }
+        this.resource = resource;
+        this.offset = offset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean exists() {
+        return resource.exists();
+    }
+
+    @Override
+    public File getFile() throws IOException {
+        return resource.getFile();
+    }
+
+    @Override
+    public String getFilename() {
+        return resource.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return resource.getDescription() + " from byte " + offset;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream inputStream = resource.getInputStream();
+        try {
+            long remaining = offset;
+            while (remaining > 0) {
+                long skipped = inputStream.skip(remaining);
+                if (skipped <= 0) {
+                    if (inputStream.read() == -1) {
+                        throw new EOFException(resource.getDescription() + " is shorter than " + offset + " bytes");
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+            return inputStream;
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+}
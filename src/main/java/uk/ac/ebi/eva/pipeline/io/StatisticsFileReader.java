@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opencb.biodata.models.variant.stats.VariantStats;
+import org.opencb.opencga.storage.core.variant.io.json.VariantStatsJsonMixin;
+
+import uk.ac.ebi.eva.utils.StatisticsFileFormat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads one by one the objects of a statistics file, in the {@link StatisticsFileFormat} of its extension.
+ */
+public class StatisticsFileReader implements Closeable {
+
+    private final JsonParser parser;
+
+    public StatisticsFileReader(File file) throws IOException {
+        StatisticsFileFormat format = StatisticsFileFormat.fromPath(file.getName());
+        parser = createObjectMapper(format).getFactory().createParser(format.open(file));
+    }
+
+    static ObjectMapper createObjectMapper(StatisticsFileFormat format) {
+        ObjectMapper objectMapper = new ObjectMapper(format.createFactory());
+        objectMapper.addMixIn(VariantStats.class, VariantStatsJsonMixin.class);
+        return objectMapper;
+    }
+
+    /**
+     * @return the next object of the file, or null if there are no more
+     */
+    public <T> T read(Class<T> type) throws IOException {
+        if (parser.nextToken() == null) {
+            return null;
+        }
+        return parser.readValueAs(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
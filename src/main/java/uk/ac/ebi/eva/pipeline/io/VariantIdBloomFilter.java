@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bloom filter of variant identifiers (as built by {@link uk.ac.ebi.eva.utils.MongoDBHelper#buildStorageId}) stored
+ * in a memory-mapped file, so that it doesn't take space in the Java heap, and it is kept between jobs.
+ * <p>
+ * {@link #mightContain(String)} never returns false for an identifier that has been added. It returns true for an
+ * identifier that has not been added with a probability of about {@link #FALSE_POSITIVE_PROBABILITY}, as long as no
+ * more than the expected number of identifiers have been added; after that the filter is
+ * {@link #isSaturated() saturated} and should be created again with a bigger size.
+ * <p>
+ * Several instances can map the same file, but only one of them should add identifiers at a time.
+ */
+public class VariantIdBloomFilter implements Closeable {
+
+    public static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private static final int MAGIC = 0x45564246;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int NUM_HASHES_OFFSET = 4;
+
+    private static final int NUM_BITS_OFFSET = 8;
+
+    private static final int EXPECTED_IDS_OFFSET = 16;
+
+    private static final int ADDED_IDS_OFFSET = 24;
+
+    private static final int HEADER_BYTES = 32;
+
+    private final File file;
+
+    private final MappedByteBuffer buffer;
+
+    private final boolean readOnly;
+
+    private final int numHashes;
+
+    private final long numBits;
+
+    private final long expectedIds;
+
+    private long addedIds;
+
+    private VariantIdBloomFilter(File file, MappedByteBuffer buffer, boolean readOnly) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("File " + file + " is not a variant identifiers filter");
+        }
+        this.file = file;
+        this.buffer = buffer;
+        this.readOnly = readOnly;
+        this.numHashes = buffer.getInt(NUM_HASHES_OFFSET);
+        this.numBits = buffer.getLong(NUM_BITS_OFFSET);
+        this.expectedIds = buffer.getLong(EXPECTED_IDS_OFFSET);
+        this.addedIds = buffer.getLong(ADDED_IDS_OFFSET);
+        if (HEADER_BYTES + numBits / Byte.SIZE != buffer.capacity()) {
+            throw new IOException("File " + file + " is truncated, it should have "
+                                          + (HEADER_BYTES + numBits / Byte.SIZE) + " bytes");
+        }
+    }
+
+    /**
+     * Creates an empty filter, replacing the file if it already exists.
+     */
+    public static VariantIdBloomFilter create(File file, long expectedIds) throws IOException {
+        if (expectedIds <= 0) {
+            throw new IllegalArgumentException("The expected number of identifiers must be positive");
+        }
+        double bitsPerId = -Math.log(FALSE_POSITIVE_PROBABILITY) / (Math.log(2) * Math.log(2));
+        long numBytes = (long) Math.ceil(expectedIds * bitsPerId / Byte.SIZE);
+        if (HEADER_BYTES + numBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A filter for " + expectedIds + " identifiers would be too big");
+        }
+        long numBits = numBytes * Byte.SIZE;
+        int numHashes = Math.max(1, (int) Math.round(bitsPerId * Math.log(2)));
+
+        MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(0);
+            randomAccessFile.setLength(HEADER_BYTES + numBytes);
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + numBytes);
+        }
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(NUM_HASHES_OFFSET, numHashes);
+        buffer.putLong(NUM_BITS_OFFSET, numBits);
+        buffer.putLong(EXPECTED_IDS_OFFSET, expectedIds);
+        buffer.putLong(ADDED_IDS_OFFSET, 0);
+        return new VariantIdBloomFilter(file, buffer, false);
+    }
+
+    /**
+     * Maps an existing filter.
+     *
+     * @param readOnly if true, identifiers can't be added
+     */
+    public static VariantIdBloomFilter open(File file, boolean readOnly) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, readOnly ? "r" : "rw")) {
+            FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+            buffer = randomAccessFile.getChannel().map(mode, 0, randomAccessFile.length());
+        }
+        return new VariantIdBloomFilter(file, buffer, readOnly);
+    }
+
+    public boolean mightContain(String id) {
+        long hash1 = hash(id);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, numBits);
+            if ((buffer.get(byteOffset(bit)) & bitMask(bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String id) {
+        if (readOnly) {
+            throw new IllegalStateException("Filter " + file + " was opened as read-only");
+        }
+        long hash1 = hash(id);
+        long hash2 = mix(hash1);
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, numBits);
+            int offset = byteOffset(bit);
+            byte value = buffer.get(offset);
+            if ((value & bitMask(bit)) == 0) {
+                buffer.put(offset, (byte) (value | bitMask(bit)));
+                changed = true;
+            }
+        }
+        // an identifier that doesn't change any bit was added before, or looks like it was
+        if (changed) {
+            addedIds++;
+            buffer.putLong(ADDED_IDS_OFFSET, addedIds);
+        }
+    }
+
+    public long getExpectedIds() {
+        return expectedIds;
+    }
+
+    public long getAddedIds() {
+        return addedIds;
+    }
+
+    public boolean isSaturated() {
+        return addedIds > expectedIds;
+    }
+
+    /**
+     * Writes the changes to the file. The file stays mapped until this object is garbage collected.
+     */
+    @Override
+    public void close() {
+        if (!readOnly) {
+            buffer.force();
+        }
+    }
+
+    private static int byteOffset(long bit) {
+        return (int) (HEADER_BYTES + bit / Byte.SIZE);
+    }
+
+    private static int bitMask(long bit) {
+        return 1 << (bit % Byte.SIZE);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of the identifier, with the bits mixed at the end.
+     */
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads every input bit over the whole output.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
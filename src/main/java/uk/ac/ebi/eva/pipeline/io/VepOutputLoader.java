@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+
+import uk.ac.ebi.eva.commons.models.data.VariantAnnotation;
+import uk.ac.ebi.eva.pipeline.io.mappers.AnnotationLineMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the annotations written by VEP while VEP is still running, so that they don't need to be compressed into a
+ * file and parsed again in a separate step.
+ * <p>
+ * The thread that reads VEP's standard output calls {@link #load(String)} for every annotation line. Lines are mapped
+ * with {@link AnnotationLineMapper} and grouped in batches that never split the annotations of a variant. The batches
+ * are handed through a bounded queue to a separate thread that sends them to the writer, so that parsing and database
+ * writes overlap, and a slow database makes VEP wait instead of piling up annotations in memory.
+ * <p>
+ * As in the step that loads the VEP output file, up to {@link #SKIP_LIMIT} malformed lines are skipped.
+ */
+public class VepOutputLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(VepOutputLoader.class);
+
+    public static final int SKIP_LIMIT = 50;
+
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final long OFFER_PERIOD_IN_MILLISECONDS = 100;
+
+    /**
+     * Marks the end of the output in the queue. Compared by identity, not equality.
+     */
+    private static final List<VariantAnnotation> END_OF_OUTPUT = new ArrayList<>();
+
+    private final ItemWriter<VariantAnnotation> writer;
+
+    private final int batchSize;
+
+    private final AnnotationLineMapper lineMapper;
+
+    private BlockingQueue<List<VariantAnnotation>> queue;
+
+    private Thread loaderThread;
+
+    private volatile Exception loadingError;
+
+    private final AtomicLong loadedAnnotations;
+
+    private List<VariantAnnotation> batch;
+
+    private String lastUploadedVariation;
+
+    private int lineNumber;
+
+    private int skippedLines;
+
+    public VepOutputLoader(ItemWriter<VariantAnnotation> writer, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size (" + batchSize + ") must be strictly greater than 0");
+        }
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.lineMapper = new AnnotationLineMapper();
+        this.loadedAnnotations = new AtomicLong(0);
+    }
+
+    public void start() {
+        queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        loadingError = null;
+        loadedAnnotations.set(0);
+        batch = new ArrayList<>(batchSize);
+        lastUploadedVariation = null;
+        lineNumber = 0;
+        skippedLines = 0;
+
+        loaderThread = new Thread(this::writeBatches, "vep-output-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+
+    private void writeBatches() {
+        try {
+            List<VariantAnnotation> annotations = queue.take();
+            while (annotations != END_OF_OUTPUT) {
+                writer.write(annotations);
+                loadedAnnotations.addAndGet(annotations.size());
+                annotations = queue.take();
+            }
+        } catch (InterruptedException e) {
+            loadingError = e;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Loading the VEP output into the database failed", e);
+            loadingError = e;
+        }
+    }
+
+    /**
+     * Maps a line of the VEP output, which must not be a header line, and queues it to be loaded.
+     *
+     * @throws IOException if the annotations can't be loaded, so that VEP's output is not read anymore
+     */
+    public void load(String line) throws IOException {
+        lineNumber++;
+        String uploadedVariation = getUploadedVariation(line);
+        if (batch.size() >= batchSize && !uploadedVariation.equals(lastUploadedVariation)) {
+            enqueue(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+        lastUploadedVariation = uploadedVariation;
+
+        try {
+            batch.add(lineMapper.mapLine(line, lineNumber));
+        } catch (RuntimeException e) {
+            skippedLines++;
+            if (skippedLines > SKIP_LIMIT) {
+                throw new IOException("Skip limit (" + SKIP_LIMIT + ") exceeded while parsing the VEP output", e);
+            }
+            logger.warn("Skipped malformed line {} of the VEP output: {}", lineNumber, line);
+        }
+    }
+
+    /**
+     * Loads the annotations that are still queued and waits until they have been written.
+     *
+     * @throws IOException if any annotation couldn't be written
+     */
+    public void finish() throws IOException {
+        if (!batch.isEmpty()) {
+            enqueue(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+        enqueue(END_OF_OUTPUT);
+        try {
+            loaderThread.join();
+        } catch (InterruptedException e) {
+            loaderThread.interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the VEP output to be loaded");
+        }
+        checkLoadingError();
+        logger.debug("Loaded {} annotations from the VEP output ({} lines skipped)", loadedAnnotations.get(),
+                     skippedLines);
+    }
+
+    /**
+     * Stops loading without waiting for the queued annotations. It is safe to call this method several times.
+     */
+    public void abort() {
+        if (loaderThread != null) {
+            loaderThread.interrupt();
+        }
+    }
+
+    public long getLoadedAnnotations() {
+        return loadedAnnotations.get();
+    }
+
+    public int getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * Waits for free space in the queue, checking periodically that the loader thread is still consuming it.
+     */
+    private void enqueue(List<VariantAnnotation> annotations) throws IOException {
+        try {
+            checkLoadingError();
+            while (!queue.offer(annotations, OFFER_PERIOD_IN_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                checkLoadingError();
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while queueing the VEP output to be loaded");
+        }
+    }
+
+    private void checkLoadingError() throws IOException {
+        if (loadingError != null) {
+            throw new IOException("Loading the VEP output into the database failed", loadingError);
+        }
+        if (!loaderThread.isAlive() && queue.remainingCapacity() == 0) {
+            throw new IOException("The thread loading the VEP output into the database is not running");
+        }
+    }
+
+    private String getUploadedVariation(String line) {
+        int firstTab = line.indexOf('\t');
+        return firstTab == -1 ? line : line.substring(0, firstTab);
+    }
+}
@@ -27,18 +27,14 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.Arrays;
 import java.util.Scanner;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
@@ -64,20 +60,43 @@ import java.util.zip.GZIPOutputStream;
  * 20_60479_C/T	20:60479	T	-	-	-	intergenic_variant	-	-	-	-	-	rs149529999	GMAF=T:0.0018;AFR_MAF=T:0.01;AMR_MAF=T:0.0028
  * ..
  * }
+ * <p>
+ * The process is meant to be long-lived: it can be fed several chunks of variants between {@link #open()} and
+ * {@link #close()}, so the VEP startup and cache loading is paid only once.
+ * <p>
+ * If a {@link VepOutputLoader} is provided, the annotations are also loaded as soon as VEP writes them, and writing
+ * the output file becomes optional.
  */
 public class VepProcess {
     private static final Logger logger = LoggerFactory.getLogger(VepProcess.class);
 
     private static final boolean APPEND = true;
 
+    private static final long NOT_WRITING = 0;
+
+    private static final long WATCHDOG_PERIOD_IN_SECONDS = 1;
+
+    private static final String ERROR_LOG_SUFFIX = ".errors.txt";
+
     private AnnotationParameters annotationParameters;
 
+    private final String vepOutput;
+
+    private final VepOutputLoader vepOutputLoader;
+
+    private final boolean writeVepOutput;
+
     private int chunkSize;
 
     private final Long timeoutInSeconds;
 
     private Process process;
 
+    /**
+     * VEP's stderr goes straight to this file, so that a long-lived process never blocks on a full pipe buffer
+     */
+    private File errorLog;
+
     private OutputStream processStandardInput;
 
     private Thread outputCaptureThread;
@@ -86,15 +105,46 @@ public class VepProcess {
 
     private AtomicLong outputIdleSince;
 
+    private ScheduledExecutorService watchdog;
+
+    /**
+     * Time when the current write to VEP's stdin started, or NOT_WRITING. Checked by the watchdog to detect stalls.
+     */
+    private AtomicLong writingSince;
+
+    private AtomicBoolean killedByWatchdog;
+
     public VepProcess(AnnotationParameters annotationParameters, int chunkSize, Long timeoutInSeconds) {
+        this(annotationParameters, annotationParameters.getVepOutput(), chunkSize, timeoutInSeconds);
+    }
+
+    /**
+     * @param vepOutput file where the annotations will be written, useful when several VEP processes run in parallel
+     */
+    public VepProcess(AnnotationParameters annotationParameters, String vepOutput, int chunkSize,
+                      Long timeoutInSeconds) {
+        this(annotationParameters, vepOutput, null, true, chunkSize, timeoutInSeconds);
+    }
+
+    /**
+     * @param vepOutputLoader if not null, will load the annotations while VEP writes them
+     * @param writeVepOutput whether to write the VEP output file. It is always written if there is no vepOutputLoader
+     */
+    public VepProcess(AnnotationParameters annotationParameters, String vepOutput, VepOutputLoader vepOutputLoader,
+                      boolean writeVepOutput, int chunkSize, Long timeoutInSeconds) {
         if (timeoutInSeconds <= 0) {
             throw new IllegalArgumentException(
                     "timeout (" + timeoutInSeconds + " seconds) must be strictly greater than 0");
         }
         this.annotationParameters = annotationParameters;
+        this.vepOutput = vepOutput;
+        this.vepOutputLoader = vepOutputLoader;
+        this.writeVepOutput = writeVepOutput || vepOutputLoader == null;
         this.chunkSize = chunkSize;
         this.timeoutInSeconds = timeoutInSeconds;
         this.outputIdleSince = new AtomicLong(System.currentTimeMillis());
+        this.writingSince = new AtomicLong(NOT_WRITING);
+        this.killedByWatchdog = new AtomicBoolean(false);
     }
 
     public void open() throws ItemStreamException {
@@ -115,6 +165,9 @@ public class VepProcess {
 
         logger.trace("Starting VEP annotation with parameters = {}", Arrays.toString(processBuilder.command().toArray()));
 
+        errorLog = new File(vepOutput + ERROR_LOG_SUFFIX);
+        processBuilder.redirectError(errorLog);
+
         try {
             process = processBuilder.start();
         } catch (IOException e) {
@@ -122,30 +175,76 @@ public class VepProcess {
         }
 
         processStandardInput = new BufferedOutputStream(process.getOutputStream());
-        String vepOutputPath = annotationParameters.getVepOutput();
+        String vepOutputPath = writeVepOutput ? vepOutput : null;
 
         captureOutput(process, vepOutputPath);
+        startWatchdog(process);
+    }
+
+    /**
+     * A single thread per process checks periodically that no write to VEP's stdin has been blocked for longer than
+     * the timeout. If so, the process is killed, which makes the blocked write fail.
+     */
+    private void startWatchdog(Process monitoredProcess) {
+        writingSince.set(NOT_WRITING);
+        killedByWatchdog.set(false);
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vep-stdin-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(() -> {
+            long since = writingSince.get();
+            if (since != NOT_WRITING && System.currentTimeMillis() - since > timeoutInSeconds * 1000L) {
+                logger.error("Writing to VEP has been blocked for more than the timeout ({} seconds). "
+                        + "The process will be killed.", timeoutInSeconds);
+                killedByWatchdog.set(true);
+                monitoredProcess.destroy();
+            }
+        }, WATCHDOG_PERIOD_IN_SECONDS, WATCHDOG_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void stopWatchdog() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
     }
 
 
+    /**
+     * @param vepOutputPath file to write the output into, or null if the output is only loaded with the
+     * {@link VepOutputLoader}
+     */
     private void captureOutput(Process process, String vepOutputPath) {
         writingOk = new AtomicBoolean(false);
+        String destination = vepOutputPath != null ? vepOutputPath : "the database";
+        if (vepOutputLoader != null) {
+            vepOutputLoader.start();
+        }
         outputCaptureThread = new Thread(() -> {
             long writtenLines = 0;
 
             // if vepOutput exists, the header (the comments) is already written, and the header should appear only once
-            boolean skipComments = new File(vepOutputPath).exists();
+            boolean skipComments = vepOutputPath == null || new File(vepOutputPath).exists();
 
-            try (OutputStreamWriter writer = getOutputStreamWriter(vepOutputPath);
+            try (OutputStreamWriter writer = vepOutputPath != null ? getOutputStreamWriter(vepOutputPath) : null;
                     BufferedReader processStandardOutput = getBufferedReader(process)) {
                 writtenLines = copyVepOutput(processStandardOutput, writer, skipComments);
+                if (vepOutputLoader != null) {
+                    vepOutputLoader.finish();
+                }
                 writingOk.set(true);
             } catch (IOException e) {
-                logger.error("Writing the VEP output to " + vepOutputPath + " failed. ", e);
+                logger.error("Writing the VEP output to " + destination + " failed. ", e);
+            } finally {
+                if (vepOutputLoader != null) {
+                    vepOutputLoader.abort();
+                }
             }
-            logger.trace("Finished writing VEP output ({} lines written) to {}", writtenLines, vepOutputPath);
+            logger.trace("Finished writing VEP output ({} lines written) to {}", writtenLines, destination);
         });
-        logger.trace("Starting writing VEP output to {}", vepOutputPath);
+        logger.trace("Starting writing VEP output to {}", destination);
         outputCaptureThread.start();
     }
 
@@ -158,30 +257,38 @@ public class VepProcess {
     }
 
     public void write(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
         if (!isOpen()) {
             throw new IllegalStateException("Process must be initialized (hint: call open() before write())");
         }
-        tryWithTimeout(() -> {
-            processStandardInput.write(bytes);
-            return null;
-        });
+        tryWithTimeout(() -> processStandardInput.write(bytes, offset, length));
     }
 
-    private void tryWithTimeout(Callable<Void> callable) {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<Void> future = executorService.submit(callable);
+    /**
+     * The operation runs in the calling thread; the watchdog will kill VEP if it blocks for longer than the timeout.
+     */
+    private void tryWithTimeout(StandardInputOperation operation) {
+        writingSince.set(System.currentTimeMillis());
         try {
-            future.get(timeoutInSeconds, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            throw new ItemStreamException("Error writing to VEP: timeout reached", e);
-        } catch (Exception e) {
+            operation.run();
+        } catch (IOException e) {
+            if (killedByWatchdog.get()) {
+                throw new ItemStreamException("Error writing to VEP: timeout reached", e);
+            }
             throw new ItemStreamException("Error writing to VEP", e);
         } finally {
-            executorService.shutdown();
-            executorService.shutdownNow();
+            writingSince.set(NOT_WRITING);
         }
     }
 
+    @FunctionalInterface
+    private interface StandardInputOperation {
+        void run() throws IOException;
+    }
+
     public boolean isOpen() {
         return process != null;
     }
@@ -190,10 +297,11 @@ public class VepProcess {
         if (!isOpen()) {
             throw new IllegalStateException("Process must be initialized (hint: call open() before flush())");
         }
-        tryWithTimeout(() -> {
-            processStandardInput.flush();
-            return null;
-        });
+        tryWithTimeout(() -> processStandardInput.flush());
+        if (!process.isAlive()) {
+            throw new ItemStreamException("VEP exited (exit status " + process.exitValue()
+                    + ") while there were still variants to annotate");
+        }
     }
 
     /**
@@ -208,18 +316,24 @@ public class VepProcess {
                 checkExitStatus();
                 checkOutputWritingStatus();
             } finally {
+                stopWatchdog();
                 process = null;
                 logger.trace("VEP process finished");
             }
         }
     }
 
+    /**
+     * Errors are only logged here, as the process might have already died: the exit status check that follows will
+     * provide the actual cause.
+     */
     private void flushProcessStdin() {
         try {
-            tryWithTimeout(() -> {
-                processStandardInput.flush();
-                return null;
-            });
+            tryWithTimeout(() -> processStandardInput.flush());
+        } catch (ItemStreamException e) {
+            logger.error("Could not flush stream for VEP's stdin", e);
+        }
+        try {
             processStandardInput.close();
         } catch (IOException e) {
             logger.error("Could not close stream for VEP's stdin", e);
@@ -255,23 +369,22 @@ public class VepProcess {
         int exitValue = process.exitValue();
         if (exitValue != 0) {
             String timestamp = Long.toString(System.currentTimeMillis());
-            String backupVepOutput = annotationParameters.getVepOutput().replaceFirst("tsv\\.gz$",
+            String backupVepOutput = vepOutput.replaceFirst("tsv\\.gz$",
                     timestamp + ".tsv.gz");
 
-            String errorLog = backupVepOutput + ".errors.txt";
-            try {
-                connectStreams(process.getErrorStream(), new FileOutputStream(errorLog));
-            } catch (IOException e) {
-                throw new ItemStreamException("VEP exited with code " + exitValue
-                        + " but the file to dump the errors could not be created: " + errorLog,
-                        e);
+            File backupErrorLog = new File(backupVepOutput + ERROR_LOG_SUFFIX);
+            if (!errorLog.renameTo(backupErrorLog)) {
+                backupErrorLog = errorLog;
             }
-            boolean renamed = new File(annotationParameters.getVepOutput()).renameTo(new File(backupVepOutput));
+            boolean renamed = new File(vepOutput).renameTo(new File(backupVepOutput));
             if (renamed) {
                 logger.info("Failed VEP output saved to " + backupVepOutput);
             }
             throw new ItemStreamException("Error while running VEP (exit status " + exitValue + "). See "
-                    + errorLog + " for the errors description from VEP.");
+                    + backupErrorLog + " for the errors description from VEP.");
+        }
+        if (!errorLog.delete()) {
+            logger.warn("The errors output of VEP could not be deleted: " + errorLog);
         }
     }
 
@@ -296,7 +409,7 @@ public class VepProcess {
      * logging the coordinates once per chunk.
      *
      * @param reader must be closed externally
-     * @param writer must be closed externally
+     * @param writer must be closed externally, and may be null if the output is only loaded
      * @param skipComments if false, will write all lines starting with '#', if true, will not write any.
      * @return written lines.
      */
@@ -307,15 +420,23 @@ public class VepProcess {
         String line = getNextLine(reader, skipComments);
         String lastLine = line;
         while (line != null) {
-            writer.write(line);
-            writer.write('\n');
+            if (writer != null) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            if (vepOutputLoader != null && !isComment(line)) {
+                vepOutputLoader.load(line);
+            }
             writtenLines++;
+            outputIdleSince.set(System.currentTimeMillis());
 
             lastLine = line;
             line = getNextLine(reader, skipComments);
         }
 
-        writer.flush();
+        if (writer != null) {
+            writer.flush();
+        }
         outputIdleSince.set(System.currentTimeMillis());
         logCoordinates(lastLine, writtenLines);
 
@@ -346,24 +467,4 @@ public class VepProcess {
             logger.trace("VEP wrote {} more lines, last one was {}", chunkSize, scanner.next());
         }
     }
-
-    /**
-     * Read the whole input stream and write it into the output stream.
-     * This method blocks until input data is available, the end of the stream is detected, or an exception is thrown.
-     * @return written bytes.
-     */
-    private long connectStreams(InputStream inputStream, OutputStream outputStream) throws IOException {
-        int read = inputStream.read();
-        long written = 0;
-        while (read != -1) {
-            written++;
-            outputStream.write(read);
-            read = inputStream.read();
-        }
-
-        outputStream.close();
-        inputStream.close();
-        return written;
-    }
-
 }
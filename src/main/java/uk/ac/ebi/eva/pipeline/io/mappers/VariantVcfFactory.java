@@ -22,17 +22,16 @@ import org.opencb.biodata.models.variant.VariantFactory;
 import org.opencb.biodata.models.variant.exceptions.NonStandardCompliantSampleField;
 import org.opencb.biodata.models.variant.exceptions.NotAVariantException;
 
+import uk.ac.ebi.eva.commons.models.data.SamplesData;
 import uk.ac.ebi.eva.commons.models.data.Variant;
 import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,9 +39,19 @@ import static java.lang.Math.max;
 
 /**
  * Class that parses VCF lines to create Variants.
+ * <p>
+ * Lines are split with a {@link VcfLineTokenizer}, so that Strings are only created for the values that are stored in
+ * the variants. The tokenizer is reused between lines, so each thread needs its own factory.
  */
 public class VariantVcfFactory {
 
+    private final VcfLineTokenizer fields = new VcfLineTokenizer();
+
+    /**
+     * Samples of the line being parsed, shared by the variants of all its alternates
+     */
+    private SamplesData lineSamples;
+
     /**
      * Creates a list of Variant objects using the fields in a record of a VCF
      * file. A new Variant object is created per allele, so several of them can
@@ -59,8 +68,9 @@ public class VariantVcfFactory {
      */
     public List<Variant> create(String fileId, String studyId,
                                 String line) throws IllegalArgumentException, NotAVariantException {
-        String[] fields = line.split("\t");
-        if (fields.length < 8) {
+        fields.tokenize(line);
+        lineSamples = null;
+        if (fields.getNumFields() < 8) {
             throw new IllegalArgumentException("Not enough fields provided (min 8)");
         }
 
@@ -108,51 +118,81 @@ public class VariantVcfFactory {
      * Replace "chr" references only at the beginning of the chromosome name.
      * For instance, tomato has SL2.40ch00 and that should be kept that way
      */
-    private String getChromosomeWithoutPrefix(String[] fields) {
-        String chromosome = fields[0];
+    private String getChromosomeWithoutPrefix(VcfLineTokenizer fields) {
+        String line = fields.getLine();
+        int start = fields.getStart(0);
         boolean ignoreCase = true;
-        int startOffset = 0;
         String prefixToRemove = "chr";
-        if (chromosome.regionMatches(ignoreCase, startOffset, prefixToRemove, startOffset, prefixToRemove.length())) {
-            return chromosome.substring(prefixToRemove.length());
+        if (line.regionMatches(ignoreCase, start, prefixToRemove, 0, prefixToRemove.length())) {
+            return line.substring(start + prefixToRemove.length(), fields.getEnd(0));
         }
-        return chromosome;
+        return fields.getField(0);
     }
 
-    private int getPosition(String[] fields) {
-        return Integer.parseInt(fields[1]);
+    private int getPosition(VcfLineTokenizer fields) {
+        return fields.getFieldAsInt(1);
     }
 
-    private Set<String> getIds(String[] fields) {
+    private Set<String> getIds(VcfLineTokenizer fields) {
         Set<String> ids = new HashSet<>();
-        if (!fields[2].equals(".")) {    // note!: we store a "." as an empty set, not a set with an empty string
-            ids.addAll(Arrays.asList(fields[2].split(";")));
+        if (!fields.isMissing(2)) {    // note!: we store a "." as an empty set, not a set with an empty string
+            Collections.addAll(ids, split(fields.getLine(), ';', fields.getStart(2), fields.getEnd(2)));
         }
         return ids;
     }
 
-    private String getReference(String[] fields) {
-        return fields[3].equals(".") ? "" : fields[3];
+    private String getReference(VcfLineTokenizer fields) {
+        return fields.isMissing(3) ? "" : fields.getField(3);
     }
 
-    private String[] getAlternateAlleles(String[] fields, String chromosome, int position, String reference) {
-        return fields[4].split(",");
+    private String[] getAlternateAlleles(VcfLineTokenizer fields, String chromosome, int position, String reference) {
+        return split(fields.getLine(), ',', fields.getStart(4), fields.getEnd(4));
     }
 
-    private float getQuality(String[] fields) {
-        return fields[5].equals(".") ? -1 : Float.parseFloat(fields[5]);
+    private float getQuality(VcfLineTokenizer fields) {
+        return fields.isMissing(5) ? -1 : Float.parseFloat(fields.getField(5));
     }
 
-    private String getFilter(String[] fields) {
-        return fields[6].equals(".") ? "" : fields[6];
+    private String getFilter(VcfLineTokenizer fields) {
+        return fields.isMissing(6) ? "" : fields.getField(6);
     }
 
-    private String getInfo(String[] fields) {
-        return fields[7].equals(".") ? "" : fields[7];
+    private String getInfo(VcfLineTokenizer fields) {
+        return fields.isMissing(7) ? "" : fields.getField(7);
     }
 
-    private String getFormat(String[] fields) {
-        return (fields.length <= 8 || fields[8].equals(".")) ? "" : fields[8];
+    private String getFormat(VcfLineTokenizer fields) {
+        return (fields.getNumFields() <= 8 || fields.isMissing(8)) ? "" : fields.getField(8);
+    }
+
+    /**
+     * Same as {@code line.substring(start, end).split(separator)} for a single-character separator, without creating
+     * the intermediate substring.
+     */
+    protected static String[] split(String line, char separator, int start, int end) {
+        int lastSeparator = VcfLineTokenizer.indexOf(line, separator, start, end);
+        if (lastSeparator == -1) {
+            return new String[]{line.substring(start, end)};
+        }
+
+        // like String.split, trailing empty strings are not included
+        while (end > start && line.charAt(end - 1) == separator) {
+            end--;
+        }
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == separator) {
+                count++;
+            }
+        }
+        String[] tokens = new String[end > start ? count + 1 : 0];
+        int tokenStart = start;
+        for (int i = 0; i < tokens.length; i++) {
+            int tokenEnd = i == tokens.length - 1 ? end : line.indexOf(separator, tokenStart);
+            tokens[i] = line.substring(tokenStart, tokenEnd);
+            tokenStart = tokenEnd + 1;
+        }
+        return tokens;
     }
 
     private List<VariantKeyFields> buildVariantKeyFields(String chromosome, int position, String reference,
@@ -223,45 +263,81 @@ public class VariantVcfFactory {
         return secondaryAlternates;
     }
 
-    protected void parseSplitSampleData(Variant variant, String fileId, String studyId, String[] fields,
+    protected void parseSplitSampleData(Variant variant, String fileId, String studyId, VcfLineTokenizer fields,
                                         String[] alternateAlleles, String[] secondaryAlternates,
                                         int alternateAlleleIdx) throws NonStandardCompliantSampleField {
-        String[] formatFields = variant.getSourceEntry(fileId, studyId).getFormat().split(":");
+        VariantSourceEntry sourceEntry = variant.getSourceEntry(fileId, studyId);
+        if (lineSamples == null) {
+            lineSamples = parseSamples(sourceEntry.getFormat(), fields);
+        }
+
+        // The sample columns are parsed only for the first alternate. The other alternates get a copy in which the
+        // genotypes are re-indexed, remapping each different genotype just once
+        if (alternateAlleleIdx == 0) {
+            sourceEntry.setSamples(lineSamples);
+        } else {
+            sourceEntry.setSamples(lineSamples.copyWithGenotypes(
+                    genotype -> processGenotypeField(alternateAlleleIdx, genotype)));
+        }
+    }
 
-        for (int i = 9; i < fields.length; i++) {
-            Map<String, String> map = new TreeMap<>();
+    private SamplesData parseSamples(String format, VcfLineTokenizer fields) {
+        String[] formatFields = format.split(":");
+        String line = fields.getLine();
 
-            // Fill map of a sample
-            String[] sampleFields = fields[i].split(":");
+        SamplesData samples = new SamplesData();
+        samples.ensureCapacity(fields.getNumFields() - 9);
+        int[] formatFieldIndexes = new int[formatFields.length];
+        for (int j = 0; j < formatFields.length; j++) {
+            formatFieldIndexes[j] = samples.getFieldIndex(formatFields[j]);
+        }
 
-            // Samples may remove the trailing fields (only GT is mandatory),
-            // so the loop iterates to sampleFields.length, not formatFields.length
-            for (int j = 0; j < sampleFields.length; j++) {
-                String formatField = formatFields[j];
-                String sampleField = processSampleField(alternateAlleleIdx, formatField, sampleFields[j]);
+        for (int i = 9; i < fields.getNumFields(); i++) {
+            int sampleIndex = samples.addSample();
 
-                map.put(formatField, sampleField);
+            // Fill the fields of a sample. As with String.split, trailing empty sample fields are ignored
+            int sampleStart = fields.getStart(i);
+            int sampleEnd = fields.getEnd(i);
+            boolean severalSampleFields = VcfLineTokenizer.indexOf(line, ':', sampleStart, sampleEnd) != -1;
+            if (severalSampleFields) {
+                while (sampleEnd > sampleStart && line.charAt(sampleEnd - 1) == ':') {
+                    sampleEnd--;
+                }
             }
 
-            // Add sample to the variant entry in the source file
-            variant.getSourceEntry(fileId, studyId).addSampleData(map);
+            // Samples may remove the trailing fields (only GT is mandatory),
+            // so the loop iterates through the sample fields, not the format fields
+            if (!severalSampleFields || sampleEnd > sampleStart) {
+                int sampleFieldStart = sampleStart;
+                for (int j = 0; sampleFieldStart <= sampleEnd; j++) {
+                    int sampleFieldEnd = VcfLineTokenizer.indexOf(line, ':', sampleFieldStart, sampleEnd);
+                    if (sampleFieldEnd == -1) {
+                        sampleFieldEnd = sampleEnd;
+                    }
+                    String sampleField = processSampleField(formatFields[j], fields, sampleFieldStart, sampleFieldEnd);
+
+                    samples.setValue(sampleIndex, formatFieldIndexes[j], sampleField);
+                    sampleFieldStart = sampleFieldEnd + 1;
+                }
+            }
         }
+        return samples;
     }
 
     /**
-     * If this is a field other than the genotype (GT), return unmodified. Otherwise,
-     * see {@link VariantVcfFactory#processGenotypeField(int, java.lang.String)}
+     * Returns the value of a sample field as written in the file. Genotypes (GT) are interned, without creating a
+     * String for the most common ones.
      *
-     * @param alternateAlleleIdx current alternate being processed. 0 for first alternate, 1 or more for a secondary alternate.
      * @param formatField as shown in the FORMAT column. most probably the GT field.
-     * @param sampleField parsed value in a column of a sample, such as a genotype, e.g. "0/0".
-     * @return processed sample field, ready to be stored.
+     * @param fields tokenized line, and start and end of the value in a column of a sample, such as a genotype,
+     * e.g. "0/0".
+     * @return sample field, ready to be stored.
      */
-    private String processSampleField(int alternateAlleleIdx, String formatField, String sampleField) {
+    private String processSampleField(String formatField, VcfLineTokenizer fields, int start, int end) {
         if (formatField.equalsIgnoreCase("GT")) {
-            return processGenotypeField(alternateAlleleIdx, sampleField);
+            return fields.intern(start, end);
         } else {
-            return sampleField;
+            return fields.getLine().substring(start, end);
         }
     }
 
@@ -317,68 +393,110 @@ public class VariantVcfFactory {
     protected void parseInfo(Variant variant, String fileId, String studyId, String info, int numAllele) {
         VariantSourceEntry file = variant.getSourceEntry(fileId, studyId);
 
-        for (String var : info.split(";")) {
-            String[] splits = var.split("=");
-            if (splits.length == 2) {
-                switch (splits[0]) {
-                    case "ACC":
-                        // Managing accession ID for the allele
-                        String[] ids = splits[1].split(",");
-                        file.addAttribute(splits[0], ids[numAllele]);
-                        break;
-                    case "AC":
-                        // TODO For now, only one alternate is supported
-                        String[] counts = splits[1].split(",");
-                        file.addAttribute(splits[0], counts[numAllele]);
-                        break;
-                    case "AF":
-                        // TODO For now, only one alternate is supported
-                        String[] frequencies = splits[1].split(",");
-                        file.addAttribute(splits[0], frequencies[numAllele]);
-                        break;
-//                    case "AN":
-//                        // TODO For now, only two alleles (reference and one alternate) are supported, but this should be changed
-//                        file.addAttribute(splits[0], "2");
-//                        break;
-                    case "NS":
-                        // Count the number of samples that are associated with the allele
-                        file.addAttribute(splits[0], String.valueOf(file.getSamplesData().size()));
-                        break;
-                    case "DP":
-                        int dp = 0;
-                        for (Map<String, String> sampleData : file.getSamplesData()) {
-                            String sampleDp = sampleData.get("DP");
-                            if (StringUtils.isNumeric(sampleDp)) {
-                                dp += Integer.parseInt(sampleDp);
-                            }
-                        }
-                        file.addAttribute(splits[0], String.valueOf(dp));
-                        break;
-                    case "MQ":
-                    case "MQ0":
-                        int mq = 0;
-                        int mq0 = 0;
-                        for (Map<String, String> sampleData : file.getSamplesData()) {
-                            String sampleGq = sampleData.get("GQ");
-                            if (StringUtils.isNumeric(sampleGq)) {
-                                int gq = Integer.parseInt(sampleGq);
-                                mq += gq * gq;
-                                if (gq == 0) {
-                                    mq0++;
-                                }
-                            }
+        // Equivalent to splitting by ";" and then by "=", but only the stored keys and values are turned into Strings
+        int infoEnd = info.length();
+        while (infoEnd > 0 && info.charAt(infoEnd - 1) == ';') {
+            infoEnd--;
+        }
+        int entryStart = 0;
+        while (entryStart <= infoEnd && infoEnd > 0) {
+            int entryEnd = VcfLineTokenizer.indexOf(info, ';', entryStart, infoEnd);
+            if (entryEnd == -1) {
+                entryEnd = infoEnd;
+            }
+            parseInfoEntry(variant, file, info, entryStart, entryEnd, numAllele);
+            entryStart = entryEnd + 1;
+        }
+    }
+
+    private void parseInfoEntry(Variant variant, VariantSourceEntry file, String info, int start, int end,
+                                int numAllele) {
+        int equals = VcfLineTokenizer.indexOf(info, '=', start, end);
+        int valueEnd = end;
+        while (equals != -1 && valueEnd > equals + 1 && info.charAt(valueEnd - 1) == '=') {
+            valueEnd--;
+        }
+        boolean hasSingleValue = equals != -1 && valueEnd > equals + 1
+                && VcfLineTokenizer.indexOf(info, '=', equals + 1, valueEnd) == -1;
+        if (!hasSingleValue) {
+            file.addAttribute(info.substring(start, equals != -1 ? equals : end), "");
+            return;
+        }
+
+        String key = info.substring(start, equals);
+        int valueStart = equals + 1;
+        switch (key) {
+            case "ACC":
+                // Managing accession ID for the allele
+                file.addAttribute(key, getNthValue(info, valueStart, valueEnd, numAllele));
+                break;
+            case "AC":
+                // TODO For now, only one alternate is supported
+                file.addAttribute(key, getNthValue(info, valueStart, valueEnd, numAllele));
+                break;
+            case "AF":
+                // TODO For now, only one alternate is supported
+                file.addAttribute(key, getNthValue(info, valueStart, valueEnd, numAllele));
+                break;
+//            case "AN":
+//                // TODO For now, only two alleles (reference and one alternate) are supported, but this should be changed
+//                file.addAttribute(key, "2");
+//                break;
+            case "NS":
+                // Count the number of samples that are associated with the allele
+                file.addAttribute(key, String.valueOf(file.getSamples().getNumSamples()));
+                break;
+            case "DP":
+                int dp = 0;
+                SamplesData samples = file.getSamples();
+                int dpIndex = samples.indexOfField("DP");
+                for (int i = 0; dpIndex != -1 && i < samples.getNumSamples(); i++) {
+                    String sampleDp = samples.getValue(i, dpIndex);
+                    if (StringUtils.isNumeric(sampleDp)) {
+                        dp += Integer.parseInt(sampleDp);
+                    }
+                }
+                file.addAttribute(key, String.valueOf(dp));
+                break;
+            case "MQ":
+            case "MQ0":
+                int mq = 0;
+                int mq0 = 0;
+                SamplesData samplesWithGq = file.getSamples();
+                int gqIndex = samplesWithGq.indexOfField("GQ");
+                for (int i = 0; gqIndex != -1 && i < samplesWithGq.getNumSamples(); i++) {
+                    String sampleGq = samplesWithGq.getValue(i, gqIndex);
+                    if (StringUtils.isNumeric(sampleGq)) {
+                        int gq = Integer.parseInt(sampleGq);
+                        mq += gq * gq;
+                        if (gq == 0) {
+                            mq0++;
                         }
-                        file.addAttribute("MQ", String.valueOf(mq));
-                        file.addAttribute("MQ0", String.valueOf(mq0));
-                        break;
-                    default:
-                        file.addAttribute(splits[0], splits[1]);
-                        break;
+                    }
                 }
-            } else {
-                variant.getSourceEntry(fileId, studyId).addAttribute(splits[0], "");
+                file.addAttribute("MQ", String.valueOf(mq));
+                file.addAttribute("MQ0", String.valueOf(mq0));
+                break;
+            default:
+                file.addAttribute(key, info.substring(valueStart, valueEnd));
+                break;
+        }
+    }
+
+    /**
+     * Same as {@code info.substring(start, end).split(",")[index]}, creating only the String of the requested value.
+     */
+    private String getNthValue(String info, int start, int end, int index) {
+        int valueStart = start;
+        for (int i = 0; i < index; i++) {
+            int comma = VcfLineTokenizer.indexOf(info, ',', valueStart, end);
+            if (comma == -1) {
+                throw new ArrayIndexOutOfBoundsException(index);
             }
+            valueStart = comma + 1;
         }
+        int valueEnd = VcfLineTokenizer.indexOf(info, ',', valueStart, end);
+        return info.substring(valueStart, valueEnd == -1 ? end : valueEnd);
     }
 
     protected class VariantKeyFields {
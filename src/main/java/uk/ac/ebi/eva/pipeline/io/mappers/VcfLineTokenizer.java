@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io.mappers;
+
+import java.util.Arrays;
+
+/**
+ * Splits a VCF line in its tab-separated columns without creating a String per column. Each column is kept as a
+ * slice (start and end offsets) of the line, and Strings are only created when a column, or a part of it, is requested.
+ * <p>
+ * The same instance is meant to be reused for every line, so it is not thread-safe.
+ * <p>
+ * To be compatible with the previous {@code line.split("\t")}, trailing empty columns are ignored.
+ */
+public class VcfLineTokenizer {
+
+    private static final int INITIAL_COLUMNS = 16;
+
+    private static final int INTERNED_CACHE_SIZE = 64;
+
+    private String line;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private int numFields;
+
+    /**
+     * Small cache of interned Strings, indexed by the hash of their characters, so that very repetitive values (like
+     * genotypes) can be retrieved from a slice without creating a String.
+     */
+    private final String[] internedCache;
+
+    public VcfLineTokenizer() {
+        starts = new int[INITIAL_COLUMNS];
+        ends = new int[INITIAL_COLUMNS];
+        internedCache = new String[INTERNED_CACHE_SIZE];
+    }
+
+    public void tokenize(String line) {
+        this.line = line;
+        numFields = 0;
+        int start = 0;
+        int tab = line.indexOf('\t');
+        while (tab != -1) {
+            addField(start, tab);
+            start = tab + 1;
+            tab = line.indexOf('\t', start);
+        }
+        addField(start, line.length());
+
+        while (numFields > 1 && starts[numFields - 1] == ends[numFields - 1]) {
+            numFields--;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (numFields == starts.length) {
+            starts = Arrays.copyOf(starts, numFields * 2);
+            ends = Arrays.copyOf(ends, numFields * 2);
+        }
+        starts[numFields] = start;
+        ends[numFields] = end;
+        numFields++;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public int getNumFields() {
+        return numFields;
+    }
+
+    public int getStart(int field) {
+        return starts[field];
+    }
+
+    public int getEnd(int field) {
+        return ends[field];
+    }
+
+    public String getField(int field) {
+        return line.substring(starts[field], ends[field]);
+    }
+
+    /**
+     * @return whether the column is exactly the VCF missing value "."
+     */
+    public boolean isMissing(int field) {
+        return ends[field] - starts[field] == 1 && line.charAt(starts[field]) == '.';
+    }
+
+    /**
+     * Parses the column as an int, without creating a String.
+     *
+     * @throws NumberFormatException if the column is not a valid int
+     */
+    public int getFieldAsInt(int field) {
+        return parseInt(line, starts[field], ends[field]);
+    }
+
+    /**
+     * Same as {@code Integer.parseInt(line.substring(start, end))} without creating the substring.
+     */
+    public static int parseInt(String line, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        boolean negative = false;
+        int i = start;
+        char first = line.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) {
+                throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+            }
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + line.substring(start, end) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return the index of the character in the slice of the line, or -1 if it isn't present
+     */
+    public static int indexOf(String line, char character, int start, int end) {
+        // String.indexOf would keep looking until the end of the line, which is slow for lines with many samples
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == character) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the interned String with the contents of the slice of the line, creating it only if it is not cached.
+     * Meant for short values that repeat a lot, like genotypes.
+     */
+    public String intern(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (INTERNED_CACHE_SIZE - 1);
+        String cached = internedCache[slot];
+        int length = end - start;
+        if (cached != null && cached.length() == length && line.regionMatches(start, cached, 0, length)) {
+            return cached;
+        }
+        String interned = line.substring(start, end).intern();
+        internedCache[slot] = interned;
+        return interned;
+    }
+}
@@ -36,10 +36,17 @@ import java.io.File;
  */
 public class AnnotationFlatFileReader extends FlatFileItemReader<VariantAnnotation> {
 
+    /**
+     * The resource must be set later, e.g. when used as the delegate of {@link AnnotationFlatFilesReader}
+     */
+    public AnnotationFlatFileReader() {
+        setLineMapper(new AnnotationLineMapper());
+    }
+
     public AnnotationFlatFileReader(File file) {
+        this();
         Resource resource = new GzipLazyResource(file);
         setResource(resource);
-        setLineMapper(new AnnotationLineMapper());
     }
 
     public AnnotationFlatFileReader(String string) {
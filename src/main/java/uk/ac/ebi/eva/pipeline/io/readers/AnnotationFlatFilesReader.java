@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io.readers;
+
+import org.springframework.batch.item.file.MultiResourceItemReader;
+import org.springframework.core.io.Resource;
+
+import uk.ac.ebi.eva.commons.models.data.VariantAnnotation;
+import uk.ac.ebi.eva.pipeline.io.GzipLazyResource;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Reader of several VEP output annotation flat files, one after the other, like the ones written by several VEP
+ * processes running in parallel. Each file is read with an {@link AnnotationFlatFileReader}.
+ */
+public class AnnotationFlatFilesReader extends MultiResourceItemReader<VariantAnnotation> {
+
+    public AnnotationFlatFilesReader(List<File> files) {
+        Resource[] resources = new Resource[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            resources[i] = new GzipLazyResource(files.get(i));
+        }
+        setResources(resources);
+        setDelegate(new AnnotationFlatFileReader());
+    }
+}
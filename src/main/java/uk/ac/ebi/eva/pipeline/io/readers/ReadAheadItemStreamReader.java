@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io.readers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader that reads (and parses) the items of another reader in a separate thread, so that the items of the next
+ * chunk are ready while the current chunk is being processed and written.
+ * <p>
+ * The items are handed over through a bounded queue, so at most {@code capacity} items are read ahead. Exceptions
+ * thrown by the delegate are queued too, and rethrown in order by {@link #read()}, so skip policies see the same
+ * failures as without reading ahead. Errors are queued as well, so they fail the step instead of leaving
+ * {@link #read()} waiting for a thread that is gone, but the thread stops reading after them.
+ * <p>
+ * The delegate's position is saved as the number of items returned by this reader, not the number of items read by
+ * the delegate, and under the delegate's own keys. Restarting the step resumes after the last committed item, and
+ * the saved state is the same that the delegate alone would save.
+ *
+ * @param <T> type of the items
+ */
+public class ReadAheadItemStreamReader<T> implements ItemStreamReader<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadAheadItemStreamReader.class);
+
+    private static final String READ_COUNT = "read.count";
+
+    private static final long OFFER_PERIOD_IN_MILLISECONDS = 100;
+
+    private final AbstractItemCountingItemStreamItemReader<T> delegate;
+
+    private final int capacity;
+
+    private BlockingQueue<ReadResult<T>> queue;
+
+    private Thread readerThread;
+
+    private volatile boolean stopped;
+
+    private int itemCount;
+
+    private boolean exhausted;
+
+    public ReadAheadItemStreamReader(AbstractItemCountingItemStreamItemReader<T> delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity (" + capacity + ") must be strictly greater than 0");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        String readCountKey = delegate.getExecutionContextKey(READ_COUNT);
+        itemCount = executionContext.containsKey(readCountKey) ? executionContext.getInt(readCountKey) : 0;
+        exhausted = false;
+        stopped = false;
+
+        queue = new ArrayBlockingQueue<>(capacity);
+        readerThread = new Thread(this::readAhead, "read-ahead");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    private void readAhead() {
+        ReadResult<T> result;
+        do {
+            try {
+                result = new ReadResult<>(delegate.read(), null);
+            } catch (Throwable e) {
+                result = new ReadResult<>(null, e);
+            }
+        } while (enqueue(result) && (result.item != null || result.exception instanceof Exception));
+    }
+
+    /**
+     * The queue is polled instead of blocking on it, because the delegate may clear the interrupted status of this
+     * thread while reading.
+     *
+     * @return false if the reader was closed before the result could be queued
+     */
+    private boolean enqueue(ReadResult<T> result) {
+        try {
+            while (!stopped) {
+                if (queue.offer(result, OFFER_PERIOD_IN_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.debug("Stopped reading ahead");
+        return false;
+    }
+
+    @Override
+    public T read() throws Exception {
+        if (exhausted) {
+            return null;
+        }
+        ReadResult<T> result = queue.take();
+        if (result.exception instanceof Error) {
+            exhausted = true;
+            throw (Error) result.exception;
+        }
+        if (result.exception != null) {
+            // the delegate counts the items that fail too
+            itemCount++;
+            throw (Exception) result.exception;
+        }
+        if (result.item == null) {
+            exhausted = true;
+        } else {
+            itemCount++;
+        }
+        return result.item;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate.isSaveState()) {
+            executionContext.putInt(delegate.getExecutionContextKey(READ_COUNT), itemCount);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (readerThread != null) {
+            stopped = true;
+            readerThread.interrupt();
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ItemStreamException("Interrupted while waiting for the read-ahead thread to stop", e);
+            } finally {
+                readerThread = null;
+            }
+        }
+        delegate.close();
+    }
+
+    private static class ReadResult<T> {
+
+        private final T item;
+
+        private final Throwable exception;
+
+        ReadResult(T item, Throwable exception) {
+            this.item = item;
+            this.exception = exception;
+        }
+    }
+}
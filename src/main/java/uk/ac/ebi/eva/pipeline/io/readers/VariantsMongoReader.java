@@ -25,11 +25,13 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.util.ClassUtils;
 
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
 import uk.ac.ebi.eva.commons.models.converters.data.VariantSourceEntryToDBObjectConverter;
 import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
 import uk.ac.ebi.eva.pipeline.model.VariantWrapper;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 
 /**
  * Mongo variant reader using an ItemReader cursor based. This is speeding up
@@ -47,6 +49,8 @@ public class VariantsMongoReader
     private static final String STUDY_KEY = VariantToDBObjectConverter.FILES_FIELD + "."
             + VariantSourceEntryToDBObjectConverter.STUDYID_FIELD;
 
+    private static final String CHROMOSOME_KEY = VariantToDBObjectConverter.CHROMOSOME_FIELD;
+
     /**
      * @param studyId Can be the empty string or null, meaning to bring all non-annotated variants in the collection.
      * If the studyId string is not empty, bring only non-annotated variants from that study.
@@ -54,17 +58,31 @@ public class VariantsMongoReader
      */
     public VariantsMongoReader(MongoOperations template, String collectionsVariantsName, String studyId,
                                boolean excludeAnnotated) {
+        this(template, collectionsVariantsName, studyId, excludeAnnotated, null);
+    }
+
+    /**
+     * @param chromosomes Can be null, meaning to bring variants from any chromosome. Otherwise, bring only variants
+     * in those chromosomes.
+     */
+    public VariantsMongoReader(MongoOperations template, String collectionsVariantsName, String studyId,
+                               boolean excludeAnnotated, List<String> chromosomes) {
+        this(template, collectionsVariantsName, studyId, excludeAnnotated, chromosomes, false);
+    }
+
+    /**
+     * @param keyedFiles whether the collection uses the {@link KeyedFilesLayout}
+     */
+    public VariantsMongoReader(MongoOperations template, String collectionsVariantsName, String studyId,
+                               boolean excludeAnnotated, List<String> chromosomes, boolean keyedFiles) {
         setName(ClassUtils.getShortName(VariantsMongoReader.class));
         delegateReader = new MongoDbCursorItemReader();
         delegateReader.setTemplate(template);
         delegateReader.setCollection(collectionsVariantsName);
 
-        BasicDBObjectBuilder queryBuilder = BasicDBObjectBuilder.start();
-        if (studyId != null && !studyId.isEmpty()) {
-            queryBuilder.add(STUDY_KEY, studyId);
-        }
-        if (excludeAnnotated) {
-            queryBuilder.add("annot.ct.so", new BasicDBObject("$exists", false));
+        BasicDBObjectBuilder queryBuilder = buildQuery(studyId, excludeAnnotated, keyedFiles);
+        if (chromosomes != null) {
+            queryBuilder.add(CHROMOSOME_KEY, new BasicDBObject("$in", chromosomes));
         }
         delegateReader.setQuery(queryBuilder.get());
 
@@ -74,6 +92,27 @@ public class VariantsMongoReader
         converter = new DBObjectToVariantConverter();
     }
 
+    /**
+     * Query of the variants to be read, before filtering by chromosome. Exposed so that the variants can be
+     * partitioned with the same criteria.
+     */
+    public static BasicDBObjectBuilder buildQuery(String studyId, boolean excludeAnnotated) {
+        return buildQuery(studyId, excludeAnnotated, false);
+    }
+
+    public static BasicDBObjectBuilder buildQuery(String studyId, boolean excludeAnnotated, boolean keyedFiles) {
+        BasicDBObjectBuilder queryBuilder = BasicDBObjectBuilder.start();
+        if (studyId != null && !studyId.isEmpty() && keyedFiles) {
+            queryBuilder.add(KeyedFilesLayout.studyFilesField(studyId), new BasicDBObject("$exists", true));
+        } else if (studyId != null && !studyId.isEmpty()) {
+            queryBuilder.add(STUDY_KEY, studyId);
+        }
+        if (excludeAnnotated) {
+            queryBuilder.add("annot.ct.so", new BasicDBObject("$exists", false));
+        }
+        return queryBuilder;
+    }
+
     @PostConstruct
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -16,26 +16,71 @@
 package uk.ac.ebi.eva.pipeline.io.writers;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
 import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
+import com.mongodb.LazyDBObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.WriteFailedException;
 import org.springframework.batch.item.data.MongoItemWriter;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.util.Assert;
-import uk.ac.ebi.eva.commons.models.converters.data.SamplesToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
 import uk.ac.ebi.eva.commons.models.converters.data.VariantSourceEntryToDBObjectConverter;
-import uk.ac.ebi.eva.commons.models.converters.data.VariantStatsToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToBsonEncoder;
 import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
 import uk.ac.ebi.eva.commons.models.data.Variant;
 import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.pipeline.io.VariantIdBloomFilter;
+import uk.ac.ebi.eva.utils.BsonDocumentWriter;
 import uk.ac.ebi.eva.utils.MongoDBHelper;
+import uk.ac.ebi.eva.utils.RawDBObjectEncoder;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Write a list of {@link Variant} into MongoDB
  * See also {@link org.opencb.opencga.storage.mongodb.variant.VariantMongoDBWriter}
+ * <p>
+ * In write-behind mode, each chunk is split into at least {@link #PIPELINED_BULKS} groups of variants, and the bulks
+ * of a group are executed in a separate thread while the variants of the next group are converted, so the conversion
+ * overlaps with the database latency. Up to {@code maxInFlightBulks} groups are written at the same time, which keeps
+ * busy several shards of a sharded cluster. The variants are grouped by their identifier, so concurrent bulks never
+ * upsert the same document. {@link #write(List)} returns when all the bulks have been acknowledged, so a chunk is still
+ * either completely written or failed when it is committed, and the first failure is thrown for the chunk that
+ * produced it.
+ * <p>
+ * Each bulk has at most {@link #MAX_BULK_OPERATIONS} operations, the batch limit of the database, so that every bulk
+ * is sent as one batch. Besides, a new bulk is started when the documents of the current one reach a size in bytes,
+ * which is at most {@link #MAX_BULK_BYTES}, so that no bulk is larger than the maximum message size of the server.
+ * This also bounds the memory taken by each bulk while it is built and sent.
+ * <p>
+ * In insert-only mode, used by default when the collection is empty, the variants are inserted as new documents
+ * instead of upserted, which avoids a lookup and a merge per variant in the first load of a database. The variants
+ * whose identifier already exists (because they appear twice in the file, or in several files loaded at the same
+ * time) are merged into the existing documents with the usual upsert.
+ * <p>
+ * Otherwise, if a {@link VariantIdBloomFilter} of the variants in the collection is provided, the variants that are
+ * not in the filter are inserted in the same way, and only the rest are upserted.
+ * <p>
+ * The insert and update documents are encoded into BSON as they are built, with a {@link VariantToBsonEncoder}, and
+ * sent as they are by the {@link RawDBObjectEncoder} of the collection.
+ * <p>
+ * In the {@link KeyedFilesLayout}, the file and the statistics of a variant are added with a $set of their keys,
+ * instead of an $addToSet that compares them with all the files and statistics already in the variant.
  */
 public class VariantMongoWriter extends MongoItemWriter<Variant> {
 
@@ -45,115 +90,513 @@ public class VariantMongoWriter extends MongoItemWriter<Variant> {
 
     private static final String ANNOTATION_XREF_ID_FIELD = "annot.xrefs.id";
 
-    private final MongoOperations mongoOperations;
+    private static final int PIPELINED_BULKS = 4;
 
-    private final String collection;
+    private static final int MAX_BULK_OPERATIONS = 1000;
 
-    private VariantToDBObjectConverter variantConverter;
-    private VariantStatsToDBObjectConverter statsConverter;
-    private VariantSourceEntryToDBObjectConverter sourceEntryConverter;
+    /**
+     * Below the maximum message size of the server (48 MB), to leave room for the queries of the updates
+     */
+    static final long MAX_BULK_BYTES = 32 * 1024 * 1024;
+
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    /**
+     * Resolved when the writer is created, because the MongoOperations may be step scoped and the bulk threads have no
+     * step context
+     */
+    private final DBCollection variantsCollection;
+
+    private final boolean includeStats;
+
+    private final boolean includeSamples;
+
+    private final boolean keyedFiles;
+
+    private VariantToBsonEncoder variantEncoder;
+
+    /**
+     * The buffer of the documents, one per thread because the existing variants are merged in the bulk threads
+     */
+    private final ThreadLocal<BsonDocumentWriter> documentWriter = ThreadLocal.withInitial(BsonDocumentWriter::new);
+
+    private final int maxInFlightBulks;
+
+    private final ThreadPoolExecutor bulkExecutor;
+
+    private final boolean insertOnly;
+
+    private VariantIdBloomFilter idFilter;
+
+    private long maxBulkBytes = MAX_BULK_BYTES;
 
     public VariantMongoWriter(String collection, MongoOperations mongoOperations, boolean includeStats,
                               boolean includeSamples) {
+        this(collection, mongoOperations, includeStats, includeSamples, 0);
+    }
+
+    public VariantMongoWriter(String collection, MongoOperations mongoOperations, boolean includeStats,
+                              boolean includeSamples, int maxInFlightBulks) {
+        this(collection, mongoOperations, includeStats, includeSamples, maxInFlightBulks, false);
+    }
+
+    public VariantMongoWriter(String collection, MongoOperations mongoOperations, boolean includeStats,
+                              boolean includeSamples, int maxInFlightBulks, Boolean insertOnly) {
+        this(collection, mongoOperations, includeStats, includeSamples, maxInFlightBulks, insertOnly, true);
+    }
+
+    public VariantMongoWriter(String collection, MongoOperations mongoOperations, boolean includeStats,
+                              boolean includeSamples, int maxInFlightBulks, Boolean insertOnly,
+                              boolean createSecondaryIndexes) {
+        this(collection, mongoOperations, includeStats, includeSamples, maxInFlightBulks, insertOnly,
+             createSecondaryIndexes, false);
+    }
+
+    /**
+     * @param maxInFlightBulks       number of bulks that can be written at the same time in write-behind mode, or
+     *                               0 to write every chunk as a single bulk in the calling thread
+     * @param insertOnly             whether to insert the variants instead of upserting them, or null to do it only
+     *                               if the collection is empty when the writer is created
+     * @param createSecondaryIndexes whether to create the {@link #createSecondaryIndexes secondary indexes} before
+     *                               writing, or leave them to be created after loading
+     * @param keyedFiles             whether to write the files and statistics in the {@link KeyedFilesLayout}
+     */
+    public VariantMongoWriter(String collection, MongoOperations mongoOperations, boolean includeStats,
+                              boolean includeSamples, int maxInFlightBulks, Boolean insertOnly,
+                              boolean createSecondaryIndexes, boolean keyedFiles) {
         Assert.notNull(mongoOperations, "A Mongo instance is required");
         Assert.hasText(collection, "A collection name is required");
 
-        this.mongoOperations = mongoOperations;
-        this.collection = collection;
+        this.variantsCollection = mongoOperations.getCollection(collection);
         setTemplate(mongoOperations);
+        Assert.isTrue(maxInFlightBulks >= 0, "The number of in-flight bulks must not be negative");
+
+        this.maxInFlightBulks = maxInFlightBulks;
+        this.bulkExecutor = maxInFlightBulks > 0 ? createBulkExecutor(maxInFlightBulks) : null;
+        this.insertOnly = insertOnly != null ? insertOnly : variantsCollection.count() == 0;
+        if (this.insertOnly) {
+            logger.info("Variants will be inserted into the collection {}, merging only the existing ones",
+                        collection);
+        }
+
+        this.includeStats = includeStats;
+        this.includeSamples = includeSamples;
+        this.keyedFiles = keyedFiles;
+        this.variantEncoder = new VariantToBsonEncoder(includeSamples);
+        variantsCollection.setDBEncoderFactory(RawDBObjectEncoder.FACTORY);
 
-        initializeConverters(includeStats, includeSamples);
-        createIndexes();
+        createPrimaryIndexes(variantsCollection);
+        if (createSecondaryIndexes) {
+            createSecondaryIndexes(variantsCollection, keyedFiles, true);
+        }
     }
 
-    private void initializeConverters(boolean includeStats, boolean includeSamples) {
-        this.statsConverter = includeStats ? new VariantStatsToDBObjectConverter() : null;
-        SamplesToDBObjectConverter sampleConverter = includeSamples ? new SamplesToDBObjectConverter() : null;
-        this.sourceEntryConverter = new VariantSourceEntryToDBObjectConverter(sampleConverter);
-        this.variantConverter = new VariantToDBObjectConverter(null, null, null);
+    /**
+     * @param idFilter filter of the variants in the collection, used to insert the rest of variants when the writer is
+     *                 not in insert-only mode
+     */
+    public void setIdFilter(VariantIdBloomFilter idFilter) {
+        this.idFilter = idFilter;
+    }
+
+    /**
+     * @param compactSamples whether to store the positions of the samples in the compact encoding of
+     *                       {@link uk.ac.ebi.eva.commons.models.converters.data.SamplePositionsCodec}
+     */
+    public void setCompactSamples(boolean compactSamples) {
+        this.variantEncoder = new VariantToBsonEncoder(includeSamples, compactSamples);
+    }
+
+    /**
+     * @param maxBulkBytes size in bytes of the BSON documents of a bulk that starts a new one, no more than
+     *                     {@link #MAX_BULK_BYTES}
+     */
+    public void setMaxBulkBytes(long maxBulkBytes) {
+        Assert.isTrue(maxBulkBytes > 0, "The maximum size of a bulk must be positive");
+        this.maxBulkBytes = Math.min(maxBulkBytes, MAX_BULK_BYTES);
+    }
+
+    /**
+     * Daemon threads that finish when they are idle, so the writer doesn't need to be closed.
+     */
+    private static ThreadPoolExecutor createBulkExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "variant-bulk-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
     protected void doWrite(List<? extends Variant> variants) {
-        BulkWriteOperation bulk = mongoOperations.getCollection(collection).initializeUnorderedBulkOperation();
+        if (bulkExecutor == null) {
+            for (Bulk bulk : buildBulks(variants, Integer.MAX_VALUE)) {
+                executeBulk(bulk);
+            }
+        } else {
+            doWriteBehind(variants);
+        }
+    }
+
+    private void doWriteBehind(List<? extends Variant> variants) {
+        Deque<Future<?>> inFlightBulks = new ArrayDeque<>();
+        try {
+            for (List<Variant> group : groupById(variants, Math.max(PIPELINED_BULKS, maxInFlightBulks))) {
+                List<Bulk> bulks = buildBulks(group, MAX_BULK_OPERATIONS);
+
+                while (inFlightBulks.size() >= maxInFlightBulks) {
+                    waitForBulk(inFlightBulks.removeFirst());
+                }
+                // the bulks of a group may upsert the same variant twice, so they are not executed concurrently
+                inFlightBulks.addLast(bulkExecutor.submit(() -> {
+                    for (Bulk bulk : bulks) {
+                        executeBulk(bulk);
+                    }
+                }));
+            }
+            while (!inFlightBulks.isEmpty()) {
+                waitForBulk(inFlightBulks.removeFirst());
+            }
+        } finally {
+            // if anything failed, don't leave bulks running after the chunk is rolled back
+            for (Future<?> bulk : inFlightBulks) {
+                waitForBulkQuietly(bulk);
+            }
+        }
+    }
+
+    /**
+     * Splits the variants in groups, keeping the ones with the same identifier (chromosome, start, reference and
+     * alternate) in the same group. Empty groups are not returned.
+     */
+    private List<List<Variant>> groupById(List<? extends Variant> variants, int numGroups) {
+        List<List<Variant>> groups = new ArrayList<>(numGroups);
+        for (int i = 0; i < numGroups; i++) {
+            groups.add(new ArrayList<>(variants.size() / numGroups + 1));
+        }
+        for (Variant variant : variants) {
+            int hash = Objects.hash(variant.getChromosome(), variant.getStart(), variant.getReference(),
+                                    variant.getAlternate());
+            groups.get(Math.floorMod(hash, numGroups)).add(variant);
+        }
+        groups.removeIf(List::isEmpty);
+        return groups;
+    }
+
+    private void waitForBulk(Future<?> bulk) {
+        if (bulk == null) {
+            return;
+        }
+        try {
+            bulk.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new WriteFailedException("Could not write the variants", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteFailedException("Interrupted while writing the variants", e);
+        }
+    }
+
+    private void waitForBulkQuietly(Future<?> bulk) {
+        try {
+            bulk.get();
+        } catch (Exception e) {
+            logger.debug("Ignoring the result of a bulk after a previous failure: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the bulks that write the variants, in order, starting a new bulk when the current one has the maximum
+     * number of operations or bytes.
+     */
+    private List<Bulk> buildBulks(List<? extends Variant> variants, int maxOperations) {
+        List<Bulk> bulks = new ArrayList<>();
+        Bulk bulk = null;
+        for (Variant variant : variants) {
+            String id = MongoDBHelper.buildStorageId(variant.getChromosome(), variant.getStart(),
+                                                     variant.getReference(), variant.getAlternate());
+            boolean insert = insertOnly || (idFilter != null && !idFilter.mightContain(id));
+            DBObject document = insert ? generateInsert(variant) : generateUpdate(variant);
+            // the documents are encoded as they are built, so their size is already known
+            int bytes = ((LazyDBObject) document).getBSONSize();
+
+            if (bulk == null || bulk.variants.size() >= maxOperations
+                    || (!bulk.variants.isEmpty() && bulk.bytes + bytes > maxBulkBytes)) {
+                bulk = new Bulk(variantsCollection.initializeUnorderedBulkOperation());
+                bulks.add(bulk);
+            }
+            if (insert) {
+                bulk.operation.insert(document);
+            } else {
+                bulk.operation.find(buildQuery(id, variant)).upsert().updateOne(document);
+            }
+            bulk.variants.add(variant);
+            bulk.bytes += bytes;
+        }
+        return bulks;
+    }
+
+    private BulkWriteOperation buildUpsertBulk(List<? extends Variant> variants) {
+        BulkWriteOperation bulk = variantsCollection.initializeUnorderedBulkOperation();
         for (Variant variant : variants) {
             String id = MongoDBHelper.buildStorageId(variant.getChromosome(), variant.getStart(),
                                                      variant.getReference(), variant.getAlternate());
 
-            // the chromosome and start appear just as shard keys, in an unsharded cluster they wouldn't be needed
-            BasicDBObject query = new BasicDBObject("_id", id)
-                    .append(VariantToDBObjectConverter.CHROMOSOME_FIELD, variant.getChromosome())
-                    .append(VariantToDBObjectConverter.START_FIELD, variant.getStart());
+            bulk.find(buildQuery(id, variant)).upsert().updateOne(generateUpdate(variant));
+        }
+        return bulk;
+    }
 
-            bulk.find(query).upsert().updateOne(generateUpdate(variant));
+    private DBObject buildQuery(String id, Variant variant) {
+        // the chromosome and start appear just as shard keys, in an unsharded cluster they wouldn't be needed
+        return new BasicDBObject("_id", id)
+                .append(VariantToDBObjectConverter.CHROMOSOME_FIELD, variant.getChromosome())
+                .append(VariantToDBObjectConverter.START_FIELD, variant.getStart());
+    }
 
+    private void executeBulk(Bulk bulk) {
+        logger.trace("Execute bulk. BulkSize : {}, bytes: {}", bulk.variants.size(), bulk.bytes);
+        if (!insertOnly && idFilter == null) {
+            bulk.operation.execute();
+            return;
         }
 
-        executeBulk(bulk, variants.size());
+        try {
+            bulk.operation.execute();
+        } catch (BulkWriteException e) {
+            mergeExistingVariants(e, bulk.variants);
+        }
     }
 
-    private void executeBulk(BulkWriteOperation bulk, int currentBulkSize) {
-        if (currentBulkSize != 0) {
-            logger.trace("Execute bulk. BulkSize : " + currentBulkSize);
-            bulk.execute();
+    /**
+     * Upserts the variants of a bulk with inserts that failed only because they were already in the collection.
+     *
+     * @throws BulkWriteException the original exception, if anything else failed
+     */
+    private void mergeExistingVariants(BulkWriteException exception, List<? extends Variant> variants) {
+        if (exception.getWriteConcernError() != null) {
+            throw exception;
         }
+        List<Variant> existingVariants = new ArrayList<>();
+        for (BulkWriteError error : exception.getWriteErrors()) {
+            if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                throw exception;
+            }
+            existingVariants.add(variants.get(error.getIndex()));
+        }
+        logger.debug("Merging {} variants that were already in the collection", existingVariants.size());
+        buildUpsertBulk(existingVariants).execute();
     }
 
-    private void createIndexes() {
-        mongoOperations.getCollection(collection).createIndex(
+    /**
+     * Creates the indexes needed while loading: the one on chromosome, start and end, that also serves the shard key.
+     * It is built in background, as other loads may be writing to the collection.
+     */
+    public static void createPrimaryIndexes(DBCollection variantsCollection) {
+        MongoDBHelper.createIndexesIfMissing(variantsCollection, Collections.singletonList(
                 new BasicDBObject(VariantToDBObjectConverter.CHROMOSOME_FIELD, 1)
-                    .append(VariantToDBObjectConverter.START_FIELD, 1).append(VariantToDBObjectConverter.END_FIELD, 1),
-                new BasicDBObject(MongoDBHelper.BACKGROUND_INDEX, true));
-
-        mongoOperations.getCollection(collection).createIndex(
-                new BasicDBObject(VariantToDBObjectConverter.IDS_FIELD, 1),
-                new BasicDBObject(MongoDBHelper.BACKGROUND_INDEX, true));
+                        .append(VariantToDBObjectConverter.START_FIELD, 1)
+                        .append(VariantToDBObjectConverter.END_FIELD, 1)), true);
+    }
 
-        String filesStudyIdField = String.format("%s.%s", VariantToDBObjectConverter.FILES_FIELD,
-                                                 VariantSourceEntryToDBObjectConverter.STUDYID_FIELD);
-        String filesFileIdField = String.format("%s.%s", VariantToDBObjectConverter.FILES_FIELD,
-                                                 VariantSourceEntryToDBObjectConverter.FILEID_FIELD);
-        mongoOperations.getCollection(collection).createIndex(
-                new BasicDBObject(filesStudyIdField, 1).append(filesFileIdField, 1),
-                new BasicDBObject(MongoDBHelper.BACKGROUND_INDEX, true));
+    public static void createSecondaryIndexes(DBCollection variantsCollection) {
+        createSecondaryIndexes(variantsCollection, false, true);
+    }
 
-        mongoOperations.getCollection(collection).createIndex(
-                new BasicDBObject(ANNOTATION_XREF_ID_FIELD, 1),
-                new BasicDBObject(MongoDBHelper.BACKGROUND_INDEX, true));
-        mongoOperations.getCollection(collection).createIndex(
-                new BasicDBObject(ANNOTATION_CT_SO_FIELD, 1),
-                new BasicDBObject(MongoDBHelper.BACKGROUND_INDEX, true));
+    /**
+     * Creates the indexes that are only used to query the variants. They can be built after loading, which makes the
+     * load faster and the indexes more compact.
+     *
+     * @param keyedFiles whether the collection uses the {@link KeyedFilesLayout}, whose studies and files are keys
+     *                   that can't be indexed
+     * @param background whether to build them in background, as needed before loading so that the writes are not
+     *                   blocked. Once the variants are loaded, building them in foreground is faster
+     */
+    public static void createSecondaryIndexes(DBCollection variantsCollection, boolean keyedFiles,
+                                              boolean background) {
+        List<DBObject> indexes = new ArrayList<>();
+        indexes.add(new BasicDBObject(VariantToDBObjectConverter.IDS_FIELD, 1));
+        if (!keyedFiles) {
+            String filesStudyIdField = String.format("%s.%s", VariantToDBObjectConverter.FILES_FIELD,
+                                                     VariantSourceEntryToDBObjectConverter.STUDYID_FIELD);
+            String filesFileIdField = String.format("%s.%s", VariantToDBObjectConverter.FILES_FIELD,
+                                                    VariantSourceEntryToDBObjectConverter.FILEID_FIELD);
+            indexes.add(new BasicDBObject(filesStudyIdField, 1).append(filesFileIdField, 1));
+        }
+        indexes.add(new BasicDBObject(ANNOTATION_XREF_ID_FIELD, 1));
+        indexes.add(new BasicDBObject(ANNOTATION_CT_SO_FIELD, 1));
+        MongoDBHelper.createIndexesIfMissing(variantsCollection, indexes, background);
     }
 
-    private DBObject generateUpdate(Variant variant) {
+    /**
+     * Builds the same document that {@link #generateUpdate(Variant)} creates when the variant is not in the
+     * collection.
+     */
+    private DBObject generateInsert(Variant variant) {
         Assert.notNull(variant, "Variant should not be null. Please provide a valid Variant object");
         logger.trace("Convert variant {} into mongo object", variant);
 
         variant.setAnnotation(null);
 
-        BasicDBObject addToSet = new BasicDBObject();
+        BsonDocumentWriter writer = documentWriter.get();
+        writer.writeStartDocument();
+        variantEncoder.writeVariantFields(writer, variant);
 
         if (!variant.getSourceEntries().isEmpty()) {
             VariantSourceEntry variantSourceEntry = variant.getSourceEntries().values().iterator().next();
 
-            addToSet.put(VariantToDBObjectConverter.FILES_FIELD, sourceEntryConverter.convert(variantSourceEntry));
+            writer.writeName(VariantToDBObjectConverter.FILES_FIELD);
+            if (keyedFiles) {
+                writeStartFileKeys(writer, variantSourceEntry);
+                variantEncoder.writeSourceEntry(writer, variantSourceEntry);
+                writeEndFileKeys(writer);
+            } else {
+                writer.writeStartArray();
+                variantEncoder.writeSourceEntry(writer, variantSourceEntry);
+                writer.writeEndArray();
+            }
 
-            if (statsConverter != null) {
-                List<DBObject> sourceEntryStats = statsConverter.convert(variantSourceEntry);
-                addToSet.put(VariantToDBObjectConverter.STATS_FIELD, new BasicDBObject("$each", sourceEntryStats));
+            if (includeStats) {
+                writer.writeName(VariantToDBObjectConverter.STATS_FIELD);
+                if (keyedFiles) {
+                    writeStartFileKeys(writer, variantSourceEntry);
+                    writer.writeStartDocument();
+                    variantEncoder.writeKeyedStats(writer, variantSourceEntry);
+                    writer.writeEndDocument();
+                    writeEndFileKeys(writer);
+                } else {
+                    writer.writeStartArray();
+                    variantEncoder.writeStats(writer, variantSourceEntry);
+                    writer.writeEndArray();
+                }
             }
         }
 
         if (variant.getIds() != null && !variant.getIds().isEmpty()) {
-            addToSet.put(VariantToDBObjectConverter.IDS_FIELD, new BasicDBObject("$each", variant.getIds()));
+            writer.writeName(VariantToDBObjectConverter.IDS_FIELD);
+            writeIds(writer, variant);
         }
 
-        BasicDBObject update = new BasicDBObject();
-        if (!addToSet.isEmpty()) {
-            update.put("$addToSet", addToSet);
+        writer.writeEndDocument();
+        return writer.toDBObject();
+    }
+
+    private DBObject generateUpdate(Variant variant) {
+        Assert.notNull(variant, "Variant should not be null. Please provide a valid Variant object");
+        logger.trace("Convert variant {} into mongo object", variant);
+
+        variant.setAnnotation(null);
+
+        boolean hasSourceEntries = !variant.getSourceEntries().isEmpty();
+        boolean hasIds = variant.getIds() != null && !variant.getIds().isEmpty();
+
+        BsonDocumentWriter writer = documentWriter.get();
+        writer.writeStartDocument();
+
+        if (keyedFiles && hasSourceEntries) {
+            VariantSourceEntry variantSourceEntry = variant.getSourceEntries().values().iterator().next();
+            String studyId = variantSourceEntry.getStudyId();
+            String fileId = variantSourceEntry.getFileId();
+
+            writer.writeName("$set");
+            writer.writeStartDocument();
+            writer.writeName(KeyedFilesLayout.fileField(studyId, fileId));
+            variantEncoder.writeSourceEntry(writer, variantSourceEntry);
+            if (includeStats) {
+                writer.writeName(KeyedFilesLayout.fileStatsField(studyId, fileId));
+                writer.writeStartDocument();
+                variantEncoder.writeKeyedStats(writer, variantSourceEntry);
+                writer.writeEndDocument();
+            }
+            writer.writeEndDocument();
+        }
+
+        if ((!keyedFiles && hasSourceEntries) || hasIds) {
+            writer.writeName("$addToSet");
+            writer.writeStartDocument();
+
+            if (!keyedFiles && hasSourceEntries) {
+                VariantSourceEntry variantSourceEntry = variant.getSourceEntries().values().iterator().next();
+
+                writer.writeName(VariantToDBObjectConverter.FILES_FIELD);
+                variantEncoder.writeSourceEntry(writer, variantSourceEntry);
+
+                if (includeStats) {
+                    writer.writeName(VariantToDBObjectConverter.STATS_FIELD);
+                    writer.writeStartDocument();
+                    writer.writeName("$each");
+                    writer.writeStartArray();
+                    variantEncoder.writeStats(writer, variantSourceEntry);
+                    writer.writeEndArray();
+                    writer.writeEndDocument();
+                }
+            }
+
+            if (hasIds) {
+                writer.writeName(VariantToDBObjectConverter.IDS_FIELD);
+                writer.writeStartDocument();
+                writer.writeName("$each");
+                writeIds(writer, variant);
+                writer.writeEndDocument();
+            }
+
+            writer.writeEndDocument();
         }
-        update.append("$setOnInsert", variantConverter.convert(variant));
 
-        return update;
+        writer.writeName("$setOnInsert");
+        writer.writeStartDocument();
+        variantEncoder.writeVariantFields(writer, variant);
+        writer.writeEndDocument();
+
+        writer.writeEndDocument();
+        return writer.toDBObject();
+    }
+
+    /**
+     * Starts the documents of the study and the file of a source entry, in the {@link KeyedFilesLayout}
+     */
+    private void writeStartFileKeys(BsonDocumentWriter writer, VariantSourceEntry variantSourceEntry) {
+        writer.writeStartDocument();
+        writer.writeName(KeyedFilesLayout.encodeKey(variantSourceEntry.getStudyId()));
+        writer.writeStartDocument();
+        writer.writeName(KeyedFilesLayout.encodeKey(variantSourceEntry.getFileId()));
+    }
+
+    private void writeEndFileKeys(BsonDocumentWriter writer) {
+        writer.writeEndDocument();
+        writer.writeEndDocument();
+    }
+
+    private void writeIds(BsonDocumentWriter writer, Variant variant) {
+        writer.writeStartArray();
+        for (String id : variant.getIds()) {
+            writer.writeString(id);
+        }
+        writer.writeEndArray();
+    }
+
+    /**
+     * A bulk write, with the variants of its operations in the same order
+     */
+    private static class Bulk {
+
+        private final BulkWriteOperation operation;
+
+        private final List<Variant> variants;
+
+        private long bytes;
+
+        Bulk(BulkWriteOperation operation) {
+            this.operation = operation;
+            this.variants = new ArrayList<>();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io.writers;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.util.Assert;
+
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantStatsToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.utils.MongoDBHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the statistics of the source entries of a list of {@link Variant} into the "st" field of the variants, with
+ * one ordered bulk per chunk.
+ * <p>
+ * When overwriting, the previous statistics of the same study, file and cohorts are replaced. Otherwise, only the
+ * cohorts that don't have statistics yet are written. Either way, writing the same chunk again leaves the same
+ * statistics, so a restarted step can repeat the chunk that failed.
+ * <p>
+ * In the {@link KeyedFilesLayout}, the statistics of each cohort are written with a $set of their key. In the array
+ * layout, the previous statistics are pulled before pushing the new ones, which needs two updates in order.
+ */
+public class VariantStatsMongoWriter implements ItemWriter<Variant> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantStatsMongoWriter.class);
+
+    private final MongoOperations mongoOperations;
+
+    private final String collection;
+
+    private final boolean keyedFiles;
+
+    private final boolean overwrite;
+
+    private final VariantStatsToDBObjectConverter statsConverter;
+
+    /**
+     * @param keyedFiles whether the collection uses the {@link KeyedFilesLayout}
+     * @param overwrite  whether to replace the statistics that the variants already have for the same cohorts
+     */
+    public VariantStatsMongoWriter(MongoOperations mongoOperations, String collection, boolean keyedFiles,
+                                   boolean overwrite) {
+        Assert.notNull(mongoOperations, "A Mongo instance is required");
+        Assert.hasText(collection, "A collection name is required");
+        this.mongoOperations = mongoOperations;
+        this.collection = collection;
+        this.keyedFiles = keyedFiles;
+        this.overwrite = overwrite;
+        this.statsConverter = new VariantStatsToDBObjectConverter();
+    }
+
+    @Override
+    public void write(List<? extends Variant> variants) {
+        BulkWriteOperation bulk = mongoOperations.getCollection(collection).initializeOrderedBulkOperation();
+        int updates = 0;
+        for (Variant variant : variants) {
+            for (VariantSourceEntry sourceEntry : variant.getSourceEntries().values()) {
+                List<DBObject> cohortsStats = statsConverter.convert(sourceEntry);
+                if (cohortsStats.isEmpty()) {
+                    continue;
+                }
+                DBObject query = buildQuery(variant);
+                if (keyedFiles) {
+                    addKeyedUpdates(bulk, query, sourceEntry, cohortsStats);
+                } else {
+                    addArrayUpdates(bulk, query, sourceEntry, cohortsStats);
+                }
+                updates++;
+            }
+        }
+
+        if (updates > 0) {
+            logger.trace("Writing the statistics of {} source entries", updates);
+            bulk.execute();
+        }
+    }
+
+    private DBObject buildQuery(Variant variant) {
+        String id = MongoDBHelper.buildStorageId(variant.getChromosome(), variant.getStart(), variant.getReference(),
+                                                 variant.getAlternate());
+        // the chromosome and start appear just as shard keys, in an unsharded cluster they wouldn't be needed
+        return new BasicDBObject("_id", id)
+                .append(VariantToDBObjectConverter.CHROMOSOME_FIELD, variant.getChromosome())
+                .append(VariantToDBObjectConverter.START_FIELD, variant.getStart());
+    }
+
+    private void addKeyedUpdates(BulkWriteOperation bulk, DBObject query, VariantSourceEntry sourceEntry,
+                                 List<DBObject> cohortsStats) {
+        String fileStatsField = KeyedFilesLayout.fileStatsField(sourceEntry.getStudyId(), sourceEntry.getFileId());
+        for (DBObject cohortStats : cohortsStats) {
+            String cohortField = fileStatsField + "."
+                    + KeyedFilesLayout.encodeKey((String) cohortStats.get(VariantStatsToDBObjectConverter.COHORT_ID));
+            BasicDBObject cohortQuery = new BasicDBObject(query.toMap());
+            if (!overwrite) {
+                cohortQuery.append(cohortField, new BasicDBObject("$exists", false));
+            }
+            bulk.find(cohortQuery).updateOne(new BasicDBObject("$set", new BasicDBObject(cohortField, cohortStats)));
+        }
+    }
+
+    private void addArrayUpdates(BulkWriteOperation bulk, DBObject query, VariantSourceEntry sourceEntry,
+                                 List<DBObject> cohortsStats) {
+        if (overwrite) {
+            DBObject fileCohorts = new BasicDBObject(VariantStatsToDBObjectConverter.STUDY_ID, sourceEntry.getStudyId())
+                    .append(VariantStatsToDBObjectConverter.FILE_ID, sourceEntry.getFileId())
+                    .append(VariantStatsToDBObjectConverter.COHORT_ID,
+                            new BasicDBObject("$in", new ArrayList<>(sourceEntry.getCohortStats().keySet())));
+            bulk.find(query).updateOne(new BasicDBObject(
+                    "$pull", new BasicDBObject(VariantToDBObjectConverter.STATS_FIELD, fileCohorts)));
+            bulk.find(query).updateOne(new BasicDBObject(
+                    "$push", new BasicDBObject(VariantToDBObjectConverter.STATS_FIELD,
+                                               new BasicDBObject("$each", cohortsStats))));
+        } else {
+            for (DBObject cohortStats : cohortsStats) {
+                DBObject cohort = new BasicDBObject(VariantStatsToDBObjectConverter.STUDY_ID, sourceEntry.getStudyId())
+                        .append(VariantStatsToDBObjectConverter.FILE_ID, sourceEntry.getFileId())
+                        .append(VariantStatsToDBObjectConverter.COHORT_ID,
+                                cohortStats.get(VariantStatsToDBObjectConverter.COHORT_ID));
+                BasicDBObject cohortQuery = new BasicDBObject(query.toMap())
+                        .append(VariantToDBObjectConverter.STATS_FIELD,
+                                new BasicDBObject("$not", new BasicDBObject("$elemMatch", cohort)));
+                bulk.find(cohortQuery).updateOne(new BasicDBObject(
+                        "$push", new BasicDBObject(VariantToDBObjectConverter.STATS_FIELD, cohortStats)));
+            }
+        }
+    }
+}
@@ -17,63 +17,209 @@ package uk.ac.ebi.eva.pipeline.io.writers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
 
+import uk.ac.ebi.eva.pipeline.io.VepOutputLoader;
 import uk.ac.ebi.eva.pipeline.io.VepProcess;
 import uk.ac.ebi.eva.pipeline.model.VariantWrapper;
 import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * ItemStreamWriter that takes VariantWrappers and serialize them into a {@link VepProcess}, which will be responsible
  * for annotating the variants and writing them to a file.
+ * <p>
+ * A single VEP process is started with the first chunk and fed with every following chunk, so that VEP loads its
+ * cache only once per step execution, and not at all if there are no variants to annotate. The process is finished
+ * in {@link #afterStep(StepExecution)}, so that a VEP failure while annotating the last chunk still makes the step
+ * fail, and {@link #close()} acts as a safety net.
+ * For that reason, this writer has to be registered as a listener of the step as well.
+ * <p>
+ * If a {@link VepOutputLoader} is provided, the annotations are loaded into the database while VEP produces them, and
+ * the VEP output file is only written if requested.
  */
-public class VepAnnotationFileWriter implements ItemWriter<VariantWrapper> {
+public class VepAnnotationFileWriter implements ItemStreamWriter<VariantWrapper>, StepExecutionListener {
 
     private static final Logger logger = LoggerFactory.getLogger(VepAnnotationFileWriter.class);
 
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    private static final int INITIAL_BYTES_PER_VARIANT = 64;
+
     private final AnnotationParameters annotationParameters;
 
+    private final String vepOutput;
+
+    private final VepOutputLoader vepOutputLoader;
+
+    private final boolean keepVepOutput;
+
     private final Integer chunkSize;
 
     private final Long timeoutInSeconds;
 
+    private VepProcess vepProcess;
+
+    /**
+     * Reused across chunks, so that a whole chunk is serialized without intermediate Strings and sent to VEP at once.
+     */
+    private byte[] vepInput;
+
+    private int vepInputLength;
+
     public VepAnnotationFileWriter(AnnotationParameters annotationParameters, Integer chunkSize, Long timeoutInSeconds) {
+        this(annotationParameters, annotationParameters.getVepOutput(), chunkSize, timeoutInSeconds);
+    }
+
+    public VepAnnotationFileWriter(AnnotationParameters annotationParameters, String vepOutput, Integer chunkSize,
+                                   Long timeoutInSeconds) {
+        this(annotationParameters, vepOutput, null, true, chunkSize, timeoutInSeconds);
+    }
+
+    /**
+     * @param vepOutputLoader if not null, the annotations will be loaded as soon as VEP writes them
+     * @param keepVepOutput whether to write the VEP output file when the annotations are loaded directly
+     */
+    public VepAnnotationFileWriter(AnnotationParameters annotationParameters, String vepOutput,
+                                   VepOutputLoader vepOutputLoader, boolean keepVepOutput, Integer chunkSize,
+                                   Long timeoutInSeconds) {
         this.annotationParameters = annotationParameters;
+        this.vepOutput = vepOutput;
+        this.vepOutputLoader = vepOutputLoader;
+        this.keepVepOutput = keepVepOutput;
         this.chunkSize = chunkSize;
         this.timeoutInSeconds = timeoutInSeconds;
     }
 
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        vepInput = new byte[chunkSize * INITIAL_BYTES_PER_VARIANT];
+        vepProcess = new VepProcess(annotationParameters, vepOutput, vepOutputLoader, keepVepOutput, chunkSize,
+                                    timeoutInSeconds);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+    }
+
     @Override
     public void write(List<? extends VariantWrapper> variantWrappers) throws Exception {
-        VepProcess vepProcess = new VepProcess(annotationParameters, chunkSize, timeoutInSeconds);
-        vepProcess.open();
+        if (vepProcess == null) {
+            throw new IllegalStateException("Writer must be initialized (hint: call open() before write())");
+        }
+        if (variantWrappers.isEmpty()) {
+            return;
+        }
+        if (!vepProcess.isOpen()) {
+            vepProcess.open();
+        }
 
+        vepInputLength = 0;
         for (VariantWrapper variantWrapper : variantWrappers) {
-            String line = getVariantInVepInputFormat(variantWrapper);
-            vepProcess.write(line.getBytes());
-            vepProcess.write(System.lineSeparator().getBytes());
+            appendVariantInVepInputFormat(variantWrapper);
         }
+        vepProcess.write(vepInput, 0, vepInputLength);
 
-        if (variantWrappers.size() > 0) {
-            VariantWrapper first = variantWrappers.get(0);
-            VariantWrapper last = variantWrappers.get(variantWrappers.size() - 1);
-            logger.trace("VEP has received {} variants from {}:{} to {}:{}", variantWrappers.size(),
-                    first.getChr(), first.getStart(), last.getChr(), last.getStart());
-        }
+        VariantWrapper first = variantWrappers.get(0);
+        VariantWrapper last = variantWrappers.get(variantWrappers.size() - 1);
+        logger.trace("VEP has received {} variants from {}:{} to {}:{}", variantWrappers.size(),
+                first.getChr(), first.getStart(), last.getChr(), last.getStart());
 
         vepProcess.flush();
-        vepProcess.close();
     }
 
-    private String getVariantInVepInputFormat(VariantWrapper variantWrapper) {
-        return String.join("\t",
-                variantWrapper.getChr(),
-                Integer.toString(variantWrapper.getStart()),
-                Integer.toString(variantWrapper.getEnd()),
-                variantWrapper.getRefAlt(),
-                variantWrapper.getStrand());
+    /**
+     * It is safe to call this method several times; it's idempotent.
+     */
+    @Override
+    public void close() throws ItemStreamException {
+        if (vepProcess != null) {
+            vepProcess.close();
+        }
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        try {
+            close();
+        } catch (ItemStreamException e) {
+            logger.error("VEP could not finish annotating the variants", e);
+            stepExecution.upgradeStatus(BatchStatus.FAILED);
+            stepExecution.addFailureException(e);
+            return ExitStatus.FAILED.addExitDescription(e);
+        }
+        return null;
+    }
+
+    /**
+     * Appends a line like "20\t60343\t60343\tG/A\t+" to the VEP input buffer.
+     */
+    private void appendVariantInVepInputFormat(VariantWrapper variantWrapper) {
+        appendAscii(variantWrapper.getChr());
+        append((byte) '\t');
+        appendInt(variantWrapper.getStart());
+        append((byte) '\t');
+        appendInt(variantWrapper.getEnd());
+        append((byte) '\t');
+        appendAscii(variantWrapper.getReference());
+        append((byte) '/');
+        appendAscii(variantWrapper.getAlternate());
+        append((byte) '\t');
+        appendAscii(variantWrapper.getStrand());
+        for (byte separatorByte : LINE_SEPARATOR) {
+            append(separatorByte);
+        }
+    }
+
+    /**
+     * Chromosomes, alleles and strands only contain ASCII characters, so each char is written as a single byte.
+     */
+    private void appendAscii(String text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            vepInput[vepInputLength++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void appendInt(int value) {
+        if (value < 0) {
+            append((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (int remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = vepInputLength + digits - 1; i >= vepInputLength; i--) {
+            vepInput[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        vepInputLength += digits;
+    }
+
+    private void append(byte value) {
+        ensureCapacity(1);
+        vepInput[vepInputLength++] = value;
+    }
+
+    private void ensureCapacity(int extraBytes) {
+        if (vepInputLength + extraBytes > vepInput.length) {
+            vepInput = Arrays.copyOf(vepInput, Math.max(vepInput.length * 2, vepInputLength + extraBytes));
+        }
     }
 
 }
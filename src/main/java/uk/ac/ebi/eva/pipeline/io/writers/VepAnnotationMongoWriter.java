@@ -17,20 +17,29 @@
 package uk.ac.ebi.eva.pipeline.io.writers;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.data.MongoItemWriter;
 import org.springframework.data.mongodb.core.MongoOperations;
 
+import uk.ac.ebi.eva.commons.models.converters.data.AnnotationFieldNames;
 import uk.ac.ebi.eva.commons.models.converters.data.VariantAnnotationToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
 import uk.ac.ebi.eva.commons.models.data.VariantAnnotation;
 import uk.ac.ebi.eva.utils.MongoDBHelper;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Write a list of {@link VariantAnnotation} into MongoDB
@@ -53,12 +62,25 @@ import java.util.Map;
  *      { "id" : "ENST00000382410", "src" : "ensemblTranscript" },
  *      { "id" : "ENST00000608838", "src" : "ensemblTranscript" },
  *      { "id" : "ENSG00000178591", "src" : "ensemblGene"
+ *
+ * Each chunk is written with a single unordered bulk operation, with one update per variant. Variants that already
+ * have an annotation get the new consequence types and xrefs appended with $addToSet; the rest get the whole
+ * annotation with a $set, which avoids comparing the array elements.
+ *
+ * The collection is resolved when it is set, so that the writer can be used from threads without a step context, such
+ * as the one of {@link uk.ac.ebi.eva.pipeline.io.VepOutputLoader}, even if the MongoOperations is step scoped.
  */
 public class VepAnnotationMongoWriter extends MongoItemWriter<VariantAnnotation> {
     private static final Logger logger = LoggerFactory.getLogger(VepAnnotationMongoWriter.class);
 
+    private static final String ANNOTATION_CT_FIELD = VariantToDBObjectConverter.ANNOTATION_FIELD + "."
+            + AnnotationFieldNames.CONSEQUENCE_TYPE_FIELD;
+
+    private static final String ANNOTATION_XREFS_FIELD = VariantToDBObjectConverter.ANNOTATION_FIELD + "."
+            + AnnotationFieldNames.XREFS_FIELD;
+
     private MongoOperations mongoOperations;
-    private String collection;
+    private DBCollection variantsCollection;
     private VariantAnnotationToDBObjectConverter converter;
 
     public VepAnnotationMongoWriter(MongoOperations mongoOperations) {
@@ -75,7 +97,7 @@ public class VepAnnotationMongoWriter extends MongoItemWriter<VariantAnnotation>
     @Override
     public void setCollection(String collection) {
         super.setCollection(collection);
-        this.collection = collection;
+        this.variantsCollection = mongoOperations.getCollection(collection);
     }
 
     private Map<String, List<VariantAnnotation>> groupVariantAnnotationById(List<? extends VariantAnnotation> variantAnnotations){
@@ -100,6 +122,12 @@ public class VepAnnotationMongoWriter extends MongoItemWriter<VariantAnnotation>
     protected void doWrite(List<? extends VariantAnnotation> variantAnnotations) {
 
         Map<String, List<VariantAnnotation>> variantAnnotationsByStorageId = groupVariantAnnotationById(variantAnnotations);
+        if (variantAnnotationsByStorageId.isEmpty()) {
+            return;
+        }
+
+        Set<String> annotatedIds = findAnnotatedIds(variantsCollection, variantAnnotationsByStorageId.keySet());
+        BulkWriteOperation bulk = variantsCollection.initializeUnorderedBulkOperation();
 
         for (Map.Entry<String, List<VariantAnnotation>> annotationsIn : variantAnnotationsByStorageId.entrySet()){
             String storageId = annotationsIn.getKey();
@@ -112,9 +140,28 @@ public class VepAnnotationMongoWriter extends MongoItemWriter<VariantAnnotation>
                         variantAnnotation, annotations.subList(1, annotations.size()));
             }
 
-            writeVariantAnnotationInMongoDb(storageId, variantAnnotation);
+            addVariantAnnotationToBulk(bulk, storageId, variantAnnotation, annotatedIds.contains(storageId));
         }
 
+        logger.trace("Execute bulk. BulkSize : " + variantAnnotationsByStorageId.size());
+        bulk.execute();
+    }
+
+    /**
+     * Finds with a single query which variants already have an annotation, which will need to be merged.
+     */
+    private Set<String> findAnnotatedIds(DBCollection variantsCollection, Collection<String> storageIds) {
+        BasicDBObject query = new BasicDBObject("_id", new BasicDBObject("$in", storageIds))
+                .append(VariantToDBObjectConverter.ANNOTATION_FIELD, new BasicDBObject("$exists", true));
+        BasicDBObject projection = new BasicDBObject("_id", 1);
+
+        Set<String> annotatedIds = new HashSet<>();
+        try (DBCursor cursor = variantsCollection.find(query, projection)) {
+            for (DBObject variant : cursor) {
+                annotatedIds.add(variant.get("_id").toString());
+            }
+        }
+        return annotatedIds;
     }
 
     /**
@@ -147,25 +194,38 @@ public class VepAnnotationMongoWriter extends MongoItemWriter<VariantAnnotation>
         return variantAnnotation;
     }
 
-    private void writeVariantAnnotationInMongoDb(String storageId, VariantAnnotation variantAnnotation){
+    private void addVariantAnnotationToBulk(BulkWriteOperation bulk, String storageId,
+                                            VariantAnnotation variantAnnotation, boolean alreadyAnnotated) {
         logger.trace("Writing annotations into mongo id: {}", storageId);
 
         DBObject storageVariantAnnotation = converter.convert(variantAnnotation);
+        Object consequenceTypes = storageVariantAnnotation.get(AnnotationFieldNames.CONSEQUENCE_TYPE_FIELD);
+        Object xrefs = storageVariantAnnotation.get(AnnotationFieldNames.XREFS_FIELD);
 
-        BasicDBObject find = new BasicDBObject("_id", storageId);
-
-        if(storageVariantAnnotation.get("ct") != null){
-            BasicDBObject updateCt = new BasicDBObject("$addToSet", new BasicDBObject("annot.ct",
-                    new BasicDBObject("$each", storageVariantAnnotation.get("ct")) ));
-            mongoOperations.getCollection(collection).update(find, updateCt);
+        if (consequenceTypes == null && xrefs == null) {
+            return;
         }
 
-        if(storageVariantAnnotation.get("xrefs") != null){
-            BasicDBObject updateXrefs = new BasicDBObject("$addToSet", new BasicDBObject("annot.xrefs",
-                    new BasicDBObject("$each", storageVariantAnnotation.get("xrefs"))));
-            mongoOperations.getCollection(collection).update(find, updateXrefs);
-        }
+        BasicDBObject find = new BasicDBObject("_id", storageId);
 
+        if (alreadyAnnotated) {
+            BasicDBObject addToSet = new BasicDBObject();
+            if (consequenceTypes != null) {
+                addToSet.append(ANNOTATION_CT_FIELD, new BasicDBObject("$each", consequenceTypes));
+            }
+            if (xrefs != null) {
+                addToSet.append(ANNOTATION_XREFS_FIELD, new BasicDBObject("$each", xrefs));
+            }
+            bulk.find(find).updateOne(new BasicDBObject("$addToSet", addToSet));
+        } else {
+            if (consequenceTypes != null) {
+                // $addToSet would have discarded repeated consequence types, so they are removed here as well
+                storageVariantAnnotation.put(AnnotationFieldNames.CONSEQUENCE_TYPE_FIELD,
+                                             new ArrayList<>(new LinkedHashSet<>((List<?>) consequenceTypes)));
+            }
+            bulk.find(find).updateOne(new BasicDBObject("$set",
+                    new BasicDBObject(VariantToDBObjectConverter.ANNOTATION_FIELD, storageVariantAnnotation)));
+        }
     }
 
     private String buildStorageIdFromVariantAnnotation(VariantAnnotation variantAnnotation){
@@ -33,6 +33,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
 
 import uk.ac.ebi.eva.pipeline.jobs.flows.AnnotationFlowOptional;
+import uk.ac.ebi.eva.pipeline.jobs.flows.VariantIdFilterOptionalFlow;
+import uk.ac.ebi.eva.pipeline.jobs.flows.VariantsIndexesOptionalFlow;
 import uk.ac.ebi.eva.pipeline.jobs.steps.LoadFileStep;
 import uk.ac.ebi.eva.pipeline.jobs.steps.VariantLoaderStep;
 import uk.ac.ebi.eva.pipeline.parameters.NewJobIncrementer;
@@ -41,19 +43,23 @@ import uk.ac.ebi.eva.pipeline.parameters.validation.job.AggregatedVcfJobParamete
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.AGGREGATED_VCF_JOB;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_FILE_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_VARIANTS_STEP;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_INDEXES_OPTIONAL_FLOW;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ID_FILTER_OPTIONAL_FLOW;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_OPTIONAL_FLOW;
 
 /**
  * Complete pipeline workflow for aggregated VCF. Aggregated statistics are provided in the VCF instead of the
  * genotypes.
  * <p>
- * load --> (optionalAnnotationFlow: variantsAnnotGenerateInput --> (annotationCreate --> annotationLoad))
+ * (variantIdFilter) --> load --> (variantsIndexes) --> (optionalAnnotationFlow: variantsAnnotGenerateInput -->
+ * (annotationCreate --> annotationLoad))
  * <p>
  * Steps in () are optional
  */
 @Configuration
 @EnableBatchProcessing
-@Import({VariantLoaderStep.class, LoadFileStep.class, AnnotationFlowOptional.class})
+@Import({VariantIdFilterOptionalFlow.class, VariantLoaderStep.class, LoadFileStep.class,
+        AnnotationFlowOptional.class, VariantsIndexesOptionalFlow.class})
 public class AggregatedVcfJob {
 
     private static final Logger logger = LoggerFactory.getLogger(AggregatedVcfJob.class);
@@ -62,10 +68,18 @@ public class AggregatedVcfJob {
     @Qualifier(VEP_ANNOTATION_OPTIONAL_FLOW)
     private Flow annotationFlowOptional;
 
+    @Autowired
+    @Qualifier(VARIANT_ID_FILTER_OPTIONAL_FLOW)
+    private Flow variantIdFilterOptionalFlow;
+
     @Autowired
     @Qualifier(LOAD_VARIANTS_STEP)
     private Step variantLoaderStep;
 
+    @Autowired
+    @Qualifier(VARIANTS_INDEXES_OPTIONAL_FLOW)
+    private Flow variantsIndexesOptionalFlow;
+
     @Autowired
     @Qualifier(LOAD_FILE_STEP)
     private Step loadFileStep;
@@ -80,7 +94,9 @@ public class AggregatedVcfJob {
                 .incrementer(new NewJobIncrementer())
                 .validator(new AggregatedVcfJobParametersValidator());
         FlowJobBuilder builder = jobBuilder
-                .flow(variantLoaderStep)
+                .start(variantIdFilterOptionalFlow)
+                .next(variantLoaderStep)
+                .next(variantsIndexesOptionalFlow)
                 .next(loadFileStep)
                 .next(annotationFlowOptional)
                 .end();
@@ -33,6 +33,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
 
 import uk.ac.ebi.eva.pipeline.jobs.flows.ParallelStatisticsAndAnnotationFlow;
+import uk.ac.ebi.eva.pipeline.jobs.flows.VariantIdFilterOptionalFlow;
+import uk.ac.ebi.eva.pipeline.jobs.flows.VariantsIndexesOptionalFlow;
 import uk.ac.ebi.eva.pipeline.jobs.steps.LoadFileStep;
 import uk.ac.ebi.eva.pipeline.jobs.steps.VariantLoaderStep;
 import uk.ac.ebi.eva.pipeline.parameters.NewJobIncrementer;
@@ -42,19 +44,22 @@ import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.GENOTYPED_VCF_JOB;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_FILE_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_VARIANTS_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.PARALLEL_STATISTICS_AND_ANNOTATION;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_INDEXES_OPTIONAL_FLOW;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ID_FILTER_OPTIONAL_FLOW;
 
 /**
  * Complete pipeline workflow:
  * <p>
  * |--> (optionalStatisticsFlow: statsCreate --> statsLoad)
- * transform ---> load -+
+ * (variantIdFilter) ---> load --> (variantsIndexes) -+
  * |--> (optionalAnnotationFlow: variantsAnnotGenerateInput --> (annotationCreate --> annotationLoad))
  * <p>
  * Steps in () are optional
  */
 @Configuration
 @EnableBatchProcessing
-@Import({VariantLoaderStep.class, LoadFileStep.class, ParallelStatisticsAndAnnotationFlow.class})
+@Import({VariantIdFilterOptionalFlow.class, VariantLoaderStep.class, LoadFileStep.class,
+        ParallelStatisticsAndAnnotationFlow.class, VariantsIndexesOptionalFlow.class})
 public class GenotypedVcfJob {
 
     private static final Logger logger = LoggerFactory.getLogger(GenotypedVcfJob.class);
@@ -63,10 +68,18 @@ public class GenotypedVcfJob {
     @Qualifier(PARALLEL_STATISTICS_AND_ANNOTATION)
     private Flow parallelStatisticsAndAnnotation;
 
+    @Autowired
+    @Qualifier(VARIANT_ID_FILTER_OPTIONAL_FLOW)
+    private Flow variantIdFilterOptionalFlow;
+
     @Autowired
     @Qualifier(LOAD_VARIANTS_STEP)
     private Step variantLoaderStep;
 
+    @Autowired
+    @Qualifier(VARIANTS_INDEXES_OPTIONAL_FLOW)
+    private Flow variantsIndexesOptionalFlow;
+
     @Autowired
     @Qualifier(LOAD_FILE_STEP)
     private Step loadFileStep;
@@ -81,7 +94,9 @@ public class GenotypedVcfJob {
                 .incrementer(new NewJobIncrementer())
                 .validator(new GenotypedVcfJobParametersValidator());
         FlowJobBuilder builder = jobBuilder
-                .flow(variantLoaderStep)
+                .start(variantIdFilterOptionalFlow)
+                .next(variantLoaderStep)
+                .next(variantsIndexesOptionalFlow)
                 .next(loadFileStep)
                 .next(parallelStatisticsAndAnnotation)
                 .end();
@@ -18,21 +18,25 @@ package uk.ac.ebi.eva.pipeline.jobs.deciders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.JobExecution;
-import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.job.flow.FlowExecutionStatus;
 import org.springframework.batch.core.job.flow.JobExecutionDecider;
 
+import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
 import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
-import uk.ac.ebi.eva.utils.URLHelper;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 /**
- * Decider used to skip step(s) if the file vepOutput is empty
+ * Decider used to skip step(s) if the file vepOutput is empty. If several VEP processes were used, the step(s) are
+ * skipped only if all of their output files are empty.
+ * <p>
+ * If the annotations were loaded into the database while VEP was running, the output file might not exist, so the
+ * decision depends on whether any variant was sent to VEP, and the step that loads the file has to be skipped.
  */
 public class EmptyVepOutputDecider implements JobExecutionDecider {
     private static final Logger logger = LoggerFactory.getLogger(EmptyVepOutputDecider.class);
@@ -41,25 +45,33 @@ public class EmptyVepOutputDecider implements JobExecutionDecider {
 
     public static final String CONTINUE_FLOW = "CONTINUE_FLOW";
 
+    public static final String ANNOTATIONS_LOADED = "ANNOTATIONS_LOADED";
+
     @Override
     public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
-        String vepOutput = getVepOutput(jobExecution);
+        if (isLoadedDirectly(jobExecution)) {
+            if (stepExecution != null && stepExecution.getWriteCount() > 0) {
+                return new FlowExecutionStatus(ANNOTATIONS_LOADED);
+            }
+            logger.info("No variants were annotated so subsequent steps will not run");
+            return new FlowExecutionStatus(STOP_FLOW);
+        }
 
-        if (getFileSize(vepOutput) > 0) {
-            return new FlowExecutionStatus(CONTINUE_FLOW);
+        List<File> vepOutputs = AnnotationParameters.getVepOutputFiles(jobExecution.getJobParameters());
+
+        for (File vepOutput : vepOutputs) {
+            if (getFileSize(vepOutput.getPath()) > 0) {
+                return new FlowExecutionStatus(CONTINUE_FLOW);
+            }
         }
 
-        logger.info("File {} is empty so subsequent steps will not run", vepOutput);
+        logger.info("Files {} are empty or don't exist so subsequent steps will not run", vepOutputs);
         return new FlowExecutionStatus(STOP_FLOW);
     }
 
-    private String getVepOutput(JobExecution jobExecution) {
-        JobParameters jobParameters = jobExecution.getJobParameters();
-
-        return URLHelper.resolveVepOutput(
-                jobParameters.getString(JobParametersNames.OUTPUT_DIR_ANNOTATION),
-                jobParameters.getString(JobParametersNames.INPUT_STUDY_ID),
-                jobParameters.getString(JobParametersNames.INPUT_VCF_ID));
+    private boolean isLoadedDirectly(JobExecution jobExecution) {
+        return Boolean.parseBoolean(
+                jobExecution.getJobParameters().getString(JobParametersNames.APP_VEP_LOAD_DIRECTLY));
     }
 
     private long getFileSize(String file) {
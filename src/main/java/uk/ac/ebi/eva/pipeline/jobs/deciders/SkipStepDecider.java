@@ -21,9 +21,11 @@ import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.job.flow.FlowExecutionStatus;
 import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.util.StringUtils;
 
 /**
- * Decider used in the pipeline to skip steps/tasklets
+ * Decider used in the pipeline to skip steps/tasklets. By default, the step is skipped if any of the job parameters is
+ * enabled. Other {@link Mode}s skip the step unless the job parameters are enabled, or unless they have a value.
  */
 public class SkipStepDecider implements JobExecutionDecider {
     private static final Logger logger = LoggerFactory.getLogger(SkipStepDecider.class);
@@ -31,17 +33,56 @@ public class SkipStepDecider implements JobExecutionDecider {
     public static final String SKIP_STEP = "SKIP_STEP";
     public static final String DO_STEP = "DO_STEP";
 
-    public final String jobParameterName;
+    public enum Mode {
+        /** The step is skipped if any of the job parameters is true */
+        SKIP_IF_ENABLED,
 
-    public SkipStepDecider(String jobParameterName) {
-        this.jobParameterName = jobParameterName;
+        /** The step is skipped if any of the job parameters is not true, e.g. for optional steps off by default */
+        SKIP_UNLESS_ENABLED,
+
+        /** The step is skipped if any of the job parameters has no value, e.g. the path of an optional file */
+        SKIP_UNLESS_SET
+    }
+
+    public final Mode mode;
+
+    public final String[] jobParameterNames;
+
+    public SkipStepDecider(String... jobParameterNames) {
+        this(Mode.SKIP_IF_ENABLED, jobParameterNames);
+    }
+
+    public SkipStepDecider(Mode mode, String... jobParameterNames) {
+        this.mode = mode;
+        this.jobParameterNames = jobParameterNames;
     }
 
     @Override
     public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
-        if (Boolean.parseBoolean(jobExecution.getJobParameters().getString(jobParameterName))) {
-            logger.info("Step skipped due to {} enabled", jobParameterName);
-            return new FlowExecutionStatus(SKIP_STEP);
+        for (String jobParameterName : jobParameterNames) {
+            String value = jobExecution.getJobParameters().getString(jobParameterName);
+            switch (mode) {
+                case SKIP_IF_ENABLED:
+                    if (Boolean.parseBoolean(value)) {
+                        logger.info("Step skipped due to {} enabled", jobParameterName);
+                        return new FlowExecutionStatus(SKIP_STEP);
+                    }
+                    break;
+                case SKIP_UNLESS_ENABLED:
+                    if (!Boolean.parseBoolean(value)) {
+                        logger.info("Step skipped due to {} not enabled", jobParameterName);
+                        return new FlowExecutionStatus(SKIP_STEP);
+                    }
+                    break;
+                case SKIP_UNLESS_SET:
+                    if (!StringUtils.hasText(value)) {
+                        logger.info("Step skipped due to {} not set", jobParameterName);
+                        return new FlowExecutionStatus(SKIP_STEP);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown mode " + mode);
+            }
         }
         return new FlowExecutionStatus(DO_STEP);
     }
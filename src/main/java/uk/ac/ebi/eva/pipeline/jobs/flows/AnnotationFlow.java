@@ -40,7 +40,8 @@ import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_FLOW
  * Configuration class that describes flow process in the annotation process.
  * <p>
  * This flow generates a vep input file, then if this file contains results then it starts the annotation process.
- * In the case that the file is empty this flow process ends.
+ * In the case that the file is empty this flow process ends. If the annotations were already loaded while generating
+ * them, only the annotation metadata is loaded.
  */
 @Configuration
 @EnableBatchProcessing
@@ -68,6 +69,8 @@ public class AnnotationFlow {
                 .next(emptyVepOutputDecider).on(EmptyVepOutputDecider.CONTINUE_FLOW)
                 .to(annotationLoadStep)
                 .next(annotationMetadataStep)
+                .from(emptyVepOutputDecider).on(EmptyVepOutputDecider.ANNOTATIONS_LOADED)
+                .to(annotationMetadataStep)
                 .from(emptyVepOutputDecider).on(EmptyVepOutputDecider.STOP_FLOW)
                 .end(BatchStatus.COMPLETED.toString())
                 .build();
@@ -19,26 +19,36 @@ import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import uk.ac.ebi.eva.pipeline.configuration.JobExecutionDeciderConfiguration;
+import uk.ac.ebi.eva.pipeline.jobs.deciders.SkipStepDecider;
+import uk.ac.ebi.eva.pipeline.jobs.steps.CalculateAndLoadStatisticsStep;
 import uk.ac.ebi.eva.pipeline.jobs.steps.CalculateStatisticsStep;
 import uk.ac.ebi.eva.pipeline.jobs.steps.LoadStatisticsStep;
 
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.CALCULATE_STATISTICS_FLOW;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.CALCULATE_STATISTICS_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_STATISTICS_STEP;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.STATISTICS_CHUNKED_DECIDER;
 
 /**
  * Configurations that defines the calcule statistics process. First calculate the statistics then load them to
  * the knowledge base.
+ * <p>
+ * If the statistics are chunked, the statistics of the variants and of the whole file are calculated and loaded in a
+ * single step from the variants in the database instead.
  */
 @Configuration
 @EnableBatchProcessing
-@Import({CalculateStatisticsStep.class, LoadStatisticsStep.class})
+@Import({CalculateStatisticsStep.class, LoadStatisticsStep.class, CalculateAndLoadStatisticsStep.class,
+        JobExecutionDeciderConfiguration.class})
 public class PopulationStatisticsFlow {
 
     @Autowired
@@ -49,10 +59,22 @@ public class PopulationStatisticsFlow {
     @Qualifier(LOAD_STATISTICS_STEP)
     private Step loadStatisticsStep;
 
+    @Autowired
+    @Qualifier(CALCULATE_AND_LOAD_STATISTICS_STEP)
+    private Step calculateAndLoadStatisticsStep;
+
+    @Autowired
+    @Qualifier(STATISTICS_CHUNKED_DECIDER)
+    private JobExecutionDecider statisticsChunkedDecider;
+
     @Bean(CALCULATE_STATISTICS_FLOW)
     public Flow calculateStatisticsOptionalFlow() {
         return new FlowBuilder<Flow>(CALCULATE_STATISTICS_FLOW)
-                .start(calculateStatisticsStep).next(loadStatisticsStep).build();
+                .start(statisticsChunkedDecider).on(SkipStepDecider.DO_STEP)
+                .to(calculateAndLoadStatisticsStep)
+                .from(statisticsChunkedDecider).on(SkipStepDecider.SKIP_STEP)
+                .to(calculateStatisticsStep).next(loadStatisticsStep)
+                .build();
     }
 
 }
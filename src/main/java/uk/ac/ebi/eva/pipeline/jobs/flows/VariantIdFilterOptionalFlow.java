@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.flows;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.pipeline.configuration.JobExecutionDeciderConfiguration;
+import uk.ac.ebi.eva.pipeline.jobs.deciders.SkipStepDecider;
+import uk.ac.ebi.eva.pipeline.jobs.steps.VariantIdFilterStep;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ID_FILTER_DECIDER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ID_FILTER_OPTIONAL_FLOW;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_ID_FILTER_STEP;
+
+/**
+ * Configuration that defines a flow that builds or refreshes the filter of the variants already loaded, only when the
+ * property 'config.load.id-filter' has a value. See {@link VariantIdFilterStep}
+ */
+@Configuration
+@EnableBatchProcessing
+@Import({VariantIdFilterStep.class, JobExecutionDeciderConfiguration.class})
+public class VariantIdFilterOptionalFlow {
+
+    @Bean(VARIANT_ID_FILTER_OPTIONAL_FLOW)
+    public Flow variantIdFilterOptionalFlow(@Qualifier(VARIANT_ID_FILTER_STEP) Step variantIdFilterStep,
+                                            @Qualifier(VARIANT_ID_FILTER_DECIDER) JobExecutionDecider decider) {
+        return new FlowBuilder<Flow>(VARIANT_ID_FILTER_OPTIONAL_FLOW)
+                .start(decider).on(SkipStepDecider.DO_STEP)
+                .to(variantIdFilterStep)
+                .from(decider).on(SkipStepDecider.SKIP_STEP)
+                .end(BatchStatus.COMPLETED.toString())
+                .build();
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.flows;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.pipeline.configuration.JobExecutionDeciderConfiguration;
+import uk.ac.ebi.eva.pipeline.jobs.deciders.SkipStepDecider;
+import uk.ac.ebi.eva.pipeline.jobs.steps.CreateVariantsIndexesStep;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.CREATE_VARIANTS_INDEXES_STEP;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_INDEXES_DECIDER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_INDEXES_OPTIONAL_FLOW;
+
+/**
+ * Configuration that defines a flow that creates the secondary indexes of the variants collection after loading, only
+ * when the property 'config.load.defer-indexes' is true. See {@link CreateVariantsIndexesStep}
+ */
+@Configuration
+@EnableBatchProcessing
+@Import({CreateVariantsIndexesStep.class, JobExecutionDeciderConfiguration.class})
+public class VariantsIndexesOptionalFlow {
+
+    @Bean(VARIANTS_INDEXES_OPTIONAL_FLOW)
+    public Flow variantsIndexesOptionalFlow(@Qualifier(CREATE_VARIANTS_INDEXES_STEP) Step createVariantsIndexesStep,
+                                            @Qualifier(VARIANTS_INDEXES_DECIDER) JobExecutionDecider decider) {
+        return new FlowBuilder<Flow>(VARIANTS_INDEXES_OPTIONAL_FLOW)
+                .start(decider).on(SkipStepDecider.DO_STEP)
+                .to(createVariantsIndexesStep)
+                .from(decider).on(SkipStepDecider.SKIP_STEP)
+                .end(BatchStatus.COMPLETED.toString())
+                .build();
+    }
+
+}
@@ -24,7 +24,6 @@ import org.springframework.batch.core.configuration.annotation.StepBuilderFactor
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.file.FlatFileParseException;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -37,6 +36,7 @@ import uk.ac.ebi.eva.pipeline.configuration.readers.VariantAnnotationReaderConfi
 import uk.ac.ebi.eva.pipeline.configuration.writers.VariantAnnotationWriterConfiguration;
 import uk.ac.ebi.eva.pipeline.io.readers.AnnotationFlatFileReader;
 import uk.ac.ebi.eva.pipeline.io.writers.VepAnnotationMongoWriter;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.AdaptiveChunkSizeCompletionPolicy;
 import uk.ac.ebi.eva.pipeline.listeners.AnnotationLoaderStepStatisticsListener;
 import uk.ac.ebi.eva.pipeline.listeners.SkippedItemListener;
 import uk.ac.ebi.eva.pipeline.listeners.StepProgressListener;
@@ -78,7 +78,7 @@ public class AnnotationLoaderStep {
 
     @Bean(LOAD_VEP_ANNOTATION_STEP)
     public Step loadVepAnnotationStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
-                                      SimpleCompletionPolicy chunkSizeCompletionPolicy) {
+                                      AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
         logger.debug("Building '" + LOAD_VEP_ANNOTATION_STEP + "'");
 
         return stepBuilderFactory.get(LOAD_VEP_ANNOTATION_STEP)
@@ -90,6 +90,7 @@ public class AnnotationLoaderStep {
                 .listener(new SkippedItemListener())
                 .listener(new StepProgressListener())
                 .listener(new AnnotationLoaderStepStatisticsListener())
+                .listener(chunkSizeCompletionPolicy)
                 .build();
     }
 
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntity;
+import uk.ac.ebi.eva.pipeline.configuration.ChunkSizeCompletionPolicyConfiguration;
+import uk.ac.ebi.eva.pipeline.configuration.partitioners.StatisticsPartitionerConfiguration;
+import uk.ac.ebi.eva.pipeline.configuration.readers.StatisticsVariantsReaderConfiguration;
+import uk.ac.ebi.eva.pipeline.configuration.writers.VariantStatsWriterConfiguration;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.AdaptiveChunkSizeCompletionPolicy;
+import uk.ac.ebi.eva.pipeline.jobs.steps.processors.VariantStatsProcessor;
+import uk.ac.ebi.eva.pipeline.listeners.FileStatisticsListener;
+import uk.ac.ebi.eva.pipeline.listeners.FileStatisticsLoaderListener;
+import uk.ac.ebi.eva.pipeline.listeners.StepProgressListener;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.pipeline.parameters.JobOptions;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.STATISTICS_PARTITIONER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.STATISTICS_VARIANTS_READER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_STATS_PROCESSOR;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_STATS_WRITER;
+
+/**
+ * Configuration of a step that calculates the population statistics of a file from the variants already loaded in
+ * mongo, and writes them back into the variants, without the intermediate files of {@link CalculateStatisticsStep}
+ * and {@link LoadStatisticsStep}.
+ * <p>
+ * The variants are partitioned by chromosome, and each partition is read, processed and written in chunks, so a
+ * failed step restarts from the last chunk written in each partition.
+ * <p>
+ * The statistics of the whole file, stored in the files collection, are counted in every partition by a
+ * {@link FileStatisticsListener} and added up by a {@link FileStatisticsLoaderListener} once all the partitions have
+ * completed.
+ */
+@Configuration
+@EnableBatchProcessing
+@Import({StatisticsVariantsReaderConfiguration.class, VariantStatsWriterConfiguration.class,
+        StatisticsPartitionerConfiguration.class, ChunkSizeCompletionPolicyConfiguration.class})
+public class CalculateAndLoadStatisticsStep {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalculateAndLoadStatisticsStep.class);
+
+    @Autowired
+    @Qualifier(STATISTICS_VARIANTS_READER)
+    private ItemStreamReader<DBObject> statisticsVariantsReader;
+
+    @Autowired
+    @Qualifier(VARIANT_STATS_WRITER)
+    private ItemWriter<Variant> variantStatsWriter;
+
+    @Autowired
+    @Qualifier(STATISTICS_PARTITIONER)
+    private Partitioner statisticsPartitioner;
+
+    /**
+     * The number of samples is read from the files collection, because the variants don't store the samples that have
+     * the default genotype.
+     */
+    @Bean(VARIANT_STATS_PROCESSOR)
+    @StepScope
+    public VariantStatsProcessor variantStatsProcessor(MongoOperations mongoOperations,
+                                                       DatabaseParameters databaseParameters,
+                                                       InputParameters inputParameters) {
+        String studyId = inputParameters.getStudyId();
+        String fileId = inputParameters.getVcfId();
+        DBObject file = mongoOperations.getCollection(databaseParameters.getCollectionFilesName()).findOne(
+                new BasicDBObject(VariantSourceEntity.STUDYID_FIELD, studyId)
+                        .append(VariantSourceEntity.FILEID_FIELD, fileId),
+                new BasicDBObject(VariantSourceEntity.SAMPLES_FIELD, 1));
+        if (file == null) {
+            throw new IllegalStateException("The file " + fileId + " of the study " + studyId
+                                                    + " is not loaded, its statistics can't be calculated");
+        }
+        Object samples = file.get(VariantSourceEntity.SAMPLES_FIELD);
+        int numSamples = samples instanceof DBObject ? ((DBObject) samples).keySet().size() : 0;
+        return new VariantStatsProcessor(studyId, fileId, numSamples);
+    }
+
+    @Bean(CALCULATE_AND_LOAD_STATISTICS_STEP)
+    public Step calculateAndLoadStatisticsStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
+            JobExplorer jobExplorer, MongoOperations mongoOperations, DatabaseParameters databaseParameters,
+            InputParameters inputParameters,
+            @Qualifier(CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP) Step calculateAndLoadStatisticsPartitionStep) {
+        logger.debug("Building '" + CALCULATE_AND_LOAD_STATISTICS_STEP + "'");
+
+        return stepBuilderFactory.get(CALCULATE_AND_LOAD_STATISTICS_STEP)
+                .partitioner(CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP, statisticsPartitioner)
+                .step(calculateAndLoadStatisticsPartitionStep)
+                .taskExecutor(new SimpleAsyncTaskExecutor(CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP))
+                .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
+                .listener(new FileStatisticsLoaderListener(jobExplorer, CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP,
+                                                           mongoOperations, databaseParameters, inputParameters))
+                .build();
+    }
+
+    @Bean(CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP)
+    public Step calculateAndLoadStatisticsPartitionStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
+            AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy,
+            @Qualifier(VARIANT_STATS_PROCESSOR) VariantStatsProcessor variantStatsProcessor) {
+        logger.debug("Building '" + CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP + "'");
+
+        return stepBuilderFactory.get(CALCULATE_AND_LOAD_STATISTICS_PARTITION_STEP)
+                .<DBObject, Variant>chunk(chunkSizeCompletionPolicy)
+                .reader(statisticsVariantsReader)
+                .processor(variantStatsProcessor)
+                .writer(variantStatsWriter)
+                .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
+                .listener(new StepProgressListener())
+                .listener(new FileStatisticsListener())
+                .listener(chunkSizeCompletionPolicy)
+                .build();
+    }
+}
@@ -24,7 +24,6 @@ import org.springframework.batch.core.configuration.annotation.StepBuilderFactor
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.file.FlatFileParseException;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -37,6 +36,7 @@ import uk.ac.ebi.eva.pipeline.configuration.writers.GeneWriterConfiguration;
 import uk.ac.ebi.eva.pipeline.io.mappers.GeneLineMapper;
 import uk.ac.ebi.eva.pipeline.io.readers.GeneReader;
 import uk.ac.ebi.eva.pipeline.io.writers.GeneWriter;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.AdaptiveChunkSizeCompletionPolicy;
 import uk.ac.ebi.eva.pipeline.jobs.steps.processors.GeneFilterProcessor;
 import uk.ac.ebi.eva.pipeline.listeners.SkippedItemListener;
 import uk.ac.ebi.eva.pipeline.model.FeatureCoordinates;
@@ -76,7 +76,7 @@ public class GeneLoaderStep {
 
     @Bean(GENES_LOAD_STEP)
     public Step genesLoadStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
-                              SimpleCompletionPolicy chunkSizeCompletionPolicy) {
+                              AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
         logger.debug("Building '" + GENES_LOAD_STEP + "'");
 
         return stepBuilderFactory.get(GENES_LOAD_STEP)
@@ -87,6 +87,7 @@ public class GeneLoaderStep {
                 .faultTolerant().skipLimit(50).skip(FlatFileParseException.class)
                 .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
                 .listener(new SkippedItemListener())
+                .listener(chunkSizeCompletionPolicy)
                 .build();
     }
 
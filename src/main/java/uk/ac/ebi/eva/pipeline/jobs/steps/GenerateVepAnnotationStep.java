@@ -20,25 +20,30 @@ import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ItemStreamReader;
-import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 import uk.ac.ebi.eva.pipeline.configuration.ChunkSizeCompletionPolicyConfiguration;
+import uk.ac.ebi.eva.pipeline.configuration.partitioners.VepAnnotationPartitionerConfiguration;
 import uk.ac.ebi.eva.pipeline.configuration.readers.VariantsMongoReaderConfiguration;
 import uk.ac.ebi.eva.pipeline.configuration.writers.VepAnnotationFileWriterConfiguration;
 import uk.ac.ebi.eva.pipeline.io.readers.AnnotationFlatFileReader;
+import uk.ac.ebi.eva.pipeline.io.writers.VepAnnotationFileWriter;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.AdaptiveChunkSizeCompletionPolicy;
 import uk.ac.ebi.eva.pipeline.listeners.StepProgressListener;
 import uk.ac.ebi.eva.pipeline.model.VariantWrapper;
 import uk.ac.ebi.eva.pipeline.parameters.JobOptions;
 
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.GENERATE_VEP_ANNOTATION_PARTITION_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.GENERATE_VEP_ANNOTATION_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANTS_READER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_PARTITIONER;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_WRITER;
 
 /**
@@ -48,11 +53,16 @@ import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VEP_ANNOTATION_WRIT
  * <p>
  * Output: file with the list of annotated variants, in a format written by VEP, readable with
  * {@link AnnotationFlatFileReader}
+ * <p>
+ * The variants are partitioned by chromosome in as many groups as VEP processes are configured
+ * ({@link uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters#getVepNumProcesses()}), and the partitions are
+ * annotated in parallel. A single VEP process is used for each partition, see {@link VepAnnotationFileWriter}. When
+ * several VEP processes are used, each one writes its own output file.
  */
 @Configuration
 @EnableBatchProcessing
 @Import({VariantsMongoReaderConfiguration.class, VepAnnotationFileWriterConfiguration.class,
-        ChunkSizeCompletionPolicyConfiguration.class})
+        VepAnnotationPartitionerConfiguration.class, ChunkSizeCompletionPolicyConfiguration.class})
 public class GenerateVepAnnotationStep {
 
     private static final Logger logger = LoggerFactory.getLogger(GenerateVepAnnotationStep.class);
@@ -63,19 +73,38 @@ public class GenerateVepAnnotationStep {
 
     @Autowired
     @Qualifier(VEP_ANNOTATION_WRITER)
-    private ItemWriter<VariantWrapper> vepAnnotationWriter;
+    private VepAnnotationFileWriter vepAnnotationWriter;
+
+    @Autowired
+    @Qualifier(VEP_ANNOTATION_PARTITIONER)
+    private Partitioner vepAnnotationPartitioner;
 
     @Bean(GENERATE_VEP_ANNOTATION_STEP)
     public Step generateVepAnnotationStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
-            SimpleCompletionPolicy chunkSizeCompletionPolicy) {
+            @Qualifier(GENERATE_VEP_ANNOTATION_PARTITION_STEP) Step generateVepAnnotationPartitionStep) {
         logger.debug("Building '" + GENERATE_VEP_ANNOTATION_STEP + "'");
 
         return stepBuilderFactory.get(GENERATE_VEP_ANNOTATION_STEP)
+                .partitioner(GENERATE_VEP_ANNOTATION_PARTITION_STEP, vepAnnotationPartitioner)
+                .step(generateVepAnnotationPartitionStep)
+                .taskExecutor(new SimpleAsyncTaskExecutor(GENERATE_VEP_ANNOTATION_PARTITION_STEP))
+                .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
+                .build();
+    }
+
+    @Bean(GENERATE_VEP_ANNOTATION_PARTITION_STEP)
+    public Step generateVepAnnotationPartitionStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
+            AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
+        logger.debug("Building '" + GENERATE_VEP_ANNOTATION_PARTITION_STEP + "'");
+
+        return stepBuilderFactory.get(GENERATE_VEP_ANNOTATION_PARTITION_STEP)
                 .<VariantWrapper, VariantWrapper>chunk(chunkSizeCompletionPolicy)
                 .reader(nonAnnotatedVariantsReader)
                 .writer(vepAnnotationWriter)
                 .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
+                .listener(vepAnnotationWriter)
                 .listener(new StepProgressListener())
+                .listener(chunkSizeCompletionPolicy)
                 .build();
     }
 }
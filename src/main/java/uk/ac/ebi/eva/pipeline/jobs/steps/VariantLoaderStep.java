@@ -15,31 +15,48 @@
  */
 package uk.ac.ebi.eva.pipeline.jobs.steps;
 
+import org.opencb.biodata.models.variant.VariantSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.batch.item.support.CompositeItemProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 import uk.ac.ebi.eva.commons.models.data.Variant;
 import uk.ac.ebi.eva.pipeline.configuration.ChunkSizeCompletionPolicyConfiguration;
+import uk.ac.ebi.eva.pipeline.configuration.partitioners.VcfPartitionerConfiguration;
 import uk.ac.ebi.eva.pipeline.configuration.readers.VcfReaderConfiguration;
 import uk.ac.ebi.eva.pipeline.configuration.writers.VariantWriterConfiguration;
+import uk.ac.ebi.eva.pipeline.jobs.steps.policies.MemoryBudgetCompletionPolicy;
+import uk.ac.ebi.eva.pipeline.jobs.steps.processors.SourceEntryStatsProcessor;
 import uk.ac.ebi.eva.pipeline.jobs.steps.processors.VariantNoAlternateFilterProcessor;
 import uk.ac.ebi.eva.pipeline.listeners.SkippedItemListener;
 import uk.ac.ebi.eva.pipeline.listeners.StepProgressListener;
 import uk.ac.ebi.eva.pipeline.listeners.VariantLoaderStepStatisticsListener;
+import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
 import uk.ac.ebi.eva.pipeline.parameters.JobOptions;
+import uk.ac.ebi.eva.pipeline.parameters.LoadParameters;
 
+import java.util.Arrays;
+
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_VARIANTS_PARTITION_STEP;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.LOAD_VARIANTS_STEP;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VCF_PARTITIONER;
+import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_LOAD_PROCESSOR;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_READER;
 import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_WRITER;
 
@@ -48,10 +65,27 @@ import static uk.ac.ebi.eva.pipeline.configuration.BeanNames.VARIANT_WRITER;
  * <p>
  * Input: VCF file
  * Output: variants loaded into mongodb
+ * <p>
+ * The lines of the VCF are split in as many partitions as configured
+ * ({@link uk.ac.ebi.eva.pipeline.parameters.LoadParameters#getNumPartitions()}), and the partitions are loaded in
+ * parallel, each one with its own reader and writer.
+ * <p>
+ * When the load is pipelined ({@link uk.ac.ebi.eva.pipeline.parameters.LoadParameters#getPipelined()}), each partition
+ * also parses the VCF, converts the variants and writes them into the database in different threads. Several bulk
+ * writes of a chunk can be sent at the same time
+ * ({@link uk.ac.ebi.eva.pipeline.parameters.LoadParameters#getInFlightBulks()}), but a chunk is only committed when
+ * all of them have been acknowledged.
+ * <p>
+ * A chunk ends when it reaches its size or the memory budget of its variants
+ * ({@link uk.ac.ebi.eva.pipeline.parameters.ChunkSizeParameters#getMemoryBudgetBytes()}), whatever comes first.
+ * <p>
+ * The statistics of the samples of a genotyped VCF can be calculated while loading
+ * ({@link LoadParameters#getStatistics()}), and then they are written in the same update as the variants.
  */
 @Configuration
 @EnableBatchProcessing
-@Import({VcfReaderConfiguration.class, VariantWriterConfiguration.class, ChunkSizeCompletionPolicyConfiguration.class})
+@Import({VcfReaderConfiguration.class, VariantWriterConfiguration.class, VcfPartitionerConfiguration.class,
+        ChunkSizeCompletionPolicyConfiguration.class})
 public class VariantLoaderStep {
 
     private static final Logger logger = LoggerFactory.getLogger(VariantLoaderStep.class);
@@ -64,20 +98,57 @@ public class VariantLoaderStep {
     @Qualifier(VARIANT_WRITER)
     private ItemWriter<Variant> variantWriter;
 
+    @Autowired
+    @Qualifier(VCF_PARTITIONER)
+    private Partitioner vcfPartitioner;
+
+    @Bean(VARIANT_LOAD_PROCESSOR)
+    @StepScope
+    public ItemProcessor<Variant, Variant> variantLoadProcessor(InputParameters inputParameters,
+                                                                LoadParameters loadParameters) throws Exception {
+        VariantNoAlternateFilterProcessor noAlternateFilterProcessor = new VariantNoAlternateFilterProcessor();
+        boolean genotyped = VariantSource.Aggregation.NONE.equals(inputParameters.getVcfAggregation());
+        if (!genotyped || !loadParameters.getStatistics()) {
+            return noAlternateFilterProcessor;
+        }
+
+        CompositeItemProcessor<Variant, Variant> processor = new CompositeItemProcessor<>();
+        processor.setDelegates(Arrays.asList(noAlternateFilterProcessor, new SourceEntryStatsProcessor()));
+        processor.afterPropertiesSet();
+        return processor;
+    }
+
     @Bean(LOAD_VARIANTS_STEP)
     public Step loadVariantsStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
-                                 SimpleCompletionPolicy chunkSizeCompletionPolicy) {
+                                 @Qualifier(LOAD_VARIANTS_PARTITION_STEP) Step loadVariantsPartitionStep) {
         logger.debug("Building '" + LOAD_VARIANTS_STEP + "'");
 
         return stepBuilderFactory.get(LOAD_VARIANTS_STEP)
+                .partitioner(LOAD_VARIANTS_PARTITION_STEP, vcfPartitioner)
+                .step(loadVariantsPartitionStep)
+                .taskExecutor(new SimpleAsyncTaskExecutor(LOAD_VARIANTS_PARTITION_STEP))
+                .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
+                .listener(new VariantLoaderStepStatisticsListener())
+                .build();
+    }
+
+    @Bean(LOAD_VARIANTS_PARTITION_STEP)
+    public Step loadVariantsPartitionStep(StepBuilderFactory stepBuilderFactory, JobOptions jobOptions,
+                                          MemoryBudgetCompletionPolicy<Variant> chunkSizeCompletionPolicy,
+                                          @Qualifier(VARIANT_LOAD_PROCESSOR)
+                                                  ItemProcessor<Variant, Variant> variantLoadProcessor) {
+        logger.debug("Building '" + LOAD_VARIANTS_PARTITION_STEP + "'");
+
+        return stepBuilderFactory.get(LOAD_VARIANTS_PARTITION_STEP)
                 .<Variant, Variant>chunk(chunkSizeCompletionPolicy)
                 .reader(reader)
-                .processor(new VariantNoAlternateFilterProcessor())
+                .processor(variantLoadProcessor)
                 .writer(variantWriter)
                 .allowStartIfComplete(jobOptions.isAllowStartIfComplete())
                 .listener(new SkippedItemListener())
                 .listener(new StepProgressListener())
-                .listener(new VariantLoaderStepStatisticsListener())
+                .listener((ItemReadListener<Variant>) chunkSizeCompletionPolicy)
+                .listener((ChunkListener) chunkSizeCompletionPolicy)
                 .build();
     }
 
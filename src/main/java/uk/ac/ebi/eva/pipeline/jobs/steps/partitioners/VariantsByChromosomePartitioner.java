@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.partitioners;
+
+import com.mongodb.AggregationOutput;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Splits the variants matching a query into at most {@code maxPartitions} groups of whole chromosomes, trying to put
+ * the same number of variants in each group.
+ * <p>
+ * Each partition {@link ExecutionContext} contains its index under
+ * {@link ExecutionContextParametersNames#PARTITION_INDEX} and its list of chromosomes under
+ * {@link ExecutionContextParametersNames#PARTITION_CHROMOSOMES}. The assignment is deterministic, so that a restarted
+ * step gets the same partitions as long as the variants to process are the same.
+ */
+public class VariantsByChromosomePartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantsByChromosomePartitioner.class);
+
+    static final String PARTITION_NAME_PREFIX = "partition";
+
+    private static final String COUNT_FIELD = "count";
+
+    private final MongoOperations mongoOperations;
+
+    private final String collectionName;
+
+    private final DBObject query;
+
+    private final int maxPartitions;
+
+    public VariantsByChromosomePartitioner(MongoOperations mongoOperations, String collectionName, DBObject query,
+                                           int maxPartitions) {
+        if (maxPartitions <= 0) {
+            throw new IllegalArgumentException("The number of partitions (" + maxPartitions + ") must be positive");
+        }
+        this.mongoOperations = mongoOperations;
+        this.collectionName = collectionName;
+        this.query = query;
+        this.maxPartitions = maxPartitions;
+    }
+
+    /**
+     * @param gridSize ignored, the number of partitions is decided by the constructor parameter {@code maxPartitions}
+     */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, Long> variantsPerChromosome = countVariantsPerChromosome();
+        List<List<String>> groups = groupChromosomes(variantsPerChromosome, maxPartitions);
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            ExecutionContext executionContext = new ExecutionContext();
+            executionContext.putInt(ExecutionContextParametersNames.PARTITION_INDEX, i);
+            executionContext.put(ExecutionContextParametersNames.PARTITION_CHROMOSOMES, new ArrayList<>(groups.get(i)));
+            partitions.put(PARTITION_NAME_PREFIX + i, executionContext);
+            logger.debug("Partition {} will process chromosomes {}", i, groups.get(i));
+        }
+        return partitions;
+    }
+
+    private Map<String, Long> countVariantsPerChromosome() {
+        DBCollection collection = mongoOperations.getCollection(collectionName);
+        String chromosomeField = "$" + VariantToDBObjectConverter.CHROMOSOME_FIELD;
+        List<DBObject> pipeline = Arrays.asList(
+                new BasicDBObject("$match", query),
+                new BasicDBObject("$group", new BasicDBObject("_id", chromosomeField)
+                        .append(COUNT_FIELD, new BasicDBObject("$sum", 1))));
+
+        AggregationOutput output = collection.aggregate(pipeline);
+        Map<String, Long> variantsPerChromosome = new TreeMap<>();
+        for (DBObject result : output.results()) {
+            variantsPerChromosome.put(result.get("_id").toString(), ((Number) result.get(COUNT_FIELD)).longValue());
+        }
+        return variantsPerChromosome;
+    }
+
+    /**
+     * Assigns the chromosomes, from the biggest to the smallest, to the group with less variants so far.
+     */
+    static List<List<String>> groupChromosomes(Map<String, Long> variantsPerChromosome, int maxPartitions) {
+        List<Map.Entry<String, Long>> chromosomes = new ArrayList<>(variantsPerChromosome.entrySet());
+        chromosomes.sort((a, b) -> {
+            int comparison = Long.compare(b.getValue(), a.getValue());
+            return comparison != 0 ? comparison : a.getKey().compareTo(b.getKey());
+        });
+
+        int numGroups = Math.min(maxPartitions, chromosomes.size());
+        List<List<String>> groups = new ArrayList<>(numGroups);
+        long[] variantsPerGroup = new long[numGroups];
+        for (int i = 0; i < numGroups; i++) {
+            groups.add(new ArrayList<>());
+        }
+
+        for (Map.Entry<String, Long> chromosome : chromosomes) {
+            int smallestGroup = 0;
+            for (int i = 1; i < numGroups; i++) {
+                if (variantsPerGroup[i] < variantsPerGroup[smallestGroup]) {
+                    smallestGroup = i;
+                }
+            }
+            groups.get(smallestGroup).add(chromosome.getKey());
+            variantsPerGroup[smallestGroup] += chromosome.getValue();
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.partitioners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import uk.ac.ebi.eva.pipeline.io.OffsetResource;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+import uk.ac.ebi.eva.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the body of a VCF (compressed or not) into at most {@code maxPartitions} ranges of consecutive lines with
+ * about the same number of lines each.
+ * <p>
+ * The file is scanned once to count the lines that are not part of the header, recording the uncompressed byte
+ * offset of some of them. Each partition {@link ExecutionContext} contains its index under
+ * {@link ExecutionContextParametersNames#PARTITION_INDEX}, the offset of its first line under
+ * {@link ExecutionContextParametersNames#PARTITION_START_BYTE} and its number of lines under
+ * {@link ExecutionContextParametersNames#PARTITION_LINES}, so that a reader can start at that byte with an
+ * {@link OffsetResource} and stop after that number of lines.
+ * <p>
+ * If only one partition is allowed, the file is not scanned and the single partition only contains its index, so
+ * that the whole file is read as usual.
+ * <p>
+ * A partition of a bgzip VCF reaches its first line cheaply: the {@link uk.ac.ebi.eva.pipeline.io.BgzfInputStream}
+ * skips whole blocks by their inflated size without inflating them, so only the compressed bytes before it are read.
+ * Plain gzip can't be read from an arbitrary byte, so every partition of such a VCF inflates everything before its
+ * first line again. With {@code n} partitions, about {@code n / 2} times the file is decompressed in total besides the
+ * scan, so more partitions only help while decompressing is much faster than loading the variants.
+ * <p>
+ * The ranges only depend on the file, so a restarted step gets the same partitions.
+ */
+public class VcfLinesPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(VcfLinesPartitioner.class);
+
+    static final String PARTITION_NAME_PREFIX = "partition";
+
+    /**
+     * Partitions start at multiples of this number of lines, so that only the offsets of those lines are kept while
+     * scanning the file.
+     */
+    private static final int DEFAULT_LINES_PER_CHECKPOINT = 256;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final char COMMENT = '#';
+
+    private final File vcf;
+
+    private final int maxPartitions;
+
+    private final int linesPerCheckpoint;
+
+    public VcfLinesPartitioner(File vcf, int maxPartitions) {
+        this(vcf, maxPartitions, DEFAULT_LINES_PER_CHECKPOINT);
+    }
+
+    VcfLinesPartitioner(File vcf, int maxPartitions, int linesPerCheckpoint) {
+        if (maxPartitions <= 0) {
+            throw new IllegalArgumentException("The number of partitions (" + maxPartitions + ") must be positive");
+        }
+        if (linesPerCheckpoint <= 0) {
+            throw new IllegalArgumentException(
+                    "The lines per checkpoint (" + linesPerCheckpoint + ") must be positive");
+        }
+        this.vcf = vcf;
+        this.maxPartitions = maxPartitions;
+        this.linesPerCheckpoint = linesPerCheckpoint;
+    }
+
+    /**
+     * @param gridSize ignored, the number of partitions is decided by the constructor parameter {@code maxPartitions}
+     */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        if (maxPartitions == 1) {
+            ExecutionContext executionContext = new ExecutionContext();
+            executionContext.putInt(ExecutionContextParametersNames.PARTITION_INDEX, 0);
+            partitions.put(PARTITION_NAME_PREFIX + 0, executionContext);
+            return partitions;
+        }
+
+        List<Long> checkpointOffsets = new ArrayList<>();
+        long lines;
+        try {
+            lines = scanLines(checkpointOffsets);
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not read the VCF " + vcf + " to partition it", e);
+        }
+
+        int numPartitions = (int) Math.max(1, Math.min(maxPartitions, lines / linesPerCheckpoint));
+        long partitionStart = 0;
+        for (int i = 0; i < numPartitions; i++) {
+            long partitionEnd = i == numPartitions - 1 ? lines : firstLineOfPartition(i + 1, numPartitions, lines);
+            long partitionLines = partitionEnd - partitionStart;
+            if (partitionLines > Integer.MAX_VALUE) {
+                throw new ItemStreamException("Partition " + i + " of " + vcf + " would have " + partitionLines
+                                                      + " lines, please use more partitions");
+            }
+            long startByte = checkpointOffsets.isEmpty() ? 0
+                    : checkpointOffsets.get((int) (partitionStart / linesPerCheckpoint));
+
+            ExecutionContext executionContext = new ExecutionContext();
+            executionContext.putInt(ExecutionContextParametersNames.PARTITION_INDEX, i);
+            executionContext.putLong(ExecutionContextParametersNames.PARTITION_START_BYTE, startByte);
+            executionContext.putInt(ExecutionContextParametersNames.PARTITION_LINES, (int) partitionLines);
+            executionContext.putLong(ExecutionContextParametersNames.NUMBER_OF_LINES, partitionLines);
+            partitions.put(PARTITION_NAME_PREFIX + i, executionContext);
+            logger.debug("Partition {} will load {} lines starting at byte {}", i, partitionLines, startByte);
+
+            partitionStart = partitionEnd;
+        }
+        return partitions;
+    }
+
+    private long firstLineOfPartition(int partition, int numPartitions, long lines) {
+        long firstLine = lines * partition / numPartitions;
+        return firstLine - firstLine % linesPerCheckpoint;
+    }
+
+    /**
+     * Counts the lines that are not comments, in the same way that FlatFileItemReader does, and keeps the offset of
+     * every {@link #linesPerCheckpoint}-th of them.
+     *
+     * @return the number of non-comment lines
+     */
+    private long scanLines(List<Long> checkpointOffsets) throws IOException {
+        long lines = 0;
+        long offset = 0;
+        boolean lineStart = true;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = FileUtils.getResource(vcf).getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte character = buffer[i];
+                    if (lineStart && character != COMMENT) {
+                        if (lines % linesPerCheckpoint == 0) {
+                            checkpointOffsets.add(offset + i);
+                        }
+                        lines++;
+                    }
+                    lineStart = character == '\n';
+                }
+                offset += read;
+            }
+        }
+        return lines;
+    }
+}
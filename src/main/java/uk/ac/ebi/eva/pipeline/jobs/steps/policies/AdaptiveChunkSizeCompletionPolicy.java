@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.policies;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.util.Assert;
+
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completion policy that resizes the chunks of a step so that each one takes about the same time.
+ * <p>
+ * The time of each chunk is measured in two parts: reading the items, and processing and writing them, which is
+ * mostly the latency of the database writes. The next chunk is sized to take the target duration at the same time per
+ * item. The size changes at most by a factor of {@link #MAX_RESIZE_FACTOR} per chunk, so a single slow chunk does not
+ * shrink the following ones too much. The size always stays between the minimum and maximum sizes.
+ * <p>
+ * The step execution context keeps the following values:
+ * <ul>
+ * <li>the size of the next chunk</li>
+ * <li>the smallest and largest sizes chosen so far</li>
+ * <li>the read time and the write time of the last chunk</li>
+ * </ul>
+ * A restarted step continues with the last size. Without a target duration, every chunk has the initial size, as
+ * with a {@link SimpleCompletionPolicy}.
+ * <p>
+ * The policy must also be registered as a {@link ChunkListener} of its step. It keeps the state of one step execution,
+ * so each partition needs its own instance, which a step-scoped bean provides.
+ */
+public class AdaptiveChunkSizeCompletionPolicy extends SimpleCompletionPolicy implements ChunkListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveChunkSizeCompletionPolicy.class);
+
+    static final int MAX_RESIZE_FACTOR = 2;
+
+    private final long targetNanos;
+
+    private final int minChunkSize;
+
+    private final int maxChunkSize;
+
+    private int chunkSize;
+
+    private boolean firstChunk = true;
+
+    private int smallestChunkSize;
+
+    private int largestChunkSize;
+
+    private long chunkStartNanos;
+
+    private long readEndNanos;
+
+    private int readCountBeforeChunk;
+
+    /**
+     * Policy with a fixed chunk size
+     */
+    public AdaptiveChunkSizeCompletionPolicy(int chunkSize) {
+        this(chunkSize, 0, chunkSize, chunkSize);
+    }
+
+    /**
+     * @param initialChunkSize size of the first chunk, within the minimum and maximum sizes
+     * @param targetMillis     duration of each chunk that the size is adapted to, or 0 to keep the initial size
+     */
+    public AdaptiveChunkSizeCompletionPolicy(int initialChunkSize, long targetMillis, int minChunkSize,
+                                             int maxChunkSize) {
+        super(initialChunkSize);
+        Assert.isTrue(targetMillis >= 0, "The target duration of the chunks must not be negative");
+        Assert.isTrue(0 < minChunkSize && minChunkSize <= initialChunkSize && initialChunkSize <= maxChunkSize,
+                      "The initial chunk size must be between the minimum and maximum sizes, which must be positive");
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.chunkSize = initialChunkSize;
+        this.smallestChunkSize = initialChunkSize;
+        this.largestChunkSize = initialChunkSize;
+    }
+
+    public boolean isAdaptive() {
+        return targetNanos > 0;
+    }
+
+    /**
+     * @return the size of the next chunk
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public void setChunkSize(int chunkSize) {
+        super.setChunkSize(chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context, RepeatStatus result) {
+        boolean complete = super.isComplete(context, result) || isFull();
+        if (complete && readEndNanos == 0) {
+            readEndNanos = System.nanoTime();
+        }
+        return complete;
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return super.isComplete(context) || isFull();
+    }
+
+    /**
+     * Whether the current chunk must end before it has as many items as the chunk size
+     */
+    protected boolean isFull() {
+        return false;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        if (firstChunk) {
+            firstChunk = false;
+            restoreChunkSize(stepExecution.getExecutionContext());
+        }
+        readCountBeforeChunk = stepExecution.getReadCount();
+        readEndNanos = 0;
+        chunkStartNanos = System.nanoTime();
+    }
+
+    private void restoreChunkSize(ExecutionContext executionContext) {
+        if (isAdaptive() && executionContext.containsKey(ExecutionContextParametersNames.CHUNK_SIZE)) {
+            setChunkSize(bound(executionContext.getInt(ExecutionContextParametersNames.CHUNK_SIZE)));
+            smallestChunkSize = executionContext.getInt(ExecutionContextParametersNames.CHUNK_SIZE_SMALLEST,
+                                                        getChunkSize());
+            largestChunkSize = executionContext.getInt(ExecutionContextParametersNames.CHUNK_SIZE_LARGEST,
+                                                       getChunkSize());
+            logger.info("Continuing with chunks of {} items", getChunkSize());
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        if (!isAdaptive()) {
+            return;
+        }
+        long chunkEndNanos = System.nanoTime();
+        if (readEndNanos == 0) {
+            readEndNanos = chunkEndNanos;
+        }
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        int items = stepExecution.getReadCount() - readCountBeforeChunk;
+        if (items > 0) {
+            resize(items, chunkEndNanos - chunkStartNanos);
+        }
+
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        executionContext.putInt(ExecutionContextParametersNames.CHUNK_SIZE, getChunkSize());
+        executionContext.putInt(ExecutionContextParametersNames.CHUNK_SIZE_SMALLEST, smallestChunkSize);
+        executionContext.putInt(ExecutionContextParametersNames.CHUNK_SIZE_LARGEST, largestChunkSize);
+        executionContext.putLong(ExecutionContextParametersNames.CHUNK_READ_MILLIS,
+                                 TimeUnit.NANOSECONDS.toMillis(readEndNanos - chunkStartNanos));
+        executionContext.putLong(ExecutionContextParametersNames.CHUNK_WRITE_MILLIS,
+                                 TimeUnit.NANOSECONDS.toMillis(chunkEndNanos - readEndNanos));
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+    }
+
+    /**
+     * Sizes the next chunk to take the target duration, at the time per item of the last chunk
+     */
+    void resize(int items, long chunkNanos) {
+        double targetItems = (double) items * targetNanos / Math.max(chunkNanos, 1);
+        double boundedItems = Math.max(chunkSize / (double) MAX_RESIZE_FACTOR,
+                                       Math.min(chunkSize * (double) MAX_RESIZE_FACTOR, targetItems));
+        int nextChunkSize = bound((long) Math.ceil(boundedItems));
+        if (nextChunkSize != chunkSize) {
+            logger.debug("Chunk of {} items took {} ms, the next one will have {} items", items,
+                         TimeUnit.NANOSECONDS.toMillis(chunkNanos), nextChunkSize);
+            setChunkSize(nextChunkSize);
+            smallestChunkSize = Math.min(smallestChunkSize, nextChunkSize);
+            largestChunkSize = Math.max(largestChunkSize, nextChunkSize);
+        }
+    }
+
+    private int bound(long chunkSize) {
+        return (int) Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.policies;
+
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.util.Assert;
+
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Completion policy that also ends a chunk when the estimated memory of its items reaches a budget, so that chunks of
+ * big items, like the variants of a VCF with many samples, don't exhaust the heap. Chunks of small items still end at
+ * the chunk size, that can be adapted like in {@link AdaptiveChunkSizeCompletionPolicy}.
+ * <p>
+ * The size of each item is estimated as it is read, so the policy must also be registered as an
+ * {@link ItemReadListener} of its step. The estimated size of the last chunk is kept in the step execution context.
+ *
+ * @param <T> type of the items read
+ */
+public class MemoryBudgetCompletionPolicy<T> extends AdaptiveChunkSizeCompletionPolicy implements ItemReadListener<T> {
+
+    private final long budgetBytes;
+
+    private final ToLongFunction<? super T> sizeEstimator;
+
+    private long chunkBytes;
+
+    /**
+     * @param budgetBytes   estimated bytes of the items of a chunk that end it, or 0 to end it only by its size
+     * @param sizeEstimator estimates the bytes of heap retained by an item
+     */
+    public MemoryBudgetCompletionPolicy(int initialChunkSize, long targetMillis, int minChunkSize, int maxChunkSize,
+                                        long budgetBytes, ToLongFunction<? super T> sizeEstimator) {
+        super(initialChunkSize, targetMillis, minChunkSize, maxChunkSize);
+        Assert.isTrue(budgetBytes >= 0, "The memory budget of the chunks must not be negative");
+        Assert.notNull(sizeEstimator, "A size estimator is required");
+        this.budgetBytes = budgetBytes;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    /**
+     * @return the estimated bytes of the items read in the current chunk
+     */
+    public long getChunkBytes() {
+        return chunkBytes;
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext context) {
+        chunkBytes = 0;
+        return super.start(context);
+    }
+
+    @Override
+    protected boolean isFull() {
+        return budgetBytes > 0 && chunkBytes >= budgetBytes;
+    }
+
+    @Override
+    public void beforeRead() {
+    }
+
+    @Override
+    public void afterRead(T item) {
+        chunkBytes += sizeEstimator.applyAsLong(item);
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        super.afterChunk(context);
+        if (budgetBytes > 0) {
+            context.getStepContext().getStepExecution().getExecutionContext().putLong(
+                    ExecutionContextParametersNames.CHUNK_ESTIMATED_BYTES, chunkBytes);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.processors;
+
+import org.springframework.batch.item.ItemProcessor;
+
+import uk.ac.ebi.eva.commons.models.data.SamplesData;
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
+
+/**
+ * Calculates the statistics of the samples of each source entry of a variant, while it is being loaded, so that they
+ * can be written in the same update as the variant.
+ * <p>
+ * The statistics are calculated in the same way as the statistics file of
+ * {@link uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.PopulationStatisticsGeneratorStep}: a single cohort with all the
+ * samples of the file, without pedigree. The source entries without samples are left as they are.
+ */
+public class SourceEntryStatsProcessor implements ItemProcessor<Variant, Variant> {
+
+    @Override
+    public Variant process(Variant variant) throws Exception {
+        for (VariantSourceEntry sourceEntry : variant.getSourceEntries().values()) {
+            SamplesData samples = sourceEntry.getSamples();
+            if (samples != null && samples.getNumSamples() > 0) {
+                VariantStats stats = new VariantStats(variant).calculate(samples, sourceEntry.getAttributes(), null);
+                sourceEntry.setCohortStats(VariantSourceEntry.DEFAULT_COHORT, stats);
+            }
+        }
+        return variant;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.processors;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.springframework.batch.item.ItemProcessor;
+
+import uk.ac.ebi.eva.commons.models.converters.data.DBObjectToSamplesConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantSourceEntryToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.data.SamplesData;
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculates the statistics of the samples of a file in a variant, as read from mongo, in the same way as the
+ * statistics file of {@link uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.PopulationStatisticsGeneratorStep}: a single
+ * cohort with all the samples of the file, without pedigree.
+ * <p>
+ * The genotypes are read straight from the samples classified by genotype, so the statistics are calculated once per
+ * genotype and not once per sample. The variants that are not in the file are filtered out.
+ * <p>
+ * Input: a variant document, with at least the chromosome, position, alleles and files
+ * Output: a {@link Variant} whose only source entry is the file, with the statistics of the cohort
+ * {@link VariantSourceEntry#DEFAULT_COHORT}
+ */
+public class VariantStatsProcessor implements ItemProcessor<DBObject, Variant> {
+
+    private static final String QUALITY_ATTRIBUTE = "QUAL";
+
+    private static final String FILTER_ATTRIBUTE = "FILTER";
+
+    private final String studyId;
+
+    private final String fileId;
+
+    private final DBObjectToSamplesConverter samplesConverter;
+
+    /**
+     * @param numSamples number of samples of the file, as registered in the files collection
+     */
+    public VariantStatsProcessor(String studyId, String fileId, int numSamples) {
+        this.studyId = studyId;
+        this.fileId = fileId;
+        this.samplesConverter = new DBObjectToSamplesConverter(numSamples);
+    }
+
+    @Override
+    public Variant process(DBObject variantDocument) throws Exception {
+        DBObject file = findFile(variantDocument);
+        if (file == null) {
+            return null;
+        }
+
+        Variant variant = new Variant((String) variantDocument.get(VariantToDBObjectConverter.CHROMOSOME_FIELD),
+                                      getInt(variantDocument, VariantToDBObjectConverter.START_FIELD),
+                                      getInt(variantDocument, VariantToDBObjectConverter.END_FIELD),
+                                      (String) variantDocument.get(VariantToDBObjectConverter.REFERENCE_FIELD),
+                                      (String) variantDocument.get(VariantToDBObjectConverter.ALTERNATE_FIELD));
+
+        // a file without samples is calculated as if none of them had a genotype
+        Object mongoSamples = file.get(VariantSourceEntryToDBObjectConverter.SAMPLES_FIELD);
+        SamplesData samples = samplesConverter.convert(
+                mongoSamples instanceof DBObject ? (DBObject) mongoSamples : new BasicDBObject());
+        VariantStats stats = new VariantStats(variant).calculate(samples, getAttributes(file), null);
+
+        VariantSourceEntry sourceEntry = new VariantSourceEntry(fileId, studyId);
+        sourceEntry.setCohortStats(VariantSourceEntry.DEFAULT_COHORT, stats);
+        variant.addSourceEntry(sourceEntry);
+        return variant;
+    }
+
+    private DBObject findFile(DBObject variantDocument) {
+        for (DBObject file : KeyedFilesLayout.getFiles(variantDocument)) {
+            if (studyId.equals(file.get(VariantSourceEntryToDBObjectConverter.STUDYID_FIELD))
+                    && fileId.equals(file.get(VariantSourceEntryToDBObjectConverter.FILEID_FIELD))) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private static int getInt(DBObject document, String field) {
+        return ((Number) document.get(field)).intValue();
+    }
+
+    /**
+     * Only the attributes used by the statistics are needed. Their names don't have dots, so they are stored as they
+     * are.
+     */
+    private static Map<String, String> getAttributes(DBObject file) {
+        Map<String, String> attributes = new HashMap<>();
+        Object mongoAttributes = file.get(VariantSourceEntryToDBObjectConverter.ATTRIBUTES_FIELD);
+        if (mongoAttributes instanceof DBObject) {
+            for (String attribute : new String[]{QUALITY_ATTRIBUTE, FILTER_ATTRIBUTE}) {
+                Object value = ((DBObject) mongoAttributes).get(attribute);
+                if (value != null) {
+                    attributes.put(attribute, value.toString());
+                }
+            }
+        }
+        return attributes;
+    }
+}
@@ -78,7 +78,12 @@ public class PopulationStatisticsGeneratorStep implements Tasklet {
         QueryOptions statsOptions = new QueryOptions(variantOptions);
 
         // actual stats creation
-        variantStatisticsManager.createStats(dbAdaptor, statsOutputUri, null, statsOptions);    // TODO allow subset of samples
+        try {
+            variantStatisticsManager.createStats(dbAdaptor, statsOutputUri, null, statsOptions);    // TODO allow subset of samples
+        } finally {
+            // the adaptor opens its own connections, release them as soon as the step is done
+            dbAdaptor.close();
+        }
 
         return RepeatStatus.FINISHED;
     }
@@ -15,12 +15,8 @@
  */
 package uk.ac.ebi.eva.pipeline.jobs.steps.tasklets;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.opencb.biodata.models.variant.VariantSource;
 import org.opencb.biodata.models.variant.stats.VariantSourceStats;
-import org.opencb.biodata.models.variant.stats.VariantStats;
 import org.opencb.datastore.core.ObjectMap;
 import org.opencb.datastore.core.QueryOptions;
 import org.opencb.datastore.core.QueryResult;
@@ -28,7 +24,6 @@ import org.opencb.datastore.core.config.DataStoreServerAddress;
 import org.opencb.opencga.lib.auth.IllegalOpenCGACredentialsException;
 import org.opencb.opencga.storage.core.variant.VariantStorageManager;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
-import org.opencb.opencga.storage.core.variant.io.json.VariantStatsJsonMixin;
 import org.opencb.opencga.storage.core.variant.stats.VariantStatsWrapper;
 import org.opencb.opencga.storage.mongodb.utils.MongoCredentials;
 import org.opencb.opencga.storage.mongodb.variant.VariantMongoDBAdaptor;
@@ -40,26 +35,25 @@ import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import uk.ac.ebi.eva.pipeline.io.StatisticsFileReader;
 import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
 import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
 import uk.ac.ebi.eva.pipeline.parameters.MongoConnection;
 import uk.ac.ebi.eva.pipeline.parameters.OutputParameters;
 import uk.ac.ebi.eva.utils.URLHelper;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Tasklet that loads statistics into mongoDB.
  * <p>
- * Input: file containing statistics (.variants.stats.json.gz)
+ * Input: file containing statistics (.variants.stats.json.gz, or .variants.stats.smile in binary)
  * Output: stats loaded into mongodb
  * <p>
  * Example:
@@ -106,28 +100,23 @@ public class PopulationStatisticsLoaderStep implements Tasklet {
     @Autowired
     private DatabaseParameters dbParameters;
 
-    private JsonFactory jsonFactory;
-
-    private ObjectMapper jsonObjectMapper;
-
-    public PopulationStatisticsLoaderStep() {
-        jsonFactory = new JsonFactory();
-        jsonObjectMapper = new ObjectMapper(jsonFactory);
-        jsonObjectMapper.addMixIn(VariantStats.class, VariantStatsJsonMixin.class);
-    }
-
     @Override
     public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
         VariantDBAdaptor dbAdaptor = getDbAdaptor();
-        URI variantStatsOutputUri = URLHelper.getVariantsStatsUri(
+        URI variantStatsOutputUri = URLHelper.findVariantsStatsUri(
                 outputParameters.getOutputDirStatistics(), inputParameters.getStudyId(), inputParameters.getVcfId());
-        URI sourceStatsOutputUri = URLHelper.getSourceStatsUri(
+        URI sourceStatsOutputUri = URLHelper.findSourceStatsUri(
                 outputParameters.getOutputDirStatistics(), inputParameters.getStudyId(), inputParameters.getVcfId());
         QueryOptions statsOptions = new QueryOptions(getVariantOptions());
 
         // Load statistics for variants and the file
-        loadVariantStats(dbAdaptor, variantStatsOutputUri, statsOptions);
-        loadSourceStats(dbAdaptor, sourceStatsOutputUri);
+        try {
+            loadVariantStats(dbAdaptor, variantStatsOutputUri, statsOptions);
+            loadSourceStats(dbAdaptor, sourceStatsOutputUri);
+        } finally {
+            // the adaptor opens its own connections, release them as soon as the step is done
+            dbAdaptor.close();
+        }
 
         return RepeatStatus.FINISHED;
     }
@@ -174,29 +163,26 @@ public class PopulationStatisticsLoaderStep implements Tasklet {
     private void loadVariantStats(VariantDBAdaptor variantDBAdaptor, URI variantsStatsUri, QueryOptions options)
             throws IOException {
 
-        // Open input stream
-        InputStream variantInputStream = new GZIPInputStream(new FileInputStream(variantsStatsUri.getPath()));
-
-        // Initialize JSON parser
-        JsonParser parser = jsonFactory.createParser(variantInputStream);
-
         int batchSize = 1000;
         int writes = 0;
         int variantsNumber = 0;
         List<VariantStatsWrapper> statsBatch = new ArrayList<>(batchSize);
 
         // Store variant statistics in Mongo
-        while (parser.nextToken() != null) {
-            variantsNumber++;
-            statsBatch.add(parser.readValueAs(VariantStatsWrapper.class));
-
-            if (statsBatch.size() == batchSize) {
-                QueryResult<?> writeResult = variantDBAdaptor.updateStats(statsBatch, options);
-                writes += writeResult.getNumResults();
-                logger.info("stats loaded up to position {}:{}",
-                        statsBatch.get(statsBatch.size() - 1).getChromosome(),
-                        statsBatch.get(statsBatch.size() - 1).getPosition());
-                statsBatch.clear();
+        try (StatisticsFileReader reader = new StatisticsFileReader(new File(variantsStatsUri.getPath()))) {
+            VariantStatsWrapper variantStats;
+            while ((variantStats = reader.read(VariantStatsWrapper.class)) != null) {
+                variantsNumber++;
+                statsBatch.add(variantStats);
+
+                if (statsBatch.size() == batchSize) {
+                    QueryResult<?> writeResult = variantDBAdaptor.updateStats(statsBatch, options);
+                    writes += writeResult.getNumResults();
+                    logger.info("stats loaded up to position {}:{}",
+                            statsBatch.get(statsBatch.size() - 1).getChromosome(),
+                            statsBatch.get(statsBatch.size() - 1).getPosition());
+                    statsBatch.clear();
+                }
             }
         }
 
@@ -217,12 +203,10 @@ public class PopulationStatisticsLoaderStep implements Tasklet {
     }
 
     private void loadSourceStats(VariantDBAdaptor variantDBAdaptor, URI sourceStatsUri) throws IOException {
-        // Open input stream
-        InputStream sourceInputStream = new GZIPInputStream(new FileInputStream(sourceStatsUri.getPath()));
-
-        // Read from JSON file
-        JsonParser sourceParser = jsonFactory.createParser(sourceInputStream);
-        VariantSourceStats variantSourceStats = sourceParser.readValueAs(VariantSourceStats.class);
+        VariantSourceStats variantSourceStats;
+        try (StatisticsFileReader reader = new StatisticsFileReader(new File(sourceStatsUri.getPath()))) {
+            variantSourceStats = reader.read(VariantSourceStats.class);
+        }
 
         // Store source statistics in Mongo
         variantDBAdaptor.getVariantSourceDBAdaptor().updateSourceStats(variantSourceStats, null);
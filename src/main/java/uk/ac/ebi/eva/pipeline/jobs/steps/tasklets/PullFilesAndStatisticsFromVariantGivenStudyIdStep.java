@@ -30,6 +30,7 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
 import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
 import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
 
@@ -40,6 +41,9 @@ import static uk.ac.ebi.eva.commons.models.data.VariantSourceEntity.STUDYID_FIEL
 /**
  * Tasklet that removes the files and statistics in a variant given a studyId. The id is readed from the jobParameter
  * studyId.
+ * <p>
+ * In the {@link KeyedFilesLayout}, the study is removed with an $unset of its key instead of a $pull that compares
+ * every file and statistics of the variant.
  */
 public class PullFilesAndStatisticsFromVariantGivenStudyIdStep implements Tasklet {
 
@@ -64,11 +68,19 @@ public class PullFilesAndStatisticsFromVariantGivenStudyIdStep implements Taskle
     }
 
     private void dropVariantsAndStatisticsByStudy(String studyId) {
-        String filesStudyIdField = String.format("%s.%s", FILES_FIELD, STUDYID_FIELD);
-        Query query = Query.query(Criteria.where(filesStudyIdField).is(studyId));
+        Query query;
+        Update update;
+        if (dbParameters.getKeyedFiles()) {
+            query = Query.query(Criteria.where(KeyedFilesLayout.studyFilesField(studyId)).exists(true));
+            update = new Update().unset(KeyedFilesLayout.studyFilesField(studyId))
+                                 .unset(KeyedFilesLayout.studyStatsField(studyId));
+        } else {
+            String filesStudyIdField = String.format("%s.%s", FILES_FIELD, STUDYID_FIELD);
+            query = Query.query(Criteria.where(filesStudyIdField).is(studyId));
 
-        DBObject containsStudyId = new BasicDBObject(STUDYID_FIELD, studyId);
-        Update update = new Update().pull(FILES_FIELD, containsStudyId).pull(STATS_FIELD, containsStudyId);
+            DBObject containsStudyId = new BasicDBObject(STUDYID_FIELD, studyId);
+            update = new Update().pull(FILES_FIELD, containsStudyId).pull(STATS_FIELD, containsStudyId);
+        }
 
         logger.trace("Update operation with Query : {} and Update: {}", query, update);
         WriteResult writeResult = mongoOperations.updateMulti(query, update, dbParameters.getCollectionVariantsName());
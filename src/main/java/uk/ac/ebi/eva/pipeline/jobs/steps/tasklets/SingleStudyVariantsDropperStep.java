@@ -15,6 +15,7 @@
  */
 package uk.ac.ebi.eva.pipeline.jobs.steps.tasklets;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.WriteResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,7 +27,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
 import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
 import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
 
@@ -39,6 +42,9 @@ import static uk.ac.ebi.eva.commons.models.data.VariantSourceEntity.STUDYID_FIEL
  * study (i.e. an empty "files" array in the variant mongo document), which doesn't make sense, so we remove the
  * complete document for those cases first.
  * <p>
+ * The number of studies of a variant can't be queried in the {@link KeyedFilesLayout}, so the study is removed from
+ * the variants first, and then the variants without any file are removed.
+ * <p>
  * Input: a studyId
  * <p>
  * Output: those variants are removed
@@ -58,6 +64,11 @@ public class SingleStudyVariantsDropperStep implements Tasklet {
 
     @Override
     public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        if (dbParameters.getKeyedFiles()) {
+            dropKeyedVariants(inputParameters.getStudyId());
+            return RepeatStatus.FINISHED;
+        }
+
         String filesStudyIdField = String.format("%s.%s", FILES_FIELD, STUDYID_FIELD);
         Query query = new Query(
                 new Criteria(filesStudyIdField).is(inputParameters.getStudyId())
@@ -69,4 +80,21 @@ public class SingleStudyVariantsDropperStep implements Tasklet {
 
         return RepeatStatus.FINISHED;
     }
+
+    private void dropKeyedVariants(String studyId) {
+        Query studyQuery = Query.query(Criteria.where(KeyedFilesLayout.studyFilesField(studyId)).exists(true));
+        Update update = new Update().unset(KeyedFilesLayout.studyFilesField(studyId))
+                                    .unset(KeyedFilesLayout.studyStatsField(studyId));
+        logger.info("Removing study \"{}\" from the variants", studyId);
+        logger.trace("Query used: {}, update: {}", studyQuery, update);
+        WriteResult writeResult = mongoOperations.updateMulti(studyQuery, update,
+                                                              dbParameters.getCollectionVariantsName());
+        logger.info("Result: {}", writeResult.toString());
+
+        Query withoutFilesQuery = Query.query(Criteria.where(FILES_FIELD).is(new BasicDBObject()));
+        logger.info("Deleting variants that were reported only in study \"{}\"", studyId);
+        logger.trace("Query used: {}", withoutFilesQuery);
+        writeResult = mongoOperations.remove(withoutFilesQuery, dbParameters.getCollectionVariantsName());
+        logger.info("Result: {}", writeResult.toString());
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.tasklets;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantSourceEntryToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntity;
+import uk.ac.ebi.eva.pipeline.io.VariantIdBloomFilter;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.LoadParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds or refreshes the filter of the identifiers of the variants that are already in the variants collection,
+ * {@link LoadParameters#getIdFilter()}, so that the variant writer can insert the new variants instead of upserting
+ * them.
+ * <p>
+ * Next to the filter, a file with the suffix {@link #COVERED_FILES_SUFFIX} keeps the name of the collection and the
+ * files (study and file identifiers) whose variants are in the filter. A refresh only reads the variants of the files
+ * that have been loaded since the previous one. The filter is built from scratch when it doesn't exist, it belongs to
+ * another collection, or it has more identifiers than it was sized for.
+ * <p>
+ * In the {@link KeyedFilesLayout} the file of a variant is a key, and a query on it can't use an index, so reading the
+ * variants of each new file would scan the whole collection once per file. Instead, the identifiers of the whole
+ * collection are added again in a single scan, which only sets again the bits of the variants already in the filter.
+ * <p>
+ * A filter that doesn't cover every variant in the collection only makes the writer try to insert some existing
+ * variants, which are then merged with an upsert.
+ */
+public class VariantIdFilterTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantIdFilterTasklet.class);
+
+    public static final String COVERED_FILES_SUFFIX = ".files";
+
+    /**
+     * The filter is sized for this many times the variants in the collection, so it can be refreshed several times
+     */
+    private static final int GROWTH_FACTOR = 2;
+
+    private static final long MIN_EXPECTED_IDS = 10000000;
+
+    private static final String ID_FIELD = "_id";
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DatabaseParameters databaseParameters;
+
+    @Autowired
+    private LoadParameters loadParameters;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        File filterFile = new File(loadParameters.getIdFilter());
+        File coveredFilesFile = new File(filterFile.getPath() + COVERED_FILES_SUFFIX);
+        DBCollection variantsCollection = mongoOperations.getCollection(
+                databaseParameters.getCollectionVariantsName());
+
+        // the files are listed before reading the variants, so the variants of all of them are already loaded
+        List<String> loadedFiles = getLoadedFiles();
+        Set<String> coveredFiles = readCoveredFiles(filterFile, coveredFilesFile, variantsCollection.getFullName());
+
+        VariantIdBloomFilter filter = null;
+        if (coveredFiles != null) {
+            filter = VariantIdBloomFilter.open(filterFile, false);
+            if (filter.isSaturated()) {
+                logger.info("Filter {} has more identifiers than expected, it will be built again", filterFile);
+                filter.close();
+                filter = null;
+            }
+        }
+
+        try {
+            if (filter == null) {
+                long expectedIds = Math.max(MIN_EXPECTED_IDS, variantsCollection.count() * GROWTH_FACTOR);
+                logger.info("Building filter {} for {} variant identifiers", filterFile, expectedIds);
+                // if the build doesn't finish, the next one must start from scratch too
+                Files.deleteIfExists(coveredFilesFile.toPath());
+                filter = VariantIdBloomFilter.create(filterFile, expectedIds);
+                long ids = addIds(filter, variantsCollection, new BasicDBObject());
+                logger.info("Added {} variant identifiers to filter {}", ids, filterFile);
+                coveredFiles = new LinkedHashSet<>(loadedFiles);
+            } else if (databaseParameters.getKeyedFiles()) {
+                if (!coveredFiles.containsAll(loadedFiles)) {
+                    long ids = addIds(filter, variantsCollection, new BasicDBObject());
+                    logger.info("Added {} variant identifiers of the whole collection to filter {}", ids,
+                                filterFile);
+                    coveredFiles.addAll(loadedFiles);
+                }
+            } else {
+                for (String loadedFile : loadedFiles) {
+                    if (!coveredFiles.contains(loadedFile)) {
+                        long ids = addIds(filter, variantsCollection, buildFileQuery(loadedFile));
+                        logger.info("Added {} variant identifiers of file {} to filter {}", ids, loadedFile,
+                                    filterFile);
+                        coveredFiles.add(loadedFile);
+                    }
+                }
+            }
+        } finally {
+            filter.close();
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(variantsCollection.getFullName());
+        lines.addAll(coveredFiles);
+        Files.write(coveredFilesFile.toPath(), lines, StandardCharsets.UTF_8);
+
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * @return the study and file identifiers of the files in the files collection, separated by a tab
+     */
+    private List<String> getLoadedFiles() {
+        List<String> loadedFiles = new ArrayList<>();
+        BasicDBObject projection = new BasicDBObject(VariantSourceEntity.STUDYID_FIELD, 1)
+                .append(VariantSourceEntity.FILEID_FIELD, 1);
+        try (DBCursor cursor = mongoOperations.getCollection(databaseParameters.getCollectionFilesName())
+                .find(new BasicDBObject(), projection)) {
+            for (DBObject file : cursor) {
+                loadedFiles.add(file.get(VariantSourceEntity.STUDYID_FIELD) + "\t"
+                                        + file.get(VariantSourceEntity.FILEID_FIELD));
+            }
+        }
+        return loadedFiles;
+    }
+
+    /**
+     * @return the files covered by the filter, or null if the filter has to be built from scratch
+     */
+    private Set<String> readCoveredFiles(File filterFile, File coveredFilesFile, String collection)
+            throws IOException {
+        if (!filterFile.exists() || !coveredFilesFile.exists()) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(coveredFilesFile.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(collection)) {
+            logger.info("Filter {} was not built for collection {}", filterFile, collection);
+            return null;
+        }
+        return new LinkedHashSet<>(lines.subList(1, lines.size()));
+    }
+
+    private DBObject buildFileQuery(String loadedFile) {
+        String[] studyAndFile = loadedFile.split("\t", 2);
+        return new BasicDBObject(VariantToDBObjectConverter.FILES_FIELD, new BasicDBObject(
+                "$elemMatch", new BasicDBObject(VariantSourceEntryToDBObjectConverter.STUDYID_FIELD, studyAndFile[0])
+                        .append(VariantSourceEntryToDBObjectConverter.FILEID_FIELD, studyAndFile[1])));
+    }
+
+    private long addIds(VariantIdBloomFilter filter, DBCollection variantsCollection, DBObject query) {
+        long ids = 0;
+        try (DBCursor cursor = variantsCollection.find(query, new BasicDBObject(ID_FIELD, 1))) {
+            for (DBObject variant : cursor) {
+                filter.put((String) variant.get(ID_FIELD));
+                ids++;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.tasklets;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.pipeline.io.writers.VariantMongoWriter;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+
+/**
+ * This step creates the secondary indexes of the variants collection that were not created while loading, see
+ * {@link VariantMongoWriter#createSecondaryIndexes}. The indexes that already exist are not created again.
+ * <p>
+ * The variants are already loaded, so the indexes are built in foreground, which is faster and gives more compact
+ * indexes than building them in background.
+ */
+public class VariantsIndexesTasklet implements Tasklet {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DatabaseParameters databaseParameters;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        VariantMongoWriter.createSecondaryIndexes(
+                mongoOperations.getCollection(databaseParameters.getCollectionVariantsName()),
+                databaseParameters.getKeyedFiles(), false);
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -22,10 +22,11 @@ import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.StepExecutionListener;
 
+import uk.ac.ebi.eva.pipeline.parameters.AnnotationParameters;
 import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
-import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
 import uk.ac.ebi.eva.utils.FileWithHeaderNumberOfLinesEstimator;
-import uk.ac.ebi.eva.utils.URLHelper;
+
+import java.io.File;
 
 /**
  * - Estimate the number of lines in the VEP annotation file before the step. This will be used in {@link StepProgressListener}
@@ -38,14 +39,11 @@ public class AnnotationLoaderStepStatisticsListener implements StepExecutionList
     public void beforeStep(StepExecution stepExecution) {
         JobParameters parameters = stepExecution.getJobExecution().getJobParameters();
 
-        String outputDirAnnotation = parameters.getString(JobParametersNames.OUTPUT_DIR_ANNOTATION);
-        String studyId = parameters.getString(JobParametersNames.INPUT_STUDY_ID);
-        String fileId = parameters.getString(JobParametersNames.INPUT_VCF_ID);
-
-        String vepAnnotationFilePath = URLHelper.resolveVepOutput(outputDirAnnotation, studyId, fileId);
-
-        long estimatedTotalNumberOfLines = new FileWithHeaderNumberOfLinesEstimator()
-                .estimateNumberOfLines(vepAnnotationFilePath);
+        long estimatedTotalNumberOfLines = 0;
+        for (File vepAnnotationFile : AnnotationParameters.getVepOutputFiles(parameters)) {
+            estimatedTotalNumberOfLines += new FileWithHeaderNumberOfLinesEstimator()
+                    .estimateNumberOfLines(vepAnnotationFile.getPath());
+        }
         stepExecution.getExecutionContext()
                 .put(ExecutionContextParametersNames.NUMBER_OF_LINES, estimatedTotalNumberOfLines);
     }
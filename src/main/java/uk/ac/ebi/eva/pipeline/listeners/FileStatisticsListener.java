@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.listeners;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntity;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
+
+import java.util.List;
+
+/**
+ * Counts, from the statistics of the variants written by a chunk-oriented step, the statistics of the whole file that
+ * are stored in the files collection, as opencga's VariantGlobalStats does in
+ * {@link uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.PopulationStatisticsGeneratorStep}: the number of variants, SNVs,
+ * indels, structural variants, variants that passed the filters, transitions and transversions, and the mean quality.
+ * <p>
+ * The counts are kept in the execution context of the step that is running in the current thread, so they are saved
+ * with every chunk and a restarted step goes on counting from the last chunk written. This also allows to register
+ * the same listener in every partition of a partitioned step. {@link FileStatisticsLoaderListener} adds up the counts
+ * of the partitions.
+ */
+public class FileStatisticsListener implements ItemWriteListener<Variant> {
+
+    private static final String KEY_PREFIX = "fileStatistics.";
+
+    static final String[] COUNT_FIELDS = {
+            VariantSourceEntity.STATISTICS_NUMVARIANTS_FIELD,
+            VariantSourceEntity.STATISTICS_NUMSNPS_FIELD,
+            VariantSourceEntity.STATISTICS_NUMINDELS_FIELD,
+            VariantSourceEntity.STATISTICS_NUMSTRUCTURAL_FIELD,
+            VariantSourceEntity.STATISTICS_NUMPASSFILTERS_FIELD,
+            VariantSourceEntity.STATISTICS_NUMTRANSITIONS_FIELD,
+            VariantSourceEntity.STATISTICS_NUMTRANSVERSIONS_FIELD};
+
+    private static final String ACCUMULATED_QUALITY_KEY = KEY_PREFIX + "accumulatedQuality";
+
+    @Override
+    public void beforeWrite(List<? extends Variant> items) {
+    }
+
+    @Override
+    public void afterWrite(List<? extends Variant> items) {
+        long[] counts = new long[COUNT_FIELDS.length];
+        double accumulatedQuality = 0;
+        for (Variant variant : items) {
+            for (VariantSourceEntry sourceEntry : variant.getSourceEntries().values()) {
+                VariantStats stats = sourceEntry.getCohortStats(VariantSourceEntry.DEFAULT_COHORT);
+                if (stats != null) {
+                    count(stats, counts);
+                    accumulatedQuality += stats.getQuality();
+                }
+            }
+        }
+
+        ExecutionContext executionContext = StepSynchronizationManager.getContext().getStepExecution()
+                                                                      .getExecutionContext();
+        for (int i = 0; i < COUNT_FIELDS.length; i++) {
+            String key = KEY_PREFIX + COUNT_FIELDS[i];
+            executionContext.putLong(key, executionContext.getLong(key, 0) + counts[i]);
+        }
+        executionContext.putDouble(ACCUMULATED_QUALITY_KEY,
+                                   executionContext.getDouble(ACCUMULATED_QUALITY_KEY, 0) + accumulatedQuality);
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends Variant> items) {
+    }
+
+    private void count(VariantStats stats, long[] counts) {
+        counts[0]++;
+        switch (stats.getVariantType()) {
+            case SNV:
+                counts[1]++;
+                break;
+            case INDEL:
+                counts[2]++;
+                break;
+            case SV:
+                counts[3]++;
+                break;
+            default:
+                break;
+        }
+        if (stats.hasPassedFilters()) {
+            counts[4]++;
+        }
+        if (stats.isTransition()) {
+            counts[5]++;
+        }
+        if (stats.isTransversion()) {
+            counts[6]++;
+        }
+    }
+
+    /**
+     * Adds up the counts of several executions of this listener into the document stored in the "st" field of the
+     * files collection.
+     */
+    static DBObject sumStatistics(Iterable<ExecutionContext> executionContexts, int numSamples) {
+        long[] counts = new long[COUNT_FIELDS.length];
+        double accumulatedQuality = 0;
+        for (ExecutionContext executionContext : executionContexts) {
+            for (int i = 0; i < COUNT_FIELDS.length; i++) {
+                counts[i] += executionContext.getLong(KEY_PREFIX + COUNT_FIELDS[i], 0);
+            }
+            accumulatedQuality += executionContext.getDouble(ACCUMULATED_QUALITY_KEY, 0);
+        }
+
+        BasicDBObject statistics = new BasicDBObject(VariantSourceEntity.STATISTICS_NUMSAMPLES_FIELD, numSamples);
+        for (int i = 0; i < COUNT_FIELDS.length; i++) {
+            statistics.append(COUNT_FIELDS[i], counts[i]);
+        }
+        long numVariants = counts[0];
+        statistics.append(VariantSourceEntity.STATISTICS_MEANQUALITY_FIELD,
+                          numVariants == 0 ? 0 : (float) (accumulatedQuality / numVariants));
+        return statistics;
+    }
+}
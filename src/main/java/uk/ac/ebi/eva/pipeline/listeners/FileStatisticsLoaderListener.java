@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.listeners;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntity;
+import uk.ac.ebi.eva.pipeline.parameters.DatabaseParameters;
+import uk.ac.ebi.eva.pipeline.parameters.InputParameters;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores in the files collection the statistics of a file counted by {@link FileStatisticsListener} in the partitions
+ * of a partitioned step, once all of them have completed.
+ * <p>
+ * A restarted job doesn't run again the partitions that completed before, so the last execution of every partition
+ * is looked up in all the executions of the job instance.
+ */
+public class FileStatisticsLoaderListener implements StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStatisticsLoaderListener.class);
+
+    private static final String PARTITION_NAME_SEPARATOR = ":";
+
+    private final JobExplorer jobExplorer;
+
+    private final String partitionStepName;
+
+    private final MongoOperations mongoOperations;
+
+    private final DatabaseParameters databaseParameters;
+
+    private final InputParameters inputParameters;
+
+    /**
+     * The step-scoped beans are only resolved after the master step has completed, inside its step context.
+     */
+    public FileStatisticsLoaderListener(JobExplorer jobExplorer, String partitionStepName,
+                                        MongoOperations mongoOperations, DatabaseParameters databaseParameters,
+                                        InputParameters inputParameters) {
+        this.jobExplorer = jobExplorer;
+        this.partitionStepName = partitionStepName;
+        this.mongoOperations = mongoOperations;
+        this.databaseParameters = databaseParameters;
+        this.inputParameters = inputParameters;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+            return null;
+        }
+
+        String studyId = inputParameters.getStudyId();
+        String fileId = inputParameters.getVcfId();
+        DBCollection filesCollection = mongoOperations.getCollection(databaseParameters.getCollectionFilesName());
+        DBObject fileQuery = new BasicDBObject(VariantSourceEntity.STUDYID_FIELD, studyId)
+                .append(VariantSourceEntity.FILEID_FIELD, fileId);
+        DBObject file = filesCollection.findOne(fileQuery, new BasicDBObject(VariantSourceEntity.SAMPLES_FIELD, 1));
+        Object samples = file == null ? null : file.get(VariantSourceEntity.SAMPLES_FIELD);
+        int numSamples = samples instanceof DBObject ? ((DBObject) samples).keySet().size() : 0;
+
+        DBObject statistics = FileStatisticsListener.sumStatistics(
+                getLastPartitionContexts(stepExecution.getJobExecution()), numSamples);
+        filesCollection.update(fileQuery, new BasicDBObject("$set", new BasicDBObject(
+                VariantSourceEntity.STATISTICS_FIELD, statistics)));
+        logger.info("Statistics of the file {} of the study {}: {}", fileId, studyId, statistics);
+        return null;
+    }
+
+    private List<ExecutionContext> getLastPartitionContexts(JobExecution currentJobExecution) {
+        String partitionPrefix = partitionStepName + PARTITION_NAME_SEPARATOR;
+        Map<String, StepExecution> lastPartitionExecutions = new HashMap<>();
+        for (JobExecution jobExecution : jobExplorer.getJobExecutions(currentJobExecution.getJobInstance())) {
+            for (StepExecution partitionExecution : jobExecution.getStepExecutions()) {
+                if (partitionExecution.getStepName().startsWith(partitionPrefix)) {
+                    lastPartitionExecutions.merge(partitionExecution.getStepName(), partitionExecution,
+                                                  (last, other) -> last.getId() > other.getId() ? last : other);
+                }
+            }
+        }
+
+        List<ExecutionContext> executionContexts = new ArrayList<>();
+        for (StepExecution partitionExecution : lastPartitionExecutions.values()) {
+            executionContexts.add(partitionExecution.getExecutionContext());
+        }
+        return executionContexts;
+    }
+}
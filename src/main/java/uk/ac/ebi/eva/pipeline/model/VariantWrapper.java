@@ -46,8 +46,16 @@ public class VariantWrapper {
         return variant.getEnd();
     }
 
+    public String getReference() {
+        return variant.getReference();
+    }
+
+    public String getAlternate() {
+        return variant.getAlternate();
+    }
+
     public String getRefAlt() {
-        return String.format("%s/%s", variant.getReference(), variant.getAlternate());
+        return variant.getReference() + "/" + variant.getAlternate();
     }
 
     public String getStrand() {
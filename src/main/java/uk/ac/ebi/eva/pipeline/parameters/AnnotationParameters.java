@@ -15,12 +15,16 @@
  */
 package uk.ac.ebi.eva.pipeline.parameters;
 
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import uk.ac.ebi.eva.utils.URLHelper;
 
+import java.io.File;
+import java.util.List;
+
 /**
  * Service that holds access to the values for annotatation steps like VEP etc.
  *
@@ -66,6 +70,15 @@ public class AnnotationParameters {
     @Value(PARAMETER + JobParametersNames.APP_VEP_TIMEOUT + END)
     private Long timeout;
 
+    @Value(PARAMETER + JobParametersNames.APP_VEP_NUM_PROCESSES + "']?:1}")
+    private Integer vepNumProcesses;
+
+    @Value(PARAMETER + JobParametersNames.APP_VEP_LOAD_DIRECTLY + "']?:false}")
+    private Boolean loadDirectly;
+
+    @Value(PARAMETER + JobParametersNames.APP_VEP_KEEP_OUTPUT + "']?:false}")
+    private Boolean keepVepOutput;
+
     @Value(PARAMETER + JobParametersNames.INPUT_FASTA + END)
     private String inputFasta;
 
@@ -100,6 +113,24 @@ public class AnnotationParameters {
         return timeout;
     }
 
+    public Integer getVepNumProcesses() {
+        return vepNumProcesses;
+    }
+
+    /**
+     * @return whether the VEP output is loaded into the database as it's produced, instead of in a separate step
+     */
+    public Boolean getLoadDirectly() {
+        return loadDirectly;
+    }
+
+    /**
+     * @return whether the VEP output file is written even if the annotations are loaded directly into the database
+     */
+    public Boolean getKeepVepOutput() {
+        return keepVepOutput;
+    }
+
     public String getInputFasta() {
         return inputFasta;
     }
@@ -112,6 +143,36 @@ public class AnnotationParameters {
         return URLHelper.resolveVepOutput(outputDirAnnotation, studyId, fileId);
     }
 
+    /**
+     * @return the file where the VEP process of a partition writes. If a single VEP process is used, this is the same
+     * as {@link #getVepOutput()}
+     */
+    public String getVepOutput(Integer partitionIndex) {
+        if (partitionIndex == null || vepNumProcesses == null || vepNumProcesses <= 1) {
+            return getVepOutput();
+        }
+        return URLHelper.resolveVepOutputShard(outputDirAnnotation, studyId, fileId, partitionIndex);
+    }
+
+    /**
+     * @return the VEP output files that exist, as written by {@link #getVepNumProcesses()} VEP processes
+     */
+    public List<File> getVepOutputFiles() {
+        return URLHelper.findVepOutputs(outputDirAnnotation, studyId, fileId,
+                                        vepNumProcesses == null ? 1 : vepNumProcesses);
+    }
+
+    /**
+     * Same as {@link #getVepOutputFiles()}, for the listeners and deciders that only have the job parameters
+     */
+    public static List<File> getVepOutputFiles(JobParameters jobParameters) {
+        String vepNumProcesses = jobParameters.getString(JobParametersNames.APP_VEP_NUM_PROCESSES);
+        return URLHelper.findVepOutputs(jobParameters.getString(JobParametersNames.OUTPUT_DIR_ANNOTATION),
+                                        jobParameters.getString(JobParametersNames.INPUT_STUDY_ID),
+                                        jobParameters.getString(JobParametersNames.INPUT_VCF_ID),
+                                        vepNumProcesses == null ? 1 : Integer.parseInt(vepNumProcesses));
+    }
+
     public void setOutputDirAnnotation(String outputDirAnnotation) {
         this.outputDirAnnotation = outputDirAnnotation;
     }
@@ -148,6 +209,18 @@ public class AnnotationParameters {
         this.timeout = timeout;
     }
 
+    public void setVepNumProcesses(Integer vepNumProcesses) {
+        this.vepNumProcesses = vepNumProcesses;
+    }
+
+    public void setLoadDirectly(Boolean loadDirectly) {
+        this.loadDirectly = loadDirectly;
+    }
+
+    public void setKeepVepOutput(Boolean keepVepOutput) {
+        this.keepVepOutput = keepVepOutput;
+    }
+
     public void setInputFasta(String inputFasta) {
         this.inputFasta = inputFasta;
     }
@@ -26,10 +26,46 @@ public class ChunkSizeParameters {
     private static final String PARAMETER = "#{jobParameters['";
     private static final String OR_DEFAULT = "']?:'1000'}";
 
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
     @Value(PARAMETER + JobParametersNames.CONFIG_CHUNK_SIZE + OR_DEFAULT)
     private Integer chunkSize;
 
+    @Value(PARAMETER + JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS + "']?:0}")
+    private long targetMillis;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_CHUNK_MIN_SIZE + "']?:10}")
+    private int minChunkSize;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_CHUNK_MAX_SIZE + "']?:100000}")
+    private int maxChunkSize;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_CHUNK_MEMORY_BUDGET_MB + "']?:0}")
+    private long memoryBudgetMb;
+
     public Integer getChunkSize() {
         return chunkSize;
     }
+
+    /**
+     * @return the duration that the size of the chunks is adapted to, or 0 to keep the same size in every chunk
+     */
+    public long getTargetMillis() {
+        return targetMillis;
+    }
+
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * @return the estimated bytes of heap of the items of a chunk that end it, or 0 to end it only by its size
+     */
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetMb * BYTES_PER_MEGABYTE;
+    }
 }
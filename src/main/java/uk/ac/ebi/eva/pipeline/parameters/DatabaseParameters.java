@@ -46,6 +46,22 @@ public class DatabaseParameters {
     @Value(PARAMETER + JobParametersNames.DB_COLLECTIONS_ANNOTATION_METADATA_NAME + END)
     private String collectionAnnotationMetadataName;
 
+    /**
+     * Whether the positions of the samples are stored in the compact encoding of
+     * {@link uk.ac.ebi.eva.commons.models.converters.data.SamplePositionsCodec}. Every load into the same database
+     * should use the same value.
+     */
+    @Value(PARAMETER + JobParametersNames.DB_COMPACT_SAMPLES + "']?:false}")
+    private Boolean compactSamples;
+
+    /**
+     * Whether the files and statistics of the variants are stored in the
+     * {@link uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout}. Every job on the same database should
+     * use the same value.
+     */
+    @Value(PARAMETER + JobParametersNames.DB_KEYED_FILES + "']?:false}")
+    private Boolean keyedFiles;
+
     @Autowired
     private MongoConnection mongoConnection;
 
@@ -72,4 +88,12 @@ public class DatabaseParameters {
     public String getCollectionAnnotationMetadataName() {
         return collectionAnnotationMetadataName;
     }
+
+    public Boolean getCompactSamples() {
+        return compactSamples;
+    }
+
+    public Boolean getKeyedFiles() {
+        return keyedFiles;
+    }
 }
@@ -20,4 +20,24 @@ package uk.ac.ebi.eva.pipeline.parameters;
  */
 public class ExecutionContextParametersNames {
     public static final String NUMBER_OF_LINES = "line";
+
+    public static final String PARTITION_INDEX = "partitionIndex";
+
+    public static final String PARTITION_CHROMOSOMES = "partitionChromosomes";
+
+    public static final String PARTITION_START_BYTE = "partitionStartByte";
+
+    public static final String PARTITION_LINES = "partitionLines";
+
+    public static final String CHUNK_SIZE = "chunkSize";
+
+    public static final String CHUNK_SIZE_SMALLEST = "chunkSizeSmallest";
+
+    public static final String CHUNK_SIZE_LARGEST = "chunkSizeLargest";
+
+    public static final String CHUNK_READ_MILLIS = "chunkReadMillis";
+
+    public static final String CHUNK_WRITE_MILLIS = "chunkWriteMillis";
+
+    public static final String CHUNK_ESTIMATED_BYTES = "chunkEstimatedBytes";
 }
@@ -68,6 +68,16 @@ public class JobParametersNames {
 
     public static final String CONFIG_DB_READPREFERENCE = "config.db.read-preference";
 
+    public static final String CONFIG_DB_CONNECTIONS_PER_HOST = "config.db.connections-per-host";
+
+    public static final String CONFIG_DB_WAIT_QUEUE_MULTIPLIER = "config.db.wait-queue-multiplier";
+
+    public static final String CONFIG_DB_MAX_WAIT_TIME = "config.db.max-wait-time";
+
+    public static final String CONFIG_DB_CONNECT_TIMEOUT = "config.db.connect-timeout";
+
+    public static final String CONFIG_DB_SOCKET_TIMEOUT = "config.db.socket-timeout";
+
 
     /*
      * Database and collections
@@ -85,6 +95,10 @@ public class JobParametersNames {
 
     public static final String DB_COLLECTIONS_ANNOTATION_METADATA_NAME = "db.collections.annotation.metadata.name";
 
+    public static final String DB_COMPACT_SAMPLES = "db.compact-samples";
+
+    public static final String DB_KEYED_FILES = "db.keyed-files";
+
 
     /*
      * Skip and overwrite steps
@@ -138,6 +152,12 @@ public class JobParametersNames {
 
     public static final String APP_VEP_TIMEOUT = "app.vep.timeout";
 
+    public static final String APP_VEP_NUM_PROCESSES = "app.vep.num-processes";
+
+    public static final String APP_VEP_LOAD_DIRECTLY = "app.vep.load-directly";
+
+    public static final String APP_VEP_KEEP_OUTPUT = "app.vep.keep-output";
+
 
     /*
      * Other configuration
@@ -147,6 +167,32 @@ public class JobParametersNames {
 
     public static final String CONFIG_CHUNK_SIZE = "config.chunk.size";
 
+    public static final String CONFIG_CHUNK_TARGET_MILLIS = "config.chunk.target-millis";
+
+    public static final String CONFIG_CHUNK_MIN_SIZE = "config.chunk.min-size";
+
+    public static final String CONFIG_CHUNK_MAX_SIZE = "config.chunk.max-size";
+
+    public static final String CONFIG_CHUNK_MEMORY_BUDGET_MB = "config.chunk.memory-budget-mb";
+
+    public static final String CONFIG_LOAD_NUM_PARTITIONS = "config.load.num-partitions";
+
+    public static final String CONFIG_LOAD_PIPELINED = "config.load.pipelined";
+
+    public static final String CONFIG_LOAD_IN_FLIGHT_BULKS = "config.load.in-flight-bulks";
+
+    public static final String CONFIG_LOAD_INSERT_ONLY = "config.load.insert-only";
+
+    public static final String CONFIG_LOAD_ID_FILTER = "config.load.id-filter";
+
+    public static final String CONFIG_LOAD_DEFER_INDEXES = "config.load.defer-indexes";
+
+    public static final String CONFIG_LOAD_STATISTICS = "config.load.statistics";
+
+    public static final String CONFIG_STATISTICS_CHUNKED = "config.statistics.chunked";
+
+    public static final String CONFIG_STATISTICS_NUM_PARTITIONS = "config.statistics.num-partitions";
+
 
     public static final String PROPERTY_FILE_PROPERTY = "parameters.path";
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that holds access to the job parameters that configure how the variants are loaded.
+ */
+@Service
+@StepScope
+public class LoadParameters {
+
+    private static final String PARAMETER = "#{jobParameters['";
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_NUM_PARTITIONS + "']?:1}")
+    private Integer numPartitions;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_PIPELINED + "']?:false}")
+    private Boolean pipelined;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_IN_FLIGHT_BULKS + "']?:1}")
+    private Integer inFlightBulks;
+
+    /**
+     * Null (the default) if the variants should only be inserted when the collection is empty
+     */
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_INSERT_ONLY + "']}")
+    private Boolean insertOnly;
+
+    /**
+     * Path of the filter of the variants already loaded, or empty to not use it
+     */
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_ID_FILTER + "']?:''}")
+    private String idFilter;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_DEFER_INDEXES + "']?:false}")
+    private Boolean deferIndexes;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_LOAD_STATISTICS + "']?:false}")
+    private Boolean statistics;
+
+    public Integer getNumPartitions() {
+        return numPartitions;
+    }
+
+    public Boolean getPipelined() {
+        return pipelined;
+    }
+
+    public Integer getInFlightBulks() {
+        return inFlightBulks;
+    }
+
+    public Boolean getInsertOnly() {
+        return insertOnly;
+    }
+
+    public String getIdFilter() {
+        return idFilter;
+    }
+
+    public Boolean getDeferIndexes() {
+        return deferIndexes;
+    }
+
+    public Boolean getStatistics() {
+        return statistics;
+    }
+
+    public void setNumPartitions(Integer numPartitions) {
+        this.numPartitions = numPartitions;
+    }
+
+    public void setPipelined(Boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    public void setInFlightBulks(Integer inFlightBulks) {
+        this.inFlightBulks = inFlightBulks;
+    }
+
+    public void setInsertOnly(Boolean insertOnly) {
+        this.insertOnly = insertOnly;
+    }
+
+    public void setIdFilter(String idFilter) {
+        this.idFilter = idFilter;
+    }
+
+    public void setDeferIndexes(Boolean deferIndexes) {
+        this.deferIndexes = deferIndexes;
+    }
+
+    public void setStatistics(Boolean statistics) {
+        this.statistics = statistics;
+    }
+}
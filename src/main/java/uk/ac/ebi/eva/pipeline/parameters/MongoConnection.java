@@ -20,9 +20,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
- * Container of credentials for a connection to mongo.
+ * Container of credentials for a connection to mongo, and of the settings of its connection pool.
  *
- * The values are injected directly from environment, not from JobParameters.
+ * The values are injected directly from environment, not from JobParameters. The default values of the pool are the
+ * ones of the mongo driver.
  */
 @Service
 public class MongoConnection {
@@ -42,6 +43,21 @@ public class MongoConnection {
     @Value("${" + JobParametersNames.CONFIG_DB_READPREFERENCE + ":#{null}}")
     private String readPreference;
 
+    @Value("${" + JobParametersNames.CONFIG_DB_CONNECTIONS_PER_HOST + ":100}")
+    private int connectionsPerHost;
+
+    @Value("${" + JobParametersNames.CONFIG_DB_WAIT_QUEUE_MULTIPLIER + ":5}")
+    private int waitQueueMultiplier;
+
+    @Value("${" + JobParametersNames.CONFIG_DB_MAX_WAIT_TIME + ":120000}")
+    private int maxWaitTime;
+
+    @Value("${" + JobParametersNames.CONFIG_DB_CONNECT_TIMEOUT + ":10000}")
+    private int connectTimeout;
+
+    @Value("${" + JobParametersNames.CONFIG_DB_SOCKET_TIMEOUT + ":0}")
+    private int socketTimeout;
+
     public String getHosts() {
         return hosts;
     }
@@ -65,4 +81,36 @@ public class MongoConnection {
     public ReadPreference getReadPreference() {
         return ReadPreference.valueOf(readPreference);
     }
+
+    public int getConnectionsPerHost() {
+        return connectionsPerHost;
+    }
+
+    /**
+     * @return how many threads can wait for a connection, as a multiple of {@link #getConnectionsPerHost()}
+     */
+    public int getWaitQueueMultiplier() {
+        return waitQueueMultiplier;
+    }
+
+    /**
+     * @return milliseconds that a thread can wait for a connection of the pool
+     */
+    public int getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * @return milliseconds to establish a connection, 0 means no timeout
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @return milliseconds to wait for the response of an operation, 0 means no timeout
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that holds access to the job parameters that configure how the population statistics are calculated.
+ */
+@Service
+@StepScope
+public class StatisticsParameters {
+
+    private static final String PARAMETER = "#{jobParameters['";
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_STATISTICS_CHUNKED + "']?:false}")
+    private Boolean chunked;
+
+    @Value(PARAMETER + JobParametersNames.CONFIG_STATISTICS_NUM_PARTITIONS + "']?:1}")
+    private Integer numPartitions;
+
+    public Boolean getChunked() {
+        return chunked;
+    }
+
+    public Integer getNumPartitions() {
+        return numPartitions;
+    }
+
+    public void setChunked(Boolean chunked) {
+        this.chunked = chunked;
+    }
+
+    public void setNumPartitions(Integer numPartitions) {
+        this.numPartitions = numPartitions;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters.validation;
+
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+
+import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+
+import java.io.File;
+
+/**
+ * Checks that the filter of variant identifiers can be created, this is, that its directory exists and it is writable
+ *
+ * @throws JobParametersInvalidException If the directory of the filter doesn't exist or is not writable
+ */
+public class ConfigLoadIdFilterValidator implements JobParametersValidator {
+
+    @Override
+    public void validate(JobParameters parameters) throws JobParametersInvalidException {
+        String idFilter = parameters.getString(JobParametersNames.CONFIG_LOAD_ID_FILTER);
+        ParametersValidatorUtil.checkIsValidString(idFilter, JobParametersNames.CONFIG_LOAD_ID_FILTER);
+
+        String directory = new File(idFilter).getAbsoluteFile().getParent();
+        ParametersValidatorUtil.checkDirectoryExists(directory, JobParametersNames.CONFIG_LOAD_ID_FILTER);
+        ParametersValidatorUtil.checkFileIsWritable(directory, JobParametersNames.CONFIG_LOAD_ID_FILTER);
+    }
+}
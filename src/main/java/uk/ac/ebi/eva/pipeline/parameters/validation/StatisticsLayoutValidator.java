@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters.validation;
+
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+
+import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+
+/**
+ * Checks that the population statistics are not calculated with the steps that read and write the variants through
+ * opencga when an option of the storage layout that opencga doesn't understand is enabled, such as
+ * {@link JobParametersNames#DB_KEYED_FILES} or {@link JobParametersNames#DB_COMPACT_SAMPLES}.
+ *
+ * Throws JobParametersInvalidException If the layout option is true and the statistics are not skipped, calculated
+ * while loading or calculated in chunks
+ */
+public class StatisticsLayoutValidator implements JobParametersValidator {
+
+    private final String layoutParameterName;
+
+    public StatisticsLayoutValidator(String layoutParameterName) {
+        this.layoutParameterName = layoutParameterName;
+    }
+
+    @Override
+    public void validate(JobParameters parameters) throws JobParametersInvalidException {
+        if (!isTrue(parameters, layoutParameterName)) {
+            return;
+        }
+        if (isTrue(parameters, JobParametersNames.STATISTICS_SKIP)
+                || isTrue(parameters, JobParametersNames.CONFIG_LOAD_STATISTICS)
+                || isTrue(parameters, JobParametersNames.CONFIG_STATISTICS_CHUNKED)) {
+            return;
+        }
+        throw new JobParametersInvalidException(
+                layoutParameterName + " requires the statistics to be skipped ("
+                        + JobParametersNames.STATISTICS_SKIP + "), calculated while loading ("
+                        + JobParametersNames.CONFIG_LOAD_STATISTICS + ") or calculated in chunks ("
+                        + JobParametersNames.CONFIG_STATISTICS_CHUNKED + ")");
+    }
+
+    private boolean isTrue(JobParameters parameters, String parameterName) {
+        return Boolean.parseBoolean(parameters.getString(parameterName));
+    }
+}
@@ -30,6 +30,7 @@ import uk.ac.ebi.eva.pipeline.parameters.validation.InputStudyIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OptionalValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OutputDirAnnotationValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.PositiveIntegerValidator;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,7 +65,13 @@ public class AnnotationLoaderStepParametersValidator extends DefaultJobParameter
                 new OutputDirAnnotationValidator(),
                 new OptionalValidator(new ConfigRestartabilityAllowValidator(),
                                       JobParametersNames.CONFIG_RESTARTABILITY_ALLOW),
-                new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE)
+                new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                                      JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                                      JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MAX_SIZE),
+                                      JobParametersNames.CONFIG_CHUNK_MAX_SIZE)
         );
 
         if (isStudyIdRequired) {
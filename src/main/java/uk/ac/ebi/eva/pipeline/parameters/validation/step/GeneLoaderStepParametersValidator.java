@@ -28,6 +28,7 @@ import uk.ac.ebi.eva.pipeline.parameters.validation.DbCollectionsFeaturesNameVal
 import uk.ac.ebi.eva.pipeline.parameters.validation.DbNameValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputGtfValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OptionalValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.PositiveIntegerValidator;
 
 import java.util.Arrays;
 import java.util.List;
@@ -57,7 +58,13 @@ public class GeneLoaderStepParametersValidator extends DefaultJobParametersValid
                 new InputGtfValidator(),
                 new OptionalValidator(new ConfigRestartabilityAllowValidator(),
                                       JobParametersNames.CONFIG_RESTARTABILITY_ALLOW),
-                new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE)
+                new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                                      JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                                      JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MAX_SIZE),
+                                      JobParametersNames.CONFIG_CHUNK_MAX_SIZE)
         );
 
         CompositeJobParametersValidator compositeJobParametersValidator = new CompositeJobParametersValidator();
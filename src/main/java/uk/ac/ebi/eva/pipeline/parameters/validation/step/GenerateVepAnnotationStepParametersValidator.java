@@ -24,6 +24,7 @@ import org.springframework.batch.core.job.DefaultJobParametersValidator;
 import uk.ac.ebi.eva.pipeline.jobs.steps.GenerateVepAnnotationStep;
 import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
 import uk.ac.ebi.eva.pipeline.parameters.validation.AnnotationOverwriteValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.BooleanValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.ConfigChunkSizeValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.DbCollectionsVariantsNameValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.DbNameValidator;
@@ -32,6 +33,7 @@ import uk.ac.ebi.eva.pipeline.parameters.validation.InputStudyIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OptionalValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OutputDirAnnotationValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.PositiveIntegerValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.VepCachePathValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.VepCacheSpeciesValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.VepCacheVersionValidator;
@@ -89,7 +91,21 @@ public class GenerateVepAnnotationStepParametersValidator extends DefaultJobPara
                 new VepNumForksValidator(),
                 new VepPathValidator(),
                 new VepTimeoutValidator(),
-                new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE)
+                new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                                      JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                                      JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MAX_SIZE),
+                                      JobParametersNames.CONFIG_CHUNK_MAX_SIZE),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.DB_KEYED_FILES),
+                                      JobParametersNames.DB_KEYED_FILES),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.APP_VEP_NUM_PROCESSES),
+                                      JobParametersNames.APP_VEP_NUM_PROCESSES),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.APP_VEP_LOAD_DIRECTLY),
+                                      JobParametersNames.APP_VEP_LOAD_DIRECTLY),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.APP_VEP_KEEP_OUTPUT),
+                                      JobParametersNames.APP_VEP_KEEP_OUTPUT)
         );
 
         if (isStudyIdRequired) {
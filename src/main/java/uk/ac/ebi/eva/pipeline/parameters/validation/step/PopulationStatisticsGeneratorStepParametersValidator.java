@@ -23,11 +23,14 @@ import org.springframework.batch.core.job.DefaultJobParametersValidator;
 
 import uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.PopulationStatisticsGeneratorStep;
 import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+import uk.ac.ebi.eva.pipeline.parameters.validation.BooleanValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.DbNameValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputStudyIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OptionalValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OutputDirStatisticsValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.PositiveIntegerValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.StatisticsLayoutValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.StatisticsOverwriteValidator;
 
 import java.util.Arrays;
@@ -56,10 +59,16 @@ public class PopulationStatisticsGeneratorStepParametersValidator extends Defaul
     private CompositeJobParametersValidator compositeJobParametersValidator() {
         final List<JobParametersValidator> jobParametersValidators = Arrays.asList(
                 new OptionalValidator(new StatisticsOverwriteValidator(), JobParametersNames.STATISTICS_OVERWRITE),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.CONFIG_STATISTICS_CHUNKED),
+                                      JobParametersNames.CONFIG_STATISTICS_CHUNKED),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_STATISTICS_NUM_PARTITIONS),
+                                      JobParametersNames.CONFIG_STATISTICS_NUM_PARTITIONS),
                 new DbNameValidator(),
                 new InputStudyIdValidator(),
                 new InputVcfIdValidator(),
-                new OutputDirStatisticsValidator()
+                new OutputDirStatisticsValidator(),
+                new StatisticsLayoutValidator(JobParametersNames.DB_KEYED_FILES),
+                new StatisticsLayoutValidator(JobParametersNames.DB_COMPACT_SAMPLES)
         );
 
         CompositeJobParametersValidator compositeJobParametersValidator = new CompositeJobParametersValidator();
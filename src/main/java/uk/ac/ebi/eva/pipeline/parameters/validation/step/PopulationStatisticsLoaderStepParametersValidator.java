@@ -30,6 +30,7 @@ import uk.ac.ebi.eva.pipeline.parameters.validation.InputStudyIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OptionalValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OutputDirStatisticsValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.StatisticsLayoutValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.StatisticsOverwriteValidator;
 
 import java.util.Arrays;
@@ -65,7 +66,8 @@ public class PopulationStatisticsLoaderStepParametersValidator extends DefaultJo
                 new InputStudyIdValidator(),
                 new InputVcfIdValidator(),
                 new OutputDirStatisticsValidator(),
-                new OptionalValidator(new StatisticsOverwriteValidator(), JobParametersNames.STATISTICS_OVERWRITE)
+                new OptionalValidator(new StatisticsOverwriteValidator(), JobParametersNames.STATISTICS_OVERWRITE),
+                new StatisticsLayoutValidator(JobParametersNames.DB_KEYED_FILES)
         );
 
         CompositeJobParametersValidator compositeJobParametersValidator = new CompositeJobParametersValidator();
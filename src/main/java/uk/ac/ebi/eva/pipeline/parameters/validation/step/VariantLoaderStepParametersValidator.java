@@ -22,7 +22,9 @@ import org.springframework.batch.core.job.CompositeJobParametersValidator;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
 
 import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+import uk.ac.ebi.eva.pipeline.parameters.validation.BooleanValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.ConfigChunkSizeValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.ConfigLoadIdFilterValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.ConfigRestartabilityAllowValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.DbCollectionsVariantsNameValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.DbNameValidator;
@@ -32,6 +34,7 @@ import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfAggregationValidator
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfIdValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.InputVcfValidator;
 import uk.ac.ebi.eva.pipeline.parameters.validation.OptionalValidator;
+import uk.ac.ebi.eva.pipeline.parameters.validation.PositiveIntegerValidator;
 
 import java.util.Arrays;
 import java.util.List;
@@ -63,6 +66,10 @@ public class VariantLoaderStepParametersValidator extends DefaultJobParametersVa
         final List<JobParametersValidator> jobParametersValidators = Arrays.asList(
                 new DbNameValidator(),
                 new DbCollectionsVariantsNameValidator(),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.DB_COMPACT_SAMPLES),
+                        JobParametersNames.DB_COMPACT_SAMPLES),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.DB_KEYED_FILES),
+                        JobParametersNames.DB_KEYED_FILES),
                 new InputStudyIdValidator(),
                 new InputVcfIdValidator(),
                 new InputVcfValidator(),
@@ -70,6 +77,27 @@ public class VariantLoaderStepParametersValidator extends DefaultJobParametersVa
                 new OptionalValidator(new InputVcfAggregationMappingPathValidator(),
                         JobParametersNames.INPUT_VCF_AGGREGATION_MAPPING_PATH),
                 new OptionalValidator(new ConfigChunkSizeValidator(), JobParametersNames.CONFIG_CHUNK_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                        JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                        JobParametersNames.CONFIG_CHUNK_MIN_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MAX_SIZE),
+                        JobParametersNames.CONFIG_CHUNK_MAX_SIZE),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_CHUNK_MEMORY_BUDGET_MB),
+                        JobParametersNames.CONFIG_CHUNK_MEMORY_BUDGET_MB),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_LOAD_NUM_PARTITIONS),
+                        JobParametersNames.CONFIG_LOAD_NUM_PARTITIONS),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.CONFIG_LOAD_PIPELINED),
+                        JobParametersNames.CONFIG_LOAD_PIPELINED),
+                new OptionalValidator(new PositiveIntegerValidator(JobParametersNames.CONFIG_LOAD_IN_FLIGHT_BULKS),
+                        JobParametersNames.CONFIG_LOAD_IN_FLIGHT_BULKS),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.CONFIG_LOAD_INSERT_ONLY),
+                        JobParametersNames.CONFIG_LOAD_INSERT_ONLY),
+                new OptionalValidator(new ConfigLoadIdFilterValidator(), JobParametersNames.CONFIG_LOAD_ID_FILTER),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.CONFIG_LOAD_DEFER_INDEXES),
+                        JobParametersNames.CONFIG_LOAD_DEFER_INDEXES),
+                new OptionalValidator(new BooleanValidator(JobParametersNames.CONFIG_LOAD_STATISTICS),
+                        JobParametersNames.CONFIG_LOAD_STATISTICS),
                 new OptionalValidator(new ConfigRestartabilityAllowValidator(),
                         JobParametersNames.CONFIG_RESTARTABILITY_ALLOW)
         );
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.utils;
+
+import com.mongodb.DBObject;
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBObject;
+import org.bson.BSON;
+
+import java.util.Arrays;
+
+/**
+ * Writes BSON documents straight into a byte buffer, without building a {@link com.mongodb.BasicDBObject} first.
+ * <p>
+ * Values are written in the same order and with the same types that {@link com.mongodb.DefaultDBEncoder} would use
+ * for the equivalent Java objects: a document is started with {@link #writeStartDocument()}, and every field is a
+ * {@link #writeName(String) name} followed by a value. The elements of an array don't have a name, they are numbered
+ * automatically. When the top-level document is finished, {@link #toDBObject()} copies it out of the buffer, which
+ * is reused for the next document.
+ * <p>
+ * The documents are {@link LazyDBObject}s; {@link RawDBObjectEncoder} sends them to the database as they are.
+ * <p>
+ * An instance must not be shared between threads.
+ */
+public class BsonDocumentWriter {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final int MAX_DEPTH = 100;
+
+    private static final LazyDBCallback CALLBACK = new LazyDBCallback(null);
+
+    private byte[] buffer;
+
+    private int position;
+
+    /**
+     * Start position of each open document or array
+     */
+    private final int[] containerStarts;
+
+    /**
+     * Index of the next element of each open array, or -1 for documents
+     */
+    private final int[] nextIndexes;
+
+    private int depth;
+
+    private String name;
+
+    public BsonDocumentWriter() {
+        buffer = new byte[INITIAL_CAPACITY];
+        containerStarts = new int[MAX_DEPTH];
+        nextIndexes = new int[MAX_DEPTH];
+    }
+
+    /**
+     * Starts a top-level document, or a document value. Starting a top-level document discards anything written
+     * before.
+     */
+    public void writeStartDocument() {
+        if (depth == 0) {
+            position = 0;
+            name = null;
+        } else {
+            writeElementHeader(BSON.OBJECT);
+        }
+        openContainer(-1);
+    }
+
+    public void writeEndDocument() {
+        closeContainer(false);
+    }
+
+    public void writeStartArray() {
+        writeElementHeader(BSON.ARRAY);
+        openContainer(0);
+    }
+
+    public void writeEndArray() {
+        closeContainer(true);
+    }
+
+    public void writeName(String name) {
+        if (depth == 0 || nextIndexes[depth - 1] >= 0) {
+            throw new IllegalStateException("Field names can only be written inside a document");
+        }
+        this.name = name;
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        writeElementHeader(BSON.STRING);
+        int lengthPosition = position;
+        ensureCapacity(4);
+        position += 4;
+        writeUtf8(value);
+        writeByte((byte) 0);
+        writeInt32At(lengthPosition, position - lengthPosition - 4);
+    }
+
+    public void writeString(String name, String value) {
+        writeName(name);
+        writeString(value);
+    }
+
+    public void writeInt32(int value) {
+        writeElementHeader(BSON.NUMBER_INT);
+        ensureCapacity(4);
+        writeInt32At(position, value);
+        position += 4;
+    }
+
+    public void writeInt32(String name, int value) {
+        writeName(name);
+        writeInt32(value);
+    }
+
+    public void writeDouble(double value) {
+        writeElementHeader(BSON.NUMBER);
+        ensureCapacity(8);
+        long bits = Double.doubleToRawLongBits(value);
+        writeInt32At(position, (int) bits);
+        writeInt32At(position + 4, (int) (bits >>> 32));
+        position += 8;
+    }
+
+    public void writeDouble(String name, double value) {
+        writeName(name);
+        writeDouble(value);
+    }
+
+    public void writeBinaryData(byte[] value) {
+        writeBinaryData(BSON.B_GENERAL, value);
+    }
+
+    public void writeBinaryData(byte subtype, byte[] value) {
+        writeElementHeader(BSON.BINARY);
+        ensureCapacity(5 + value.length);
+        writeInt32At(position, value.length);
+        buffer[position + 4] = subtype;
+        System.arraycopy(value, 0, buffer, position + 5, value.length);
+        position += 5 + value.length;
+    }
+
+    public void writeNull() {
+        writeElementHeader(BSON.NULL);
+    }
+
+    /**
+     * @return a copy of the top-level document that has just been finished
+     */
+    public DBObject toDBObject() {
+        if (depth != 0 || position == 0) {
+            throw new IllegalStateException("The document has not been finished");
+        }
+        return new LazyDBObject(Arrays.copyOf(buffer, position), CALLBACK);
+    }
+
+    private void openContainer(int firstIndex) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("Documents can't be nested more than " + MAX_DEPTH + " levels");
+        }
+        containerStarts[depth] = position;
+        nextIndexes[depth] = firstIndex;
+        depth++;
+        // the length is written when the container is closed
+        ensureCapacity(4);
+        position += 4;
+    }
+
+    private void closeContainer(boolean array) {
+        if (depth == 0 || (nextIndexes[depth - 1] >= 0) != array) {
+            throw new IllegalStateException("There is no " + (array ? "array" : "document") + " to end");
+        }
+        writeByte((byte) 0);
+        depth--;
+        writeInt32At(containerStarts[depth], position - containerStarts[depth]);
+    }
+
+    private void writeElementHeader(byte type) {
+        if (depth == 0) {
+            throw new IllegalStateException("Values can only be written inside a document or an array");
+        }
+        writeByte(type);
+        if (nextIndexes[depth - 1] >= 0) {
+            writeIndex(nextIndexes[depth - 1]++);
+        } else {
+            if (name == null) {
+                throw new IllegalStateException("The name of the field must be written before its value");
+            }
+            writeUtf8(name);
+            name = null;
+        }
+        writeByte((byte) 0);
+    }
+
+    /**
+     * Writes the decimal digits of an array index, which is the name of an array element.
+     */
+    private void writeIndex(int index) {
+        int digits = 1;
+        for (int remaining = index / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + index % 10);
+            index /= 10;
+        }
+        position += digits;
+    }
+
+    private void writeUtf8(String value) {
+        ensureCapacity(value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                // unpaired surrogates are written as they are, like the driver does
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    /**
+     * Little-endian, as every number in BSON
+     */
+    private void writeInt32At(int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+}
@@ -20,7 +20,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
-import uk.ac.ebi.eva.pipeline.io.GzipLazyResource;
+import uk.ac.ebi.eva.pipeline.io.BgzfLazyResource;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -59,7 +59,7 @@ public abstract class FileUtils {
     public static Resource getResource(File file) throws IOException {
         Resource resource;
         if (CompressionHelper.isGzip(file)) {
-            resource = new GzipLazyResource(file);
+            resource = new BgzfLazyResource(file);
         } else {
             resource = new FileSystemResource(file);
         }
@@ -15,14 +15,19 @@
  */
 package uk.ac.ebi.eva.utils;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
 import com.mongodb.ServerAddress;
 import org.opencb.commons.utils.CryptoUtils;
 
 import uk.ac.ebi.eva.commons.models.data.Variant;
 
 import java.net.UnknownHostException;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 
 public class MongoDBHelper {
@@ -51,6 +56,40 @@ public class MongoDBHelper {
         return serverAddresses;
     }
 
+    /**
+     * Creates the indexes that are not in the collection yet. The indexes are compared by their default name, which is
+     * built from their keys, so existing indexes are never rebuilt.
+     *
+     * @param background whether to build the indexes in background, which doesn't block the writes to the collection
+     *                   but takes longer and leaves bigger indexes
+     */
+    public static void createIndexesIfMissing(DBCollection collection, List<DBObject> indexesKeys,
+                                              boolean background) {
+        Set<String> existingIndexes = new HashSet<>();
+        for (DBObject index : collection.getIndexInfo()) {
+            existingIndexes.add(index.get(INDEX_NAME).toString());
+        }
+        for (DBObject keys : indexesKeys) {
+            if (!existingIndexes.contains(buildIndexName(keys))) {
+                collection.createIndex(keys, new BasicDBObject(BACKGROUND_INDEX, background));
+            }
+        }
+    }
+
+    /**
+     * Same name that the database gives by default to an index with these keys, e.g. "chr_1_start_1"
+     */
+    static String buildIndexName(DBObject keys) {
+        StringBuilder name = new StringBuilder();
+        for (String key : keys.keySet()) {
+            if (name.length() > 0) {
+                name.append("_");
+            }
+            name.append(key).append("_").append(keys.get(key));
+        }
+        return name.toString();
+    }
+
     public static String buildStorageId(Variant v) {
         return buildStorageId(v.getChromosome(), v.getStart(), v.getReference(), v.getAlternate());
     }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.utils;
+
+import com.mongodb.DBEncoderFactory;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.LazyDBObject;
+import com.mongodb.MongoException;
+import org.bson.BSONObject;
+import org.bson.io.OutputBuffer;
+
+import java.io.IOException;
+
+/**
+ * Encoder that copies the bytes of the documents that are already in BSON ({@link LazyDBObject}s, such as the ones
+ * built by {@link BsonDocumentWriter}), and encodes the rest of documents as usual.
+ * <p>
+ * The default encoder reads every field of a {@link LazyDBObject} to encode it again. Setting {@link #FACTORY} in a
+ * collection makes its inserts and updates send those documents as they are.
+ */
+public class RawDBObjectEncoder extends DefaultDBEncoder {
+
+    public static final DBEncoderFactory FACTORY = RawDBObjectEncoder::new;
+
+    @Override
+    public int writeObject(OutputBuffer buffer, BSONObject document) {
+        if (!(document instanceof LazyDBObject)) {
+            return super.writeObject(buffer, document);
+        }
+        try {
+            return ((LazyDBObject) document).pipe(buffer);
+        } catch (IOException e) {
+            throw new MongoException("Exception serializing a raw BSON document", e);
+        }
+    }
+}
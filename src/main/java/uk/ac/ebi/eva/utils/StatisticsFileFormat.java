@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Encodings of the files of variant and source statistics, which are told apart by their extension.
+ * <p>
+ * JSON is what the statistics calculator writes. SMILE is the binary counterpart of JSON with the same data model,
+ * so the same objects can be read without the text parsing and compression that dominate the cost of loading the
+ * statistics of big studies, if the files are provided in that format.
+ */
+public enum StatisticsFileFormat {
+
+    JSON(".json.gz") {
+        @Override
+        public JsonFactory createFactory() {
+            JsonFactory factory = new JsonFactory();
+            factory.setRootValueSeparator("\n");
+            return factory;
+        }
+
+        @Override
+        public InputStream open(File file) throws IOException {
+            return new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE);
+        }
+    },
+
+    SMILE(".smile") {
+        @Override
+        public JsonFactory createFactory() {
+            // genotypes and alleles are repeated in most of the statistics, write them only once
+            return new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        }
+
+        @Override
+        public InputStream open(File file) throws IOException {
+            return new FileInputStream(file);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    StatisticsFileFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return the format of a statistics file given its name, being JSON if the extension is not known, as the files
+     * written before there were more formats
+     */
+    public static StatisticsFileFormat fromPath(String path) {
+        for (StatisticsFileFormat format : values()) {
+            if (path.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+
+    public abstract JsonFactory createFactory();
+
+    public abstract InputStream open(File file) throws IOException;
+}
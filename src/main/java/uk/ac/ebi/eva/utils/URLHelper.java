@@ -15,18 +15,23 @@
  */
 package uk.ac.ebi.eva.utils;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class URLHelper {
 
-    private static final String VARIANT_STATS_SUFFIX = ".variants.stats.json.gz";
+    private static final String VARIANT_STATS_SUFFIX = ".variants.stats";
 
-    private static final String SOURCE_STATS_SUFFIX = ".source.stats.json.gz";
+    private static final String SOURCE_STATS_SUFFIX = ".source.stats";
 
     public static final String ANNOTATED_VARIANTS_SUFFIX = "_vep_annotation.tsv.gz";
 
+    private static final String ANNOTATED_VARIANTS_SHARD_SUFFIX = "_vep_annotation_%d.tsv.gz";
+
     public static URI createUri(String input) throws URISyntaxException {
         URI sourceUri = new URI(input);
         if (sourceUri.getScheme() == null || sourceUri.getScheme().isEmpty()) {
@@ -36,13 +41,51 @@ public class URLHelper {
     }
 
     public static URI getVariantsStatsUri(String outputDirStatistics, String studyId, String fileId) throws URISyntaxException {
-        return URLHelper.createUri(
-                getStatsBaseUri(outputDirStatistics, studyId, fileId).getPath() + VARIANT_STATS_SUFFIX);
+        return getVariantsStatsUri(outputDirStatistics, studyId, fileId, StatisticsFileFormat.JSON);
+    }
+
+    public static URI getVariantsStatsUri(String outputDirStatistics, String studyId, String fileId,
+                                          StatisticsFileFormat format) throws URISyntaxException {
+        return URLHelper.createUri(getStatsBaseUri(outputDirStatistics, studyId, fileId).getPath()
+                                           + VARIANT_STATS_SUFFIX + format.getExtension());
     }
 
     public static URI getSourceStatsUri(String outputDirStatistics, String studyId, String fileId) throws URISyntaxException {
-        return URLHelper.createUri(
-                getStatsBaseUri(outputDirStatistics, studyId, fileId).getPath() + SOURCE_STATS_SUFFIX);
+        return getSourceStatsUri(outputDirStatistics, studyId, fileId, StatisticsFileFormat.JSON);
+    }
+
+    public static URI getSourceStatsUri(String outputDirStatistics, String studyId, String fileId,
+                                        StatisticsFileFormat format) throws URISyntaxException {
+        return URLHelper.createUri(getStatsBaseUri(outputDirStatistics, studyId, fileId).getPath()
+                                           + SOURCE_STATS_SUFFIX + format.getExtension());
+    }
+
+    /**
+     * Variants statistics file of a study and file in the first format it is found, or in JSON if there is none.
+     */
+    public static URI findVariantsStatsUri(String outputDirStatistics, String studyId, String fileId)
+            throws URISyntaxException {
+        for (StatisticsFileFormat format : StatisticsFileFormat.values()) {
+            URI variantsStatsUri = getVariantsStatsUri(outputDirStatistics, studyId, fileId, format);
+            if (new File(variantsStatsUri.getPath()).exists()) {
+                return variantsStatsUri;
+            }
+        }
+        return getVariantsStatsUri(outputDirStatistics, studyId, fileId);
+    }
+
+    /**
+     * Source statistics file of a study and file in the first format it is found, or in JSON if there is none.
+     */
+    public static URI findSourceStatsUri(String outputDirStatistics, String studyId, String fileId)
+            throws URISyntaxException {
+        for (StatisticsFileFormat format : StatisticsFileFormat.values()) {
+            URI sourceStatsUri = getSourceStatsUri(outputDirStatistics, studyId, fileId, format);
+            if (new File(sourceStatsUri.getPath()).exists()) {
+                return sourceStatsUri;
+            }
+        }
+        return getSourceStatsUri(outputDirStatistics, studyId, fileId);
     }
 
     public static URI getStatsBaseUri(String outputDirStatistics, String studyId, String fileId) throws URISyntaxException {
@@ -57,4 +100,39 @@ public class URLHelper {
     public static String resolveVepOutput(String outputDirAnnotation, String studyId, String vcfId) {
         return outputDirAnnotation + "/" + studyId + "_" + vcfId + ANNOTATED_VARIANTS_SUFFIX;
     }
+
+    /**
+     * Output file of one of several VEP processes running in parallel for the same study and file.
+     */
+    public static String resolveVepOutputShard(String outputDirAnnotation, String studyId, String vcfId,
+                                               int shard) {
+        return outputDirAnnotation + "/" + studyId + "_" + vcfId + String.format(ANNOTATED_VARIANTS_SHARD_SUFFIX,
+                                                                                shard);
+    }
+
+    /**
+     * Lists the VEP output files of a study and file that exist, either {@link #resolveVepOutput} if a single VEP
+     * process was used, or the {@link #resolveVepOutputShard} of each of the processes. Outputs left by a run with a
+     * different number of processes, and backups of failed VEP executions, are not included.
+     */
+    public static List<File> findVepOutputs(String outputDirAnnotation, String studyId, String vcfId,
+                                            int vepNumProcesses) {
+        List<String> expectedOutputs = new ArrayList<>();
+        if (vepNumProcesses <= 1) {
+            expectedOutputs.add(resolveVepOutput(outputDirAnnotation, studyId, vcfId));
+        } else {
+            for (int shard = 0; shard < vepNumProcesses; shard++) {
+                expectedOutputs.add(resolveVepOutputShard(outputDirAnnotation, studyId, vcfId, shard));
+            }
+        }
+
+        List<File> vepOutputs = new ArrayList<>();
+        for (String expectedOutput : expectedOutputs) {
+            File vepOutput = new File(expectedOutput);
+            if (vepOutput.exists()) {
+                vepOutputs.add(vepOutput);
+            }
+        }
+        return vepOutputs;
+    }
 }
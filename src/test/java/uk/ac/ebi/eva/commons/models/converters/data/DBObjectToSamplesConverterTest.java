@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import com.mongodb.BasicDBObject;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.models.data.SamplesData;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests {@link DBObjectToSamplesConverter}
+ * <p>
+ * Input: samples classified by genotype, as stored in mongo
+ * output: the genotype of each sample
+ */
+public class DBObjectToSamplesConverterTest {
+
+    @Test
+    public void samplesNotListedShouldHaveTheDefaultGenotype() {
+        BasicDBObject mongoSamples = new BasicDBObject(SamplesToDBObjectConverter.DEFAULT_GENOTYPE_FIELD, "0|0")
+                .append("0|1", Arrays.asList(1, 3))
+                .append("1|1", SamplePositionsCodec.encodeAsBinary(new int[]{2}));
+
+        SamplesData samples = new DBObjectToSamplesConverter(5).convert(mongoSamples);
+
+        assertEquals(5, samples.getNumSamples());
+        assertEquals("0|0", samples.getGenotype(0));
+        assertEquals("0|1", samples.getGenotype(1));
+        assertEquals("1|1", samples.getGenotype(2));
+        assertEquals("0|1", samples.getGenotype(3));
+        assertEquals("0|0", samples.getGenotype(4));
+    }
+
+    @Test
+    public void samplesShouldHaveNoGenotypeWithoutDefault() {
+        BasicDBObject mongoSamples = new BasicDBObject("0/1", Arrays.asList(0));
+
+        SamplesData samples = new DBObjectToSamplesConverter(2).convert(mongoSamples);
+
+        assertEquals("0/1", samples.getGenotype(0));
+        assertNull(samples.getGenotype(1));
+    }
+
+    @Test
+    public void missingAllelesShouldBeRestored() {
+        BasicDBObject mongoSamples = new BasicDBObject(SamplesToDBObjectConverter.DEFAULT_GENOTYPE_FIELD, "-1/-1")
+                .append("-1/1", Arrays.asList(1));
+
+        SamplesData samples = new DBObjectToSamplesConverter(2).convert(mongoSamples);
+
+        assertEquals("./.", samples.getGenotype(0));
+        assertEquals("./1", samples.getGenotype(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void positionsOutOfTheSamplesShouldBeRejected() {
+        new DBObjectToSamplesConverter(2).convert(new BasicDBObject("0|1", Arrays.asList(2)));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link KeyedFilesLayout}
+ * <p>
+ * Input: variant documents with the files and statistics in arrays or keyed by study, file and cohort
+ * output: the same files and statistics for both layouts
+ */
+public class KeyedFilesLayoutTest {
+
+    private static final DBObject FILE_1 = new BasicDBObject("fid", "f1").append("sid", "s1");
+
+    private static final DBObject FILE_2 = new BasicDBObject("fid", "f2").append("sid", "s1");
+
+    private static final DBObject FILE_3 = new BasicDBObject("fid", "f.3").append("sid", "s2");
+
+    private static final DBObject STATS_1 = new BasicDBObject("cid", "ALL").append("sid", "s1").append("fid", "f1");
+
+    private static final DBObject STATS_2 = new BasicDBObject("cid", "EUR").append("sid", "s1").append("fid", "f1");
+
+    @Test
+    public void filesShouldBeReadFromBothLayouts() {
+        BasicDBList files = new BasicDBList();
+        files.addAll(Arrays.asList(FILE_1, FILE_2, FILE_3));
+        DBObject arrayVariant = new BasicDBObject("files", files);
+
+        DBObject keyedVariant = new BasicDBObject("files", new BasicDBObject(
+                "s1", new BasicDBObject("f1", FILE_1).append("f2", FILE_2))
+                .append("s2", new BasicDBObject("f£3", FILE_3)));
+
+        assertEquals(Arrays.asList(FILE_1, FILE_2, FILE_3), KeyedFilesLayout.getFiles(arrayVariant));
+        assertEquals(Arrays.asList(FILE_1, FILE_2, FILE_3), KeyedFilesLayout.getFiles(keyedVariant));
+    }
+
+    @Test
+    public void statsShouldBeReadFromBothLayouts() {
+        BasicDBList stats = new BasicDBList();
+        stats.addAll(Arrays.asList(STATS_1, STATS_2));
+        DBObject arrayVariant = new BasicDBObject("st", stats);
+
+        DBObject keyedVariant = new BasicDBObject("st", new BasicDBObject(
+                "s1", new BasicDBObject("f1", new BasicDBObject("ALL", STATS_1).append("EUR", STATS_2))));
+
+        assertEquals(Arrays.asList(STATS_1, STATS_2), KeyedFilesLayout.getStats(arrayVariant));
+        assertEquals(Arrays.asList(STATS_1, STATS_2), KeyedFilesLayout.getStats(keyedVariant));
+    }
+
+    @Test
+    public void missingFieldsShouldBeEmpty() {
+        DBObject variant = new BasicDBObject("_id", "1_1000_A_C");
+        assertEquals(Collections.emptyList(), KeyedFilesLayout.getFiles(variant));
+        assertEquals(Collections.emptyList(), KeyedFilesLayout.getStats(variant));
+    }
+
+    @Test
+    public void dotsInKeysShouldBeReplaced() {
+        assertEquals("files.study£1.file£vcf£gz", KeyedFilesLayout.fileField("study.1", "file.vcf.gz"));
+        assertEquals("st.study£1.file£vcf£gz", KeyedFilesLayout.fileStatsField("study.1", "file.vcf.gz"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyKeysShouldBeRejected() {
+        KeyedFilesLayout.encodeKey("");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void operatorKeysShouldBeRejected() {
+        KeyedFilesLayout.encodeKey("$set");
+    }
+}
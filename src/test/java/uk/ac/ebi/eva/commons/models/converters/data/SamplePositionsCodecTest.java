@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import org.bson.types.Binary;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link SamplePositionsCodec}
+ * <p>
+ * Input: positions of samples
+ * output: the same positions after encoding and decoding them
+ */
+public class SamplePositionsCodecTest {
+
+    @Test
+    public void positionsShouldBeDecodedAsTheyWereEncoded() {
+        int[] positions = {0, 41, 311, 342, 358, 881, 898, 903, 100000, Integer.MAX_VALUE};
+        assertArrayEquals(positions, SamplePositionsCodec.decode(SamplePositionsCodec.encode(positions)));
+    }
+
+    @Test
+    public void emptyPositionsShouldBeDecoded() {
+        int[] positions = {};
+        assertArrayEquals(positions, SamplePositionsCodec.decode(SamplePositionsCodec.encode(positions)));
+    }
+
+    @Test
+    public void closePositionsShouldTakeOneByteEach() {
+        int[] positions = new int[1000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = 5000 + i * 3;
+        }
+        // the count and the first position take 2 bytes each
+        assertEquals(positions.length + 3, SamplePositionsCodec.encode(positions).length);
+    }
+
+    @Test
+    public void bothEncodingsShouldBeDecoded() {
+        int[] positions = {1, 2, 300};
+        assertArrayEquals(positions, SamplePositionsCodec.decode(SamplePositionsCodec.encodeAsBinary(positions)));
+        assertArrayEquals(positions, SamplePositionsCodec.decode((Object) Arrays.asList(1, 2, 300)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsortedPositionsShouldBeRejected() {
+        SamplePositionsCodec.encode(new int[]{5, 3});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedPositionsShouldBeRejected() {
+        byte[] encoded = SamplePositionsCodec.encode(new int[]{1, 2, 300});
+        SamplePositionsCodec.decode(Arrays.copyOf(encoded, encoded.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void otherBinarySubtypesShouldBeRejected() {
+        SamplePositionsCodec.decode(new Binary(SamplePositionsCodec.encode(new int[]{1})));
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -99,4 +100,16 @@ public class VariantSourceEntryToDBObjectConverterTest {
         DBObject convertedMongo = converter.convert(file);
         assertEquals(mongoFileWithIds, convertedMongo);
     }
+
+    @Test
+    public void testConvertToStorageTypeWithCompactSamples() {
+        VariantSourceEntryToDBObjectConverter converter;
+        converter = new VariantSourceEntryToDBObjectConverter(new SamplesToDBObjectConverter(true));
+        DBObject convertedMongo = converter.convert(file);
+
+        DBObject samples = (DBObject) convertedMongo.get(VariantSourceEntryToDBObjectConverter.SAMPLES_FIELD);
+        assertEquals("0/0", samples.get("def"));
+        assertArrayEquals(new int[]{1}, SamplePositionsCodec.decode(samples.get("0/1")));
+        assertArrayEquals(new int[]{2}, SamplePositionsCodec.decode(samples.get("1/1")));
+    }
 }
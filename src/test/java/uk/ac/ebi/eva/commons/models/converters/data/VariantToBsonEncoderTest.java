@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.converters.data;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.feature.Genotype;
+
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
+import uk.ac.ebi.eva.utils.BsonDocumentWriter;
+import uk.ac.ebi.eva.utils.RawDBObjectEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Tests {@link VariantToBsonEncoder}
+ * <p>
+ * Input: {@link Variant}
+ * output: the same BSON that the driver encodes for the DBObjects of the converters
+ */
+public class VariantToBsonEncoderTest {
+
+    private Variant variant;
+
+    private VariantSourceEntry sourceEntry;
+
+    @Before
+    public void setUp() {
+        variant = new Variant("1", 1000, 1000, "A", "C");
+        sourceEntry = new VariantSourceEntry("f1", "s1", new String[]{"T"}, "GT:DP");
+        sourceEntry.addAttribute("QUAL", "0.01");
+        sourceEntry.addAttribute("MAX.PROC", "2");
+        sourceEntry.addAttribute("src", "1\t1000\t.\tA\tC,T\t100\tPASS\t.\tGT:DP\t0/0:4");
+
+        String[] genotypes = {"0/0", "0/1", "0/0", "./.", "1/1", "0/0", "0/2"};
+        for (int i = 0; i < genotypes.length; i++) {
+            Map<String, String> sampleData = new HashMap<>();
+            sampleData.put("GT", genotypes[i]);
+            sampleData.put("DP", Integer.toString(i));
+            sourceEntry.addSampleData(sampleData);
+        }
+
+        VariantStats stats = new VariantStats(variant);
+        stats.addGenotype(new Genotype("0/0"), 3);
+        stats.addGenotype(new Genotype("0/1"), 1);
+        stats.setMaf(0.1f);
+        stats.setMafAllele("C");
+        sourceEntry.setCohortStats("ALL", stats);
+        sourceEntry.setCohortStats("EUR", new VariantStats(variant));
+
+        variant.addSourceEntry(sourceEntry);
+    }
+
+    @Test
+    public void variantFieldsShouldBeEncodedLikeTheConverter() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        new VariantToBsonEncoder(false).writeVariantFields(writer, variant);
+        writer.writeEndDocument();
+
+        DBObject expected = new VariantToDBObjectConverter().convert(variant);
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    @Test
+    public void sourceEntryWithoutSamplesShouldBeEncodedLikeTheConverter() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeName(VariantToDBObjectConverter.FILES_FIELD);
+        new VariantToBsonEncoder(false).writeSourceEntry(writer, sourceEntry);
+        writer.writeEndDocument();
+
+        DBObject expected = new BasicDBObject(VariantToDBObjectConverter.FILES_FIELD,
+                                              new VariantSourceEntryToDBObjectConverter().convert(sourceEntry));
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    @Test
+    public void sourceEntryWithSamplesShouldBeEncodedLikeTheConverter() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeName(VariantToDBObjectConverter.FILES_FIELD);
+        new VariantToBsonEncoder(true).writeSourceEntry(writer, sourceEntry);
+        writer.writeEndDocument();
+
+        VariantSourceEntryToDBObjectConverter converter = new VariantSourceEntryToDBObjectConverter(
+                new SamplesToDBObjectConverter());
+        DBObject expected = new BasicDBObject(VariantToDBObjectConverter.FILES_FIELD, converter.convert(sourceEntry));
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    @Test
+    public void compactSamplesShouldBeEncodedLikeTheConverter() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeName(VariantToDBObjectConverter.FILES_FIELD);
+        new VariantToBsonEncoder(true, true).writeSourceEntry(writer, sourceEntry);
+        writer.writeEndDocument();
+
+        VariantSourceEntryToDBObjectConverter converter = new VariantSourceEntryToDBObjectConverter(
+                new SamplesToDBObjectConverter(true));
+        DBObject expected = new BasicDBObject(VariantToDBObjectConverter.FILES_FIELD, converter.convert(sourceEntry));
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    @Test
+    public void statsShouldBeEncodedLikeTheConverter() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeName(VariantToDBObjectConverter.STATS_FIELD);
+        writer.writeStartArray();
+        new VariantToBsonEncoder(false).writeStats(writer, sourceEntry);
+        writer.writeEndArray();
+        writer.writeEndDocument();
+
+        BasicDBList stats = new BasicDBList();
+        stats.addAll(new VariantStatsToDBObjectConverter().convert(sourceEntry));
+        DBObject expected = new BasicDBObject(VariantToDBObjectConverter.STATS_FIELD, stats);
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    @Test
+    public void keyedStatsShouldBeEncodedLikeTheConverter() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeName("s1");
+        writer.writeStartDocument();
+        writer.writeName("f1");
+        writer.writeStartDocument();
+        new VariantToBsonEncoder(false).writeKeyedStats(writer, sourceEntry);
+        writer.writeEndDocument();
+        writer.writeEndDocument();
+        writer.writeEndDocument();
+
+        DBObject converted = new VariantToDBObjectConverter(null, null, new VariantStatsToDBObjectConverter(), true)
+                .convert(variant);
+        DBObject expected = (DBObject) converted.get(VariantToDBObjectConverter.STATS_FIELD);
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    private byte[] encode(DBObject document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        new RawDBObjectEncoder().writeObject(buffer, document);
+        return buffer.toByteArray();
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 
 import uk.ac.ebi.eva.commons.models.data.Variant;
 import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -117,6 +118,26 @@ public class VariantToDBObjectConverterTest {
         assertEquals(mongoVariant, converted);
     }
 
+    @Test
+    public void testConvertToStorageTypeWithKeyedFiles() {
+        variantSourceEntry.setCohortStats("ALL", new VariantStats(variant));
+        VariantSourceEntryToDBObjectConverter sourceEntryConverter = new VariantSourceEntryToDBObjectConverter(
+                new SamplesToDBObjectConverter());
+        VariantStatsToDBObjectConverter statsConverter = new VariantStatsToDBObjectConverter();
+
+        DBObject converted = new VariantToDBObjectConverter(sourceEntryConverter, null, statsConverter, true)
+                .convert(variant);
+
+        DBObject expectedFile = sourceEntryConverter.convert(variantSourceEntry);
+        DBObject expectedStats = statsConverter.convert(variantSourceEntry).get(0);
+        assertEquals(new BasicDBObject("s1", new BasicDBObject("f1", expectedFile)),
+                     converted.get(VariantToDBObjectConverter.FILES_FIELD));
+        assertEquals(new BasicDBObject("s1", new BasicDBObject("f1", new BasicDBObject("ALL", expectedStats))),
+                     converted.get(VariantToDBObjectConverter.STATS_FIELD));
+        assertEquals(Collections.singletonList(expectedFile), KeyedFilesLayout.getFiles(converted));
+        assertEquals(Collections.singletonList(expectedStats), KeyedFilesLayout.getStats(converted));
+    }
+
     @Test
     public void testConvertToStorageTypeWithoutFiles() {
         VariantToDBObjectConverter converter = new VariantToDBObjectConverter();
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link SamplesData}
+ * input: the fields of each sample
+ * output: the same fields, with the genotypes encoded as one code per sample
+ */
+public class SamplesDataTest {
+
+    @Test
+    public void samplesWithTheSameGenotypeShouldShareTheCode() {
+        SamplesData samples = new SamplesData();
+        int gt = samples.getFieldIndex("GT");
+        for (String genotype : Arrays.asList("0|0", "0|1", "0|0", "1|1", "0|0")) {
+            samples.setValue(samples.addSample(), gt, genotype);
+        }
+
+        assertEquals(5, samples.getNumSamples());
+        assertEquals(3, samples.getNumGenotypes());
+        assertEquals(samples.getGenotypeCode(0), samples.getGenotypeCode(2));
+        assertEquals("1|1", samples.getGenotypeOfCode(samples.getGenotypeCode(3)));
+        assertArrayEquals(new int[]{3, 1, 1}, samples.countGenotypes());
+    }
+
+    @Test
+    public void samplesWithoutGenotypeShouldNotBeCounted() {
+        SamplesData samples = new SamplesData();
+        int gt = samples.getFieldIndex("GT");
+        samples.setValue(samples.addSample(), gt, "0/1");
+        samples.addSample();
+
+        assertEquals(SamplesData.NO_GENOTYPE, samples.getGenotypeCode(1));
+        assertNull(samples.getGenotype(1));
+        assertArrayEquals(new int[]{1}, samples.countGenotypes());
+    }
+
+    @Test
+    public void fieldsShouldOnlyBeStoredForTheSamplesThatHaveThem() {
+        SamplesData samples = new SamplesData();
+        Map<String, String> na001 = new HashMap<>();
+        na001.put("GT", "0/0");
+        na001.put("DP", "10");
+        Map<String, String> na002 = new HashMap<>();
+        na002.put("GT", "0/1");
+        na002.put("GQ", "99");
+        samples.addSample(na001);
+        samples.addSample(na002);
+
+        assertEquals("10", samples.getValue(0, "DP"));
+        assertNull(samples.getValue(1, "DP"));
+        assertEquals("99", samples.getValue(1, "GQ"));
+        assertNull(samples.getValue(0, "GQ"));
+        assertNull(samples.getValue(0, "FT"));
+        assertEquals(Arrays.asList(na001, na002), samples.asList());
+    }
+
+    @Test
+    public void columnsShouldGrowWithTheSamples() {
+        SamplesData samples = new SamplesData();
+        int gt = samples.getFieldIndex("GT");
+        int dp = samples.getFieldIndex("DP");
+        for (int i = 0; i < 1000; i++) {
+            int sampleIndex = samples.addSample();
+            samples.setValue(sampleIndex, gt, i % 2 == 0 ? "0|0" : "0|1");
+            samples.setValue(sampleIndex, dp, String.valueOf(i));
+        }
+
+        assertEquals(1000, samples.getNumSamples());
+        assertEquals("0|1", samples.getGenotype(999));
+        assertEquals("999", samples.getValue(999, dp));
+        assertArrayEquals(new int[]{500, 500}, samples.countGenotypes());
+    }
+
+    @Test
+    public void samplesWithTheSameFieldsShouldBeEqual() {
+        SamplesData samples = new SamplesData();
+        SamplesData otherSamples = new SamplesData();
+        Map<String, String> na001 = new HashMap<>();
+        na001.put("GT", "0/0");
+        samples.addSample(na001);
+        otherSamples.addSample(na001);
+
+        assertEquals(samples, otherSamples);
+        assertEquals(samples.hashCode(), otherSamples.hashCode());
+    }
+
+    @Test
+    public void copiesShouldMapEachDifferentGenotypeOnce() {
+        SamplesData samples = new SamplesData();
+        int gt = samples.getFieldIndex("GT");
+        int dp = samples.getFieldIndex("DP");
+        String[] genotypes = {"0/0", "0/2", "1/2", "0/0", "0/2"};
+        for (int i = 0; i < genotypes.length; i++) {
+            int sampleIndex = samples.addSample();
+            samples.setValue(sampleIndex, gt, genotypes[i]);
+            samples.setValue(sampleIndex, dp, String.valueOf(i));
+        }
+        samples.addSample();
+
+        List<String> mappedGenotypes = new ArrayList<>();
+        SamplesData copy = samples.copyWithGenotypes(genotype -> {
+            mappedGenotypes.add(genotype);
+            return genotype.replace('1', 'x').replace('2', '1').replace('x', '2');
+        });
+
+        assertEquals(Arrays.asList("0/0", "0/2", "1/2"), mappedGenotypes);
+        assertEquals(Arrays.asList("0/0", "0/1", "2/1", "0/0", "0/1", null), genotypesOf(copy));
+        assertEquals("3", copy.getValue(3, "DP"));
+        assertEquals(Arrays.asList("0/0", "0/2", "1/2", "0/0", "0/2", null), genotypesOf(samples));
+
+        copy.setValue(0, copy.getFieldIndex("DP"), "10");
+        assertEquals("0", samples.getValue(0, "DP"));
+    }
+
+    @Test
+    public void genotypesMappedToTheSameValueShouldShareTheCode() {
+        SamplesData samples = new SamplesData();
+        int gt = samples.getFieldIndex("GT");
+        samples.setValue(samples.addSample(), gt, "0/2");
+        samples.setValue(samples.addSample(), gt, "0/3");
+
+        SamplesData copy = samples.copyWithGenotypes(genotype -> "0/2");
+
+        assertEquals(1, copy.getNumGenotypes());
+        assertArrayEquals(new int[]{2}, copy.countGenotypes());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void samplesOutOfRangeShouldBeRejected() {
+        SamplesData samples = new SamplesData();
+        samples.addSample();
+        samples.getGenotypeCode(1);
+    }
+
+    @Test
+    public void estimatedSizeShouldGrowWithTheSamplesAndTheFields() {
+        SamplesData genotypes = new SamplesData();
+        SamplesData genotypesAndDepths = new SamplesData();
+        int gt = genotypes.getFieldIndex("GT");
+        int depthGt = genotypesAndDepths.getFieldIndex("GT");
+        int depth = genotypesAndDepths.getFieldIndex("DP");
+        long emptySize = genotypes.estimateSize();
+        for (int i = 0; i < 1000; i++) {
+            genotypes.setValue(genotypes.addSample(), gt, "0|1");
+            int sample = genotypesAndDepths.addSample();
+            genotypesAndDepths.setValue(sample, depthGt, "0|1");
+            genotypesAndDepths.setValue(sample, depth, "10");
+        }
+
+        assertTrue(genotypes.estimateSize() >= emptySize + 2 * 1000);
+        assertTrue(genotypesAndDepths.estimateSize() >= genotypes.estimateSize() + 8 * 1000);
+    }
+
+    private List<String> genotypesOf(SamplesData samples) {
+        List<String> genotypes = new ArrayList<>();
+        for (int i = 0; i < samples.getNumSamples(); i++) {
+            genotypes.add(samples.getGenotype(i));
+        }
+        return genotypes;
+    }
+}
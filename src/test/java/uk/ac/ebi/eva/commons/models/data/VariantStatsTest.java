@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.commons.models.data;
+
+import org.junit.Test;
+import org.opencb.biodata.models.feature.Genotype;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * {@link VariantStats}
+ * input: the genotypes of some samples
+ * output: the counts and frequencies of each genotype, and the minor allele and genotype
+ */
+public class VariantStatsTest {
+
+    @Test
+    public void genotypesWithTheSameAllelesShouldBeCountedTogether() {
+        VariantStats stats = new VariantStats("A", "C", Variant.VariantType.SNV);
+        stats.addGenotype(new Genotype("0/1", "A", "C"));
+        stats.addGenotype(new Genotype("1/0", "A", "C"), 2);
+        stats.addGenotype(new Genotype("0|1", "A", "C"));
+
+        Map<Genotype, Integer> counts = stats.getGenotypesCount();
+        assertEquals(2, counts.size());
+        assertEquals(new Integer(3), counts.get(new Genotype("0/1", "A", "C")));
+        assertEquals(new Integer(1), counts.get(new Genotype("0|1", "A", "C")));
+    }
+
+    @Test
+    public void genotypesShouldBeStoredWithMissingAllelesAsMinusOne() {
+        VariantStats stats = new VariantStats("A", "C", Variant.VariantType.SNV);
+        stats.addGenotype(new Genotype("./.", "A", "C"), 4);
+        stats.addGenotype(new Genotype("0|2", "A", "C"));
+        stats.addGenotype(new Genotype("1/1", "A", "G"));
+
+        Map<String, Integer> stored = new LinkedHashMap<>();
+        stats.forEachStoredGenotypeCount(stored::put);
+
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("-1/-1", 4);
+        expected.put("0|2", 1);
+        expected.put("1/1", 1);
+        assertEquals(expected, stored);
+    }
+
+    @Test
+    public void frequenciesShouldIncludeTheDefaultGenotypesButNotTheMissingOnes() {
+        VariantStats stats = new VariantStats("A", "C", Variant.VariantType.SNV);
+        stats.calculate(samples("0/0", "0/0", "0/1", "./."), Collections.emptyMap(), null);
+
+        assertEquals(1, stats.getMissingGenotypes());
+        assertEquals(1 / 6f, stats.getMaf(), 0);
+        assertEquals("C", stats.getMafAllele());
+        assertEquals(0, stats.getMgf(), 0);
+        assertEquals("1/1", stats.getMgfGenotype());
+
+        Map<Genotype, Float> frequencies = stats.getGenotypesFreq();
+        assertEquals(3, frequencies.size());
+        assertEquals(2 / 3f, frequencies.get(new Genotype("0/0", "A", "C")), 0);
+        assertEquals(1 / 3f, frequencies.get(new Genotype("0/1", "A", "C")), 0);
+        assertEquals(0, frequencies.get(new Genotype("1/1", "A", "C")), 0);
+        assertFalse(frequencies.containsKey(new Genotype("./.", "A", "C")));
+    }
+
+    @Test
+    public void theMinorGenotypeShouldBeTheSameWithGenotypesOfOtherAlleles() {
+        VariantStats dense = new VariantStats("A", "C", Variant.VariantType.SNV);
+        dense.calculate(samples("0/0", "1/1", "1/1", "0/1", "0/1"), Collections.emptyMap(), null);
+
+        VariantStats mixed = new VariantStats("A", "C", Variant.VariantType.SNV);
+        mixed.addGenotype(new Genotype("0/3", "A", "C"));
+        mixed.calculate(samples("0/0", "1/1", "1/1", "0/1", "0/1"), Collections.emptyMap(), null);
+
+        assertEquals(0.2f, dense.getMgf(), 0);
+        assertEquals("0/0", dense.getMgfGenotype());
+        assertEquals(dense.getMgf(), mixed.getMgf(), 0);
+        assertEquals(dense.getMgfGenotype(), mixed.getMgfGenotype());
+        assertEquals(4, mixed.getGenotypesFreq().size());
+    }
+
+    private static List<Map<String, String>> samples(String... genotypes) {
+        List<Map<String, String>> samples = new ArrayList<>();
+        for (String genotype : genotypes) {
+            samples.add(Collections.singletonMap("GT", genotype));
+        }
+        return samples;
+    }
+}
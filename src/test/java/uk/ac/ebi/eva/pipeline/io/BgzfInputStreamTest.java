@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link BgzfInputStream}
+ * input: a BGZF compressed stream
+ * output: the inflated bytes, in the same order as they were compressed
+ */
+public class BgzfInputStreamTest {
+
+    private static final int BGZF_BLOCK_CONTENT_SIZE = 65280;
+
+    @Test
+    public void shouldInflateSeveralBlocksInOrder() throws Exception {
+        byte[] content = buildVcfLikeContent(2000000);
+        byte[] compressed = bgzip(content);
+
+        for (int threads : new int[]{1, 4}) {
+            try (InputStream inputStream = new BgzfInputStream(new ByteArrayInputStream(compressed), threads)) {
+                assertArrayEquals(content, readAll(inputStream));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadByteByByte() throws Exception {
+        byte[] content = buildVcfLikeContent(100000);
+        try (InputStream inputStream = new BgzfInputStream(new ByteArrayInputStream(bgzip(content)), 2)) {
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+            int read;
+            while ((read = inputStream.read()) != -1) {
+                inflated.write(read);
+            }
+            assertArrayEquals(content, inflated.toByteArray());
+        }
+    }
+
+    @Test
+    public void emptyStreamShouldHaveNoContent() throws Exception {
+        try (InputStream inputStream = new BgzfInputStream(new ByteArrayInputStream(bgzip(new byte[0])), 2)) {
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    public void shouldDetectBgzfHeaders() throws Exception {
+        byte[] bgzf = bgzip("a line\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(BgzfInputStream.isBgzfHeader(bgzf, bgzf.length));
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(gzip)) {
+            outputStream.write("a line\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertFalse(BgzfInputStream.isBgzfHeader(gzip.toByteArray(), gzip.size()));
+        assertFalse(BgzfInputStream.isBgzfHeader(bgzf, 4));
+    }
+
+    @Test(expected = ZipException.class)
+    public void corruptBlocksShouldBeReported() throws Exception {
+        byte[] compressed = bgzip(buildVcfLikeContent(1000));
+        // change the CRC of the first block
+        compressed[compressed.length - 28 - 8] ^= 1;
+
+        try (InputStream inputStream = new BgzfInputStream(new ByteArrayInputStream(compressed), 2)) {
+            readAll(inputStream);
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void plainGzipShouldBeRejected() throws Exception {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(gzip)) {
+            outputStream.write("a line\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (InputStream inputStream = new BgzfInputStream(new ByteArrayInputStream(gzip.toByteArray()), 2)) {
+            readAll(inputStream);
+        }
+    }
+
+    static byte[] buildVcfLikeContent(int size) {
+        Random random = new Random(17);
+        StringBuilder content = new StringBuilder();
+        int position = 60000;
+        while (content.length() < size) {
+            position += random.nextInt(100);
+            content.append("20\t").append(position).append("\t.\tA\tG\t100\tPASS\tAC=1\tGT");
+            for (int i = 0; i < 20; i++) {
+                content.append('\t').append(random.nextInt(2)).append('|').append(random.nextInt(2));
+            }
+            content.append('\n');
+        }
+        return content.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compresses the content like bgzip does: gzip members of up to 64KB with the "BC" extra subfield, followed by
+     * an empty block that marks the end of the file.
+     */
+    static byte[] bgzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (int start = 0; start < content.length; start += BGZF_BLOCK_CONTENT_SIZE) {
+            writeBlock(compressed, content, start, Math.min(content.length, start + BGZF_BLOCK_CONTENT_SIZE));
+        }
+        writeBlock(compressed, content, 0, 0);
+        return compressed.toByteArray();
+    }
+
+    private static void writeBlock(ByteArrayOutputStream compressed, byte[] content, int start, int end) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content, start, end - start);
+        deflater.finish();
+        byte[] deflated = new byte[end - start + 1024];
+        int deflatedSize = 0;
+        while (!deflater.finished()) {
+            deflatedSize += deflater.deflate(deflated, deflatedSize, deflated.length - deflatedSize);
+        }
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(content, start, end - start);
+        int blockSize = 18 + deflatedSize + 8;
+
+        compressed.write(new byte[]{31, (byte) 139, 8, 4, 0, 0, 0, 0, 0, (byte) 255, 6, 0, 'B', 'C', 2, 0}, 0, 16);
+        writeLittleEndian(compressed, blockSize - 1, 2);
+        compressed.write(deflated, 0, deflatedSize);
+        writeLittleEndian(compressed, crc.getValue(), 4);
+        writeLittleEndian(compressed, end - start, 4);
+    }
+
+    private static void writeLittleEndian(ByteArrayOutputStream outputStream, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            outputStream.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+
+    static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            inflated.write(buffer, 0, read);
+        }
+        return inflated.toByteArray();
+    }
+}
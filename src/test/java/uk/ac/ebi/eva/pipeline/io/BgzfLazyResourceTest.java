@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.eva.pipeline.io.BgzfInputStreamTest.bgzip;
+import static uk.ac.ebi.eva.pipeline.io.BgzfInputStreamTest.buildVcfLikeContent;
+import static uk.ac.ebi.eva.pipeline.io.BgzfInputStreamTest.readAll;
+
+/**
+ * {@link BgzfLazyResource}
+ * input: a file compressed with bgzip or plain gzip
+ * output: the inflated content of the file
+ */
+public class BgzfLazyResourceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void bgzipFilesShouldBeInflatedInParallel() throws Exception {
+        byte[] content = buildVcfLikeContent(500000);
+        File file = temporaryFolder.newFile("bgzipped.vcf.gz");
+        Files.write(file.toPath(), bgzip(content));
+
+        try (InputStream inputStream = new BgzfLazyResource(file, 2).getInputStream()) {
+            assertTrue(inputStream instanceof BgzfInputStream);
+            assertArrayEquals(content, readAll(inputStream));
+        }
+    }
+
+    @Test
+    public void plainGzipFilesShouldBeInflatedAsBefore() throws Exception {
+        byte[] content = buildVcfLikeContent(500000);
+        File file = temporaryFolder.newFile("gzipped.vcf.gz");
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(new FileOutputStream(file))) {
+            outputStream.write(content);
+        }
+
+        try (InputStream inputStream = new BgzfLazyResource(file, 2).getInputStream()) {
+            assertTrue(inputStream instanceof GZIPInputStream);
+            assertArrayEquals(content, readAll(inputStream));
+        }
+    }
+
+    @Test
+    public void resourceShouldNotOpenTheFileOnCreation() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "not_created_yet.vcf.gz");
+        BgzfLazyResource resource = new BgzfLazyResource(file);
+
+        byte[] content = buildVcfLikeContent(1000);
+        Files.write(file.toPath(), bgzip(content));
+        try (InputStream inputStream = resource.getInputStream()) {
+            assertArrayEquals(content, readAll(inputStream));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static uk.ac.ebi.eva.pipeline.io.BgzfInputStreamTest.bgzip;
+import static uk.ac.ebi.eva.pipeline.io.BgzfInputStreamTest.buildVcfLikeContent;
+import static uk.ac.ebi.eva.pipeline.io.BgzfInputStreamTest.readAll;
+
+/**
+ * {@link OffsetResource}
+ * input: a resource, compressed or not, and an offset
+ * output: the (uncompressed) content of the resource from that offset
+ */
+public class OffsetResourceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void plainFileShouldStartAtTheOffset() throws Exception {
+        byte[] content = buildVcfLikeContent(100000);
+        File file = temporaryFolder.newFile("input.vcf");
+        Files.write(file.toPath(), content);
+
+        try (InputStream inputStream = new OffsetResource(new FileSystemResource(file), 12345).getInputStream()) {
+            assertArrayEquals(Arrays.copyOfRange(content, 12345, content.length), readAll(inputStream));
+        }
+    }
+
+    @Test
+    public void bgzipFileShouldStartAtTheUncompressedOffset() throws Exception {
+        byte[] content = buildVcfLikeContent(500000);
+        File file = temporaryFolder.newFile("input.vcf.gz");
+        Files.write(file.toPath(), bgzip(content));
+
+        // skips several whole blocks and then part of the next one
+        int offset = 300000;
+        try (InputStream inputStream = new OffsetResource(new BgzfLazyResource(file, 2), offset).getInputStream()) {
+            assertArrayEquals(Arrays.copyOfRange(content, offset, content.length), readAll(inputStream));
+        }
+    }
+
+    @Test
+    public void offsetAtTheEndShouldGiveAnEmptyStream() throws Exception {
+        byte[] content = buildVcfLikeContent(1000);
+        File file = temporaryFolder.newFile("input.vcf.gz");
+        Files.write(file.toPath(), bgzip(content));
+
+        try (InputStream inputStream = new OffsetResource(new BgzfLazyResource(file, 2), 1000).getInputStream()) {
+            assertArrayEquals(new byte[0], readAll(inputStream));
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void offsetAfterTheEndShouldBeReported() throws Exception {
+        File file = temporaryFolder.newFile("input.vcf.gz");
+        Files.write(file.toPath(), bgzip(buildVcfLikeContent(1000)));
+
+        new OffsetResource(new BgzfLazyResource(file, 2), 1001).getInputStream();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.utils.FileUtils.getResource;
+
+/**
+ * {@link StatisticsFileReader}
+ * input: a statistics file in one format
+ * output: the same statistics in the format of the extension of the output file
+ */
+public class StatisticsFileReaderTest {
+
+    private static final String VARIANTS_FILE_NAME = "/input-files/statistics/1_1.variants.stats.json.gz";
+
+    private static final String SOURCE_FILE_NAME = "/input-files/statistics/1_1.source.stats.json.gz";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void variantsStatsShouldBeTheSameInBinary() throws Exception {
+        File json = getResource(VARIANTS_FILE_NAME);
+        File smile = temporaryFolder.newFile("1_1.variants.stats.smile");
+        File jsonAgain = temporaryFolder.newFile("1_1.variants.stats.json.gz");
+
+        int objects = transfer(json, smile);
+        assertEquals(objects, transfer(smile, jsonAgain));
+
+        List<JsonNode> expected = readAll(json);
+        assertEquals(objects, expected.size());
+        assertEquals(expected, readAll(smile));
+        assertEquals(expected, readAll(jsonAgain));
+    }
+
+    @Test
+    public void sourceStatsShouldBeTheSameInBinary() throws Exception {
+        File json = getResource(SOURCE_FILE_NAME);
+        File smile = temporaryFolder.newFile("1_1.source.stats.smile");
+
+        assertEquals(1, transfer(json, smile));
+        assertEquals(readAll(json), readAll(smile));
+    }
+
+    @Test
+    public void writtenObjectsShouldBeReadInOrder() throws Exception {
+        File smile = temporaryFolder.newFile("objects.smile");
+        try (StatisticsFileWriter writer = new StatisticsFileWriter(smile)) {
+            for (int i = 0; i < 3; i++) {
+                writer.write(new int[]{i, i + 1});
+            }
+        }
+
+        try (StatisticsFileReader reader = new StatisticsFileReader(smile)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(i + 1, reader.read(int[].class)[1]);
+            }
+            assertEquals(null, reader.read(int[].class));
+        }
+    }
+
+    private static int transfer(File input, File output) throws IOException {
+        try (StatisticsFileWriter writer = new StatisticsFileWriter(output)) {
+            return writer.writeAll(input);
+        }
+    }
+
+    private static List<JsonNode> readAll(File file) throws IOException {
+        List<JsonNode> objects = new ArrayList<>();
+        try (StatisticsFileReader reader = new StatisticsFileReader(file)) {
+            JsonNode object;
+            while ((object = reader.read(JsonNode.class)) != null) {
+                objects.add(object);
+            }
+        }
+        return objects;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import uk.ac.ebi.eva.utils.StatisticsFileFormat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one by one the objects of a statistics file, in the {@link StatisticsFileFormat} of its extension, to build
+ * the inputs of the tests that read them.
+ */
+public class StatisticsFileWriter implements Closeable {
+
+    private final JsonGenerator generator;
+
+    public StatisticsFileWriter(File file) throws IOException {
+        StatisticsFileFormat format = StatisticsFileFormat.fromPath(file.getName());
+        OutputStream output = new FileOutputStream(file);
+        if (format == StatisticsFileFormat.JSON) {
+            output = new GZIPOutputStream(output);
+        }
+        generator = StatisticsFileReader.createObjectMapper(format).getFactory().createGenerator(output);
+    }
+
+    public void write(Object value) throws IOException {
+        generator.writeObject(value);
+    }
+
+    /**
+     * Writes all the objects of another statistics file, whatever its format.
+     *
+     * @return the number of objects written
+     */
+    public int writeAll(File input) throws IOException {
+        int objects = 0;
+        try (StatisticsFileReader reader = new StatisticsFileReader(input)) {
+            JsonNode object;
+            while ((object = reader.read(JsonNode.class)) != null) {
+                write(object);
+                objects++;
+            }
+        }
+        return objects;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link VariantIdBloomFilter}
+ * input: variant identifiers
+ * output: whether the identifiers might have been added to the filter
+ */
+public class VariantIdBloomFilterTest {
+
+    private static final int NUM_IDS = 10000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void addedIdsShouldBeFound() throws Exception {
+        VariantIdBloomFilter filter = VariantIdBloomFilter.create(temporaryFolder.newFile(), NUM_IDS);
+        for (int i = 0; i < NUM_IDS; i++) {
+            filter.put(buildId(i));
+        }
+
+        for (int i = 0; i < NUM_IDS; i++) {
+            assertTrue(filter.mightContain(buildId(i)));
+        }
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void fewIdsThatWereNotAddedShouldBeFound() throws Exception {
+        VariantIdBloomFilter filter = VariantIdBloomFilter.create(temporaryFolder.newFile(), NUM_IDS);
+        for (int i = 0; i < NUM_IDS; i++) {
+            filter.put(buildId(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = NUM_IDS; i < 2 * NUM_IDS; i++) {
+            if (filter.mightContain(buildId(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < NUM_IDS * VariantIdBloomFilter.FALSE_POSITIVE_PROBABILITY * 2);
+    }
+
+    @Test
+    public void filterShouldBeKeptInTheFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        try (VariantIdBloomFilter filter = VariantIdBloomFilter.create(file, NUM_IDS)) {
+            filter.put(buildId(1));
+            filter.put(buildId(2));
+            filter.put(buildId(2));
+        }
+
+        try (VariantIdBloomFilter filter = VariantIdBloomFilter.open(file, true)) {
+            assertTrue(filter.mightContain(buildId(1)));
+            assertTrue(filter.mightContain(buildId(2)));
+            assertFalse(filter.mightContain(buildId(3)));
+            assertEquals(NUM_IDS, filter.getExpectedIds());
+            assertEquals(2, filter.getAddedIds());
+        }
+    }
+
+    @Test
+    public void filterShouldBeSaturatedAfterAddingMoreIdsThanExpected() throws Exception {
+        VariantIdBloomFilter filter = VariantIdBloomFilter.create(temporaryFolder.newFile(), 10);
+        for (int i = 0; i < 100; i++) {
+            filter.put(buildId(i));
+        }
+        assertTrue(filter.isSaturated());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readOnlyFilterShouldNotAcceptIds() throws Exception {
+        File file = temporaryFolder.newFile();
+        VariantIdBloomFilter.create(file, NUM_IDS).close();
+
+        VariantIdBloomFilter.open(file, true).put(buildId(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesShouldBeRejected() throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), new byte[100]);
+
+        VariantIdBloomFilter.open(file, true);
+    }
+
+    private String buildId(int i) {
+        return "20_" + (60000 + i) + "_A_G";
+    }
+}
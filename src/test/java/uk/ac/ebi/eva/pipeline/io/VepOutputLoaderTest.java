@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.batch.item.ItemWriter;
+
+import uk.ac.ebi.eva.commons.models.data.VariantAnnotation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.test.data.VepOutputContent.vepOutputContent;
+import static uk.ac.ebi.eva.test.data.VepOutputContent.vepOutputContentMalformedVariantFields;
+
+/**
+ * {@link VepOutputLoader}
+ * input: lines written by VEP
+ * output: the annotations are sent to a writer, in batches that keep together the annotations of each variant
+ */
+public class VepOutputLoaderTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void annotationsOfTheSameVariantShouldBeInTheSameBatch() throws Exception {
+        BatchCollectingWriter writer = new BatchCollectingWriter();
+        VepOutputLoader loader = new VepOutputLoader(writer, 1);
+
+        loader.start();
+        for (String line : vepOutputContent.split("\n")) {
+            loader.load(line);
+        }
+        loader.finish();
+
+        // 20_63351_A/G has 1 annotation, and 20_63360_C/T, 20_63399_G/A and 20_63426_G/T have 2 annotations each
+        List<Integer> batchSizes = new ArrayList<>();
+        for (List<VariantAnnotation> batch : writer.batches) {
+            batchSizes.add(batch.size());
+        }
+        assertEquals(Arrays.asList(1, 2, 2, 2), batchSizes);
+        assertEquals(7, loader.getLoadedAnnotations());
+        assertEquals(0, loader.getSkippedLines());
+    }
+
+    @Test
+    public void batchesShouldNotBeSmallerThanTheBatchSize() throws Exception {
+        BatchCollectingWriter writer = new BatchCollectingWriter();
+        VepOutputLoader loader = new VepOutputLoader(writer, 4);
+
+        loader.start();
+        for (String line : vepOutputContent.split("\n")) {
+            loader.load(line);
+        }
+        loader.finish();
+
+        assertEquals(2, writer.batches.size());
+        assertEquals(5, writer.batches.get(0).size());
+        assertEquals(2, writer.batches.get(1).size());
+    }
+
+    @Test
+    public void malformedLinesShouldBeSkipped() throws Exception {
+        BatchCollectingWriter writer = new BatchCollectingWriter();
+        VepOutputLoader loader = new VepOutputLoader(writer, 10);
+
+        loader.start();
+        loader.load(vepOutputContentMalformedVariantFields.split("\n")[0]);
+        for (String line : vepOutputContent.split("\n")) {
+            loader.load(line);
+        }
+        loader.finish();
+
+        assertEquals(7, loader.getLoadedAnnotations());
+        assertEquals(1, loader.getSkippedLines());
+    }
+
+    @Test
+    public void tooManyMalformedLinesShouldFail() throws Exception {
+        VepOutputLoader loader = new VepOutputLoader(new BatchCollectingWriter(), 10);
+        String malformedLine = vepOutputContentMalformedVariantFields.split("\n")[0];
+
+        loader.start();
+        exception.expect(IOException.class);
+        for (int i = 0; i <= VepOutputLoader.SKIP_LIMIT; i++) {
+            loader.load(malformedLine);
+        }
+    }
+
+    @Test
+    public void writerErrorsShouldBeReported() throws Exception {
+        VepOutputLoader loader = new VepOutputLoader(items -> {
+            throw new IllegalStateException("database unavailable");
+        }, 1);
+
+        loader.start();
+        exception.expect(IOException.class);
+        for (String line : vepOutputContent.split("\n")) {
+            loader.load(line);
+        }
+        loader.finish();
+    }
+
+    private static class BatchCollectingWriter implements ItemWriter<VariantAnnotation> {
+
+        private final List<List<VariantAnnotation>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void write(List<? extends VariantAnnotation> items) throws Exception {
+            batches.add(new ArrayList<>(items));
+        }
+    }
+}
@@ -27,6 +27,8 @@ import uk.ac.ebi.eva.test.rules.PipelineTemporaryFolderRule;
 
 import java.io.File;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static uk.ac.ebi.eva.utils.FileUtils.getResource;
 
 public class VepProcessTest {
@@ -102,4 +104,21 @@ public class VepProcessTest {
         VepProcess vepAnnotationFileWriter = new VepProcess(annotationParameters, CHUNK_SIZE, VEP_TIMEOUT);
         vepAnnotationFileWriter.close();
     }
+
+    @Test
+    public void warningsOfVepShouldNotBlockIt() throws Exception {
+        annotationParameters.setVepPath(getResource("/mockvep_writeToFile_warnings.pl").getAbsolutePath());
+        VepProcess vepProcess = new VepProcess(annotationParameters, CHUNK_SIZE, VEP_TIMEOUT);
+        byte[] variant = (getVariantInVepInputFormat(VARIANT_WRAPPER) + "\n").getBytes();
+
+        // far more warnings than fit in the pipe buffer of stderr
+        vepProcess.open();
+        for (int i = 0; i < 1000; i++) {
+            vepProcess.write(variant);
+        }
+        vepProcess.close();
+
+        assertTrue(new File(annotationParameters.getVepOutput()).exists());
+        assertFalse(new File(annotationParameters.getVepOutput() + ".errors.txt").exists());
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io.mappers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link VcfLineTokenizer}
+ * input: a VCF line
+ * output: the columns of the line, as slices that can be turned into Strings
+ */
+public class VcfLineTokenizerTest {
+
+    @Test
+    public void shouldSplitColumnsLikeStringSplit() {
+        String line = "1\t1000\trs123\tT\tG,C\t.\tPASS\tAC=1,2\tGT:DP\t0|1:5\t1|2:7";
+        VcfLineTokenizer tokenizer = new VcfLineTokenizer();
+        tokenizer.tokenize(line);
+
+        String[] expectedFields = line.split("\t");
+        assertEquals(expectedFields.length, tokenizer.getNumFields());
+        for (int i = 0; i < expectedFields.length; i++) {
+            assertEquals(expectedFields[i], tokenizer.getField(i));
+        }
+    }
+
+    @Test
+    public void shouldIgnoreTrailingEmptyColumns() {
+        VcfLineTokenizer tokenizer = new VcfLineTokenizer();
+        tokenizer.tokenize("1\t1000\t\t.\t\t");
+
+        assertEquals(4, tokenizer.getNumFields());
+        assertEquals("", tokenizer.getField(2));
+        assertTrue(tokenizer.isMissing(3));
+        assertFalse(tokenizer.isMissing(2));
+    }
+
+    @Test
+    public void shouldBeReusableForLinesWithMoreColumns() {
+        VcfLineTokenizer tokenizer = new VcfLineTokenizer();
+        tokenizer.tokenize("1\t1000");
+        assertEquals(2, tokenizer.getNumFields());
+
+        StringBuilder line = new StringBuilder("1\t1000\t.\tA\tT\t.\t.\t.\tGT");
+        for (int i = 0; i < 100; i++) {
+            line.append("\t0|").append(i % 2);
+        }
+        tokenizer.tokenize(line.toString());
+        assertEquals(109, tokenizer.getNumFields());
+        assertEquals("0|1", tokenizer.getField(108));
+        assertEquals(1000, tokenizer.getFieldAsInt(1));
+    }
+
+    @Test
+    public void shouldParseIntsLikeIntegerParseInt() {
+        assertEquals(0, VcfLineTokenizer.parseInt("x0x", 1, 2));
+        assertEquals(-42, VcfLineTokenizer.parseInt("-42", 0, 3));
+        assertEquals(Integer.MAX_VALUE, VcfLineTokenizer.parseInt("2147483647", 0, 10));
+        assertEquals(Integer.MIN_VALUE, VcfLineTokenizer.parseInt("-2147483648", 0, 11));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectNonNumericInts() {
+        VcfLineTokenizer.parseInt("10a0", 0, 4);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectOverflowingInts() {
+        VcfLineTokenizer.parseInt("2147483648", 0, 10);
+    }
+
+    @Test
+    public void indexOfShouldOnlyLookInsideTheSlice() {
+        assertEquals(-1, VcfLineTokenizer.indexOf("0|1\t0:1", ':', 0, 3));
+        assertEquals(5, VcfLineTokenizer.indexOf("0|1\t0:1", ':', 4, 7));
+    }
+
+    @Test
+    public void shouldReturnInternedStrings() {
+        VcfLineTokenizer tokenizer = new VcfLineTokenizer();
+        tokenizer.tokenize("0|0\t0|1\t0|0");
+
+        String first = tokenizer.intern(tokenizer.getStart(0), tokenizer.getEnd(0));
+        assertSame("0|0", first);
+        assertSame(first, tokenizer.intern(tokenizer.getStart(2), tokenizer.getEnd(2)));
+        assertSame("0|1", tokenizer.intern(tokenizer.getStart(1), tokenizer.getEnd(1)));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.io.readers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link ReadAheadItemStreamReader}
+ * input: a counting reader
+ * output: the same items, failures and saved state as the counting reader
+ */
+public class ReadAheadItemStreamReaderTest {
+
+    private static final String MALFORMED = "malformed";
+
+    private static final String BROKEN = "broken";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadAllItemsInOrder() throws Exception {
+        List<String> lines = buildLines(1000);
+        ReadAheadItemStreamReader<String> reader = new ReadAheadItemStreamReader<>(buildDelegate(lines), 3);
+
+        reader.open(new ExecutionContext());
+        assertEquals(lines, readAll(reader));
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void failuresShouldBeThrownInOrderAndReadingShouldContinue() throws Exception {
+        List<String> lines = buildLines(10);
+        lines.set(4, MALFORMED);
+        ReadAheadItemStreamReader<String> reader = new ReadAheadItemStreamReader<>(buildDelegate(lines), 2);
+
+        reader.open(new ExecutionContext());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(lines.get(i), reader.read());
+        }
+        try {
+            reader.read();
+            fail("the malformed line should have been reported");
+        } catch (FlatFileParseException e) {
+            assertEquals(5, e.getLineNumber());
+        }
+        assertEquals(lines.subList(5, 10), readAll(reader));
+        reader.close();
+    }
+
+    @Test(timeout = 10000)
+    public void errorsShouldBeThrownInsteadOfWaitingForever() throws Exception {
+        List<String> lines = buildLines(10);
+        lines.set(2, BROKEN);
+        ReadAheadItemStreamReader<String> reader = new ReadAheadItemStreamReader<>(buildDelegate(lines), 2);
+
+        reader.open(new ExecutionContext());
+        reader.read();
+        reader.read();
+        try {
+            reader.read();
+            fail("the error should have been rethrown");
+        } catch (Error e) {
+            assertEquals("Broken line 3", e.getMessage());
+        }
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void restartShouldResumeAfterTheLastReturnedItem() throws Exception {
+        List<String> lines = buildLines(100);
+        lines.set(2, MALFORMED);
+        FlatFileItemReader<String> delegate = buildDelegate(lines);
+        ReadAheadItemStreamReader<String> reader = new ReadAheadItemStreamReader<>(delegate, 50);
+        ExecutionContext executionContext = new ExecutionContext();
+
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        try {
+            reader.read();
+            fail("the malformed line should have been reported");
+        } catch (FlatFileParseException e) {
+            // skipped
+        }
+        reader.read();
+        // give time to the delegate to read ahead
+        Thread.sleep(100);
+        reader.update(executionContext);
+        reader.close();
+
+        assertEquals(4, executionContext.getInt(delegate.getExecutionContextKey("read.count")));
+
+        ReadAheadItemStreamReader<String> restartedReader = new ReadAheadItemStreamReader<>(buildDelegate(lines), 50);
+        restartedReader.open(executionContext);
+        assertEquals(lines.subList(4, 100), readAll(restartedReader));
+        restartedReader.close();
+    }
+
+    @Test
+    public void readerCanBeClosedBeforeReadingEverything() throws Exception {
+        ReadAheadItemStreamReader<String> reader = new ReadAheadItemStreamReader<>(buildDelegate(buildLines(1000)), 1);
+
+        reader.open(new ExecutionContext());
+        reader.read();
+        reader.close();
+    }
+
+    private List<String> buildLines(int numLines) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < numLines; i++) {
+            lines.add("20\t" + (60000 + i) + "\t.\tA\tG");
+        }
+        return lines;
+    }
+
+    private FlatFileItemReader<String> buildDelegate(List<String> lines) throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), lines);
+
+        FlatFileItemReader<String> reader = new FlatFileItemReader<>();
+        reader.setResource(new FileSystemResource(file));
+        reader.setLineMapper((line, lineNumber) -> {
+            if (MALFORMED.equals(line)) {
+                throw new IllegalArgumentException("Malformed line " + lineNumber);
+            }
+            if (BROKEN.equals(line)) {
+                throw new Error("Broken line " + lineNumber);
+            }
+            return line;
+        });
+        return reader;
+    }
+
+    private List<String> readAll(ReadAheadItemStreamReader<String> reader) throws Exception {
+        List<String> items = new ArrayList<>();
+        String item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -21,6 +21,7 @@ import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoOperations;
@@ -28,10 +29,12 @@ import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
 import uk.ac.ebi.eva.commons.models.data.Variant;
 import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
 import uk.ac.ebi.eva.commons.models.data.VariantStats;
 import uk.ac.ebi.eva.pipeline.configuration.MongoConfiguration;
+import uk.ac.ebi.eva.pipeline.io.VariantIdBloomFilter;
 import uk.ac.ebi.eva.pipeline.parameters.MongoConnection;
 import uk.ac.ebi.eva.test.rules.TemporaryMongoRule;
 import uk.ac.ebi.eva.utils.MongoDBHelper;
@@ -73,6 +76,9 @@ public class VariantMongoWriterTest {
     @Rule
     public TemporaryMongoRule mongoRule = new TemporaryMongoRule();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void noVariantsNothingShouldBeWritten() throws UnknownHostException {
         String dbName = mongoRule.getRandomTemporaryDatabaseName();
@@ -105,6 +111,65 @@ public class VariantMongoWriterTest {
         assertEquals(2, dbCollection.count());
     }
 
+    @Test
+    public void pipelinedWriterShouldWriteAllVariants() throws Exception {
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            variants.add(new Variant("1", 100 + i, 100 + i, "A", "T"));
+        }
+
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+
+        VariantMongoWriter variantMongoWriter = new VariantMongoWriter(collectionName, mongoOperations, false, false,
+                1);
+        variantMongoWriter.write(variants);
+
+        assertEquals(10, dbCollection.count());
+    }
+
+    @Test
+    public void writeBehindShouldWriteAllVariantsOfTheChunk() throws Exception {
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            variants.add(new Variant("1", 100 + i, 100 + i, "A", "T"));
+        }
+        // a repeated variant must be merged, not inserted twice by concurrent bulks
+        variants.add(new Variant("1", 100, 100, "A", "T"));
+
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+
+        VariantMongoWriter variantMongoWriter = new VariantMongoWriter(collectionName, mongoOperations, false, false,
+                3);
+        variantMongoWriter.write(variants);
+
+        assertEquals(2500, dbCollection.count());
+    }
+
+    @Test
+    public void bulksLimitedByBytesShouldWriteAllVariants() throws Exception {
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+
+        // every variant goes into its own bulk, and a repeated one must still be merged
+        VariantMongoWriter variantMongoWriter = new VariantMongoWriter(collectionName, mongoOperations, false, false,
+                0, null);
+        variantMongoWriter.setMaxBulkBytes(1);
+        variantMongoWriter.write(Arrays.asList(buildVariant("1", 1, 2, "A", "T", "file1", "study"),
+                                               buildVariant("1", 1, 2, "A", "T", "file2", "study"),
+                                               buildVariant("1", 5, 6, "A", "T", "file1", "study")));
+
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+        assertEquals(2, dbCollection.count());
+        assertEquals(2, ((BasicDBList) dbCollection.findOne(new BasicDBObject("start", 1)).get("files")).size());
+    }
+
     @Test
     public void indexesShouldBeCreatedInBackground() throws UnknownHostException {
         String dbName = mongoRule.getRandomTemporaryDatabaseName();
@@ -128,6 +193,20 @@ public class VariantMongoWriterTest {
                         index.get(MongoDBHelper.BACKGROUND_INDEX).toString()));
     }
 
+    @Test
+    public void deferredIndexesShouldNotBeCreated() throws UnknownHostException {
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+
+        new VariantMongoWriter(collectionName, mongoOperations, false, false, 0, false, false);
+
+        Set<String> createdIndexes = dbCollection.getIndexInfo().stream().map(index -> index.get("name").toString())
+                .collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("chr_1_start_1_end_1", "_id_")), createdIndexes);
+    }
+
     @Test
     public void writeTwiceSameVariantShouldUpdate() throws Exception {
         Variant variant1 = new Variant("1", 1, 2, "A", "T");
@@ -147,6 +226,129 @@ public class VariantMongoWriterTest {
         assertEquals(1, ((BasicDBList) storedVariant.get("files")).size());
     }
 
+    @Test
+    public void insertOnlyShouldStoreTheSameDocumentsAsUpsert() throws Exception {
+        Variant variant = buildVariant("12", 3, 4, "A", "T", "fileId", "studyId");
+        variant.setIds(new HashSet<>(Arrays.asList("a", "b")));
+
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+
+        new VariantMongoWriter("upserted", mongoOperations, true, true, 0, false)
+                .write(Collections.singletonList(variant));
+        new VariantMongoWriter("inserted", mongoOperations, true, true, 0, true)
+                .write(Collections.singletonList(variant));
+
+        assertEquals(mongoOperations.getCollection("upserted").findOne(),
+                mongoOperations.getCollection("inserted").findOne());
+    }
+
+    @Test
+    public void insertOnlyShouldMergeExistingVariants() throws Exception {
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+
+        // an empty collection enables the insert-only mode
+        VariantMongoWriter variantMongoWriter = new VariantMongoWriter(collectionName, mongoOperations, false, false,
+                0, null);
+        variantMongoWriter.write(Arrays.asList(buildVariant("1", 1, 2, "A", "T", "file1", "study"),
+                                               buildVariant("1", 1, 2, "A", "T", "file2", "study"),
+                                               buildVariant("1", 5, 6, "A", "T", "file1", "study")));
+        variantMongoWriter.write(Collections.singletonList(buildVariant("1", 5, 6, "A", "T", "file3", "study")));
+
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+        assertEquals(2, dbCollection.count());
+        assertEquals(2, ((BasicDBList) dbCollection.findOne(new BasicDBObject("start", 1)).get("files")).size());
+        assertEquals(2, ((BasicDBList) dbCollection.findOne(new BasicDBObject("start", 5)).get("files")).size());
+    }
+
+    @Test
+    public void variantsNotInTheIdFilterShouldBeInsertedAndTheRestMerged() throws Exception {
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+        new VariantMongoWriter(collectionName, mongoOperations, false, false)
+                .write(Collections.singletonList(buildVariant("1", 1, 2, "A", "T", "file1", "study")));
+
+        VariantIdBloomFilter idFilter = VariantIdBloomFilter.create(temporaryFolder.newFile(), 1000);
+        idFilter.put("1_1_A_T");
+        // the filter doesn't know about this variant, so the writer tries to insert it first
+        new VariantMongoWriter(collectionName, mongoOperations, false, false)
+                .write(Collections.singletonList(buildVariant("1", 5, 6, "A", "T", "file1", "study")));
+
+        VariantMongoWriter variantMongoWriter = new VariantMongoWriter(collectionName, mongoOperations, false, false,
+                0, false);
+        variantMongoWriter.setIdFilter(idFilter);
+        variantMongoWriter.write(Arrays.asList(buildVariant("1", 1, 2, "A", "T", "file2", "study"),
+                                               buildVariant("1", 5, 6, "A", "T", "file2", "study"),
+                                               buildVariant("1", 9, 10, "A", "T", "file2", "study")));
+
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+        assertEquals(3, dbCollection.count());
+        assertEquals(2, ((BasicDBList) dbCollection.findOne(new BasicDBObject("start", 1)).get("files")).size());
+        assertEquals(2, ((BasicDBList) dbCollection.findOne(new BasicDBObject("start", 5)).get("files")).size());
+        assertEquals(1, ((BasicDBList) dbCollection.findOne(new BasicDBObject("start", 9)).get("files")).size());
+    }
+
+    @Test
+    public void keyedFilesShouldBeSetByStudyAndFile() throws Exception {
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+
+        VariantMongoWriter variantMongoWriter = new VariantMongoWriter(collectionName, mongoOperations, true, false,
+                0, null, true, true);
+        variantMongoWriter.write(Arrays.asList(buildVariant("1", 1, 2, "A", "T", "file1", "study1"),
+                                               buildVariant("1", 1, 2, "A", "T", "file2", "study1")));
+        variantMongoWriter.write(Collections.singletonList(buildVariant("1", 1, 2, "A", "T", "file1", "study2")));
+
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+        assertEquals(1, dbCollection.count());
+        DBObject storedVariant = dbCollection.findOne();
+        DBObject files = (DBObject) storedVariant.get("files");
+        assertEquals(new HashSet<>(Arrays.asList("file1", "file2")), ((DBObject) files.get("study1")).keySet());
+        assertEquals(Collections.singleton("file1"), ((DBObject) files.get("study2")).keySet());
+        assertEquals(3, KeyedFilesLayout.getFiles(storedVariant).size());
+        assertEquals(3, KeyedFilesLayout.getStats(storedVariant).size());
+        assertEquals(1, dbCollection.count(new BasicDBObject("st.study2.file1.cohortStats.cid", "cohortStats")));
+    }
+
+    @Test
+    public void keyedInsertShouldStoreTheSameDocumentsAsUpsert() throws Exception {
+        Variant variant = buildVariant("12", 3, 4, "A", "T", "file.vcf", "studyId");
+        variant.setIds(new HashSet<>(Arrays.asList("a", "b")));
+
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+
+        new VariantMongoWriter("upserted", mongoOperations, true, true, 0, false, true, true)
+                .write(Collections.singletonList(variant));
+        new VariantMongoWriter("inserted", mongoOperations, true, true, 0, true, true, true)
+                .write(Collections.singletonList(variant));
+
+        assertEquals(mongoOperations.getCollection("upserted").findOne(),
+                mongoOperations.getCollection("inserted").findOne());
+    }
+
+    @Test
+    public void keyedFilesShouldNotBeIndexed() throws UnknownHostException {
+        String dbName = mongoRule.getRandomTemporaryDatabaseName();
+        MongoOperations mongoOperations = MongoConfiguration.getMongoOperations(dbName, mongoConnection,
+                mongoMappingContext);
+        DBCollection dbCollection = mongoOperations.getCollection(collectionName);
+
+        new VariantMongoWriter(collectionName, mongoOperations, false, false, 0, false, true, true);
+
+        Set<String> createdIndexes = dbCollection.getIndexInfo().stream().map(index -> index.get("name").toString())
+                .collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("annot.ct.so_1", "annot.xrefs.id_1", "chr_1_start_1_end_1", "_id_",
+                                                 "ids_1")),
+                     createdIndexes);
+    }
+
     @Test
     public void allFieldsOfVariantShouldBeStored() throws Exception {
         final String chromosome = "12";
@@ -20,6 +20,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 
 import uk.ac.ebi.eva.pipeline.model.VariantWrapper;
@@ -89,7 +90,9 @@ public class VepAnnotationFileWriterTest {
         VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters, chunkSize,
                 TIMEOUT_IN_SECONDS);
 
+        vepAnnotationFileWriter.open(new ExecutionContext());
         vepAnnotationFileWriter.write(variantWrappers);
+        vepAnnotationFileWriter.close();
 
         File vepOutputFile = new File(annotationParameters.getVepOutput());
         assertTrue(vepOutputFile.exists());
@@ -108,7 +111,9 @@ public class VepAnnotationFileWriterTest {
         VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters, chunkSize,
                 TIMEOUT_IN_SECONDS);
 
+        vepAnnotationFileWriter.open(new ExecutionContext());
         vepAnnotationFileWriter.write(variantWrappers);
+        vepAnnotationFileWriter.close();
 
         File vepOutputFile = new File(annotationParameters.getVepOutput());
         assertTrue(vepOutputFile.exists());
@@ -124,7 +129,9 @@ public class VepAnnotationFileWriterTest {
         VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters,
                 chunkSizeGreaterThanActualVariants, TIMEOUT_IN_SECONDS);
 
+        vepAnnotationFileWriter.open(new ExecutionContext());
         vepAnnotationFileWriter.write(variantWrappers);
+        vepAnnotationFileWriter.close();
 
         File vepOutputFile = new File(annotationParameters.getVepOutput());
         assertTrue(vepOutputFile.exists());
@@ -142,7 +149,9 @@ public class VepAnnotationFileWriterTest {
 
         long chunks = 3;
         for (int i = 0; i < chunks; i++) {
+            vepAnnotationFileWriter.open(new ExecutionContext());
             vepAnnotationFileWriter.write(variantWrappers);
+            vepAnnotationFileWriter.close();
         }
 
         File vepOutputFile = new File(annotationParameters.getVepOutput());
@@ -184,7 +193,65 @@ public class VepAnnotationFileWriterTest {
         VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters,
                 chunkSizeGreaterThanActualVariants, vepTimeouts);
 
+        vepAnnotationFileWriter.open(new ExecutionContext());
+        vepAnnotationFileWriter.write(variantWrappers);
+
         exception.expect(ItemStreamException.class);
+        vepAnnotationFileWriter.close();
+    }
+
+    @Test
+    public void testSameVepProcessIsUsedForAllChunks() throws Exception {
+        List<VariantWrapper> variantWrappers = Collections.singletonList(VARIANT_WRAPPER);
+        int chunkSize = variantWrappers.size();
+
+        VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters,
+                chunkSize, TIMEOUT_IN_SECONDS);
+
+        long chunks = 3;
+        vepAnnotationFileWriter.open(new ExecutionContext());
+        for (int i = 0; i < chunks; i++) {
+            vepAnnotationFileWriter.write(variantWrappers);
+        }
+        vepAnnotationFileWriter.close();
+
+        File vepOutputFile = new File(annotationParameters.getVepOutput());
+        assertTrue(vepOutputFile.exists());
+        assertEquals(variantWrappers.size() * chunks + EXTRA_ANNOTATIONS,
+                getLines(new GZIPInputStream(new FileInputStream(vepOutputFile))));
+        assertEquals(HEADER_LINES, getCommentLines(new GZIPInputStream(new FileInputStream(vepOutputFile))));
+    }
+
+    @Test
+    public void testVariantsAreSentInVepInputFormat() throws Exception {
+        List<VariantWrapper> variantWrappers = new ArrayList<>();
+        variantWrappers.add(VARIANT_WRAPPER);
+        variantWrappers.add(new VariantWrapper("20", 60523, 60523, "", "C"));
+
+        VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters,
+                variantWrappers.size(), TIMEOUT_IN_SECONDS);
+
+        vepAnnotationFileWriter.open(new ExecutionContext());
+        vepAnnotationFileWriter.write(variantWrappers);
+        vepAnnotationFileWriter.close();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                new FileInputStream(annotationParameters.getVepOutput()))));
+        for (int i = 0; i < HEADER_LINES; i++) {
+            reader.readLine();
+        }
+        assertEquals("1\t100\t100\tA/T\t+ annotated", reader.readLine());
+        assertEquals("20\t60523\t60522\t-/C\t+ annotated", reader.readLine());
+        reader.close();
+    }
+
+    @Test
+    public void testWriteWithoutOpening() throws Exception {
+        List<VariantWrapper> variantWrappers = Collections.singletonList(VARIANT_WRAPPER);
+        VepAnnotationFileWriter vepAnnotationFileWriter = new VepAnnotationFileWriter(annotationParameters,
+                variantWrappers.size(), TIMEOUT_IN_SECONDS);
+
+        exception.expect(IllegalStateException.class);
         vepAnnotationFileWriter.write(variantWrappers);
     }
 
@@ -179,6 +179,37 @@ public class VepAnnotationMongoWriterTest {
         }
     }
 
+    /**
+     * The first write sets the whole annotation of the variants, and the following ones merge into it, so repeated
+     * consequence types are not duplicated in any case.
+     */
+    @Test
+    public void shouldNotDuplicateConsequenceTypesWhenWritingTheSameAnnotationsAgain() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        List<VariantAnnotation> annotations = new ArrayList<>();
+        for (String annotLine : vepOutputContent.split("\n")) {
+            annotations.add(AnnotationLineMapper.mapLine(annotLine, 0));
+            annotations.add(AnnotationLineMapper.mapLine(annotLine, 0));
+        }
+        DBCollection variants = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
+        writeIdsIntoMongo(annotations, variants);
+
+        MongoOperations operations = MongoConfiguration.getMongoOperations(databaseName, mongoConnection,
+                mongoMappingContext);
+        annotationWriter = new VepAnnotationMongoWriter(operations, COLLECTION_VARIANTS_NAME);
+        annotationWriter.write(annotations);
+        annotationWriter.write(annotations);
+
+        DBCursor cursor = variants.find();
+        int consequenceTypeCount = 0;
+        while (cursor.hasNext()) {
+            VariantAnnotation annot = converter.convert(
+                    (DBObject) cursor.next().get(VariantToDBObjectConverter.ANNOTATION_FIELD));
+            consequenceTypeCount += annot.getConsequenceTypes().size();
+        }
+        assertEquals(annotations.size() / 2, consequenceTypeCount);
+    }
+
     @Before
     public void setUp() throws Exception {
         converter = new DBObjectToVariantAnnotationConverter();
@@ -60,6 +60,7 @@ import java.util.zip.GZIPInputStream;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
+import static uk.ac.ebi.eva.test.utils.JobTestUtils.getStepExecutionsWithoutPartitions;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertFailed;
 import static uk.ac.ebi.eva.utils.FileUtils.getResource;
 
@@ -116,7 +117,7 @@ public class AggregatedVcfJobTest {
         // check execution flow
         assertCompleted(jobExecution);
 
-        Collection<StepExecution> stepExecutions = jobExecution.getStepExecutions();
+        Collection<StepExecution> stepExecutions = getStepExecutionsWithoutPartitions(jobExecution);
         Set<String> names = stepExecutions.stream().map(StepExecution::getStepName)
                 .collect(Collectors.toSet());
 
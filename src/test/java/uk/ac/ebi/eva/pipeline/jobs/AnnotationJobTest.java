@@ -48,7 +48,6 @@ import uk.ac.ebi.eva.utils.URLHelper;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -56,6 +55,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
+import static uk.ac.ebi.eva.test.utils.JobTestUtils.getStepExecutionsWithoutPartitions;
 import static uk.ac.ebi.eva.test.utils.TestFileUtils.getResourceUrl;
 import static uk.ac.ebi.eva.utils.FileUtils.getResource;
 
@@ -120,8 +120,8 @@ public class AnnotationJobTest {
 
         assertCompleted(jobExecution);
 
-        assertEquals(3, jobExecution.getStepExecutions().size());
-        List<StepExecution> steps = new ArrayList<>(jobExecution.getStepExecutions());
+        List<StepExecution> steps = getStepExecutionsWithoutPartitions(jobExecution);
+        assertEquals(3, steps.size());
         StepExecution generateVepAnnotationsStep = steps.get(0);
         StepExecution loadVepAnnotationsStep = steps.get(1);
         StepExecution loadAnnotationMetadataStep = steps.get(2);
@@ -183,8 +183,9 @@ public class AnnotationJobTest {
 
         assertCompleted(jobExecution);
 
-        assertEquals(1, jobExecution.getStepExecutions().size());
-        StepExecution findVariantsToAnnotateStep = new ArrayList<>(jobExecution.getStepExecutions()).get(0);
+        List<StepExecution> steps = getStepExecutionsWithoutPartitions(jobExecution);
+        assertEquals(1, steps.size());
+        StepExecution findVariantsToAnnotateStep = steps.get(0);
 
         assertEquals(BeanNames.GENERATE_VEP_ANNOTATION_STEP, findVariantsToAnnotateStep.getStepName());
     }
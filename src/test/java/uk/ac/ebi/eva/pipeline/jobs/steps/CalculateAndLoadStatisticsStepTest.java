@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantStatsToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntity;
+import uk.ac.ebi.eva.pipeline.configuration.BeanNames;
+import uk.ac.ebi.eva.pipeline.jobs.PopulationStatisticsJob;
+import uk.ac.ebi.eva.test.configuration.BatchTestConfiguration;
+import uk.ac.ebi.eva.test.rules.TemporaryMongoRule;
+import uk.ac.ebi.eva.utils.EvaJobParameterBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
+import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertFailed;
+import static uk.ac.ebi.eva.test.utils.TestFileUtils.getResourceUrl;
+
+/**
+ * Test for {@link CalculateAndLoadStatisticsStep}
+ * <p>
+ * Input: the variants of a file loaded in mongo
+ * Output: the statistics of the variants, the same as in the statistics file of the opencga tasklet
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:common-configuration.properties", "classpath:test-mongo.properties"})
+@ContextConfiguration(classes = {PopulationStatisticsJob.class, BatchTestConfiguration.class})
+public class CalculateAndLoadStatisticsStepTest {
+
+    private static final String MONGO_DUMP = "/dump/VariantStatsConfigurationTest_vl";
+
+    private static final String VARIANTS_STATS_FILE = "/input-files/statistics/1_1.variants.stats.json.gz";
+
+    private static final String SOURCE_STATS_FILE = "/input-files/statistics/1_1.source.stats.json.gz";
+
+    private static final String COLLECTION_FILES_NAME = "files";
+
+    private static final String COLLECTION_VARIANTS_NAME = "variants";
+
+    private static final String STUDY_ID = "1";
+
+    private static final String FILE_ID = "1";
+
+    private static final double DELTA = 1e-6;
+
+    @Rule
+    public TemporaryMongoRule mongoRule = new TemporaryMongoRule();
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Test
+    public void statisticsShouldMatchTheStatisticsFile() throws Exception {
+        String dbName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP,
+                                                                    buildJobParameters(dbName, FILE_ID, "2"));
+        assertCompleted(jobExecution);
+
+        Map<String, JsonNode> expectedStats = readStatisticsFile();
+        int checkedVariants = 0;
+        DBCursor cursor = mongoRule.getCollection(dbName, COLLECTION_VARIANTS_NAME).find();
+        while (cursor.hasNext()) {
+            DBObject variant = cursor.next();
+            List<DBObject> stats = KeyedFilesLayout.getStats(variant);
+            assertEquals(1, stats.size());
+            assertStatsEqual(expectedStats.get(variant.get(VariantToDBObjectConverter.CHROMOSOME_FIELD) + ":"
+                                                       + variant.get(VariantToDBObjectConverter.START_FIELD)),
+                             stats.get(0));
+            checkedVariants++;
+        }
+        assertEquals(expectedStats.size(), checkedVariants);
+    }
+
+    @Test
+    public void fileStatisticsShouldMatchTheSourceStatisticsFile() throws Exception {
+        String dbName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP,
+                                                                    buildJobParameters(dbName, FILE_ID, "2"));
+        assertCompleted(jobExecution);
+
+        JsonNode expected;
+        try (InputStream input = new GZIPInputStream(getClass().getResourceAsStream(SOURCE_STATS_FILE))) {
+            expected = new ObjectMapper().readTree(input).get("fileStats");
+        }
+        DBObject file = mongoRule.getCollection(dbName, COLLECTION_FILES_NAME).findOne(
+                new BasicDBObject(VariantSourceEntity.STUDYID_FIELD, STUDY_ID)
+                        .append(VariantSourceEntity.FILEID_FIELD, FILE_ID));
+        DBObject actual = (DBObject) file.get(VariantSourceEntity.STATISTICS_FIELD);
+        assertNotNull(actual);
+        assertEquals(expected.get("samplesCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMSAMPLES_FIELD)).longValue());
+        assertEquals(expected.get("variantsCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMVARIANTS_FIELD)).longValue());
+        assertEquals(expected.get("snpsCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMSNPS_FIELD)).longValue());
+        assertEquals(expected.get("indelsCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMINDELS_FIELD)).longValue());
+        assertEquals(expected.get("structuralCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMSTRUCTURAL_FIELD)).longValue());
+        assertEquals(expected.get("transitionsCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMTRANSITIONS_FIELD)).longValue());
+        assertEquals(expected.get("transversionsCount").asLong(),
+                     ((Number) actual.get(VariantSourceEntity.STATISTICS_NUMTRANSVERSIONS_FIELD)).longValue());
+    }
+
+    @Test
+    public void repeatedStepShouldNotDuplicateStatistics() throws Exception {
+        String dbName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP,
+                                                        buildJobParameters(dbName, FILE_ID, "2")));
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP,
+                                                        buildJobParameters(dbName, FILE_ID, "1")));
+
+        DBCursor cursor = mongoRule.getCollection(dbName, COLLECTION_VARIANTS_NAME).find();
+        while (cursor.hasNext()) {
+            assertEquals(1, KeyedFilesLayout.getStats(cursor.next()).size());
+        }
+    }
+
+    @Test
+    public void stepShouldFailIfTheFileIsNotLoaded() throws Exception {
+        String dbName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.CALCULATE_AND_LOAD_STATISTICS_STEP,
+                                                                    buildJobParameters(dbName, "not-loaded", "1"));
+        assertFailed(jobExecution);
+    }
+
+    private JobParameters buildJobParameters(String dbName, String fileId, String numPartitions) {
+        return new EvaJobParameterBuilder()
+                .collectionFilesName(COLLECTION_FILES_NAME)
+                .collectionVariantsName(COLLECTION_VARIANTS_NAME)
+                .databaseName(dbName)
+                .inputStudyId(STUDY_ID)
+                .inputVcfId(fileId)
+                .statisticsChunked("true")
+                .statisticsNumPartitions(numPartitions)
+                .toJobParameters();
+    }
+
+    private Map<String, JsonNode> readStatisticsFile() throws IOException {
+        Map<String, JsonNode> statsByPosition = new HashMap<>();
+        try (InputStream input = new GZIPInputStream(getClass().getResourceAsStream(VARIANTS_STATS_FILE))) {
+            MappingIterator<JsonNode> iterator = new ObjectMapper().readerFor(JsonNode.class).readValues(input);
+            while (iterator.hasNext()) {
+                JsonNode variantStats = iterator.next();
+                statsByPosition.put(variantStats.get("chromosome").asText() + ":"
+                                            + variantStats.get("position").asInt(),
+                                    variantStats.get("cohortStats").get("ALL"));
+            }
+        }
+        return statsByPosition;
+    }
+
+    private void assertStatsEqual(JsonNode expected, DBObject actual) {
+        assertNotNull(expected);
+        assertEquals(STUDY_ID, actual.get(VariantStatsToDBObjectConverter.STUDY_ID));
+        assertEquals(FILE_ID, actual.get(VariantStatsToDBObjectConverter.FILE_ID));
+        assertEquals("ALL", actual.get(VariantStatsToDBObjectConverter.COHORT_ID));
+        assertEquals(expected.get("maf").asDouble(),
+                     ((Number) actual.get(VariantStatsToDBObjectConverter.MAF_FIELD)).doubleValue(), DELTA);
+        assertEquals(expected.get("mgf").asDouble(),
+                     ((Number) actual.get(VariantStatsToDBObjectConverter.MGF_FIELD)).doubleValue(), DELTA);
+        assertEquals(expected.get("mafAllele").asText(), actual.get(VariantStatsToDBObjectConverter.MAFALLELE_FIELD));
+        assertEquals(expected.get("mgfGenotype").asText(),
+                     actual.get(VariantStatsToDBObjectConverter.MGFGENOTYPE_FIELD));
+        assertEquals(expected.get("missingAlleles").asInt(),
+                     ((Number) actual.get(VariantStatsToDBObjectConverter.MISSALLELE_FIELD)).intValue());
+        assertEquals(expected.get("missingGenotypes").asInt(),
+                     ((Number) actual.get(VariantStatsToDBObjectConverter.MISSGENOTYPE_FIELD)).intValue());
+    }
+}
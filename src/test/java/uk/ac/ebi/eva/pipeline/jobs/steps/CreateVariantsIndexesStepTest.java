@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.pipeline.configuration.BeanNames;
+import uk.ac.ebi.eva.pipeline.jobs.GenotypedVcfJob;
+import uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.VariantsIndexesTasklet;
+import uk.ac.ebi.eva.test.configuration.BatchTestConfiguration;
+import uk.ac.ebi.eva.test.rules.TemporaryMongoRule;
+import uk.ac.ebi.eva.utils.EvaJobParameterBuilder;
+import uk.ac.ebi.eva.utils.MongoDBHelper;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
+
+/**
+ * Test {@link VariantsIndexesTasklet}
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:common-configuration.properties", "classpath:test-mongo.properties"})
+@ContextConfiguration(classes = {GenotypedVcfJob.class, BatchTestConfiguration.class})
+public class CreateVariantsIndexesStepTest {
+
+    private static final String COLLECTION_VARIANTS_NAME = "variants";
+
+    @Rule
+    public TemporaryMongoRule mongoRule = new TemporaryMongoRule();
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Test
+    public void secondaryIndexesShouldBeCreated() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        DBCollection variantsCollection = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
+        variantsCollection.insert(new BasicDBObject("_id", "1_100_A_T"));
+
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.CREATE_VARIANTS_INDEXES_STEP,
+                                                        buildJobParameters(databaseName)));
+
+        assertEquals(new HashSet<>(Arrays.asList("annot.ct.so_1", "annot.xrefs.id_1", "files.sid_1_files.fid_1",
+                                                 "_id_", "ids_1")),
+                     getIndexNames(variantsCollection));
+        // the variants are already loaded, so the indexes are built in foreground
+        for (DBObject index : variantsCollection.getIndexInfo()) {
+            assertNotEquals(true, index.get(MongoDBHelper.BACKGROUND_INDEX));
+        }
+    }
+
+    @Test
+    public void existingIndexesShouldBeKept() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        DBCollection variantsCollection = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
+        variantsCollection.createIndex(new BasicDBObject("ids", 1), new BasicDBObject("sparse", true));
+
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.CREATE_VARIANTS_INDEXES_STEP,
+                                                        buildJobParameters(databaseName)));
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.CREATE_VARIANTS_INDEXES_STEP,
+                                                        buildJobParameters(databaseName)));
+
+        assertEquals(5, getIndexNames(variantsCollection).size());
+        assertEquals(true, variantsCollection.getIndexInfo().stream()
+                .filter(index -> "ids_1".equals(index.get("name")))
+                .findFirst().get().get("sparse"));
+    }
+
+    private JobParameters buildJobParameters(String databaseName) {
+        return new EvaJobParameterBuilder()
+                .databaseName(databaseName)
+                .collectionVariantsName(COLLECTION_VARIANTS_NAME)
+                .timestamp()
+                .toJobParameters();
+    }
+
+    private Set<String> getIndexNames(DBCollection collection) {
+        return collection.getIndexInfo().stream().map(index -> index.get("name").toString())
+                .collect(Collectors.toSet());
+    }
+}
@@ -44,6 +44,8 @@ import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static uk.ac.ebi.eva.test.utils.DropStudyJobTestUtils.assertDropSingleStudy;
+import static uk.ac.ebi.eva.test.utils.DropStudyJobTestUtils.assertPullKeyedStudy;
+import static uk.ac.ebi.eva.test.utils.DropStudyJobTestUtils.buildKeyedVariant;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
 
 /**
@@ -97,20 +99,40 @@ public class DropSingleStudyVariantsStepTest {
         checkDrop(databaseName, EXPECTED_VARIANTS_AFTER_DROP_STUDY);
     }
 
+    @Test
+    public void testKeyedVariantsToDrop() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        DBCollection variantsCollection = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
+        variantsCollection.insert(Arrays.asList(buildKeyedVariant(100, STUDY_ID_TO_DROP),
+                                                buildKeyedVariant(200, STUDY_ID_TO_DROP),
+                                                buildKeyedVariant(300, "otherStudy"),
+                                                buildKeyedVariant(400, "otherStudy", STUDY_ID_TO_DROP)));
+
+        launchStep(databaseName, true);
+
+        assertEquals(EXPECTED_VARIANTS_AFTER_DROP_STUDY, variantsCollection.count());
+        assertPullKeyedStudy(variantsCollection, "otherStudy", 2, 2);
+    }
+
     private void checkDrop(String databaseName, long expectedVariantsAfterDropStudy) {
+        launchStep(databaseName, false);
+
+        DBCollection variantsCollection = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
+        assertDropSingleStudy(variantsCollection, STUDY_ID_TO_DROP, expectedVariantsAfterDropStudy);
+    }
+
+    private void launchStep(String databaseName, boolean keyedFiles) {
         JobParameters jobParameters = new EvaJobParameterBuilder()
                 .collectionVariantsName(COLLECTION_VARIANTS_NAME)
                 .databaseName(databaseName)
                 .inputStudyId(STUDY_ID_TO_DROP)
+                .keyedFiles(keyedFiles)
                 .toJobParameters();
 
         JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.DROP_SINGLE_STUDY_VARIANTS_STEP,
                 jobParameters);
 
         assertCompleted(jobExecution);
-
-        DBCollection variantsCollection = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
-        assertDropSingleStudy(variantsCollection, STUDY_ID_TO_DROP, expectedVariantsAfterDropStudy);
     }
 
 }
@@ -17,6 +17,8 @@ package uk.ac.ebi.eva.pipeline.jobs.steps;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -29,6 +31,8 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import uk.ac.ebi.eva.commons.models.converters.data.AnnotationFieldNames;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
 import uk.ac.ebi.eva.pipeline.Application;
 import uk.ac.ebi.eva.pipeline.configuration.BeanNames;
 import uk.ac.ebi.eva.pipeline.jobs.AnnotationJob;
@@ -49,6 +53,7 @@ import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertFailed;
@@ -67,6 +72,8 @@ public class GenerateVepAnnotationStepTest {
 
     private static final String MOCKVEP = "/mockvep_writeToFile.pl";
 
+    private static final String MOCKVEP_WITH_ANNOTATIONS = "/mockvep.pl";
+
     private static final String FAILING_MOCKVEP = "/mockvep_writeToFile_error.pl";
 
     private static final String STUDY_ID = "1";
@@ -119,6 +126,88 @@ public class GenerateVepAnnotationStepTest {
                 JobTestUtils.getLines(new GZIPInputStream(new FileInputStream(vepOutput))));
     }
 
+    @Test
+    public void shouldLoadVepAnnotationsDirectly() throws Exception {
+        String databaseName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+        String collectionVariantsName = "variants";
+        String outputDirAnnot = temporaryFolderRule.getRoot().getAbsolutePath();
+        File vepOutput = new File(URLHelper.resolveVepOutput(outputDirAnnot, STUDY_ID, FILE_ID));
+
+        JobParameters jobParameters = new EvaJobParameterBuilder()
+                .collectionVariantsName(collectionVariantsName)
+                .databaseName(databaseName)
+                .inputFasta("")
+                .inputStudyId(STUDY_ID)
+                .inputVcfId(FILE_ID)
+                .outputDirAnnotation(outputDirAnnot)
+                .annotationOverwrite("false")
+                .vepCachePath("")
+                .vepCacheSpecies("")
+                .vepCacheVersion("")
+                .vepNumForks("4")
+                .vepLoadDirectly("true")
+                .vepKeepOutput("false")
+                .vepPath(getResource(MOCKVEP_WITH_ANNOTATIONS).getPath())
+                .vepTimeout("60")
+                .toJobParameters();
+
+        JobExecution jobExecution = jobLauncherTestUtils
+                .launchStep(BeanNames.GENERATE_VEP_ANNOTATION_STEP, jobParameters);
+
+        assertCompleted(jobExecution);
+
+        // the annotations are loaded by a thread of the writer, without a step context, and no output file is written
+        assertFalse(vepOutput.exists());
+        int consequenceTypeCount = 0;
+        try (DBCursor cursor = mongoRule.getCollection(databaseName, collectionVariantsName).find()) {
+            for (DBObject variant : cursor) {
+                DBObject annotation = (DBObject) variant.get(VariantToDBObjectConverter.ANNOTATION_FIELD);
+                if (annotation != null) {
+                    consequenceTypeCount += ((List<?>) annotation.get(
+                            AnnotationFieldNames.CONSEQUENCE_TYPE_FIELD)).size();
+                }
+            }
+        }
+        assertEquals(536, consequenceTypeCount);
+    }
+
+    @Test
+    public void shouldGenerateVepAnnotationsWithSeveralVepProcesses() throws Exception {
+        String databaseName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+        String outputDirAnnot = temporaryFolderRule.getRoot().getAbsolutePath();
+
+        JobParameters jobParameters = new EvaJobParameterBuilder()
+                .collectionVariantsName("variants")
+                .databaseName(databaseName)
+                .inputFasta("")
+                .inputStudyId(STUDY_ID)
+                .inputVcfId(FILE_ID)
+                .outputDirAnnotation(outputDirAnnot)
+                .annotationOverwrite("false")
+                .vepCachePath("")
+                .vepCacheSpecies("")
+                .vepCacheVersion("")
+                .vepNumForks("4")
+                .vepNumProcesses("4")
+                .vepPath(getResource(MOCKVEP).getPath())
+                .vepTimeout("60")
+                .toJobParameters();
+
+        JobExecution jobExecution = jobLauncherTestUtils
+                .launchStep(BeanNames.GENERATE_VEP_ANNOTATION_STEP, jobParameters);
+
+        assertCompleted(jobExecution);
+
+        // each VEP process writes its own file, with an extra annotation each
+        List<File> vepOutputs = URLHelper.findVepOutputs(outputDirAnnot, STUDY_ID, FILE_ID, 4);
+        assertTrue(vepOutputs.size() > 0);
+        long annotations = 0;
+        for (File vepOutput : vepOutputs) {
+            annotations += JobTestUtils.getLines(new GZIPInputStream(new FileInputStream(vepOutput)));
+        }
+        assertEquals(300 + EXTRA_ANNOTATIONS * vepOutputs.size(), annotations);
+    }
+
     @Test
     public void shouldResumeJob() throws Exception {
         String databaseName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
@@ -153,7 +242,8 @@ public class GenerateVepAnnotationStepTest {
                 .filter(path -> !path.getFileName().toString().contains("error"))
                 .collect(Collectors.toList());
         assertEquals(1, files.size());
-        assertEquals(chunkSize + EXTRA_ANNOTATIONS,
+        // the same VEP process was annotating the second chunk when it failed, so it didn't write the extra annotation
+        assertEquals(chunkSize,
                 JobTestUtils.getLines(new GZIPInputStream(new FileInputStream(files.get(0).toFile()))));
 
         simulateFix(databaseName, collectionVariantsName);
@@ -165,7 +255,7 @@ public class GenerateVepAnnotationStepTest {
 
         assertTrue(vepOutput.exists());
         int chunks = 3;
-        int expectedTotalAnnotations = (chunkSize + EXTRA_ANNOTATIONS) * chunks;
+        int expectedTotalAnnotations = chunkSize * chunks + EXTRA_ANNOTATIONS;
         assertEquals(expectedTotalAnnotations,
                 JobTestUtils.getLines(new GZIPInputStream(new FileInputStream(vepOutput))));
     }
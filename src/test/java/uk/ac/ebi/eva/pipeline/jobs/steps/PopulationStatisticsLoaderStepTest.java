@@ -24,6 +24,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import uk.ac.ebi.eva.pipeline.configuration.BeanNames;
+import uk.ac.ebi.eva.pipeline.io.StatisticsFileWriter;
 import uk.ac.ebi.eva.pipeline.jobs.PopulationStatisticsJob;
 import uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.PopulationStatisticsLoaderStep;
 import uk.ac.ebi.eva.test.configuration.BatchTestConfiguration;
@@ -31,8 +32,12 @@ import uk.ac.ebi.eva.test.rules.PipelineTemporaryFolderRule;
 import uk.ac.ebi.eva.test.rules.TemporaryMongoRule;
 import uk.ac.ebi.eva.test.utils.JobTestUtils;
 import uk.ac.ebi.eva.utils.EvaJobParameterBuilder;
+import uk.ac.ebi.eva.utils.StatisticsFileFormat;
+import uk.ac.ebi.eva.utils.URLHelper;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
@@ -127,6 +132,43 @@ public class PopulationStatisticsLoaderStepTest {
         copyResource(SOURCE_FILE_NAME, outputDir);
     }
 
+    @Test
+    public void statisticsLoaderStepShouldLoadBinaryStatsIntoDb() throws Exception {
+        String input = getResource(SMALL_VCF_FILE).getAbsolutePath();
+        String fileId = "1";
+        String studyId = "1";
+        String dbName = mongoRule.restoreDumpInTemporaryDatabase(getResourceUrl(MONGO_DUMP));
+        String statsDir = temporaryFolderRule.newFolder().getAbsolutePath();
+
+        JobParameters jobParameters = new EvaJobParameterBuilder()
+                .collectionFilesName(COLLECTION_FILES_NAME)
+                .collectionVariantsName(COLLECTION_VARIANTS_NAME)
+                .databaseName(dbName)
+                .inputStudyId(studyId)
+                .inputVcf(input)
+                .inputVcfId(fileId)
+                .outputDirStats(statsDir)
+                .toJobParameters();
+
+        // the statistics files are in binary instead of JSON
+        convertResource(VARIANTS_FILE_NAME,
+                        URLHelper.getVariantsStatsUri(statsDir, studyId, fileId, StatisticsFileFormat.SMILE));
+        convertResource(SOURCE_FILE_NAME,
+                        URLHelper.getSourceStatsUri(statsDir, studyId, fileId, StatisticsFileFormat.SMILE));
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.LOAD_STATISTICS_STEP, jobParameters);
+
+        assertCompleted(jobExecution);
+        DBCursor cursor = mongoRule.getCollection(dbName, COLLECTION_VARIANTS_NAME).find();
+        assertEquals(1, getCohortStatsFromFirstVariant(cursor).size());
+    }
+
+    private void convertResource(String resourcePath, URI outputUri) throws IOException {
+        try (StatisticsFileWriter writer = new StatisticsFileWriter(new File(outputUri.getPath()))) {
+            writer.writeAll(getResource(resourcePath));
+        }
+    }
+
     @Test
     public void statisticsLoaderStepShouldFaildBecauseVariantStatsFileIsMissing()
             throws JobExecutionException, IOException, InterruptedException {
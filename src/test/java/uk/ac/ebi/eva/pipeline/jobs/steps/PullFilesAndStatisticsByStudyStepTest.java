@@ -43,7 +43,9 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.test.utils.DropStudyJobTestUtils.assertPullKeyedStudy;
 import static uk.ac.ebi.eva.test.utils.DropStudyJobTestUtils.assertPullStudy;
+import static uk.ac.ebi.eva.test.utils.DropStudyJobTestUtils.buildKeyedVariant;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
 
 /**
@@ -131,11 +133,30 @@ public class PullFilesAndStatisticsByStudyStepTest {
         checkPull(databaseName, expectedFilesAfter, expectedStatsAfter);
     }
 
+    @Test
+    public void testKeyedFilesAndStatsToPull() {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        DBCollection variantsCollection = mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME);
+        variantsCollection.insert(Arrays.asList(buildKeyedVariant(100, "otherStudy", STUDY_ID_TO_DROP),
+                                                buildKeyedVariant(200, STUDY_ID_TO_DROP),
+                                                buildKeyedVariant(300, "otherStudy")));
+
+        assertPullKeyedStudy(variantsCollection, STUDY_ID_TO_DROP, 2, 2);
+        executeStep(databaseName, true);
+        assertPullKeyedStudy(variantsCollection, STUDY_ID_TO_DROP, 0, 0);
+        assertPullKeyedStudy(variantsCollection, "otherStudy", 2, 2);
+    }
+
     private void executeStep(String databaseName) {
+        executeStep(databaseName, false);
+    }
+
+    private void executeStep(String databaseName, boolean keyedFiles) {
         JobParameters jobParameters = new EvaJobParameterBuilder()
                 .collectionVariantsName(COLLECTION_VARIANTS_NAME)
                 .databaseName(databaseName)
                 .inputStudyId(STUDY_ID_TO_DROP)
+                .keyedFiles(keyedFiles)
                 .toJobParameters();
 
         JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.PULL_FILES_AND_STATISTICS_BY_STUDY_STEP,
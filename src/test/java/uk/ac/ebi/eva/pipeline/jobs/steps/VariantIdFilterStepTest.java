@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.pipeline.configuration.BeanNames;
+import uk.ac.ebi.eva.pipeline.io.VariantIdBloomFilter;
+import uk.ac.ebi.eva.pipeline.jobs.GenotypedVcfJob;
+import uk.ac.ebi.eva.pipeline.jobs.steps.tasklets.VariantIdFilterTasklet;
+import uk.ac.ebi.eva.test.configuration.BatchTestConfiguration;
+import uk.ac.ebi.eva.test.rules.PipelineTemporaryFolderRule;
+import uk.ac.ebi.eva.test.rules.TemporaryMongoRule;
+import uk.ac.ebi.eva.utils.EvaJobParameterBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
+
+/**
+ * Test {@link VariantIdFilterTasklet}
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:common-configuration.properties", "classpath:test-mongo.properties"})
+@ContextConfiguration(classes = {GenotypedVcfJob.class, BatchTestConfiguration.class})
+public class VariantIdFilterStepTest {
+
+    private static final String COLLECTION_VARIANTS_NAME = "variants";
+
+    private static final String COLLECTION_FILES_NAME = "files";
+
+    private static final String STUDY_ID = "1";
+
+    @Rule
+    public TemporaryMongoRule mongoRule = new TemporaryMongoRule();
+
+    @Rule
+    public PipelineTemporaryFolderRule temporaryFolder = new PipelineTemporaryFolderRule();
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Test
+    public void filterShouldContainTheLoadedVariants() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        loadFile(databaseName, "file1", "1_100_A_T", "1_200_C_G");
+        File filterFile = new File(temporaryFolder.getRoot(), "variants.filter");
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.VARIANT_ID_FILTER_STEP,
+                buildJobParameters(databaseName, filterFile));
+
+        assertCompleted(jobExecution);
+        try (VariantIdBloomFilter filter = VariantIdBloomFilter.open(filterFile, true)) {
+            assertTrue(filter.mightContain("1_100_A_T"));
+            assertTrue(filter.mightContain("1_200_C_G"));
+            assertFalse(filter.mightContain("1_300_A_C"));
+        }
+        assertEquals(Arrays.asList(databaseName + "." + COLLECTION_VARIANTS_NAME, STUDY_ID + "\tfile1"),
+                     Files.readAllLines(new File(filterFile.getPath()
+                                                         + VariantIdFilterTasklet.COVERED_FILES_SUFFIX).toPath()));
+    }
+
+    @Test
+    public void refreshShouldAddTheVariantsOfNewFiles() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        loadFile(databaseName, "file1", "1_100_A_T");
+        File filterFile = new File(temporaryFolder.getRoot(), "variants.filter");
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.VARIANT_ID_FILTER_STEP,
+                                                        buildJobParameters(databaseName, filterFile)));
+
+        loadFile(databaseName, "file2", "1_300_A_C");
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.VARIANT_ID_FILTER_STEP,
+                                                        buildJobParameters(databaseName, filterFile)));
+
+        try (VariantIdBloomFilter filter = VariantIdBloomFilter.open(filterFile, true)) {
+            assertTrue(filter.mightContain("1_100_A_T"));
+            assertTrue(filter.mightContain("1_300_A_C"));
+            assertEquals(2, filter.getAddedIds());
+        }
+    }
+
+    @Test
+    public void refreshShouldAddTheVariantsOfNewFilesWithKeyedFiles() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+        loadKeyedFile(databaseName, "file1", "1_100_A_T");
+        File filterFile = new File(temporaryFolder.getRoot(), "variants.filter");
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.VARIANT_ID_FILTER_STEP,
+                                                        buildJobParameters(databaseName, filterFile, true)));
+
+        loadKeyedFile(databaseName, "file2", "1_300_A_C");
+        assertCompleted(jobLauncherTestUtils.launchStep(BeanNames.VARIANT_ID_FILTER_STEP,
+                                                        buildJobParameters(databaseName, filterFile, true)));
+
+        try (VariantIdBloomFilter filter = VariantIdBloomFilter.open(filterFile, true)) {
+            assertTrue(filter.mightContain("1_100_A_T"));
+            assertTrue(filter.mightContain("1_300_A_C"));
+        }
+        assertEquals(Arrays.asList(databaseName + "." + COLLECTION_VARIANTS_NAME, STUDY_ID + "\tfile1",
+                                   STUDY_ID + "\tfile2"),
+                     Files.readAllLines(new File(filterFile.getPath()
+                                                         + VariantIdFilterTasklet.COVERED_FILES_SUFFIX).toPath()));
+    }
+
+    private JobParameters buildJobParameters(String databaseName, File filterFile) {
+        return buildJobParameters(databaseName, filterFile, false);
+    }
+
+    private JobParameters buildJobParameters(String databaseName, File filterFile, boolean keyedFiles) {
+        return new EvaJobParameterBuilder()
+                .databaseName(databaseName)
+                .collectionVariantsName(COLLECTION_VARIANTS_NAME)
+                .collectionFilesName(COLLECTION_FILES_NAME)
+                .keyedFiles(keyedFiles)
+                .loadIdFilter(filterFile.getAbsolutePath())
+                .timestamp()
+                .toJobParameters();
+    }
+
+    private void loadFile(String databaseName, String fileId, String... variantIds) {
+        for (String variantId : variantIds) {
+            BasicDBList files = new BasicDBList();
+            files.add(new BasicDBObject("sid", STUDY_ID).append("fid", fileId));
+            mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME)
+                     .insert(new BasicDBObject("_id", variantId).append("files", files));
+        }
+        mongoRule.getCollection(databaseName, COLLECTION_FILES_NAME)
+                 .insert(new BasicDBObject("sid", STUDY_ID).append("fid", fileId));
+    }
+
+    private void loadKeyedFile(String databaseName, String fileId, String... variantIds) {
+        for (String variantId : variantIds) {
+            mongoRule.getCollection(databaseName, COLLECTION_VARIANTS_NAME)
+                     .insert(new BasicDBObject("_id", variantId).append("files", new BasicDBObject(
+                             STUDY_ID, new BasicDBObject(fileId, new BasicDBObject()))));
+        }
+        mongoRule.getCollection(databaseName, COLLECTION_FILES_NAME)
+                 .insert(new BasicDBObject("sid", STUDY_ID).append("fid", fileId));
+    }
+}
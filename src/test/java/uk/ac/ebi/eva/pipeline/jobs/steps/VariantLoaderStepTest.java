@@ -15,6 +15,10 @@
  */
 package uk.ac.ebi.eva.pipeline.jobs.steps;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -34,6 +38,10 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantStatsToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
 import uk.ac.ebi.eva.pipeline.Application;
 import uk.ac.ebi.eva.pipeline.configuration.BeanNames;
 import uk.ac.ebi.eva.pipeline.jobs.GenotypedVcfJob;
@@ -41,7 +49,12 @@ import uk.ac.ebi.eva.test.configuration.BatchTestConfiguration;
 import uk.ac.ebi.eva.test.rules.TemporaryMongoRule;
 import uk.ac.ebi.eva.utils.EvaJobParameterBuilder;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.assertCompleted;
 import static uk.ac.ebi.eva.test.utils.JobTestUtils.count;
 import static uk.ac.ebi.eva.utils.FileUtils.getResource;
@@ -57,8 +70,15 @@ public class VariantLoaderStepTest {
 
     private static final int EXPECTED_VARIANTS = 300;
 
+    private static final double DELTA = 1e-6;
+
     private static final String SMALL_VCF_FILE = "/input-files/vcf/genotyped.vcf.gz";
 
+    /**
+     * Same as {@link #SMALL_VCF_FILE}, with some variants repeated right after themselves
+     */
+    private static final String DUPLICATED_VCF_FILE = "/input-files/vcf/genotyped_duplicated.vcf.gz";
+
     @Rule
     public TemporaryMongoRule mongoRule = new TemporaryMongoRule();
 
@@ -98,6 +118,89 @@ public class VariantLoaderStepTest {
         assertEquals(EXPECTED_VARIANTS, count(iterator));
     }
 
+    @Test
+    public void loaderStepShouldWriteStatisticsIfRequested() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+
+        JobParameters jobParameters = new EvaJobParameterBuilder()
+                .collectionVariantsName("variants")
+                .databaseName(databaseName)
+                .inputStudyId("1")
+                .inputVcf(input)
+                .inputVcfAggregation("NONE")
+                .inputVcfId("1")
+                .loadStatistics("true")
+                .toJobParameters();
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.LOAD_VARIANTS_STEP, jobParameters);
+        assertCompleted(jobExecution);
+
+        // every variant should have the statistics of all the samples of the file
+        DBCursor cursor = mongoRule.getCollection(databaseName, "variants").find();
+        int variantsWithStats = 0;
+        while (cursor.hasNext()) {
+            List<DBObject> stats = KeyedFilesLayout.getStats(cursor.next());
+            assertEquals(1, stats.size());
+            assertEquals(VariantSourceEntry.DEFAULT_COHORT, stats.get(0).get(VariantStatsToDBObjectConverter.COHORT_ID));
+            variantsWithStats++;
+        }
+        assertEquals(EXPECTED_VARIANTS, variantsWithStats);
+
+        // and the statistics should be the same as in the statistics file of the input, for a rare and a common variant
+        DBCollection variants = mongoRule.getCollection(databaseName, "variants");
+
+        // the 1|0 genotypes of the VCF are counted as 0|1
+        Map<String, Integer> rareVariantGenotypeCounts = new HashMap<>();
+        rareVariantGenotypeCounts.put("0|0", 2492);
+        rareVariantGenotypeCounts.put("0|1", 12);
+        assertStats(variants, 67765, "C", "T", 0.002396166, "T", rareVariantGenotypeCounts);
+
+        Map<String, Integer> commonVariantGenotypeCounts = new HashMap<>();
+        commonVariantGenotypeCounts.put("0|0", 559);
+        commonVariantGenotypeCounts.put("0|1", 1029);
+        commonVariantGenotypeCounts.put("1|1", 916);
+        assertStats(variants, 68749, "T", "C", 0.42871407, "T", commonVariantGenotypeCounts);
+    }
+
+    private void assertStats(DBCollection variants, int start, String reference, String alternate, double maf,
+                             String mafAllele, Map<String, Integer> genotypeCounts) {
+        DBObject variant = variants.findOne(new BasicDBObject(VariantToDBObjectConverter.START_FIELD, start)
+                                                    .append(VariantToDBObjectConverter.REFERENCE_FIELD, reference)
+                                                    .append(VariantToDBObjectConverter.ALTERNATE_FIELD, alternate));
+        assertNotNull(variant);
+
+        DBObject stats = KeyedFilesLayout.getStats(variant).get(0);
+        assertEquals(maf, ((Number) stats.get(VariantStatsToDBObjectConverter.MAF_FIELD)).doubleValue(), DELTA);
+        assertEquals(mafAllele, stats.get(VariantStatsToDBObjectConverter.MAFALLELE_FIELD));
+        // the genotypes are phased, so none of 0/0, 0/1 and 1/1 is found and the first of them has the lowest frequency
+        assertEquals(0.0, ((Number) stats.get(VariantStatsToDBObjectConverter.MGF_FIELD)).doubleValue(), DELTA);
+        assertEquals("0/0", stats.get(VariantStatsToDBObjectConverter.MGFGENOTYPE_FIELD));
+        assertEquals(0, ((Number) stats.get(VariantStatsToDBObjectConverter.MISSGENOTYPE_FIELD)).intValue());
+        assertEquals(genotypeCounts,
+                     ((DBObject) stats.get(VariantStatsToDBObjectConverter.NUMGT_FIELD)).toMap());
+    }
+
+    @Test
+    public void loaderStepShouldMergeRepeatedVariantsWrittenBehind() throws Exception {
+        String databaseName = mongoRule.getRandomTemporaryDatabaseName();
+
+        // the collection is empty, so the variants are inserted and the repeated ones merged by the bulk threads
+        JobParameters jobParameters = new EvaJobParameterBuilder()
+                .collectionVariantsName("variants")
+                .databaseName(databaseName)
+                .inputStudyId("1")
+                .inputVcf(getResource(DUPLICATED_VCF_FILE).getAbsolutePath())
+                .inputVcfAggregation("NONE")
+                .inputVcfId("1")
+                .loadInFlightBulks("4")
+                .toJobParameters();
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(BeanNames.LOAD_VARIANTS_STEP, jobParameters);
+        assertCompleted(jobExecution);
+
+        assertEquals(EXPECTED_VARIANTS, mongoRule.getCollection(databaseName, "variants").count());
+    }
+
     @Before
     public void setUp() throws Exception {
         input = getResource(SMALL_VCF_FILE).getAbsolutePath();
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.partitioners;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class VariantsByChromosomePartitionerTest {
+
+    @Test
+    public void chromosomesAreBalancedAcrossPartitions() {
+        Map<String, Long> variantsPerChromosome = new LinkedHashMap<>();
+        variantsPerChromosome.put("1", 100L);
+        variantsPerChromosome.put("2", 90L);
+        variantsPerChromosome.put("3", 60L);
+        variantsPerChromosome.put("4", 40L);
+        variantsPerChromosome.put("X", 10L);
+
+        List<List<String>> groups = VariantsByChromosomePartitioner.groupChromosomes(variantsPerChromosome, 2);
+
+        assertEquals(2, groups.size());
+        assertEquals(Arrays.asList("1", "4", "X"), groups.get(0));
+        assertEquals(Arrays.asList("2", "3"), groups.get(1));
+    }
+
+    @Test
+    public void thereAreNoMorePartitionsThanChromosomes() {
+        Map<String, Long> variantsPerChromosome = new LinkedHashMap<>();
+        variantsPerChromosome.put("20", 300L);
+
+        List<List<String>> groups = VariantsByChromosomePartitioner.groupChromosomes(variantsPerChromosome, 4);
+
+        assertEquals(Collections.singletonList(Collections.singletonList("20")), groups);
+    }
+
+    @Test
+    public void noVariantsMeansNoPartitions() {
+        List<List<String>> groups = VariantsByChromosomePartitioner.groupChromosomes(new LinkedHashMap<>(), 4);
+
+        assertEquals(0, groups.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void numberOfPartitionsMustBePositive() {
+        new VariantsByChromosomePartitioner(null, "variants", null, 0);
+    }
+}
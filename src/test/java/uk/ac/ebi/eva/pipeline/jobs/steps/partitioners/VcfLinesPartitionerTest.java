@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.partitioners;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
+
+import uk.ac.ebi.eva.pipeline.io.OffsetResource;
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+import uk.ac.ebi.eva.utils.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * {@link VcfLinesPartitioner}
+ * input: a VCF file and a maximum number of partitions
+ * output: partitions that, read with a {@link FlatFileItemReader}, contain all the lines of the VCF body once
+ */
+public class VcfLinesPartitionerTest {
+
+    private static final String HEADER = "##fileformat=VCFv4.1\n#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void partitionsShouldContainEveryLineOnce() throws Exception {
+        List<String> lines = buildLines(103);
+        File vcf = writeVcf("input.vcf", lines, false);
+
+        Map<String, ExecutionContext> partitions = new VcfLinesPartitioner(vcf, 4, 10).partition(1);
+
+        assertEquals(4, partitions.size());
+        assertEquals(lines, readPartitions(vcf, partitions));
+    }
+
+    @Test
+    public void compressedFilesShouldBePartitionedByUncompressedOffsets() throws Exception {
+        List<String> lines = buildLines(103);
+        File vcf = writeVcf("input.vcf.gz", lines, true);
+
+        Map<String, ExecutionContext> partitions = new VcfLinesPartitioner(vcf, 3, 10).partition(1);
+
+        assertEquals(3, partitions.size());
+        assertEquals(lines, readPartitions(vcf, partitions));
+    }
+
+    @Test
+    public void smallFilesShouldNotBeSplitBelowTheCheckpointSize() throws Exception {
+        List<String> lines = buildLines(25);
+        File vcf = writeVcf("input.vcf", lines, false);
+
+        Map<String, ExecutionContext> partitions = new VcfLinesPartitioner(vcf, 8, 10).partition(1);
+
+        assertEquals(2, partitions.size());
+        assertEquals(lines, readPartitions(vcf, partitions));
+    }
+
+    @Test
+    public void fileWithoutVariantsShouldHaveOneEmptyPartition() throws Exception {
+        File vcf = writeVcf("input.vcf", new ArrayList<>(), false);
+
+        Map<String, ExecutionContext> partitions = new VcfLinesPartitioner(vcf, 4, 10).partition(1);
+
+        assertEquals(1, partitions.size());
+        ExecutionContext partition = partitions.values().iterator().next();
+        assertEquals(0, partition.getInt(ExecutionContextParametersNames.PARTITION_LINES));
+        assertEquals(0, partition.getInt(ExecutionContextParametersNames.PARTITION_INDEX));
+    }
+
+    @Test
+    public void singlePartitionShouldReadTheWholeFileWithoutScanningIt() throws Exception {
+        File vcf = writeVcf("input.vcf.gz", buildLines(103), true);
+
+        Map<String, ExecutionContext> partitions = new VcfLinesPartitioner(vcf, 1, 10).partition(1);
+
+        assertEquals(1, partitions.size());
+        ExecutionContext partition = partitions.get(VcfLinesPartitioner.PARTITION_NAME_PREFIX + 0);
+        assertEquals(0, partition.getInt(ExecutionContextParametersNames.PARTITION_INDEX));
+        assertFalse(partition.containsKey(ExecutionContextParametersNames.PARTITION_START_BYTE));
+        assertFalse(partition.containsKey(ExecutionContextParametersNames.PARTITION_LINES));
+    }
+
+    private List<String> buildLines(int numLines) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < numLines; i++) {
+            lines.add("20\t" + (60000 + i * 7) + "\t.\tA\tG\t100\tPASS\tAC=" + i);
+        }
+        return lines;
+    }
+
+    private File writeVcf(String name, List<String> lines, boolean compressed) throws Exception {
+        File vcf = temporaryFolder.newFile(name);
+        try (OutputStream outputStream = compressed ? new GZIPOutputStream(new FileOutputStream(vcf))
+                : new FileOutputStream(vcf)) {
+            outputStream.write(HEADER.getBytes(StandardCharsets.UTF_8));
+            for (String line : lines) {
+                outputStream.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return vcf;
+    }
+
+    private List<String> readPartitions(File vcf, Map<String, ExecutionContext> partitions) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            ExecutionContext partition = partitions.get(VcfLinesPartitioner.PARTITION_NAME_PREFIX + i);
+            assertEquals(i, partition.getInt(ExecutionContextParametersNames.PARTITION_INDEX));
+
+            FlatFileItemReader<String> reader = new FlatFileItemReader<>();
+            reader.setResource(new OffsetResource(FileUtils.getResource(vcf),
+                    partition.getLong(ExecutionContextParametersNames.PARTITION_START_BYTE)));
+            reader.setMaxItemCount(partition.getInt(ExecutionContextParametersNames.PARTITION_LINES));
+            reader.setLineMapper(new PassThroughLineMapper());
+            reader.open(new ExecutionContext());
+            String line;
+            while ((line = reader.read()) != null) {
+                lines.add(line);
+            }
+            reader.close();
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.policies;
+
+import org.junit.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link AdaptiveChunkSizeCompletionPolicy}
+ * <p>
+ * Input: the number of items and the duration of each chunk
+ * output: the size of the next chunk, and the sizes recorded in the step execution context
+ */
+public class AdaptiveChunkSizeCompletionPolicyTest {
+
+    private static final long TARGET_MILLIS = 1000;
+
+    @Test
+    public void fastChunksShouldGrowTowardsTheTarget() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100, TARGET_MILLIS, 10, 1000);
+        policy.resize(100, TimeUnit.MILLISECONDS.toNanos(800));
+        assertEquals(125, policy.getChunkSize());
+    }
+
+    @Test
+    public void slowChunksShouldShrinkTowardsTheTarget() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100, TARGET_MILLIS, 10, 1000);
+        policy.resize(100, TimeUnit.MILLISECONDS.toNanos(1250));
+        assertEquals(80, policy.getChunkSize());
+    }
+
+    @Test
+    public void sizeShouldChangeAtMostByTheResizeFactor() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100, TARGET_MILLIS, 10, 1000);
+        policy.resize(100, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(100 * AdaptiveChunkSizeCompletionPolicy.MAX_RESIZE_FACTOR, policy.getChunkSize());
+
+        policy.resize(200, TimeUnit.SECONDS.toNanos(100));
+        assertEquals(100, policy.getChunkSize());
+    }
+
+    @Test
+    public void sizeShouldStayWithinTheBounds() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100, TARGET_MILLIS, 80, 150);
+        policy.resize(100, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(150, policy.getChunkSize());
+
+        policy.resize(150, TimeUnit.SECONDS.toNanos(100));
+        assertEquals(80, policy.getChunkSize());
+    }
+
+    @Test
+    public void chunksShouldCompleteWithTheNewSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(10, TARGET_MILLIS, 10, 1000);
+        policy.resize(10, TimeUnit.MILLISECONDS.toNanos(500));
+
+        RepeatContext context = policy.start(null);
+        for (int i = 0; i < 19; i++) {
+            policy.update(context);
+        }
+        assertFalse(policy.isComplete(context));
+        policy.update(context);
+        assertTrue(policy.isComplete(context));
+    }
+
+    @Test
+    public void sizesShouldBeRecordedInTheExecutionContext() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100, TARGET_MILLIS, 10, 1000);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        policy.beforeChunk(chunkContext);
+        stepExecution.setReadCount(100);
+        policy.afterChunk(chunkContext);
+
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        int chunkSize = executionContext.getInt(ExecutionContextParametersNames.CHUNK_SIZE);
+        assertEquals(policy.getChunkSize(), chunkSize);
+        assertEquals(Math.min(100, chunkSize),
+                     executionContext.getInt(ExecutionContextParametersNames.CHUNK_SIZE_SMALLEST));
+        assertEquals(Math.max(100, chunkSize),
+                     executionContext.getInt(ExecutionContextParametersNames.CHUNK_SIZE_LARGEST));
+        assertTrue(executionContext.containsKey(ExecutionContextParametersNames.CHUNK_READ_MILLIS));
+        assertTrue(executionContext.containsKey(ExecutionContextParametersNames.CHUNK_WRITE_MILLIS));
+    }
+
+    @Test
+    public void restartedStepShouldContinueWithTheRecordedSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100, TARGET_MILLIS, 10, 1000);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.getExecutionContext().putInt(ExecutionContextParametersNames.CHUNK_SIZE, 400);
+
+        policy.beforeChunk(new ChunkContext(new StepContext(stepExecution)));
+        assertEquals(400, policy.getChunkSize());
+    }
+
+    @Test
+    public void fixedSizeShouldNotChange() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(100);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.getExecutionContext().putInt(ExecutionContextParametersNames.CHUNK_SIZE, 400);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        policy.beforeChunk(chunkContext);
+        stepExecution.setReadCount(100);
+        policy.afterChunk(chunkContext);
+
+        assertFalse(policy.isAdaptive());
+        assertEquals(100, policy.getChunkSize());
+        assertEquals(400, stepExecution.getExecutionContext().getInt(ExecutionContextParametersNames.CHUNK_SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialSizeOutOfTheBoundsShouldBeRejected() {
+        new AdaptiveChunkSizeCompletionPolicy(5, TARGET_MILLIS, 10, 1000);
+    }
+}
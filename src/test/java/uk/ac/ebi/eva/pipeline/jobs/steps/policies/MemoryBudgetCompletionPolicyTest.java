@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.policies;
+
+import org.junit.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import uk.ac.ebi.eva.pipeline.parameters.ExecutionContextParametersNames;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link MemoryBudgetCompletionPolicy}
+ * <p>
+ * Input: the items read in a chunk, whose estimated size is their length
+ * output: whether the chunk is complete after each item
+ */
+public class MemoryBudgetCompletionPolicyTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private static final long BUDGET_BYTES = 10;
+
+    @Test
+    public void chunkShouldEndWhenTheBudgetIsReached() {
+        MemoryBudgetCompletionPolicy<String> policy = buildPolicy(BUDGET_BYTES);
+        RepeatContext context = policy.start(null);
+
+        assertFalse(read(policy, context, "abcd"));
+        assertFalse(read(policy, context, "efg"));
+        assertTrue(read(policy, context, "hij"));
+        assertEquals(10, policy.getChunkBytes());
+    }
+
+    @Test
+    public void chunkShouldEndAtItsSizeWithinTheBudget() {
+        MemoryBudgetCompletionPolicy<String> policy = buildPolicy(BUDGET_BYTES);
+        RepeatContext context = policy.start(null);
+
+        for (int i = 1; i < CHUNK_SIZE; i++) {
+            assertFalse(read(policy, context, "a"));
+        }
+        assertTrue(read(policy, context, "a"));
+    }
+
+    @Test
+    public void budgetShouldBeCountedAgainInEachChunk() {
+        MemoryBudgetCompletionPolicy<String> policy = buildPolicy(BUDGET_BYTES);
+        assertTrue(read(policy, policy.start(null), "abcdefghijk"));
+
+        RepeatContext context = policy.start(null);
+        assertEquals(0, policy.getChunkBytes());
+        assertFalse(read(policy, context, "abcd"));
+    }
+
+    @Test
+    public void withoutBudgetChunksShouldEndOnlyAtTheirSize() {
+        MemoryBudgetCompletionPolicy<String> policy = buildPolicy(0);
+        RepeatContext context = policy.start(null);
+
+        for (int i = 1; i < CHUNK_SIZE; i++) {
+            assertFalse(read(policy, context, "abcdefghijk"));
+        }
+        assertTrue(read(policy, context, "abcdefghijk"));
+    }
+
+    @Test
+    public void estimatedBytesShouldBeRecordedInTheExecutionContext() {
+        MemoryBudgetCompletionPolicy<String> policy = buildPolicy(BUDGET_BYTES);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        policy.beforeChunk(chunkContext);
+        RepeatContext context = policy.start(null);
+        read(policy, context, "abcd");
+        read(policy, context, "efghij");
+        policy.afterChunk(chunkContext);
+
+        assertEquals(10, stepExecution.getExecutionContext().getLong(
+                ExecutionContextParametersNames.CHUNK_ESTIMATED_BYTES));
+    }
+
+    private MemoryBudgetCompletionPolicy<String> buildPolicy(long budgetBytes) {
+        return new MemoryBudgetCompletionPolicy<>(CHUNK_SIZE, 0, CHUNK_SIZE, CHUNK_SIZE, budgetBytes, String::length);
+    }
+
+    /**
+     * Reads an item as a chunk provider does, and returns whether the chunk is complete
+     */
+    private boolean read(MemoryBudgetCompletionPolicy<String> policy, RepeatContext context, String item) {
+        policy.beforeRead();
+        policy.afterRead(item);
+        policy.update(context);
+        return policy.isComplete(context, RepeatStatus.CONTINUABLE);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.jobs.steps.processors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SourceEntryStatsProcessorTest {
+
+    private SourceEntryStatsProcessor processor;
+
+    @Before
+    public void setUp() {
+        processor = new SourceEntryStatsProcessor();
+    }
+
+    @Test
+    public void shouldCalculateTheStatisticsOfAllTheSamples() throws Exception {
+        Variant variant = new Variant("1", 1000, 1000, "A", "C");
+        VariantSourceEntry sourceEntry = new VariantSourceEntry("f1", "s1");
+        for (String genotype : new String[]{"0|0", "0|0", "0|1", "1|1", "./."}) {
+            sourceEntry.addSampleData(Collections.singletonMap("GT", genotype));
+        }
+        sourceEntry.addAttribute("QUAL", "50.0");
+        variant.addSourceEntry(sourceEntry);
+
+        Variant output = processor.process(variant);
+
+        VariantStats stats = output.getSourceEntry("f1", "s1").getCohortStats(VariantSourceEntry.DEFAULT_COHORT);
+        assertEquals(5, stats.getRefAlleleCount());
+        assertEquals(3, stats.getAltAlleleCount());
+        assertEquals(2, stats.getMissingAlleles());
+        assertEquals(1, stats.getMissingGenotypes());
+        assertEquals("C", stats.getMafAllele());
+        assertEquals(3 / 8f, stats.getMaf(), 1e-6);
+        assertEquals(50.0f, stats.getQuality(), 1e-6);
+    }
+
+    @Test
+    public void shouldIgnoreSourceEntriesWithoutSamples() throws Exception {
+        Variant variant = new Variant("1", 1000, 1000, "A", "C");
+        variant.addSourceEntry(new VariantSourceEntry("f1", "s1"));
+
+        Variant output = processor.process(variant);
+
+        assertNull(output.getSourceEntry("f1", "s1").getCohortStats(VariantSourceEntry.DEFAULT_COHORT));
+    }
+}
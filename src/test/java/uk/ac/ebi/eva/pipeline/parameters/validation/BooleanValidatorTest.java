@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters.validation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+
+import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class BooleanValidatorTest {
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object> jobParameterNames() {
+        return Arrays.asList(JobParametersNames.DB_COMPACT_SAMPLES,
+                             JobParametersNames.DB_KEYED_FILES,
+                             JobParametersNames.APP_VEP_LOAD_DIRECTLY,
+                             JobParametersNames.APP_VEP_KEEP_OUTPUT,
+                             JobParametersNames.CONFIG_LOAD_PIPELINED,
+                             JobParametersNames.CONFIG_LOAD_INSERT_ONLY,
+                             JobParametersNames.CONFIG_LOAD_DEFER_INDEXES,
+                             JobParametersNames.CONFIG_LOAD_STATISTICS,
+                             JobParametersNames.CONFIG_STATISTICS_CHUNKED);
+    }
+
+    @Parameterized.Parameter
+    public String jobParameterName;
+
+    private void validate(String value) throws JobParametersInvalidException {
+        JobParametersBuilder jobParametersBuilder = new JobParametersBuilder();
+        jobParametersBuilder.addString(jobParameterName, value);
+        new BooleanValidator(jobParameterName).validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void flagIsTrue() throws JobParametersInvalidException {
+        validate("true");
+    }
+
+    @Test
+    public void flagIsTrueAllCapital() throws JobParametersInvalidException {
+        validate("TRUE");
+    }
+
+    @Test
+    public void flagIsFalse() throws JobParametersInvalidException {
+        validate("false");
+    }
+
+    @Test
+    public void flagIsFalseAllCapital() throws JobParametersInvalidException {
+        validate("FALSE");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void flagIsNotValid() throws JobParametersInvalidException {
+        validate("blabla");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void flagIsEmpty() throws JobParametersInvalidException {
+        validate("");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void flagIsWhitespace() throws JobParametersInvalidException {
+        validate(" ");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void flagIsNull() throws JobParametersInvalidException {
+        validate(null);
+    }
+}
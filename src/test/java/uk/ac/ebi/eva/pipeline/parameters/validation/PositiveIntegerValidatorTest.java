@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters.validation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+
+import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class PositiveIntegerValidatorTest {
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object> jobParameterNames() {
+        return Arrays.asList(JobParametersNames.APP_VEP_NUM_PROCESSES,
+                             JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS,
+                             JobParametersNames.CONFIG_CHUNK_MIN_SIZE,
+                             JobParametersNames.CONFIG_CHUNK_MAX_SIZE,
+                             JobParametersNames.CONFIG_CHUNK_MEMORY_BUDGET_MB,
+                             JobParametersNames.CONFIG_LOAD_NUM_PARTITIONS,
+                             JobParametersNames.CONFIG_LOAD_IN_FLIGHT_BULKS,
+                             JobParametersNames.CONFIG_STATISTICS_NUM_PARTITIONS);
+    }
+
+    @Parameterized.Parameter
+    public String jobParameterName;
+
+    private void validate(String value) throws JobParametersInvalidException {
+        JobParametersBuilder jobParametersBuilder = new JobParametersBuilder();
+        jobParametersBuilder.addString(jobParameterName, value);
+        new PositiveIntegerValidator(jobParameterName).validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void valueIsValid() throws JobParametersInvalidException {
+        validate("11");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void valueIsZero() throws JobParametersInvalidException {
+        validate("0");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void valueIsNegative() throws JobParametersInvalidException {
+        validate("-1");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void valueIsNotANumber() throws JobParametersInvalidException {
+        validate("hello");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void valueIsEmpty() throws JobParametersInvalidException {
+        validate("");
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void valueIsNull() throws JobParametersInvalidException {
+        validate(null);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.pipeline.parameters.validation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+
+import uk.ac.ebi.eva.pipeline.parameters.JobParametersNames;
+
+public class StatisticsLayoutValidatorTest {
+
+    private StatisticsLayoutValidator keyedFilesValidator;
+
+    private StatisticsLayoutValidator compactSamplesValidator;
+
+    private JobParametersBuilder jobParametersBuilder;
+
+    @Before
+    public void setUp() throws Exception {
+        keyedFilesValidator = new StatisticsLayoutValidator(JobParametersNames.DB_KEYED_FILES);
+        compactSamplesValidator = new StatisticsLayoutValidator(JobParametersNames.DB_COMPACT_SAMPLES);
+        jobParametersBuilder = new JobParametersBuilder();
+    }
+
+    @Test
+    public void keyedFilesIsNotProvided() throws JobParametersInvalidException {
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void keyedFilesIsFalse() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_KEYED_FILES, "false");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void keyedFilesIsTrueWithDefaultStatistics() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_KEYED_FILES, "true");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void keyedFilesIsTrueWithStatisticsNotChunked() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_KEYED_FILES, "true");
+        jobParametersBuilder.addString(JobParametersNames.CONFIG_STATISTICS_CHUNKED, "false");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void keyedFilesIsTrueAndStatisticsAreSkipped() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_KEYED_FILES, "true");
+        jobParametersBuilder.addString(JobParametersNames.STATISTICS_SKIP, "true");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void keyedFilesIsTrueAndStatisticsAreCalculatedWhileLoading() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_KEYED_FILES, "true");
+        jobParametersBuilder.addString(JobParametersNames.CONFIG_LOAD_STATISTICS, "true");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void keyedFilesIsTrueAndStatisticsAreChunked() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_KEYED_FILES, "TRUE");
+        jobParametersBuilder.addString(JobParametersNames.CONFIG_STATISTICS_CHUNKED, "true");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void compactSamplesIsFalse() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_COMPACT_SAMPLES, "false");
+        compactSamplesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void compactSamplesIsTrueWithDefaultStatistics() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_COMPACT_SAMPLES, "true");
+        compactSamplesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void compactSamplesIsTrueAndStatisticsAreSkipped() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_COMPACT_SAMPLES, "true");
+        jobParametersBuilder.addString(JobParametersNames.STATISTICS_SKIP, "true");
+        compactSamplesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void compactSamplesIsTrueAndStatisticsAreCalculatedWhileLoading() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_COMPACT_SAMPLES, "true");
+        jobParametersBuilder.addString(JobParametersNames.CONFIG_LOAD_STATISTICS, "true");
+        compactSamplesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void compactSamplesIsTrueAndStatisticsAreChunked() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_COMPACT_SAMPLES, "true");
+        jobParametersBuilder.addString(JobParametersNames.CONFIG_STATISTICS_CHUNKED, "true");
+        compactSamplesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+
+    @Test
+    public void compactSamplesIsIgnoredByTheKeyedFilesValidator() throws JobParametersInvalidException {
+        jobParametersBuilder.addString(JobParametersNames.DB_COMPACT_SAMPLES, "true");
+        keyedFilesValidator.validate(jobParametersBuilder.toJobParameters());
+    }
+}
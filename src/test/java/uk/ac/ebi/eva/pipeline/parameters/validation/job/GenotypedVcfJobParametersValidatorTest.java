@@ -236,4 +236,27 @@ public class GenotypedVcfJobParametersValidatorTest {
         parameters.remove(JobParametersNames.OUTPUT_DIR_STATISTICS);
         validator.validate(new JobParameters(parameters));
     }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void keyedFilesAreRejectedWithStatisticsCalculatedByOpencga() throws JobParametersInvalidException {
+        Map<String, JobParameter> parameters = new TreeMap<>();
+        parameters.putAll(requiredParameters);
+        parameters.putAll(optionalParameters);
+        parameters.putAll(annotationParameters);
+        parameters.putAll(statsParameters);
+        parameters.put(JobParametersNames.DB_KEYED_FILES, new JobParameter("true"));
+        validator.validate(new JobParameters(parameters));
+    }
+
+    @Test
+    public void keyedFilesAreAcceptedWithStatisticsCalculatedWhileLoading() throws JobParametersInvalidException {
+        Map<String, JobParameter> parameters = new TreeMap<>();
+        parameters.putAll(requiredParameters);
+        parameters.putAll(optionalParameters);
+        parameters.putAll(annotationParameters);
+        parameters.putAll(statsParameters);
+        parameters.put(JobParametersNames.DB_KEYED_FILES, new JobParameter("true"));
+        parameters.put(JobParametersNames.CONFIG_LOAD_STATISTICS, new JobParameter("true"));
+        validator.validate(new JobParameters(parameters));
+    }
 }
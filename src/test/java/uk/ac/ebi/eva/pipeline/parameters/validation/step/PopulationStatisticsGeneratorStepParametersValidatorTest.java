@@ -57,6 +57,10 @@ public class PopulationStatisticsGeneratorStepParametersValidatorTest {
 
         optionalParameters = new TreeMap<>();
         optionalParameters.put(JobParametersNames.STATISTICS_OVERWRITE, new JobParameter("true"));
+        optionalParameters.put(JobParametersNames.CONFIG_STATISTICS_CHUNKED, new JobParameter("true"));
+        optionalParameters.put(JobParametersNames.CONFIG_STATISTICS_NUM_PARTITIONS, new JobParameter("4"));
+        optionalParameters.put(JobParametersNames.DB_KEYED_FILES, new JobParameter("true"));
+        optionalParameters.put(JobParametersNames.DB_COMPACT_SAMPLES, new JobParameter("true"));
     }
 
     @Test
@@ -95,4 +99,16 @@ public class PopulationStatisticsGeneratorStepParametersValidatorTest {
         requiredParameters.remove(JobParametersNames.INPUT_VCF_ID);
         validator.validate(new JobParameters(requiredParameters));
     }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void keyedFilesRequireChunkedStatistics() throws JobParametersInvalidException, IOException {
+        requiredParameters.put(JobParametersNames.DB_KEYED_FILES, new JobParameter("true"));
+        validator.validate(new JobParameters(requiredParameters));
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void compactSamplesRequireChunkedStatistics() throws JobParametersInvalidException, IOException {
+        requiredParameters.put(JobParametersNames.DB_COMPACT_SAMPLES, new JobParameter("true"));
+        validator.validate(new JobParameters(requiredParameters));
+    }
 }
@@ -111,4 +111,10 @@ public class PopulationStatisticsLoaderStepParametersValidatorTest {
         validator.validate(new JobParameters(requiredParameters));
     }
 
+    @Test(expected = JobParametersInvalidException.class)
+    public void keyedFilesRequireStatisticsNotLoadedByThisStep() throws JobParametersInvalidException, IOException {
+        requiredParameters.put(JobParametersNames.DB_KEYED_FILES, new JobParameter("true"));
+        validator.validate(new JobParameters(requiredParameters));
+    }
+
 }
@@ -18,6 +18,15 @@ package uk.ac.ebi.eva.test.utils;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
+import uk.ac.ebi.eva.commons.models.converters.data.KeyedFilesLayout;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantSourceEntryToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantStatsToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter;
+import uk.ac.ebi.eva.commons.models.data.Variant;
+import uk.ac.ebi.eva.commons.models.data.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.models.data.VariantStats;
 
 import static org.junit.Assert.assertEquals;
 import static uk.ac.ebi.eva.commons.models.converters.data.VariantToDBObjectConverter.FILES_FIELD;
@@ -49,6 +58,31 @@ public class DropStudyJobTestUtils {
         assertEquals(expectedStatsCount, variantsCollection.count(variantStats));
     }
 
+    public static void assertPullKeyedStudy(DBCollection variantsCollection, String studyId, long expectedFileCount,
+            long expectedStatsCount) {
+        BasicDBObject exists = new BasicDBObject("$exists", true);
+        BasicDBObject variantFiles = new BasicDBObject(KeyedFilesLayout.studyFilesField(studyId), exists);
+        BasicDBObject variantStats = new BasicDBObject(KeyedFilesLayout.studyStatsField(studyId), exists);
+
+        assertEquals(expectedFileCount, variantsCollection.count(variantFiles));
+        assertEquals(expectedStatsCount, variantsCollection.count(variantStats));
+    }
+
+    /**
+     * Builds a variant document in the {@link KeyedFilesLayout}, with a file and the statistics of a cohort in each
+     * study
+     */
+    public static DBObject buildKeyedVariant(int start, String... studyIds) {
+        Variant variant = new Variant("1", start, start, "A", "T");
+        for (String studyId : studyIds) {
+            VariantSourceEntry sourceEntry = new VariantSourceEntry("fileId", studyId);
+            sourceEntry.setCohortStats("ALL", new VariantStats(variant));
+            variant.addSourceEntry(sourceEntry);
+        }
+        return new VariantToDBObjectConverter(new VariantSourceEntryToDBObjectConverter(), null,
+                                              new VariantStatsToDBObjectConverter(), true).convert(variant);
+    }
+
     public static void assertDropFiles(DBCollection filesCollection, String studyId, long expectedFilesAfterDropStudy) {
         assertEquals(expectedFilesAfterDropStudy, filesCollection.count());
 
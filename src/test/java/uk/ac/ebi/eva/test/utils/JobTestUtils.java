@@ -26,6 +26,7 @@ import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -39,6 +40,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
@@ -165,4 +167,14 @@ public abstract class JobTestUtils {
         assertEquals(ExitStatus.FAILED.getExitCode(), jobExecution.getExitStatus().getExitCode());
         assertEquals(BatchStatus.FAILED, jobExecution.getStatus());
     }
+
+    /**
+     * Step executions of the job, leaving out the executions of the partitions of partitioned steps, which Spring
+     * Batch names as "step:partition".
+     */
+    public static List<StepExecution> getStepExecutionsWithoutPartitions(JobExecution jobExecution) {
+        return jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> !stepExecution.getStepName().contains(":"))
+                .collect(Collectors.toList());
+    }
 }
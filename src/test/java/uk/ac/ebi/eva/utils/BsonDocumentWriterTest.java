@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.utils;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.LazyDBObject;
+import org.bson.BSONObject;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link BsonDocumentWriter}
+ * input: the fields of a document
+ * output: the same BSON that the driver encodes for a DBObject with those fields
+ */
+public class BsonDocumentWriterTest {
+
+    @Test
+    public void documentShouldBeEncodedLikeTheDriverDoes() {
+        BasicDBList positions = new BasicDBList();
+        for (int i = 0; i < 12; i++) {
+            positions.add(i * 100);
+        }
+        DBObject expected = new BasicDBObject("_id", "20_60000_A_G")
+                .append("start", 60000)
+                .append("maf", 0.25)
+                .append("mafAl", null)
+                .append("src", new byte[]{1, 2, 3})
+                .append("ids", Arrays.asList("rs1", "rs2"))
+                .append("empty", new BasicDBList())
+                .append("nested", new BasicDBObject("ünïcödé £", "ñ€😀").append("positions", positions));
+
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeString("_id", "20_60000_A_G");
+        writer.writeInt32("start", 60000);
+        writer.writeDouble("maf", 0.25f);
+        writer.writeString("mafAl", null);
+        writer.writeName("src");
+        writer.writeBinaryData(new byte[]{1, 2, 3});
+        writer.writeName("ids");
+        writer.writeStartArray();
+        writer.writeString("rs1");
+        writer.writeString("rs2");
+        writer.writeEndArray();
+        writer.writeName("empty");
+        writer.writeStartArray();
+        writer.writeEndArray();
+        writer.writeName("nested");
+        writer.writeStartDocument();
+        writer.writeString("ünïcödé £", "ñ€😀");
+        writer.writeName("positions");
+        writer.writeStartArray();
+        for (int i = 0; i < 12; i++) {
+            writer.writeInt32(i * 100);
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+        writer.writeEndDocument();
+
+        assertArrayEquals(encode(expected), encode(writer.toDBObject()));
+    }
+
+    @Test
+    public void bufferShouldBeReusedForTheNextDocument() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeString("_id", String.join("", Collections.nCopies(10000, "A")));
+        writer.writeEndDocument();
+        writer.toDBObject();
+
+        writer.writeStartDocument();
+        writer.writeString("_id", "1_1000_A_C");
+        writer.writeEndDocument();
+        DBObject document = writer.toDBObject();
+
+        assertArrayEquals(encode(new BasicDBObject("_id", "1_1000_A_C")), encode(document));
+        assertEquals("1_1000_A_C", document.get("_id"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void fieldsShouldHaveAName() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeInt32(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unfinishedDocumentsShouldNotBeReturned() {
+        BsonDocumentWriter writer = new BsonDocumentWriter();
+        writer.writeStartDocument();
+        writer.writeName("ids");
+        writer.writeStartArray();
+        writer.writeEndArray();
+        writer.toDBObject();
+    }
+
+    private byte[] encode(BSONObject document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        new RawDBObjectEncoder().writeObject(buffer, document);
+        byte[] raw = buffer.toByteArray();
+
+        // a DBObject is encoded by the driver, and raw documents must be copied as they are
+        if (!(document instanceof LazyDBObject)) {
+            BasicOutputBuffer defaultBuffer = new BasicOutputBuffer();
+            new DefaultDBEncoder().writeObject(defaultBuffer, document);
+            assertArrayEquals(defaultBuffer.toByteArray(), raw);
+        }
+        return raw;
+    }
+}
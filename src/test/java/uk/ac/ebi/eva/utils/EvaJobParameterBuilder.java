@@ -90,6 +90,16 @@ public class EvaJobParameterBuilder extends JobParametersBuilder {
         return this;
     }
 
+    public EvaJobParameterBuilder compactSamples(boolean compactSamples) {
+        addParameter(JobParametersNames.DB_COMPACT_SAMPLES, new JobParameter(Boolean.toString(compactSamples)));
+        return this;
+    }
+
+    public EvaJobParameterBuilder keyedFiles(boolean keyedFiles) {
+        addParameter(JobParametersNames.DB_KEYED_FILES, new JobParameter(Boolean.toString(keyedFiles)));
+        return this;
+    }
+
     public EvaJobParameterBuilder vepPath(String vepPath) {
         addParameter(JobParametersNames.APP_VEP_PATH, new JobParameter(vepPath));
         return this;
@@ -120,6 +130,21 @@ public class EvaJobParameterBuilder extends JobParametersBuilder {
         return this;
     }
 
+    public EvaJobParameterBuilder vepNumProcesses(String vepNumProcesses) {
+        addParameter(JobParametersNames.APP_VEP_NUM_PROCESSES, new JobParameter(vepNumProcesses));
+        return this;
+    }
+
+    public EvaJobParameterBuilder vepLoadDirectly(String vepLoadDirectly) {
+        addParameter(JobParametersNames.APP_VEP_LOAD_DIRECTLY, new JobParameter(vepLoadDirectly));
+        return this;
+    }
+
+    public EvaJobParameterBuilder vepKeepOutput(String vepKeepOutput) {
+        addParameter(JobParametersNames.APP_VEP_KEEP_OUTPUT, new JobParameter(vepKeepOutput));
+        return this;
+    }
+
     public EvaJobParameterBuilder vepTimeout(String vepTimeout) {
         addParameter(JobParametersNames.APP_VEP_TIMEOUT, new JobParameter(vepTimeout));
         return this;
@@ -154,4 +179,69 @@ public class EvaJobParameterBuilder extends JobParametersBuilder {
         addParameter(JobParametersNames.CONFIG_CHUNK_SIZE, new JobParameter(chunkSize));
         return this;
     }
+
+    public EvaJobParameterBuilder chunkTargetMillis(String chunkTargetMillis) {
+        addParameter(JobParametersNames.CONFIG_CHUNK_TARGET_MILLIS, new JobParameter(chunkTargetMillis));
+        return this;
+    }
+
+    public EvaJobParameterBuilder chunkMinSize(String chunkMinSize) {
+        addParameter(JobParametersNames.CONFIG_CHUNK_MIN_SIZE, new JobParameter(chunkMinSize));
+        return this;
+    }
+
+    public EvaJobParameterBuilder chunkMaxSize(String chunkMaxSize) {
+        addParameter(JobParametersNames.CONFIG_CHUNK_MAX_SIZE, new JobParameter(chunkMaxSize));
+        return this;
+    }
+
+    public EvaJobParameterBuilder chunkMemoryBudgetMb(String chunkMemoryBudgetMb) {
+        addParameter(JobParametersNames.CONFIG_CHUNK_MEMORY_BUDGET_MB, new JobParameter(chunkMemoryBudgetMb));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadNumPartitions(String loadNumPartitions) {
+        addParameter(JobParametersNames.CONFIG_LOAD_NUM_PARTITIONS, new JobParameter(loadNumPartitions));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadPipelined(String loadPipelined) {
+        addParameter(JobParametersNames.CONFIG_LOAD_PIPELINED, new JobParameter(loadPipelined));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadInFlightBulks(String loadInFlightBulks) {
+        addParameter(JobParametersNames.CONFIG_LOAD_IN_FLIGHT_BULKS, new JobParameter(loadInFlightBulks));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadInsertOnly(String loadInsertOnly) {
+        addParameter(JobParametersNames.CONFIG_LOAD_INSERT_ONLY, new JobParameter(loadInsertOnly));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadIdFilter(String loadIdFilter) {
+        addParameter(JobParametersNames.CONFIG_LOAD_ID_FILTER, new JobParameter(loadIdFilter));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadDeferIndexes(String loadDeferIndexes) {
+        addParameter(JobParametersNames.CONFIG_LOAD_DEFER_INDEXES, new JobParameter(loadDeferIndexes));
+        return this;
+    }
+
+    public EvaJobParameterBuilder loadStatistics(String loadStatistics) {
+        addParameter(JobParametersNames.CONFIG_LOAD_STATISTICS, new JobParameter(loadStatistics));
+        return this;
+    }
+
+    public EvaJobParameterBuilder statisticsChunked(String statisticsChunked) {
+        addParameter(JobParametersNames.CONFIG_STATISTICS_CHUNKED, new JobParameter(statisticsChunked));
+        return this;
+    }
+
+    public EvaJobParameterBuilder statisticsNumPartitions(String statisticsNumPartitions) {
+        addParameter(JobParametersNames.CONFIG_STATISTICS_NUM_PARTITIONS, new JobParameter(statisticsNumPartitions));
+        return this;
+    }
 }
@@ -1,5 +1,6 @@
 package uk.ac.ebi.eva.utils;
 
+import com.mongodb.BasicDBObject;
 import org.junit.Test;
 import org.opencb.commons.utils.CryptoUtils;
 
@@ -27,4 +28,11 @@ public class MongoDBHelperTest {
         Variant variant = new Variant("1", 1000, 1002, "TAG", alt);
         assertEquals("1_1000_TAG_" + new String(CryptoUtils.encryptSha1(alt)), MongoDBHelper.buildStorageId(variant));
     }
+
+    @Test
+    public void testBuildIndexName() {
+        assertEquals("chr_1_start_1_end_1", MongoDBHelper.buildIndexName(
+                new BasicDBObject("chr", 1).append("start", 1).append("end", 1)));
+        assertEquals("annot.ct.so_1", MongoDBHelper.buildIndexName(new BasicDBObject("annot.ct.so", 1)));
+    }
 }
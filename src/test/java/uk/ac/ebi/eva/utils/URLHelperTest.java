@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for {@link URLHelper}
+ */
+public class URLHelperTest {
+
+    private static final String STUDY_ID = "study";
+
+    private static final String FILE_ID = "file";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void findVepOutputsOfSingleProcessShouldIgnoreShards() throws Exception {
+        String outputDir = temporaryFolder.getRoot().getAbsolutePath();
+        File vepOutput = createFile(URLHelper.resolveVepOutput(outputDir, STUDY_ID, FILE_ID));
+        createFile(URLHelper.resolveVepOutputShard(outputDir, STUDY_ID, FILE_ID, 0));
+        createFile(URLHelper.resolveVepOutputShard(outputDir, STUDY_ID, FILE_ID, 1));
+
+        assertEquals(Collections.singletonList(vepOutput),
+                     URLHelper.findVepOutputs(outputDir, STUDY_ID, FILE_ID, 1));
+    }
+
+    @Test
+    public void findVepOutputsOfSeveralProcessesShouldIgnoreStaleOutputs() throws Exception {
+        String outputDir = temporaryFolder.getRoot().getAbsolutePath();
+        createFile(URLHelper.resolveVepOutput(outputDir, STUDY_ID, FILE_ID));
+        File firstShard = createFile(URLHelper.resolveVepOutputShard(outputDir, STUDY_ID, FILE_ID, 0));
+        File secondShard = createFile(URLHelper.resolveVepOutputShard(outputDir, STUDY_ID, FILE_ID, 1));
+        createFile(URLHelper.resolveVepOutputShard(outputDir, STUDY_ID, FILE_ID, 3));
+
+        List<File> expectedOutputs = Arrays.asList(firstShard, secondShard);
+        assertEquals(expectedOutputs, URLHelper.findVepOutputs(outputDir, STUDY_ID, FILE_ID, 3));
+    }
+
+    @Test
+    public void findVepOutputsShouldReturnEmptyListIfThereAreNoOutputs() {
+        String outputDir = temporaryFolder.getRoot().getAbsolutePath();
+
+        assertEquals(Collections.emptyList(), URLHelper.findVepOutputs(outputDir, STUDY_ID, FILE_ID, 2));
+    }
+
+    private File createFile(String path) throws Exception {
+        File file = new File(path);
+        file.createNewFile();
+        return file;
+    }
+}
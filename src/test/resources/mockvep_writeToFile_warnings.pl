@@ -0,0 +1,50 @@
+# mockvep_writeToFile_warnings.pl
+#
+# This file is a mock for VEP, just as mockvep_writeToFile.pl, with the difference that it writes a long warning to
+# STDERR for every variant, as VEP does for some inputs. If nobody reads STDERR while the process is running, the pipe
+# buffer fills up and this script blocks before reading the rest of STDIN.
+
+use warnings;
+use strict;
+use IO::File;
+
+use Getopt::Long;
+my $file = "/tmp/default_mockvep_writeTofile.txt";
+my $batchSize = 2;
+my $result = GetOptions (
+        "o=s" => \$file, # -o string
+        "buffer_size=i" => \$batchSize # -b integer
+        );
+
+my $fileHandle;
+if  ($file eq "STDOUT") {
+    $fileHandle = IO::Handle->new();
+    $fileHandle->fdopen(fileno(STDOUT),"w");
+} else {
+    $fileHandle = new IO::File;
+    $fileHandle->open(">> $file");
+}
+
+my $warning = "WARNING: " . ("x" x 1000) . "\n";
+my @buffer = ();
+my $line;
+while ($line = <STDIN>) {
+    chomp ($line);
+    print STDERR $warning;
+    push (@buffer, "$line annotated\n");
+
+    my $bufferSize = scalar (@buffer);
+    if ($bufferSize == $batchSize) {
+        foreach my $bufferLine (@buffer) {
+            print $fileHandle $bufferLine;
+        }
+        @buffer = ();
+        $fileHandle->flush();
+    }
+}
+
+foreach my $bufferLine (@buffer) {
+    print $fileHandle $bufferLine;
+}
+
+$fileHandle->close();